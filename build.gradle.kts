@@ -3,6 +3,7 @@ plugins {
 	id("org.springframework.boot") version "3.4.2"
 	id("io.spring.dependency-management") version "1.1.7"
 	id("org.flywaydb.flyway") version "11.3.1"
+	id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "com.example"
@@ -30,6 +31,13 @@ dependencies {
 	implementation("org.springframework.boot:spring-boot-starter-validation")
 	implementation("org.springframework.boot:spring-boot-starter-web")
 	implementation("org.springframework.boot:spring-boot-starter-security")
+	implementation("org.springframework.boot:spring-boot-starter-actuator")
+	implementation("com.github.ben-manes.caffeine:caffeine")
+
+	// Hibernate second-level cache
+	implementation("org.hibernate.orm:hibernate-jcache")
+	implementation("org.hibernate.orm:hibernate-micrometer")
+	implementation(group = "org.ehcache", name = "ehcache", classifier = "jakarta")
 
 	compileOnly("org.projectlombok:lombok")
 	runtimeOnly("org.postgresql:postgresql")
@@ -62,12 +70,22 @@ dependencies {
 	// Flyway
 	implementation("org.flywaydb:flyway-database-postgresql:10.12.0")
 	implementation("org.flywaydb:flyway-core")
+
+	// JMH
+	jmh("org.testcontainers:postgresql:1.20.4")
 }
 
 tasks.withType<Test> {
 	useJUnitPlatform()
 }
 
+jmh {
+	warmupIterations.set(2)
+	iterations.set(5)
+	fork.set(1)
+	resultFormat.set("JSON")
+}
+
 flyway {
 	url = "jdbc:postgresql://localhost:5432/hotel_booking_db"
 	user = "postgres"
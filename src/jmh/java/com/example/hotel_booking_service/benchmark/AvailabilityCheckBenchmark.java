@@ -0,0 +1,79 @@
+package com.example.hotel_booking_service.benchmark;
+
+import com.example.hotel_booking_service.entity.Room;
+import com.example.hotel_booking_service.repository.BookingRepository;
+import com.example.hotel_booking_service.service.availability.RoomAvailabilityIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение проверки пересечения бронирований: JPQL-запрос {@code findOverlappingBookings}
+ * против битовой карты {@link RoomAvailabilityIndex}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AvailabilityCheckBenchmark {
+    private static final int ROOMS = 200;
+    private static final int BOOKINGS_PER_ROOM = 50;
+
+    private BenchmarkEnvironment environment;
+    private BookingRepository bookingRepository;
+    private RoomAvailabilityIndex index;
+    private long firstRoomId;
+    private LocalDate today;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkEnvironment.start();
+        today = LocalDate.now();
+
+        environment.jdbc().update("INSERT INTO hotel (name, city) VALUES ('Bench', 'City')");
+        Long hotelId = environment.jdbc().queryForObject("SELECT max(id) FROM hotel", Long.class);
+        environment.jdbc().update("INSERT INTO users (username, password, email, role) " +
+                "VALUES ('bench', 'password', 'bench@example.com', 'ROLE_USER')");
+        Long userId = environment.jdbc().queryForObject("SELECT max(id) FROM users", Long.class);
+        environment.jdbc().update("INSERT INTO room (name, room_number, price, max_people, hotel_id) " +
+                "SELECT 'Room ' || g, 'bench-' || g, 100, 2, ? FROM generate_series(1, ?) g", hotelId, ROOMS);
+        firstRoomId = environment.jdbc().queryForObject("SELECT min(id) FROM room", Long.class);
+        // Каждая комната занята через ночь: 2 ночи бронь, 2 ночи свободно
+        environment.jdbc().update("INSERT INTO booking (user_id, room_id, check_in, check_out) " +
+                "SELECT ?, r.id, current_date + 4 * g, current_date + 4 * g + 2 " +
+                "FROM room r CROSS JOIN generate_series(1, ?) g", userId, BOOKINGS_PER_ROOM);
+
+        bookingRepository = environment.bean(BookingRepository.class);
+        index = environment.bean(RoomAvailabilityIndex.class);
+        index.rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.close();
+    }
+
+    @Benchmark
+    public void jpqlOverlapQuery(Blackhole blackhole) {
+        Room room = new Room();
+        room.setId(randomRoomId());
+        LocalDate checkIn = randomCheckIn();
+        blackhole.consume(bookingRepository.findOverlappingBookings(room, checkIn, checkIn.plusDays(3)).isEmpty());
+    }
+
+    @Benchmark
+    public void bitmapIndex(Blackhole blackhole) {
+        LocalDate checkIn = randomCheckIn();
+        blackhole.consume(index.isAvailable(randomRoomId(), checkIn, checkIn.plusDays(3)));
+    }
+
+    private long randomRoomId() {
+        return firstRoomId + ThreadLocalRandom.current().nextInt(ROOMS);
+    }
+
+    private LocalDate randomCheckIn() {
+        return today.plusDays(1 + ThreadLocalRandom.current().nextInt(4 * BOOKINGS_PER_ROOM));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.hotel_booking_service.benchmark;
+
+import com.example.hotel_booking_service.HotelBookingServiceApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Окружение для бенчмарков: Postgres в Testcontainers и поднятый поверх него контекст приложения.
+ * Схема создается миграциями Flyway, как в рабочем окружении.
+ */
+public final class BenchmarkEnvironment implements AutoCloseable {
+    private final PostgreSQLContainer<?> postgres;
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkEnvironment(PostgreSQLContainer<?> postgres, ConfigurableApplicationContext context) {
+        this.postgres = postgres;
+        this.context = context;
+    }
+
+    /**
+     * Запускает Postgres и контекст приложения.
+     *
+     * @param extraProperties дополнительные свойства в формате {@code key=value}
+     * @return запущенное окружение
+     */
+    public static BenchmarkEnvironment start(String... extraProperties) {
+        PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17.2")
+                .withDatabaseName("hotel_booking_db")
+                .withUsername("postgres")
+                .withPassword("postgres");
+        postgres.start();
+
+        List<String> properties = new ArrayList<>(List.of(
+                "spring.datasource.url=" + postgres.getJdbcUrl(),
+                "spring.datasource.username=" + postgres.getUsername(),
+                "spring.datasource.password=" + postgres.getPassword(),
+                "logging.level.root=WARN",
+                "app.outbox.relay.enabled=false"
+        ));
+        properties.addAll(List.of(extraProperties));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(HotelBookingServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(properties.toArray(String[]::new))
+                .run();
+        return new BenchmarkEnvironment(postgres, context);
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public JdbcTemplate jdbc() {
+        return context.getBean(JdbcTemplate.class);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        postgres.stop();
+    }
+}
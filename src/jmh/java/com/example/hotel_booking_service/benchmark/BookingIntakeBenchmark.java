@@ -0,0 +1,100 @@
+package com.example.hotel_booking_service.benchmark;
+
+import com.example.hotel_booking_service.service.BookingService;
+import com.example.hotel_booking_service.service.availability.RoomAvailabilityIndex;
+import com.example.hotel_booking_service.service.mailbox.RoomMailboxExecutor;
+import com.example.hotel_booking_service.web.dto.BookingRequestDto;
+import com.example.hotel_booking_service.web.dto.BookingResponseDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение синхронного {@link BookingService#bookRoom} и очередей номеров {@link RoomMailboxExecutor}
+ * при нагрузке на несколько популярных номеров.
+ * <p>
+ * Режим {@code SampleTime} дает распределение задержек (в отчете есть p0.99), режим {@code Throughput} —
+ * пропускную способность. Асинхронный вариант дожидается результата, чтобы сравнивать полное время бронирования.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.SampleTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(32)
+public class BookingIntakeBenchmark {
+    private static final int HOT_ROOMS = 4;
+    private static final int DAYS = 3000;
+
+    private BenchmarkEnvironment environment;
+    private BookingService bookingService;
+    private RoomMailboxExecutor roomMailboxExecutor;
+    private long userId;
+    private long firstRoomId;
+    private LocalDate today;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkEnvironment.start();
+        today = LocalDate.now();
+
+        environment.jdbc().update("INSERT INTO hotel (name, city) VALUES ('Bench', 'City')");
+        Long hotelId = environment.jdbc().queryForObject("SELECT max(id) FROM hotel", Long.class);
+        environment.jdbc().update("INSERT INTO users (username, password, email, role) " +
+                "VALUES ('bench', 'password', 'bench@example.com', 'ROLE_USER')");
+        userId = environment.jdbc().queryForObject("SELECT max(id) FROM users", Long.class);
+        environment.jdbc().update("INSERT INTO room (name, room_number, price, max_people, hotel_id) " +
+                "SELECT 'Room ' || g, 'bench-' || g, 100, 2, ? FROM generate_series(1, ?) g", hotelId, HOT_ROOMS);
+        firstRoomId = environment.jdbc().queryForObject("SELECT min(id) FROM room", Long.class);
+
+        bookingService = environment.bean(BookingService.class);
+        roomMailboxExecutor = environment.bean(RoomMailboxExecutor.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void clearBookings() {
+        environment.jdbc().update("DELETE FROM booking");
+        environment.jdbc().update("DELETE FROM outbox_event");
+        environment.bean(RoomAvailabilityIndex.class).rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.close();
+    }
+
+    @Benchmark
+    public BookingResponseDto synchronousBookRoom() {
+        BookingRequestDto request = randomRequest();
+        try {
+            return bookingService.bookRoom(request);
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public BookingResponseDto roomMailbox() {
+        BookingRequestDto request = randomRequest();
+        try {
+            return roomMailboxExecutor.submit(request.getRoomId(), () -> bookingService.bookRoom(request)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IllegalStateException) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    private BookingRequestDto randomRequest() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDate checkIn = today.plusDays(1 + random.nextInt(DAYS));
+        BookingRequestDto request = new BookingRequestDto();
+        request.setUserId(userId);
+        request.setRoomId(firstRoomId + random.nextInt(HOT_ROOMS));
+        request.setCheckIn(checkIn);
+        request.setCheckOut(checkIn.plusDays(1 + random.nextInt(3)));
+        return request;
+    }
+}
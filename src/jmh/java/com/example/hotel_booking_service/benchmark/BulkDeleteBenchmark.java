@@ -0,0 +1,79 @@
+package com.example.hotel_booking_service.benchmark;
+
+import com.example.hotel_booking_service.repository.HotelRepository;
+import com.example.hotel_booking_service.repository.RoomRepository;
+import com.example.hotel_booking_service.service.HotelService;
+import com.example.hotel_booking_service.service.RoomService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Удаление 10 000 номеров одного отеля, у каждого номера есть период недоступности и строка календаря занятости.
+ * <p>
+ * {@code deleteRooms} и {@code deleteHotel} — множественные запросы {@link RoomService#deleteMany} и
+ * {@link HotelService#deleteMany}. {@code deleteRoomsPerEntity} и {@code deleteHotelPerEntity} — для сравнения
+ * прежний путь: загрузка сущностей и {@code deleteAll} с отдельным DELETE на каждую строку.
+ * Номера создаются заново перед каждым вызовом, поэтому измеряется одиночный вызов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class BulkDeleteBenchmark {
+    private static final int ROOMS = 10_000;
+
+    private BenchmarkEnvironment environment;
+    private TransactionTemplate transactionTemplate;
+    private long hotelId;
+    private List<Long> roomIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkEnvironment.start();
+        transactionTemplate = environment.bean(TransactionTemplate.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void createRooms() {
+        environment.jdbc().update("INSERT INTO hotel (name, city) VALUES ('Bench', 'City')");
+        hotelId = environment.jdbc().queryForObject("SELECT max(id) FROM hotel", Long.class);
+        LocalDate from = LocalDate.now().plusDays(7);
+        environment.jdbc().update("INSERT INTO room (name, room_number, price, max_people, hotel_id, unavailable_dates) " +
+                        "SELECT 'Room ' || g, 'bench-' || ? || '-' || g, 100, 2, ?, datemultirange(daterange(?, ?)) " +
+                        "FROM generate_series(1, ?) g",
+                hotelId, hotelId, from, from.plusDays(2), ROOMS);
+        roomIds = environment.jdbc().queryForList("SELECT id FROM room WHERE hotel_id = ?", Long.class, hotelId);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.close();
+    }
+
+    @Benchmark
+    public void deleteRooms() {
+        environment.bean(RoomService.class).deleteMany(roomIds);
+    }
+
+    @Benchmark
+    public void deleteRoomsPerEntity() {
+        RoomRepository roomRepository = environment.bean(RoomRepository.class);
+        transactionTemplate.executeWithoutResult(status -> roomRepository.deleteAll(roomRepository.findAllById(roomIds)));
+    }
+
+    @Benchmark
+    public void deleteHotel() {
+        environment.bean(HotelService.class).deleteMany(List.of(hotelId));
+    }
+
+    @Benchmark
+    public void deleteHotelPerEntity() {
+        HotelRepository hotelRepository = environment.bean(HotelRepository.class);
+        transactionTemplate.executeWithoutResult(status -> hotelRepository.deleteAll(hotelRepository.findAllById(List.of(hotelId))));
+    }
+}
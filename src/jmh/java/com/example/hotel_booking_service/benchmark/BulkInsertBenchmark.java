@@ -0,0 +1,80 @@
+package com.example.hotel_booking_service.benchmark;
+
+import com.example.hotel_booking_service.entity.Hotel;
+import com.example.hotel_booking_service.entity.Room;
+import com.example.hotel_booking_service.repository.HotelRepository;
+import com.example.hotel_booking_service.repository.RoomRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Пропускная способность массовой вставки номеров через {@code saveAll}.
+ * <p>
+ * {@code batchSize = 1} воспроизводит прежнее поведение с IDENTITY: каждая строка уходит отдельным INSERT.
+ * {@code batchSize = 50} — пакеты JDBC, которые драйвер переписывает в многострочный INSERT.
+ * Сама стратегия IDENTITY в бенчмарке не воспроизводится: схема после миграции V8 использует последовательности.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BulkInsertBenchmark {
+    private static final int ROOMS_PER_OPERATION = 1000;
+
+    @Param({"1", "50"})
+    public int batchSize;
+
+    private final AtomicLong roomNumbers = new AtomicLong();
+
+    private BenchmarkEnvironment environment;
+    private RoomRepository roomRepository;
+    private TransactionTemplate transactionTemplate;
+    private Hotel hotel;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkEnvironment.start(
+                "spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                "spring.datasource.hikari.data-source-properties.reWriteBatchedInserts=" + (batchSize > 1));
+        roomRepository = environment.bean(RoomRepository.class);
+        transactionTemplate = environment.bean(TransactionTemplate.class);
+
+        Hotel newHotel = new Hotel();
+        newHotel.setName("Bench");
+        hotel = environment.bean(HotelRepository.class).save(newHotel);
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearRooms() {
+        environment.jdbc().update("DELETE FROM room");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.close();
+    }
+
+    /**
+     * Вставляет {@value #ROOMS_PER_OPERATION} номеров в одной транзакции, результат пересчитывается на один номер.
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROOMS_PER_OPERATION)
+    public void saveAllRooms() {
+        List<Room> rooms = new ArrayList<>(ROOMS_PER_OPERATION);
+        for (int i = 0; i < ROOMS_PER_OPERATION; i++) {
+            Room room = new Room();
+            room.setName("Room");
+            room.setRoomNumber("bench-" + roomNumbers.incrementAndGet());
+            room.setPrice(BigDecimal.valueOf(100));
+            room.setMaxPeople(2);
+            room.setHotel(hotel);
+            rooms.add(room);
+        }
+        transactionTemplate.executeWithoutResult(status -> roomRepository.saveAll(rooms));
+    }
+}
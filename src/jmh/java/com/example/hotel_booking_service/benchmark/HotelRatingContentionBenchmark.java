@@ -0,0 +1,76 @@
+package com.example.hotel_booking_service.benchmark;
+
+import com.example.hotel_booking_service.repository.HotelRatingDelta;
+import com.example.hotel_booking_service.repository.HotelRepository;
+import com.example.hotel_booking_service.service.rating.HotelRatingAccumulator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 64 потока голосуют за один отель.
+ * <p>
+ * {@code accumulator} — оценка в {@link HotelRatingAccumulator}, сброс в базу раз в итерацию не измеряется.
+ * {@code synchronizedReadModifyWrite} — для сравнения сумма и количество под общей блокировкой в памяти,
+ * {@code rowUpdatePerVote} — атомарный {@code UPDATE} строки отеля на каждую оценку, как без накопителя.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(64)
+public class HotelRatingContentionBenchmark {
+    private BenchmarkEnvironment environment;
+    private HotelRepository hotelRepository;
+    private HotelRatingAccumulator accumulator;
+    private long hotelId;
+
+    private final Object lock = new Object();
+    private long lockedSum;
+    private long lockedCount;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkEnvironment.start();
+        environment.jdbc().update("INSERT INTO hotel (name, city, rating, numberofratings) VALUES ('Bench', 'City', 4, 100)");
+        hotelId = environment.jdbc().queryForObject("SELECT max(id) FROM hotel", Long.class);
+        hotelRepository = environment.bean(HotelRepository.class);
+        accumulator = new HotelRatingAccumulator(hotelRepository, event -> { },
+                environment.bean(TransactionTemplate.class));
+    }
+
+    @TearDown(Level.Iteration)
+    public void flush() {
+        accumulator.flush();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.close();
+    }
+
+    @Benchmark
+    public void accumulator() {
+        accumulator.add(hotelId, mark());
+    }
+
+    @Benchmark
+    public long synchronizedReadModifyWrite() {
+        int mark = mark();
+        synchronized (lock) {
+            lockedSum += mark;
+            return ++lockedCount;
+        }
+    }
+
+    @Benchmark
+    public int[] rowUpdatePerVote() {
+        return hotelRepository.addRatings(List.of(new HotelRatingDelta(hotelId, mark(), 1)));
+    }
+
+    private static int mark() {
+        return 1 + ThreadLocalRandom.current().nextInt(5);
+    }
+}
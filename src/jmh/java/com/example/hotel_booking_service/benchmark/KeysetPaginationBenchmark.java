@@ -0,0 +1,80 @@
+package com.example.hotel_booking_service.benchmark;
+
+import com.example.hotel_booking_service.entity.Room;
+import com.example.hotel_booking_service.repository.specification.RoomFilter;
+import com.example.hotel_booking_service.service.RoomService;
+import com.example.hotel_booking_service.service.scroll.ScrollCursor;
+import com.example.hotel_booking_service.service.scroll.ScrollTokenCodec;
+import com.example.hotel_booking_service.web.dto.RoomDto;
+import com.example.hotel_booking_service.web.dto.ScrollModel;
+import com.example.hotel_booking_service.web.dto.SlicedModel;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время получения N-й страницы номеров, отсортированных по цене.
+ * <p>
+ * {@code offsetPage} — OFFSET/LIMIT в режиме {@code mode=slice} (без подсчета общего количества), Postgres читает и отбрасывает все предыдущие строки.
+ * {@code keysetPage} — продолжение по токену {@code GET /api/v1/rooms/scroll}, время не зависит от номера страницы.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class KeysetPaginationBenchmark {
+    private static final int ROOMS = 200_000;
+    private static final int HOTELS = 1_000;
+    private static final int PAGE_SIZE = 20;
+    private static final Sort SORT = Sort.by("price", "id");
+    private static final RoomFilter NO_FILTER = new RoomFilter(null, null, null, null, null, null, null, null);
+
+    @Param({"1", "100", "1000", "5000"})
+    public int pageNumber;
+
+    private BenchmarkEnvironment environment;
+    private RoomService roomService;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkEnvironment.start();
+
+        environment.jdbc().update("INSERT INTO hotel (name, city) SELECT 'Hotel ' || g, 'City' FROM generate_series(1, ?) g", HOTELS);
+        Long firstHotelId = environment.jdbc().queryForObject("SELECT min(id) FROM hotel", Long.class);
+        environment.jdbc().update("INSERT INTO room (name, room_number, price, max_people, hotel_id) " +
+                        "SELECT 'Room ' || g, 'bench-' || g, 50 + g % 200, 1 + g % 4, ? + g % ? FROM generate_series(1, ?) g",
+                firstHotelId, HOTELS, ROOMS);
+        environment.jdbc().execute("ANALYZE");
+
+        roomService = environment.bean(RoomService.class);
+
+        // Токен, который клиент получил бы вместе с предыдущей страницей
+        ScrollTokenCodec codec = environment.bean(ScrollTokenCodec.class);
+        ScrollCursor cursor = codec.open(Room.class, null, PAGE_SIZE, SORT, Set.of("price"));
+        Map<String, Object> last = environment.jdbc().queryForMap(
+                "SELECT price, id FROM room ORDER BY price, id OFFSET ? LIMIT 1", pageNumber * PAGE_SIZE - 1);
+        token = codec.encode(cursor, ScrollPosition.forward(Map.of(
+                "price", (BigDecimal) last.get("price"), "id", ((Number) last.get("id")).longValue())));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.close();
+    }
+
+    @Benchmark
+    public SlicedModel<RoomDto> offsetPage() {
+        return roomService.getSlice(NO_FILTER, PageRequest.of(pageNumber, PAGE_SIZE, SORT));
+    }
+
+    @Benchmark
+    public ScrollModel<RoomDto> keysetPage() {
+        return roomService.scroll(NO_FILTER, token, PAGE_SIZE, Sort.unsorted());
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.hotel_booking_service.benchmark;
+
+import com.example.hotel_booking_service.entity.DateRanges;
+import com.example.hotel_booking_service.service.availability.FreeGapConsumer;
+import com.example.hotel_booking_service.service.availability.RoomAvailabilityIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запросы к индексу занятости в памяти: около 40 бронирований и 4 периода недоступности на номер на два года вперед.
+ * <p>
+ * {@code overlap}, {@code nextFreeDay} и {@code freeGaps} работают с днями эпохи без создания объектов.
+ * {@code overlapByLocalDates} — для сравнения та же проверка перебором пар {@link LocalDate}, как по списку
+ * {@code BookingRepository.findByRoomId}.
+ * Базы данных не требуется: индекс заполняется напрямую.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RoomAvailabilityQueryBenchmark {
+    private static final int ROOMS = 1_000;
+    private static final int DAYS = 730;
+
+    private RoomAvailabilityIndex index;
+    private List<List<LocalDate[]>> stays;
+    private int today;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new RoomAvailabilityIndex(null, null);
+        stays = new ArrayList<>(ROOMS);
+        LocalDate base = LocalDate.now();
+        today = (int) base.toEpochDay();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (long roomId = 0; roomId < ROOMS; roomId++) {
+            List<LocalDate[]> roomStays = new ArrayList<>();
+            int day = random.nextInt(7);
+            while (day < DAYS) {
+                int nights = 2 + random.nextInt(5);
+                LocalDate checkIn = base.plusDays(day);
+                index.tryReserve(roomId, checkIn, checkIn.plusDays(nights));
+                roomStays.add(new LocalDate[]{checkIn, checkIn.plusDays(nights)});
+                day += nights + 5 + random.nextInt(20);
+            }
+            stays.add(roomStays);
+            List<DateRanges.Range> closed = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                LocalDate from = base.plusDays(random.nextInt(DAYS));
+                closed.add(new DateRanges.Range(from, from.plusDays(1 + random.nextInt(3))));
+            }
+            index.updateUnavailable(roomId, DateRanges.of(closed));
+        }
+    }
+
+    @Benchmark
+    public boolean overlap() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int checkIn = today + random.nextInt(DAYS);
+        return index.isFree((long) random.nextInt(ROOMS), checkIn, checkIn + 3);
+    }
+
+    @Benchmark
+    public boolean overlapByLocalDates() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDate checkIn = LocalDate.ofEpochDay(today + random.nextInt(DAYS));
+        LocalDate checkOut = checkIn.plusDays(3);
+        for (LocalDate[] stay : stays.get(random.nextInt(ROOMS))) {
+            if (stay[0].isBefore(checkOut) && checkIn.isBefore(stay[1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Benchmark
+    public int nextFreeDay() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return index.nextFreeDay((long) random.nextInt(ROOMS), today + random.nextInt(DAYS), 7);
+    }
+
+    @Benchmark
+    public void freeGaps(GapState state) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = today + random.nextInt(DAYS - 30);
+        index.forEachFreeGap((long) random.nextInt(ROOMS), from, from + 30, state.consumer);
+    }
+
+    /**
+     * Получатель промежутков создается один раз на поток, чтобы не измерять выделение памяти под лямбду.
+     */
+    @State(Scope.Thread)
+    public static class GapState {
+        FreeGapConsumer consumer;
+
+        @Setup(Level.Trial)
+        public void setUp(Blackhole blackhole) {
+            consumer = (from, to) -> blackhole.consume(to - from);
+        }
+    }
+}
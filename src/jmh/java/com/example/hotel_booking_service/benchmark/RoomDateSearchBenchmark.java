@@ -0,0 +1,96 @@
+package com.example.hotel_booking_service.benchmark;
+
+import com.example.hotel_booking_service.entity.Room;
+import com.example.hotel_booking_service.repository.RoomRepository;
+import com.example.hotel_booking_service.repository.specification.RoomFilter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск свободных номеров по датам на 100 000 номеров с бронированиями на два года вперед.
+ * <p>
+ * {@code calendarSearch} — {@link RoomFilter} поверх календаря {@code room_availability_month}, как в
+ * {@code GET /api/v1/rooms?checkIn&checkOut}, вместе с подсчетом общего числа результатов.
+ * {@code bookingTableSearch} — тот же поиск коррелированным подзапросом к таблице {@code booking}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RoomDateSearchBenchmark {
+    private static final int ROOMS = 100_000;
+    private static final int HOTELS = 1_000;
+    private static final int DAYS = 730;
+    private static final int ROOMS_PER_STATEMENT = 10_000;
+
+    private BenchmarkEnvironment environment;
+    private RoomRepository roomRepository;
+    private LocalDate today;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkEnvironment.start();
+        today = LocalDate.now();
+
+        environment.jdbc().update("INSERT INTO hotel (name, city) SELECT 'Hotel ' || g, 'City' FROM generate_series(1, ?) g", HOTELS);
+        Long firstHotelId = environment.jdbc().queryForObject("SELECT min(id) FROM hotel", Long.class);
+        environment.jdbc().update("INSERT INTO users (username, password, email, role) " +
+                "VALUES ('bench', 'password', 'bench@example.com', 'ROLE_USER')");
+        Long userId = environment.jdbc().queryForObject("SELECT max(id) FROM users", Long.class);
+        environment.jdbc().update("INSERT INTO room (name, room_number, price, max_people, hotel_id) " +
+                "SELECT 'Room ' || g, 'bench-' || g, 50 + g % 200, 1 + g % 4, ? + g % ? FROM generate_series(1, ?) g",
+                firstHotelId, HOTELS, ROOMS);
+        Long firstRoomId = environment.jdbc().queryForObject("SELECT min(id) FROM room", Long.class);
+
+        // Бронирования от 2 до 6 ночей с промежутками от 5 до 24 ночей на два года вперед, около 40 на номер.
+        // Вставляем частями, чтобы триггер календаря пересчитывал ограниченное число месяцев за раз
+        for (long from = firstRoomId; from < firstRoomId + ROOMS; from += ROOMS_PER_STATEMENT) {
+            environment.jdbc().update("""
+                    WITH RECURSIVE stays(room_id, check_in, nights) AS (
+                        SELECT id, current_date + (id % 7)::int, 2 + (id % 5)::int
+                        FROM room WHERE id >= ? AND id < ?
+                        UNION ALL
+                        SELECT room_id, check_in + nights + 5 + ((room_id + check_in - current_date) % 20)::int,
+                               2 + ((room_id * 31 + check_in - current_date) % 5)::int
+                        FROM stays WHERE check_in < current_date + ?
+                    )
+                    INSERT INTO booking (user_id, room_id, check_in, check_out)
+                    SELECT ?, room_id, check_in, check_in + nights FROM stays
+                    """, from, from + ROOMS_PER_STATEMENT, DAYS, userId);
+        }
+        environment.jdbc().execute("ANALYZE");
+
+        roomRepository = environment.bean(RoomRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.close();
+    }
+
+    @Benchmark
+    public Page<Room> calendarSearch() {
+        LocalDate checkIn = randomCheckIn();
+        RoomFilter filter = new RoomFilter(null, null, null, null, 2, checkIn, checkIn.plusDays(3), null);
+        return roomRepository.findAll(filter.toSpecification(), PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public List<Long> bookingTableSearch() {
+        LocalDate checkIn = randomCheckIn();
+        String freeRooms = "FROM room r WHERE r.max_people = 2 AND NOT EXISTS (" +
+                "SELECT 1 FROM booking b WHERE b.room_id = r.id AND b.stay && daterange(?, ?, '[)'))";
+        environment.jdbc().queryForObject("SELECT count(*) " + freeRooms, Long.class, checkIn, checkIn.plusDays(3));
+        return environment.jdbc().queryForList("SELECT r.id " + freeRooms + " ORDER BY r.id LIMIT 20",
+                Long.class, checkIn, checkIn.plusDays(3));
+    }
+
+    private LocalDate randomCheckIn() {
+        return today.plusDays(1 + ThreadLocalRandom.current().nextInt(DAYS - 3));
+    }
+}
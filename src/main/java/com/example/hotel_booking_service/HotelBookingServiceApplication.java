@@ -1,11 +1,16 @@
 package com.example.hotel_booking_service;
 
+import com.example.hotel_booking_service.repository.SliceAwareJpaRepository;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableMongoRepositories
+@EnableJpaRepositories(repositoryBaseClass = SliceAwareJpaRepository.class)
+@EnableScheduling
 public class HotelBookingServiceApplication {
 
 	public static void main(String[] args) {
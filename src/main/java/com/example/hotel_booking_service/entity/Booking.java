@@ -5,6 +5,8 @@ import lombok.Getter;
 import lombok.Setter;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
 
 @Getter
 @Setter
@@ -12,7 +14,8 @@ import java.time.LocalDate;
 @Table(name = "booking")
 public class Booking {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_seq")
+    @SequenceGenerator(name = "booking_seq", sequenceName = "booking_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -28,4 +31,17 @@ public class Booking {
 
     @Column(name = "check_out", nullable = false)
     private LocalDate checkOut;
+
+    @Column(name = "status", nullable = false, length = 16)
+    @Enumerated(EnumType.STRING)
+    private BookingStatus status = BookingStatus.CONFIRMED;
+
+    @Column(name = "hold_id", unique = true)
+    private UUID holdId;
+
+    /**
+     * Срок удержания в UTC, задан только у бронирования в статусе {@link BookingStatus#HELD}.
+     */
+    @Column(name = "hold_expires_at")
+    private LocalDateTime holdExpiresAt;
 }
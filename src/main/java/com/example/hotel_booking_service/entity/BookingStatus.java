@@ -0,0 +1,15 @@
+package com.example.hotel_booking_service.entity;
+
+/**
+ * Состояние бронирования.
+ */
+public enum BookingStatus {
+    /**
+     * Номер удержан на время оплаты до {@code hold_expires_at}.
+     */
+    HELD,
+    /**
+     * Бронирование подтверждено.
+     */
+    CONFIRMED
+}
@@ -0,0 +1,40 @@
+package com.example.hotel_booking_service.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Квитанция асинхронного бронирования.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "booking_ticket")
+public class BookingTicket {
+    @Id
+    @Column(name = "id", nullable = false)
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private BookingTicketStatus status;
+
+    /**
+     * Ответ на бронирование в формате JSON. Заполнен в статусе {@link BookingTicketStatus#COMPLETED}.
+     */
+    @Column(name = "response", columnDefinition = "TEXT")
+    private String response;
+
+    /**
+     * Причина отказа. Заполнена в статусе {@link BookingTicketStatus#FAILED}.
+     */
+    @Column(name = "error", columnDefinition = "TEXT")
+    private String error;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,19 @@
+package com.example.hotel_booking_service.entity;
+
+/**
+ * Состояние квитанции асинхронного бронирования.
+ */
+public enum BookingTicketStatus {
+    /**
+     * Бронирование ждет в очереди номера или выполняется.
+     */
+    PENDING,
+    /**
+     * Бронирование выполнено.
+     */
+    COMPLETED,
+    /**
+     * Бронирование отклонено или не выполнено.
+     */
+    FAILED
+}
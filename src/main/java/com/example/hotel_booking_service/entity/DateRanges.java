@@ -0,0 +1,209 @@
+package com.example.hotel_booking_service.entity;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Неизменяемый набор непересекающихся диапазонов дат {@code [from, to)}, упорядоченных по началу.
+ * <p>
+ * Границы хранятся массивом дней эпохи: полгода ремонта занимают две границы, а не 180 объектов {@link LocalDate}.
+ * Пересечение с периодом проверяется двоичным поиском. Текстовая форма совпадает с литералом
+ * {@code datemultirange} Postgres, например {@code {[2025-01-01,2025-01-05),[2025-02-01,2025-02-03)}}.
+ */
+public final class DateRanges {
+    private static final DateRanges EMPTY = new DateRanges(new int[0]);
+    private static final Pattern RANGE = Pattern.compile("\\[(\\d{4}-\\d{2}-\\d{2}),(\\d{4}-\\d{2}-\\d{2})\\)");
+
+    /**
+     * Границы диапазонов: {@code from0, to0, from1, to1, ...}.
+     */
+    private final int[] bounds;
+
+    private DateRanges(int[] bounds) {
+        this.bounds = bounds;
+    }
+
+    public static DateRanges empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Собирает набор из диапазонов в любом порядке: пересекающиеся и смежные диапазоны сливаются.
+     *
+     * @param ranges диапазоны
+     * @return набор диапазонов
+     */
+    public static DateRanges of(Collection<Range> ranges) {
+        if (ranges.isEmpty()) {
+            return EMPTY;
+        }
+        List<Range> sorted = new ArrayList<>(ranges);
+        sorted.sort(Comparator.comparing(Range::from));
+        int[] bounds = new int[sorted.size() * 2];
+        int count = 0;
+        for (Range range : sorted) {
+            int from = (int) range.from().toEpochDay();
+            int to = (int) range.to().toEpochDay();
+            if (count > 0 && from <= bounds[count - 1]) {
+                bounds[count - 1] = Math.max(bounds[count - 1], to);
+            } else {
+                bounds[count++] = from;
+                bounds[count++] = to;
+            }
+        }
+        return new DateRanges(Arrays.copyOf(bounds, count));
+    }
+
+    /**
+     * Разбирает литерал {@code datemultirange}.
+     *
+     * @param literal текстовое представление, как его возвращает Postgres
+     * @return набор диапазонов
+     * @throws IllegalArgumentException если литерал не является ограниченным multirange дат
+     */
+    public static DateRanges parse(String literal) {
+        String trimmed = literal.strip();
+        if (!trimmed.startsWith("{") || !trimmed.endsWith("}")) {
+            throw new IllegalArgumentException("Invalid date ranges: " + literal);
+        }
+        List<Range> ranges = new ArrayList<>();
+        Matcher matcher = RANGE.matcher(trimmed);
+        int position = 1;
+        while (matcher.find()) {
+            // Диапазоны идут подряд через запятую, другие символы между ними недопустимы
+            boolean first = ranges.isEmpty();
+            if (matcher.start() != (first ? position : position + 1) || (!first && trimmed.charAt(position) != ',')) {
+                throw new IllegalArgumentException("Invalid date ranges: " + literal);
+            }
+            ranges.add(new Range(LocalDate.parse(matcher.group(1)), LocalDate.parse(matcher.group(2))));
+            position = matcher.end();
+        }
+        if (position != trimmed.length() - 1) {
+            throw new IllegalArgumentException("Invalid date ranges: " + literal);
+        }
+        return of(ranges);
+    }
+
+    /**
+     * Проверяет, пересекается ли набор с периодом {@code [from, to)}.
+     */
+    public boolean intersects(LocalDate from, LocalDate to) {
+        return intersects((int) from.toEpochDay(), (int) to.toEpochDay());
+    }
+
+    /**
+     * Проверяет, пересекается ли набор с периодом {@code [fromDay, toDay)} в днях эпохи.
+     */
+    public boolean intersects(int fromDay, int toDay) {
+        int i = firstEndingAfter(fromDay);
+        return i < size() && bounds[2 * i] < toDay;
+    }
+
+    /**
+     * Возвращает первый день не раньше {@code day}, не попадающий ни в один диапазон.
+     *
+     * @param day день эпохи
+     * @return сам день или конец диапазона, в который он попадает
+     */
+    public int skip(int day) {
+        int i = firstEndingAfter(day);
+        return i < size() && bounds[2 * i] <= day ? bounds[2 * i + 1] : day;
+    }
+
+    /**
+     * Возвращает начало ближайшего диапазона, который начинается не раньше {@code day}.
+     *
+     * @param day день эпохи
+     * @return день эпохи или {@link Integer#MAX_VALUE}, если таких диапазонов нет
+     */
+    public int nextStart(int day) {
+        int i = firstEndingAfter(day);
+        if (i < size() && bounds[2 * i] < day) {
+            i++;
+        }
+        return i < size() ? bounds[2 * i] : Integer.MAX_VALUE;
+    }
+
+    public boolean contains(LocalDate date) {
+        return intersects(date, date.plusDays(1));
+    }
+
+    public boolean isEmpty() {
+        return bounds.length == 0;
+    }
+
+    /**
+     * @return количество диапазонов
+     */
+    public int size() {
+        return bounds.length / 2;
+    }
+
+    public List<Range> ranges() {
+        List<Range> ranges = new ArrayList<>(size());
+        for (int i = 0; i < bounds.length; i += 2) {
+            ranges.add(new Range(LocalDate.ofEpochDay(bounds[i]), LocalDate.ofEpochDay(bounds[i + 1])));
+        }
+        return ranges;
+    }
+
+    /**
+     * Двоичный поиск первого диапазона, который заканчивается позже {@code day}.
+     */
+    private int firstEndingAfter(int day) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (bounds[2 * mid + 1] <= day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof DateRanges other && Arrays.equals(bounds, other.bounds);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bounds);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder literal = new StringBuilder("{");
+        for (int i = 0; i < bounds.length; i += 2) {
+            if (i > 0) {
+                literal.append(',');
+            }
+            literal.append('[').append(LocalDate.ofEpochDay(bounds[i]))
+                    .append(',').append(LocalDate.ofEpochDay(bounds[i + 1])).append(')');
+        }
+        return literal.append('}').toString();
+    }
+
+    /**
+     * Диапазон дат {@code [from, to)}.
+     *
+     * @param from первая дата диапазона
+     * @param to дата, следующая за последней
+     */
+    public record Range(LocalDate from, LocalDate to) {
+        public Range {
+            if (from == null || to == null || !to.isAfter(from)) {
+                throw new IllegalArgumentException("Range end must be after its start");
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.hotel_booking_service.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Преобразует {@link DateRanges} в текстовый литерал {@code datemultirange} и обратно.
+ * Приведение типа при записи задается на колонке через {@code @ColumnTransformer}.
+ */
+@Converter
+public class DateRangesConverter implements AttributeConverter<DateRanges, String> {
+
+    @Override
+    public String convertToDatabaseColumn(DateRanges ranges) {
+        return ranges == null ? DateRanges.empty().toString() : ranges.toString();
+    }
+
+    @Override
+    public DateRanges convertToEntityAttribute(String literal) {
+        return literal == null ? DateRanges.empty() : DateRanges.parse(literal);
+    }
+}
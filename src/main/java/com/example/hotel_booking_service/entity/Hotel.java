@@ -6,6 +6,8 @@ import jakarta.validation.constraints.Min;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -14,9 +16,17 @@ import java.util.List;
 @Setter
 @Entity
 @Table(name = "hotel")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Hotel.CACHE_REGION)
 public class Hotel {
+    /**
+     * Регион кэша второго уровня, размер и время жизни задаются в {@code ehcache.xml}.
+     */
+    public static final String CACHE_REGION = "hotel";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "hotel_seq")
+    @SequenceGenerator(name = "hotel_seq", sequenceName = "hotel_seq", allocationSize = 50)
     @Column(name = "id", nullable = false)
     private Long id;
 
@@ -43,8 +53,29 @@ public class Hotel {
     @Column(name = "numberofratings")
     private Integer numberofratings;
 
+    /**
+     * Сумма всех оценок: вместе с {@link #numberofratings} определяет средний рейтинг.
+     */
+    @Column(name = "rating_sum", nullable = false)
+    private Long ratingSum;
+
     @OneToMany(mappedBy = "hotel", cascade = CascadeType.ALL)
     @ToString.Exclude
     private List<Room> roomList = new ArrayList<>();
 
+    /**
+     * Пересчитывает сумму оценок по рейтингу и количеству оценок, заданным напрямую.
+     */
+    public void resetRatingSum() {
+        long rating = this.rating != null ? this.rating : 0;
+        long count = numberofratings != null ? numberofratings : 0;
+        ratingSum = rating * count;
+    }
+
+    @PrePersist
+    void initRatingSum() {
+        if (ratingSum == null) {
+            resetRatingSum();
+        }
+    }
 }
@@ -0,0 +1,32 @@
+package com.example.hotel_booking_service.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Сохраненный ответ на запрос с заголовком {@code Idempotency-Key}.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "idempotency_key")
+public class IdempotencyRecord {
+    @Id
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    /**
+     * Ответ на запрос. Пуст, пока транзакция, занявшая ключ, не завершилась.
+     */
+    @Column(name = "response", columnDefinition = "TEXT")
+    private String response;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,15 @@
+package com.example.hotel_booking_service.entity;
+
+/**
+ * Состояние события outbox.
+ */
+public enum OutboxStatus {
+    /**
+     * Ожидает отправки или повтора.
+     */
+    PENDING,
+    /**
+     * Не может быть отправлено и ждет ручного разбора.
+     */
+    DEAD
+}
@@ -3,18 +3,28 @@ package com.example.hotel_booking_service.entity;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnTransformer;
 
 import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.util.Set;
 
 @Getter
 @Setter
 @Entity
 @Table(name = "room")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Room.CACHE_REGION)
 public class Room {
+    /**
+     * Регион кэша второго уровня, размер и время жизни задаются в {@code ehcache.xml}.
+     * Периоды недоступности хранятся в колонке номера и кэшируются вместе с ним.
+     */
+    public static final String CACHE_REGION = "room";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "room_seq")
+    @SequenceGenerator(name = "room_seq", sequenceName = "room_seq", allocationSize = 50)
     @Column(name = "id", nullable = false)
     private Long id;
 
@@ -33,12 +43,14 @@ public class Room {
     @Column(name = "max_people", nullable = false)
     private Integer maxPeople;
 
-    @ElementCollection
-    @CollectionTable(name = "room_unavailable_dates", joinColumns = @JoinColumn(name = "room_id"))
-    @Column(name = "unavailable_date")
-    private Set<LocalDate> unavailableDates;
+    // Колонка datemultirange: период недоступности хранится одним диапазоном, а не строкой на каждую дату
+    @Convert(converter = DateRangesConverter.class)
+    @ColumnTransformer(write = "?::datemultirange")
+    @Column(name = "unavailable_dates", nullable = false, columnDefinition = "datemultirange")
+    private DateRanges unavailableDates = DateRanges.empty();
 
-    @ManyToOne
+    // Для DTO нужен только идентификатор отеля, его Hibernate берет из прокси без запроса
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "hotel_id", nullable = false)
     private Hotel hotel;
 }
\ No newline at end of file
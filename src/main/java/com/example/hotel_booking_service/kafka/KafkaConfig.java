@@ -1,5 +1,6 @@
 package com.example.hotel_booking_service.kafka;
 
+import com.example.hotel_booking_service.kafka.dto.KafkaCacheInvalidationEvent;
 import com.example.hotel_booking_service.kafka.dto.KafkaUserRegistrationEvent;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.kafka.clients.admin.NewTopic;
@@ -7,6 +8,7 @@ import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
@@ -17,6 +19,7 @@ import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * Конфигурация Kafka для сервиса бронирования отелей.
@@ -24,6 +27,11 @@ import java.util.Map;
 @Configuration
 @EnableKafka
 public class KafkaConfig {
+    private final String bootstrapServers;
+
+    public KafkaConfig(@Value("${spring.kafka.bootstrap-servers:localhost:9092}") String bootstrapServers) {
+        this.bootstrapServers = bootstrapServers;
+    }
 
     /**
      * Создает новую тему для регистрации пользователей.
@@ -45,6 +53,16 @@ public class KafkaConfig {
         return new NewTopic("room_booking", 1, (short) 1);
     }
 
+    /**
+     * Создает тему сброса локальных кэшей отелей и номеров.
+     *
+     * @return Новая тема Kafka для сброса кэшей.
+     */
+    @Bean
+    public NewTopic entityCacheInvalidationTopic() {
+        return new NewTopic(KafkaProducerService.ENTITY_CACHE_INVALIDATION_TOPIC, 1, (short) 1);
+    }
+
     /**
      * Создает фабрику производителей для Kafka.
      *
@@ -53,7 +71,7 @@ public class KafkaConfig {
     @Bean
     public ProducerFactory<String, Object> producerFactory() {
         Map<String, Object> configProps = new HashMap<>();
-        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
         configProps.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, true);
@@ -69,7 +87,7 @@ public class KafkaConfig {
     @Bean
     public ConsumerFactory<String, KafkaUserRegistrationEvent> consumerFactory() {
         Map<String, Object> configProps = new HashMap<>();
-        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ConsumerConfig.GROUP_ID_CONFIG, "hotel_service");
         configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
 
@@ -109,4 +127,29 @@ public class KafkaConfig {
         factory.setConsumerFactory(consumerFactory());
         return factory;
     }
+
+    /**
+     * Создает фабрику контейнеров слушателей сброса кэшей. У каждого экземпляра сервиса своя группа
+     * потребителей, поэтому каждое сообщение получают все экземпляры; читаются только новые сообщения.
+     *
+     * @return Фабрика контейнеров слушателей сброса кэшей.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, KafkaCacheInvalidationEvent> cacheInvalidationListenerContainerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, "entity_cache_" + UUID.randomUUID());
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+
+        JsonDeserializer<KafkaCacheInvalidationEvent> deserializer = new JsonDeserializer<>(
+                KafkaCacheInvalidationEvent.class,
+                new ObjectMapper()
+        );
+        deserializer.addTrustedPackages("com.example.hotel_booking_service.kafka.dto");
+
+        ConcurrentKafkaListenerContainerFactory<String, KafkaCacheInvalidationEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(configProps, new StringDeserializer(), deserializer));
+        return factory;
+    }
 }
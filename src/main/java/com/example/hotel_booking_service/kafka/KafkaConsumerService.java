@@ -1,8 +1,10 @@
 package com.example.hotel_booking_service.kafka;
 
 import com.example.hotel_booking_service.kafka.dto.KafkaBookingEvent;
+import com.example.hotel_booking_service.kafka.dto.KafkaCacheInvalidationEvent;
 import com.example.hotel_booking_service.kafka.dto.KafkaUserRegistrationEvent;
 import com.example.hotel_booking_service.service.StatisticsService;
+import com.example.hotel_booking_service.service.cache.EntityNearCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
@@ -16,6 +18,7 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class KafkaConsumerService {
     private final StatisticsService statisticsService;
+    private final EntityNearCache entityNearCache;
 
     /**
      * Метод для потребления событий регистрации пользователя.
@@ -38,4 +41,17 @@ public class KafkaConsumerService {
         log.info("Получено событие бронирования: {}", event);
         statisticsService.saveBooking(event);
     }
+
+    /**
+     * Метод для потребления событий сброса локальных кэшей отелей и номеров.
+     *
+     * @param event событие сброса кэшей
+     */
+    @KafkaListener(topics = KafkaProducerService.ENTITY_CACHE_INVALIDATION_TOPIC,
+            containerFactory = "cacheInvalidationListenerContainerFactory")
+    public void consumeCacheInvalidation(KafkaCacheInvalidationEvent event) {
+        log.debug("KafkaConsumerService -> consumeCacheInvalidation() -> hotels: {}, rooms: {}",
+                event.getHotelIds(), event.getRoomIds());
+        entityNearCache.evict(event.getHotelIds(), event.getRoomIds());
+    }
 }
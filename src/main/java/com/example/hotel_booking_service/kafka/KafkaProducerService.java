@@ -1,31 +1,45 @@
 package com.example.hotel_booking_service.kafka;
 
 import com.example.hotel_booking_service.kafka.dto.KafkaBookingEvent;
+import com.example.hotel_booking_service.kafka.dto.KafkaCacheInvalidationEvent;
 import com.example.hotel_booking_service.kafka.dto.KafkaUserRegistrationEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class KafkaProducerService {
+    public static final String USER_REGISTRATION_TOPIC = "user_registration";
+    public static final String ROOM_BOOKING_TOPIC = "room_booking";
+    public static final String ENTITY_CACHE_INVALIDATION_TOPIC = "entity_cache_invalidation";
+
     private final KafkaTemplate<String, Object> kafkaTemplate;
 
-    public void sendUserRegistration(KafkaUserRegistrationEvent event) {
+    public CompletableFuture<SendResult<String, Object>> sendUserRegistration(KafkaUserRegistrationEvent event) {
         // Убираем ручное добавление заголовков
         log.info("Sending user registration event: {}", event.getUserId());
-        kafkaTemplate.send("user_registration", event);
+        return kafkaTemplate.send(USER_REGISTRATION_TOPIC, event);
     }
 
-    public void sendRoomBooking(KafkaBookingEvent event) {
+    public CompletableFuture<SendResult<String, Object>> sendRoomBooking(KafkaBookingEvent event) {
         Message<KafkaBookingEvent> message = MessageBuilder
                 .withPayload(event)
                 .setHeader("__TypeId__", KafkaBookingEvent.class.getName()) // Указываем заголовок с типом
+                .setHeader(KafkaHeaders.TOPIC, ROOM_BOOKING_TOPIC)
                 .build();
-        kafkaTemplate.send("room_booking", message);
+        return kafkaTemplate.send(message);
+    }
+
+    public CompletableFuture<SendResult<String, Object>> sendCacheInvalidation(KafkaCacheInvalidationEvent event) {
+        return kafkaTemplate.send(ENTITY_CACHE_INVALIDATION_TOPIC, event);
     }
 }
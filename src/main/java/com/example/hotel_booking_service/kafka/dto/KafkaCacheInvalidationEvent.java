@@ -0,0 +1,18 @@
+package com.example.hotel_booking_service.kafka.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Сброс локальных кэшей отелей и номеров на всех экземплярах сервиса.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KafkaCacheInvalidationEvent {
+    private List<Long> hotelIds;
+    private List<Long> roomIds;
+}
@@ -0,0 +1,197 @@
+package com.example.hotel_booking_service.kafka.outbox;
+
+import com.example.hotel_booking_service.entity.OutboxEvent;
+import com.example.hotel_booking_service.kafka.KafkaProducerService;
+import com.example.hotel_booking_service.kafka.dto.KafkaBookingEvent;
+import com.example.hotel_booking_service.kafka.dto.KafkaUserRegistrationEvent;
+import com.example.hotel_booking_service.repository.OutboxEventRepository;
+import com.example.hotel_booking_service.repository.OutboxFailure;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Фоновая пересылка событий из outbox в Kafka.
+ * <p>
+ * Пачка событий забирается одним коротким запросом с {@code FOR UPDATE SKIP LOCKED}, который продлевает
+ * {@code locked_until}, поэтому подтверждения Kafka ожидаются без открытой транзакции и блокировок строк.
+ * Подтвержденные события удаляются, неподтвержденные откладываются до повтора (доставка at-least-once).
+ * Событие, которое нельзя отправить (неизвестная тема, испорченный JSON) или исчерпавшее попытки,
+ * получает статус DEAD и больше не задерживает остальные. Если экземпляр сервиса остановился,
+ * не дождавшись подтверждений, его пачку заберет другой экземпляр после истечения {@code locked_until}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaProducerService kafkaProducerService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long sendTimeoutMs;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       KafkaProducerService kafkaProducerService,
+                       ObjectMapper objectMapper,
+                       TransactionTemplate transactionTemplate,
+                       @Value("${app.outbox.batch-size:100}") int batchSize,
+                       @Value("${app.outbox.send-timeout-ms:10000}") long sendTimeoutMs,
+                       @Value("${app.outbox.lease-ms:30000}") long leaseMs,
+                       @Value("${app.outbox.max-attempts:10}") int maxAttempts,
+                       @Value("${app.outbox.retry-delay-ms:5000}") long retryDelayMs) {
+        if (leaseMs <= sendTimeoutMs) {
+            throw new IllegalArgumentException("app.outbox.lease-ms must be greater than app.outbox.send-timeout-ms");
+        }
+        this.outboxEventRepository = outboxEventRepository;
+        this.kafkaProducerService = kafkaProducerService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.lease = Duration.ofMillis(leaseMs);
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = Duration.ofMillis(retryDelayMs);
+    }
+
+    /**
+     * Отправляет накопленные события, пока outbox не опустеет или Kafka не перестанет подтверждать отправку.
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:500}")
+    public void relay() {
+        try {
+            boolean hasMore;
+            do {
+                hasMore = relayBatch();
+            } while (hasMore);
+        } catch (RuntimeException e) {
+            log.error("OutboxRelay -> relay() -> failed to relay outbox events: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Отправляет одну пачку.
+     *
+     * @return true, если пачка была полной и отправлена без временных ошибок
+     */
+    private boolean relayBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> batch = outboxEventRepository.claimNextBatch(batchSize, now, now.plus(lease));
+        if (batch.isEmpty()) {
+            return false;
+        }
+
+        List<CompletableFuture<?>> futures = new ArrayList<>(batch.size());
+        List<OutboxFailure> failures = new ArrayList<>();
+        for (OutboxEvent event : batch) {
+            try {
+                futures.add(send(event));
+            } catch (IllegalArgumentException e) {
+                futures.add(null);
+                failures.add(new OutboxFailure(event.getId(), e.getMessage(), true));
+            } catch (RuntimeException e) {
+                futures.add(CompletableFuture.failedFuture(e));
+            }
+        }
+        awaitAcknowledgements(futures);
+
+        List<Long> sent = new ArrayList<>(batch.size());
+        int retried = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            CompletableFuture<?> future = futures.get(i);
+            if (future == null) {
+                continue;
+            }
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                sent.add(batch.get(i).getId());
+            } else {
+                failures.add(new OutboxFailure(batch.get(i).getId(), errorOf(future), false));
+                retried++;
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sent.isEmpty()) {
+                outboxEventRepository.deleteAllByIdInBatch(sent);
+            }
+            if (!failures.isEmpty()) {
+                outboxEventRepository.markFailed(failures, maxAttempts, LocalDateTime.now().plus(retryDelay));
+            }
+        });
+        if (!failures.isEmpty()) {
+            log.warn("OutboxRelay -> relayBatch() -> {} events not sent, {} of them will be retried",
+                    failures.size(), retried);
+        }
+        log.debug("OutboxRelay -> relayBatch() -> sent {} events", sent.size());
+        return batch.size() == batchSize && retried == 0;
+    }
+
+    /**
+     * Ждет подтверждения всей пачки не дольше {@code send-timeout-ms}. Результат каждого события
+     * проверяется отдельно, поэтому ошибка одного события не мешает удалить остальные.
+     */
+    private void awaitAcknowledgements(List<CompletableFuture<?>> futures) {
+        CompletableFuture<?>[] pending = futures.stream()
+                .filter(Objects::nonNull)
+                .toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(pending).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Неподтвержденные события учитываются по отдельности
+        }
+    }
+
+    private String errorOf(CompletableFuture<?> future) {
+        if (!future.isDone()) {
+            return "Kafka did not acknowledge event within " + sendTimeoutMs + " ms";
+        }
+        try {
+            future.join();
+            return null;
+        } catch (CancellationException | CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return cause.getClass().getSimpleName() + ": " + cause.getMessage();
+        }
+    }
+
+    /**
+     * Отправляет событие в тему, записанную в outbox.
+     *
+     * @throws IllegalArgumentException если тема неизвестна или событие не читается
+     */
+    private CompletableFuture<?> send(OutboxEvent event) {
+        try {
+            return switch (event.getTopic()) {
+                case KafkaProducerService.ROOM_BOOKING_TOPIC -> kafkaProducerService
+                        .sendRoomBooking(objectMapper.readValue(event.getPayload(), KafkaBookingEvent.class));
+                case KafkaProducerService.USER_REGISTRATION_TOPIC -> kafkaProducerService
+                        .sendUserRegistration(objectMapper.readValue(event.getPayload(), KafkaUserRegistrationEvent.class));
+                default -> throw new IllegalArgumentException("Unknown outbox topic: " + event.getTopic());
+            };
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Unreadable outbox payload: " + e.getOriginalMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.hotel_booking_service.kafka.outbox;
+
+import com.example.hotel_booking_service.entity.OutboxEvent;
+import com.example.hotel_booking_service.kafka.KafkaProducerService;
+import com.example.hotel_booking_service.kafka.dto.KafkaBookingEvent;
+import com.example.hotel_booking_service.kafka.dto.KafkaUserRegistrationEvent;
+import com.example.hotel_booking_service.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Сервис записи событий Kafka в outbox.
+ * События сохраняются в текущей транзакции и отправляются в Kafka {@link OutboxRelay} после ее фиксации.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Записывает событие бронирования комнаты.
+     *
+     * @param event событие бронирования
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishRoomBooking(KafkaBookingEvent event) {
+        outboxEventRepository.save(toOutboxEvent(KafkaProducerService.ROOM_BOOKING_TOPIC, event));
+    }
+
+    /**
+     * Записывает пачку событий бронирования комнат.
+     *
+     * @param events события бронирования
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishRoomBookings(List<KafkaBookingEvent> events) {
+        outboxEventRepository.saveAll(events.stream()
+                .map(event -> toOutboxEvent(KafkaProducerService.ROOM_BOOKING_TOPIC, event))
+                .toList());
+    }
+
+    /**
+     * Записывает событие регистрации пользователя.
+     *
+     * @param event событие регистрации
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishUserRegistration(KafkaUserRegistrationEvent event) {
+        outboxEventRepository.save(toOutboxEvent(KafkaProducerService.USER_REGISTRATION_TOPIC, event));
+    }
+
+    private OutboxEvent toOutboxEvent(String topic, Object event) {
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setTopic(topic);
+        outboxEvent.setCreatedAt(LocalDateTime.now());
+        try {
+            outboxEvent.setPayload(objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e);
+        }
+        return outboxEvent;
+    }
+}
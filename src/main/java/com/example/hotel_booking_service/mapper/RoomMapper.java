@@ -1,17 +1,68 @@
 package com.example.hotel_booking_service.mapper;
 
+import com.example.hotel_booking_service.entity.DateRanges;
 import com.example.hotel_booking_service.entity.Room;
+import com.example.hotel_booking_service.web.dto.DateRangeDto;
 import com.example.hotel_booking_service.web.dto.RoomDto;
 import org.mapstruct.*;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
 @Mapper(unmappedTargetPolicy = ReportingPolicy.IGNORE, componentModel = MappingConstants.ComponentModel.SPRING)
 public interface RoomMapper {
     @Mapping(source = "hotelId", target = "hotel.id")
+    @Mapping(target = "unavailableDates",
+            expression = "java(toDateRanges(roomDto.getUnavailableDates(), roomDto.getUnavailableRanges()))")
     Room toEntity(RoomDto roomDto);
 
     @Mapping(source = "hotel.id", target = "hotelId")
+    @Mapping(source = "unavailableDates", target = "unavailableRanges")
     RoomDto toRoomDto(Room room);
 
     @Mapping(source = "hotelId", target = "hotel.id")
+    @Mapping(target = "unavailableDates",
+            expression = "java(toDateRanges(roomDto.getUnavailableDates(), roomDto.getUnavailableRanges()))")
     Room updateWithNull(RoomDto roomDto, @MappingTarget Room room);
+
+    /**
+     * Разворачивает диапазоны в отдельные даты.
+     */
+    default Set<LocalDate> toDates(DateRanges ranges) {
+        Set<LocalDate> dates = new TreeSet<>();
+        if (ranges != null) {
+            ranges.ranges().forEach(range -> range.from().datesUntil(range.to()).forEach(dates::add));
+        }
+        return dates;
+    }
+
+    default List<DateRangeDto> toDateRangeDtos(DateRanges ranges) {
+        if (ranges == null) {
+            return List.of();
+        }
+        return ranges.ranges().stream()
+                .map(range -> new DateRangeDto(range.from(), range.to()))
+                .toList();
+    }
+
+    /**
+     * Собирает периоды недоступности из отдельных дат и диапазонов: идущие подряд даты сливаются в один диапазон.
+     *
+     * @param dates недоступные даты, может быть null
+     * @param ranges диапазоны {@code [from, to)}, может быть null
+     * @return набор диапазонов
+     */
+    default DateRanges toDateRanges(Set<LocalDate> dates, List<DateRangeDto> ranges) {
+        List<DateRanges.Range> merged = new ArrayList<>();
+        if (dates != null) {
+            dates.forEach(date -> merged.add(new DateRanges.Range(date, date.plusDays(1))));
+        }
+        if (ranges != null) {
+            ranges.forEach(range -> merged.add(new DateRanges.Range(range.from(), range.to())));
+        }
+        return DateRanges.of(merged);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.example.hotel_booking_service.repository;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Фильтр для выборки бронирований.
+ *
+ * @param roomId ID комнаты.
+ * @param dateFrom Начало периода: бронирование должно заканчиваться позже этой даты.
+ * @param dateTo Конец периода: бронирование должно начинаться раньше этой даты.
+ */
+public record BookingFilter(
+        Long roomId,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo
+) {
+}
@@ -1,17 +1,23 @@
 package com.example.hotel_booking_service.repository;
 
 import com.example.hotel_booking_service.entity.Booking;
+import com.example.hotel_booking_service.entity.BookingStatus;
 import com.example.hotel_booking_service.entity.Room;
+import com.example.hotel_booking_service.repository.projection.BookingPeriodView;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 
 /**
  * Репозиторий для работы с бронированиями.
  */
-public interface BookingRepository extends JpaRepository<Booking, Long> {
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingRepositoryCustom {
 
     /**
      * Находит все бронирования для указанного номера.
@@ -32,4 +38,35 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     @Query("SELECT b FROM Booking b WHERE b.room = :room AND " +
             "(b.checkIn < :checkOut AND b.checkOut > :checkIn)")
     List<Booking> findOverlappingBookings(Room room, LocalDate checkIn, LocalDate checkOut);
+
+    /**
+     * Находит бронирование по идентификатору удержания.
+     *
+     * @param holdId идентификатор удержания
+     * @param status состояние бронирования
+     * @return бронирование, если оно есть
+     */
+    Optional<Booking> findByHoldIdAndStatus(UUID holdId, BookingStatus status);
+
+    /**
+     * Находит и блокирует бронирование по идентификатору удержания, чтобы подтверждение и отмена
+     * не конкурировали с удалением истекших удержаний.
+     *
+     * @param holdId идентификатор удержания
+     * @param status состояние бронирования
+     * @return бронирование, если оно есть
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b WHERE b.holdId = :holdId AND b.status = :status")
+    Optional<Booking> lockByHoldIdAndStatus(UUID holdId, BookingStatus status);
+
+    /**
+     * Находит периоды проживания всех бронирований и удержаний, которые заканчиваются после указанной даты.
+     *
+     * @param from дата, после которой должен быть выезд
+     * @return список периодов проживания
+     */
+    @Query("SELECT b.room.id AS roomId, b.checkIn AS checkIn, b.checkOut AS checkOut " +
+            "FROM Booking b WHERE b.checkOut > :from")
+    List<BookingPeriodView> findPeriodsEndingAfter(LocalDate from);
 }
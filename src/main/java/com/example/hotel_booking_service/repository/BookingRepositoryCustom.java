@@ -0,0 +1,70 @@
+package com.example.hotel_booking_service.repository;
+
+import com.example.hotel_booking_service.repository.projection.BookingRow;
+import com.example.hotel_booking_service.repository.projection.StayCheck;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Запросы к бронированиям через JDBC, минуя загрузку графа сущностей.
+ */
+public interface BookingRepositoryCustom {
+
+    /**
+     * Возвращает страницу подтвержденных бронирований с идентификатором больше {@code afterId} в порядке возрастания id.
+     *
+     * @param filter фильтр бронирований
+     * @param afterId идентификатор последнего бронирования предыдущей страницы, null для первой страницы
+     * @param limit размер страницы
+     * @return список бронирований
+     */
+    List<BookingRow> findPage(BookingFilter filter, Long afterId, int limit);
+
+    /**
+     * Построчно читает все подтвержденные бронирования курсором базы данных, не накапливая их в памяти.
+     * Должен вызываться внутри транзакции, иначе драйвер Postgres прочитает результат целиком.
+     *
+     * @param filter фильтр бронирований
+     * @param consumer обработчик строк
+     */
+    void streamAll(BookingFilter filter, Consumer<BookingRow> consumer);
+
+    /**
+     * Проверяет набор проживаний одним запросом: существуют ли комната и пользователь и пересекается ли проживание
+     * с уже сохраненными бронированиями.
+     *
+     * @param stays проверяемые проживания, используются пользователь, комната и даты
+     * @return результаты проверки в порядке входного списка
+     */
+    List<StayCheck> checkStays(List<BookingRow> stays);
+
+    /**
+     * Вставляет бронирования одним пакетом JDBC. Идентификаторы выделяются блоками из {@code booking_seq}.
+     * Внутри транзакции пакет вставляется под точкой сохранения: при нарушении ограничения вставка откатывается
+     * целиком, а транзакция остается пригодной для повторной проверки и вставки.
+     *
+     * @param bookings бронирования без идентификаторов
+     * @return идентификаторы вставленных бронирований в порядке входного списка
+     */
+    List<Long> insertAll(List<BookingRow> bookings);
+
+    /**
+     * Удаляет истекшие удержания.
+     *
+     * @param now текущее время в UTC
+     * @return удаленные удержания
+     */
+    List<BookingRow> deleteExpiredHolds(LocalDateTime now);
+
+    /**
+     * Удаляет удержание, если оно истекло.
+     *
+     * @param holdId идентификатор удержания
+     * @param now текущее время в UTC
+     * @return удаленное удержание или пустой список
+     */
+    List<BookingRow> deleteExpiredHold(UUID holdId, LocalDateTime now);
+}
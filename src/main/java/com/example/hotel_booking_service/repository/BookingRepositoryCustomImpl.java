@@ -0,0 +1,221 @@
+package com.example.hotel_booking_service.repository;
+
+import com.example.hotel_booking_service.repository.projection.BookingRow;
+import com.example.hotel_booking_service.repository.projection.StayCheck;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.sql.DataSource;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Реализация {@link BookingRepositoryCustom} на JdbcTemplate.
+ */
+class BookingRepositoryCustomImpl implements BookingRepositoryCustom {
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    /**
+     * Шаг {@code booking_seq}, совпадает с allocationSize генератора в {@link com.example.hotel_booking_service.entity.Booking}.
+     */
+    private static final int ID_BLOCK_SIZE = 50;
+
+    private static final String DELETE_EXPIRED_HOLDS_SQL = "DELETE FROM booking WHERE status = 'HELD' AND hold_expires_at <= ?";
+    private static final String RETURNING_ROW = " RETURNING id, user_id, room_id, check_in, check_out";
+
+    private static final RowMapper<BookingRow> ROW_MAPPER = (rs, rowNum) -> new BookingRow(
+            rs.getLong("id"),
+            rs.getLong("user_id"),
+            rs.getLong("room_id"),
+            rs.getObject("check_in", LocalDate.class),
+            rs.getObject("check_out", LocalDate.class)
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    BookingRepositoryCustomImpl(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(STREAM_FETCH_SIZE);
+    }
+
+    @Override
+    public List<BookingRow> findPage(BookingFilter filter, Long afterId, int limit) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = select(filter, params);
+        if (afterId != null) {
+            sql.append(" AND id > ?");
+            params.add(afterId);
+        }
+        sql.append(" ORDER BY id LIMIT ?");
+        params.add(limit);
+        return jdbcTemplate.query(sql.toString(), ROW_MAPPER, params.toArray());
+    }
+
+    @Override
+    public void streamAll(BookingFilter filter, Consumer<BookingRow> consumer) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = select(filter, params).append(" ORDER BY id");
+        streamingJdbcTemplate.query(sql.toString(),
+                (RowCallbackHandler) rs -> consumer.accept(ROW_MAPPER.mapRow(rs, rs.getRow())),
+                params.toArray());
+    }
+
+    @Override
+    public List<StayCheck> checkStays(List<BookingRow> stays) {
+        if (stays.isEmpty()) {
+            return List.of();
+        }
+        // Запрошенные проживания разворачиваются из массивов в строки, пересечение с бронированиями проверяется
+        // по GiST-индексу exclusion-ограничения ex_booking_room_stay, с недоступностью - пересечением диапазонов номера
+        String sql = "SELECT s.ord, r.id IS NOT NULL AS room_exists, u.id IS NOT NULL AS user_exists, EXISTS (" +
+                "SELECT 1 FROM booking b WHERE b.room_id = s.room_id " +
+                "AND b.stay && daterange(s.check_in, s.check_out, '[)')) " +
+                "OR coalesce(r.unavailable_dates && daterange(s.check_in, s.check_out, '[)'), false) AS overlapping " +
+                "FROM unnest(?::bigint[], ?::bigint[], ?::date[], ?::date[]) " +
+                "WITH ORDINALITY AS s(user_id, room_id, check_in, check_out, ord) " +
+                "LEFT JOIN room r ON r.id = s.room_id " +
+                "LEFT JOIN users u ON u.id = s.user_id " +
+                "ORDER BY s.ord";
+        return jdbcTemplate.execute((Connection connection) -> {
+            Long[] userIds = new Long[stays.size()];
+            Long[] roomIds = new Long[stays.size()];
+            Date[] checkIns = new Date[stays.size()];
+            Date[] checkOuts = new Date[stays.size()];
+            for (int i = 0; i < stays.size(); i++) {
+                BookingRow stay = stays.get(i);
+                userIds[i] = stay.userId();
+                roomIds[i] = stay.roomId();
+                checkIns[i] = Date.valueOf(stay.checkIn());
+                checkOuts[i] = Date.valueOf(stay.checkOut());
+            }
+            Array userIdArray = connection.createArrayOf("bigint", userIds);
+            Array roomIdArray = connection.createArrayOf("bigint", roomIds);
+            Array checkInArray = connection.createArrayOf("date", checkIns);
+            Array checkOutArray = connection.createArrayOf("date", checkOuts);
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setArray(1, userIdArray);
+                statement.setArray(2, roomIdArray);
+                statement.setArray(3, checkInArray);
+                statement.setArray(4, checkOutArray);
+                List<StayCheck> checks = new ArrayList<>(stays.size());
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        checks.add(new StayCheck(rs.getBoolean("room_exists"), rs.getBoolean("user_exists"),
+                                rs.getBoolean("overlapping")));
+                    }
+                }
+                return checks;
+            } finally {
+                userIdArray.free();
+                roomIdArray.free();
+                checkInArray.free();
+                checkOutArray.free();
+            }
+        });
+    }
+
+    @Override
+    public List<Long> insertAll(List<BookingRow> bookings) {
+        if (bookings.isEmpty()) {
+            return List.of();
+        }
+        String sql = "INSERT INTO booking (id, user_id, room_id, check_in, check_out) VALUES (?, ?, ?, ?, ?)";
+        return jdbcTemplate.execute((Connection connection) -> {
+            // Идентификаторы известны заранее, поэтому драйвер может переписать пакет в многострочный INSERT
+            List<Long> ids = allocateIds(connection, bookings.size());
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int i = 0; i < bookings.size(); i++) {
+                    BookingRow booking = bookings.get(i);
+                    statement.setLong(1, ids.get(i));
+                    statement.setLong(2, booking.userId());
+                    statement.setLong(3, booking.roomId());
+                    statement.setObject(4, booking.checkIn());
+                    statement.setObject(5, booking.checkOut());
+                    statement.addBatch();
+                }
+                // Без точки сохранения ошибка пакета прервала бы всю транзакцию
+                Savepoint savepoint = connection.getAutoCommit() ? null : connection.setSavepoint();
+                try {
+                    statement.executeBatch();
+                } catch (SQLException e) {
+                    if (savepoint != null) {
+                        connection.rollback(savepoint);
+                    }
+                    throw e;
+                }
+                if (savepoint != null) {
+                    connection.releaseSavepoint(savepoint);
+                }
+            }
+            return ids;
+        });
+    }
+
+    /**
+     * Выделяет идентификаторы блоками из {@code booking_seq} по правилам pooled-оптимизатора Hibernate:
+     * значение последовательности - верхняя граница блока из {@link #ID_BLOCK_SIZE} идентификаторов.
+     * Поэтому выданные здесь идентификаторы не пересекаются с идентификаторами, выданными Hibernate.
+     */
+    private static List<Long> allocateIds(Connection connection, int count) throws SQLException {
+        List<Long> ids = new ArrayList<>(count);
+        while (ids.size() < count) {
+            int blocks = (count - ids.size() + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE;
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT nextval('booking_seq') FROM generate_series(1, ?)")) {
+                statement.setInt(1, blocks);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        long hi = rs.getLong(1);
+                        // Блок новой последовательности может начинаться ниже 1, такие значения пропускаем
+                        for (long id = Math.max(1, hi - ID_BLOCK_SIZE + 1); id <= hi && ids.size() < count; id++) {
+                            ids.add(id);
+                        }
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public List<BookingRow> deleteExpiredHolds(LocalDateTime now) {
+        return jdbcTemplate.query(DELETE_EXPIRED_HOLDS_SQL + RETURNING_ROW, ROW_MAPPER, now);
+    }
+
+    @Override
+    public List<BookingRow> deleteExpiredHold(UUID holdId, LocalDateTime now) {
+        return jdbcTemplate.query(DELETE_EXPIRED_HOLDS_SQL + " AND hold_id = ?" + RETURNING_ROW, ROW_MAPPER, now, holdId);
+    }
+
+    private static StringBuilder select(BookingFilter filter, List<Object> params) {
+        StringBuilder sql = new StringBuilder("SELECT id, user_id, room_id, check_in, check_out FROM booking " +
+                "WHERE status = 'CONFIRMED'");
+        if (filter.roomId() != null) {
+            sql.append(" AND room_id = ?");
+            params.add(filter.roomId());
+        }
+        if (filter.dateFrom() != null) {
+            sql.append(" AND check_out > ?");
+            params.add(filter.dateFrom());
+        }
+        if (filter.dateTo() != null) {
+            sql.append(" AND check_in < ?");
+            params.add(filter.dateTo());
+        }
+        return sql;
+    }
+}
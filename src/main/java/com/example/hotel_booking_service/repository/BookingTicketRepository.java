@@ -0,0 +1,66 @@
+package com.example.hotel_booking_service.repository;
+
+import com.example.hotel_booking_service.entity.BookingTicket;
+import com.example.hotel_booking_service.entity.BookingTicketStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Репозиторий для работы с квитанциями асинхронного бронирования.
+ */
+public interface BookingTicketRepository extends JpaRepository<BookingTicket, UUID> {
+
+    /**
+     * Находит действующую квитанцию.
+     *
+     * @param id идентификатор квитанции
+     * @param now текущее время
+     * @return квитанция, если она есть и не истекла
+     */
+    Optional<BookingTicket> findByIdAndExpiresAtAfter(UUID id, LocalDateTime now);
+
+    /**
+     * Создает квитанцию в статусе {@code PENDING} одной вставкой, без предварительного чтения по идентификатору.
+     *
+     * @param id идентификатор квитанции
+     * @param expiresAt срок хранения квитанции
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO booking_ticket (id, status, expires_at) VALUES (:id, 'PENDING', :expiresAt)",
+            nativeQuery = true)
+    void insert(UUID id, LocalDateTime expiresAt);
+
+    /**
+     * Записывает результат бронирования.
+     *
+     * @param id идентификатор квитанции
+     * @param status итоговый статус
+     * @param response ответ в формате JSON, может быть null
+     * @param error причина отказа, может быть null
+     * @param expiresAt срок хранения результата
+     * @return количество обновленных квитанций
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE BookingTicket t SET t.status = :status, t.response = :response, t.error = :error, " +
+            "t.expiresAt = :expiresAt WHERE t.id = :id")
+    int complete(UUID id, BookingTicketStatus status, String response, String error, LocalDateTime expiresAt);
+
+    /**
+     * Удаляет истекшие квитанции.
+     *
+     * @param now текущее время
+     * @return количество удаленных квитанций
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM BookingTicket t WHERE t.expiresAt < :now")
+    int deleteExpired(LocalDateTime now);
+}
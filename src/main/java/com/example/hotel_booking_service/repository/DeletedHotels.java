@@ -0,0 +1,12 @@
+package com.example.hotel_booking_service.repository;
+
+import java.util.List;
+
+/**
+ * Результат массового удаления отелей.
+ *
+ * @param hotelIds идентификаторы удаленных отелей
+ * @param roomIds идентификаторы удаленных вместе с ними номеров
+ */
+public record DeletedHotels(List<Long> hotelIds, List<Long> roomIds) {
+}
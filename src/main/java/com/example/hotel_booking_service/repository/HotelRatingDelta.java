@@ -0,0 +1,11 @@
+package com.example.hotel_booking_service.repository;
+
+/**
+ * Оценки отеля, еще не записанные в базу данных.
+ *
+ * @param hotelId идентификатор отеля
+ * @param sum сумма оценок
+ * @param count количество оценок
+ */
+public record HotelRatingDelta(Long hotelId, long sum, long count) {
+}
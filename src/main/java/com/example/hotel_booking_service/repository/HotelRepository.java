@@ -6,7 +6,10 @@ import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
 /**
  * Репозиторий для работы с сущностями отелей.
- * Наследует интерфейсы JpaRepository и JpaSpecificationExecutor для предоставления стандартных методов CRUD и спецификаций.
+ * Наследует интерфейсы JpaRepository и JpaSpecificationExecutor для предоставления стандартных методов CRUD и спецификаций,
+ * SliceSpecificationExecutor - для выборки страниц без подсчета общего числа строк,
+ * а HotelRepositoryCustom - для пакетного добавления оценок.
  */
-public interface HotelRepository extends JpaRepository<Hotel, Long>, JpaSpecificationExecutor<Hotel> {
+public interface HotelRepository extends JpaRepository<Hotel, Long>, JpaSpecificationExecutor<Hotel>,
+        SliceSpecificationExecutor<Hotel>, HotelRepositoryCustom {
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.example.hotel_booking_service.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Запросы к отелям через JDBC, минуя загрузку сущностей.
+ */
+public interface HotelRepositoryCustom {
+
+    /**
+     * Добавляет оценки к отелям одним пакетом атомарных {@code UPDATE} и пересчитывает средний рейтинг.
+     *
+     * @param deltas оценки по отелям
+     * @return количество обновленных строк для каждого элемента {@code deltas}, 0 - отель не найден
+     */
+    int[] addRatings(List<HotelRatingDelta> deltas);
+
+    /**
+     * Записывает одни и те же значения колонок во все указанные отели запросами
+     * {@code UPDATE hotel SET ... WHERE id = ANY(?)}, по одному на каждую 1000 идентификаторов.
+     *
+     * @param columns значения колонок, допускаются только простые колонки отеля
+     * @param ids идентификаторы отелей
+     * @return идентификаторы обновленных отелей
+     * @throws IllegalArgumentException если колонка не допускается
+     */
+    List<Long> patchColumns(Map<String, Object> columns, List<Long> ids);
+
+    /**
+     * Удаляет отели вместе с номерами множественными запросами в порядке внешних ключей: календарь занятости
+     * номеров, номера, отели. Бронирования не удаляются, поэтому отель с бронированиями удалить нельзя.
+     *
+     * @param ids идентификаторы отелей
+     * @return идентификаторы удаленных отелей и их номеров
+     */
+    DeletedHotels deleteHotels(Collection<Long> ids);
+}
@@ -0,0 +1,118 @@
+package com.example.hotel_booking_service.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Реализация {@link HotelRepositoryCustom} на JdbcTemplate.
+ */
+class HotelRepositoryCustomImpl implements HotelRepositoryCustom {
+    /**
+     * В SET используются значения строки до обновления, поэтому рейтинг считается по новым сумме и количеству.
+     */
+    private static final String ADD_RATINGS_SQL = "UPDATE hotel SET rating_sum = rating_sum + ?, " +
+            "numberofratings = coalesce(numberofratings, 0) + ?, " +
+            "rating = round((rating_sum + ?)::numeric / (coalesce(numberofratings, 0) + ?)) " +
+            "WHERE id = ?";
+
+    private static final int PATCH_CHUNK_SIZE = 1000;
+
+    /**
+     * Колонки, которые можно обновить одним запросом: у них нет зависимых колонок.
+     */
+    private static final Set<String> PATCHABLE_COLUMNS = Set.of("name", "title", "city", "address", "distance");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    HotelRepositoryCustomImpl(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public int[] addRatings(List<HotelRatingDelta> deltas) {
+        return jdbcTemplate.batchUpdate(ADD_RATINGS_SQL, deltas.stream()
+                .map(delta -> new Object[]{delta.sum(), delta.count(), delta.sum(), delta.count(), delta.hotelId()})
+                .toList());
+    }
+
+    @Override
+    public List<Long> patchColumns(Map<String, Object> columns, List<Long> ids) {
+        if (columns.isEmpty() || !PATCHABLE_COLUMNS.containsAll(columns.keySet())) {
+            throw new IllegalArgumentException("Unsupported hotel columns: " + columns.keySet());
+        }
+        List<Object> values = new ArrayList<>(columns.values());
+        String sql = columns.keySet().stream()
+                .map(column -> column + " = ?")
+                .collect(Collectors.joining(", ", "UPDATE hotel SET ", " WHERE id = ANY(?) RETURNING id"));
+
+        List<Long> updated = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += PATCH_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + PATCH_CHUNK_SIZE, ids.size()));
+            updated.addAll(jdbcTemplate.execute((Connection connection) -> {
+                Array idArray = connection.createArrayOf("bigint", chunk.toArray());
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    for (int i = 0; i < values.size(); i++) {
+                        statement.setObject(i + 1, values.get(i));
+                    }
+                    statement.setArray(values.size() + 1, idArray);
+                    List<Long> chunkIds = new ArrayList<>(chunk.size());
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            chunkIds.add(rs.getLong(1));
+                        }
+                    }
+                    return chunkIds;
+                } finally {
+                    idArray.free();
+                }
+            }));
+        }
+        return updated;
+    }
+
+    @Override
+    public DeletedHotels deleteHotels(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new DeletedHotels(List.of(), List.of());
+        }
+        return jdbcTemplate.execute((Connection connection) -> {
+            Array idArray = connection.createArrayOf("bigint", ids.toArray());
+            try (PreparedStatement months = connection.prepareStatement(
+                    "DELETE FROM room_availability_month m USING room r WHERE m.room_id = r.id AND r.hotel_id = ANY(?)");
+                 PreparedStatement rooms = connection.prepareStatement("DELETE FROM room WHERE hotel_id = ANY(?) RETURNING id");
+                 PreparedStatement hotels = connection.prepareStatement("DELETE FROM hotel WHERE id = ANY(?) RETURNING id")) {
+                months.setArray(1, idArray);
+                months.executeUpdate();
+                rooms.setArray(1, idArray);
+                List<Long> deletedRooms = new ArrayList<>();
+                try (ResultSet rs = rooms.executeQuery()) {
+                    while (rs.next()) {
+                        deletedRooms.add(rs.getLong(1));
+                    }
+                }
+
+                hotels.setArray(1, idArray);
+                List<Long> deletedHotels = new ArrayList<>(ids.size());
+                try (ResultSet rs = hotels.executeQuery()) {
+                    while (rs.next()) {
+                        deletedHotels.add(rs.getLong(1));
+                    }
+                }
+                return new DeletedHotels(deletedHotels, deletedRooms);
+            } finally {
+                idArray.free();
+            }
+        });
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.hotel_booking_service.repository;
+
+import com.example.hotel_booking_service.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Репозиторий для работы с сохраненными ответами идемпотентных запросов.
+ */
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Находит действующую запись по ключу.
+     *
+     * @param idempotencyKey ключ идемпотентности
+     * @param now текущее время
+     * @return запись, если она есть и не истекла
+     */
+    Optional<IdempotencyRecord> findByIdempotencyKeyAndExpiresAtAfter(String idempotencyKey, LocalDateTime now);
+
+    /**
+     * Занимает ключ: вставляет запись без ответа или перезаписывает истекшую запись с тем же ключом.
+     * Если ключ занят незавершенной транзакцией, вставка ждет ее завершения.
+     *
+     * @param key ключ идемпотентности
+     * @param requestHash хэш запроса
+     * @param expiresAt срок хранения ответа
+     * @param now текущее время
+     * @return 1, если ключ занят этим вызовом, 0, если по ключу уже есть действующая запись
+     */
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_key (idempotency_key, request_hash, response, expires_at) " +
+            "VALUES (:key, :requestHash, NULL, :expiresAt) " +
+            "ON CONFLICT (idempotency_key) DO UPDATE SET request_hash = EXCLUDED.request_hash, " +
+            "response = NULL, expires_at = EXCLUDED.expires_at " +
+            "WHERE idempotency_key.expires_at <= :now", nativeQuery = true)
+    int claim(String key, String requestHash, LocalDateTime expiresAt, LocalDateTime now);
+
+    /**
+     * Записывает ответ по занятому ключу.
+     *
+     * @param key ключ идемпотентности
+     * @param response ответ в формате JSON
+     */
+    @Modifying
+    @Query(value = "UPDATE idempotency_key SET response = :response WHERE idempotency_key = :key", nativeQuery = true)
+    void saveResponse(String key, String response);
+
+    /**
+     * Удаляет истекшие записи.
+     *
+     * @param now текущее время
+     * @return количество удаленных записей
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(LocalDateTime now);
+}
@@ -0,0 +1,10 @@
+package com.example.hotel_booking_service.repository;
+
+import com.example.hotel_booking_service.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Репозиторий для работы с исходящими событиями (outbox).
+ */
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long>, OutboxEventRepositoryCustom {
+}
@@ -0,0 +1,34 @@
+package com.example.hotel_booking_service.repository;
+
+import com.example.hotel_booking_service.entity.OutboxEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Забор и учет неудачных отправок событий outbox через JDBC.
+ */
+public interface OutboxEventRepositoryCustom {
+
+    /**
+     * Забирает очередную пачку ожидающих событий одним запросом: события, которые не забраны другим экземпляром
+     * сервиса и не отложены до повтора, получают {@code locked_until = lockedUntil}.
+     * Выполняется в собственной короткой транзакции, блокировки строк снимаются сразу после забора.
+     *
+     * @param limit максимальный размер пачки
+     * @param now текущее время
+     * @param lockedUntil до какого момента событие считается забранным
+     * @return события в порядке записи
+     */
+    List<OutboxEvent> claimNextBatch(int limit, LocalDateTime now, LocalDateTime lockedUntil);
+
+    /**
+     * Учитывает неудачные отправки: увеличивает число попыток и откладывает повтор до {@code retryAt}.
+     * Событие, которое нельзя отправить или исчерпавшее попытки, переводится в статус DEAD.
+     *
+     * @param failures неудачные отправки
+     * @param maxAttempts максимальное число попыток
+     * @param retryAt момент следующей попытки
+     */
+    void markFailed(List<OutboxFailure> failures, int maxAttempts, LocalDateTime retryAt);
+}
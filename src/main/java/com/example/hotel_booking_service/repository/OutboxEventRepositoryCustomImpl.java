@@ -0,0 +1,63 @@
+package com.example.hotel_booking_service.repository;
+
+import com.example.hotel_booking_service.entity.OutboxEvent;
+import com.example.hotel_booking_service.entity.OutboxStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Реализация {@link OutboxEventRepositoryCustom} на JdbcTemplate.
+ */
+class OutboxEventRepositoryCustomImpl implements OutboxEventRepositoryCustom {
+    /**
+     * Строки блокируются только на время UPDATE, занятые другим экземпляром сервиса пропускаются.
+     */
+    private static final String CLAIM_SQL = "UPDATE outbox_event SET locked_until = ? " +
+            "WHERE id IN (SELECT id FROM outbox_event " +
+            "WHERE status = 'PENDING' AND (locked_until IS NULL OR locked_until < ?) " +
+            "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id, topic, payload, created_at, status, attempts, last_error, locked_until";
+
+    private static final String MARK_FAILED_SQL = "UPDATE outbox_event SET attempts = attempts + 1, last_error = ?, " +
+            "locked_until = ?, status = CASE WHEN ? OR attempts + 1 >= ? THEN 'DEAD' ELSE 'PENDING' END " +
+            "WHERE id = ?";
+
+    private static final RowMapper<OutboxEvent> ROW_MAPPER = (rs, rowNum) -> {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(rs.getLong("id"));
+        event.setTopic(rs.getString("topic"));
+        event.setPayload(rs.getString("payload"));
+        event.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        event.setStatus(OutboxStatus.valueOf(rs.getString("status")));
+        event.setAttempts(rs.getInt("attempts"));
+        event.setLastError(rs.getString("last_error"));
+        event.setLockedUntil(rs.getObject("locked_until", LocalDateTime.class));
+        return event;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    OutboxEventRepositoryCustomImpl(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public List<OutboxEvent> claimNextBatch(int limit, LocalDateTime now, LocalDateTime lockedUntil) {
+        List<OutboxEvent> batch = jdbcTemplate.query(CLAIM_SQL, ROW_MAPPER, lockedUntil, now, limit);
+        // RETURNING не сохраняет порядок подзапроса
+        batch.sort(Comparator.comparing(OutboxEvent::getId));
+        return batch;
+    }
+
+    @Override
+    public void markFailed(List<OutboxFailure> failures, int maxAttempts, LocalDateTime retryAt) {
+        jdbcTemplate.batchUpdate(MARK_FAILED_SQL, failures.stream()
+                .map(failure -> new Object[]{failure.error(), retryAt, failure.poison(), maxAttempts, failure.id()})
+                .toList());
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.hotel_booking_service.repository;
+
+/**
+ * Неудачная попытка отправить событие outbox.
+ *
+ * @param id идентификатор события
+ * @param error описание ошибки
+ * @param poison true, если событие нельзя отправить ни при какой попытке
+ */
+public record OutboxFailure(Long id, String error, boolean poison) {
+}
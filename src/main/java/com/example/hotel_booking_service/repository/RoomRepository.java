@@ -1,12 +1,97 @@
 package com.example.hotel_booking_service.repository;
 
 import com.example.hotel_booking_service.entity.Room;
+import com.example.hotel_booking_service.repository.projection.RoomMonthMaskView;
+import com.example.hotel_booking_service.repository.projection.RoomPriceView;
+import com.example.hotel_booking_service.repository.projection.RoomUnavailableView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.time.LocalDate;
+import java.util.List;
 
 /**
  * Репозиторий для работы с сущностью Room.
- * Наследует интерфейсы JpaRepository и JpaSpecificationExecutor для предоставления стандартных методов CRUD и спецификаций.
+ * Наследует интерфейсы JpaRepository и JpaSpecificationExecutor для предоставления стандартных методов CRUD и спецификаций,
+ * SliceSpecificationExecutor - для выборки страниц без подсчета общего числа строк,
+ * а RoomRepositoryCustom - для массового удаления.
  */
-public interface RoomRepository extends JpaRepository<Room, Long>, JpaSpecificationExecutor<Room> {
-}
\ No newline at end of file
+public interface RoomRepository extends JpaRepository<Room, Long>, JpaSpecificationExecutor<Room>,
+        SliceSpecificationExecutor<Room>, RoomRepositoryCustom {
+
+    /**
+     * Регион кэша запросов по номерам. Сбрасывается целиком при изменении номеров в обход сессии Hibernate.
+     */
+    String QUERY_CACHE_REGION = "room-queries";
+
+    /**
+     * Номера с масками занятости из календаря за месяцы периода; пустые маски не читаются.
+     */
+    String MONTH_MASKS_SELECT = "SELECT r.id AS \"roomId\", m.month_start AS \"monthStart\", m.busy_mask AS \"busyMask\" " +
+            "FROM room r LEFT JOIN room_availability_month m ON m.room_id = r.id " +
+            "AND m.month_start >= date_trunc('month', CAST(:from AS date))::date AND m.month_start < :to AND m.busy_mask <> 0 ";
+
+    /**
+     * Ограничивает время каждого следующего запроса до конца текущей транзакции. Запрос, не успевший к сроку,
+     * отменяется сервером, соединение остается пригодным.
+     *
+     * @param timeout значение {@code statement_timeout}, например {@code 500ms}
+     * @return установленное значение
+     */
+    @Query(value = "SELECT set_config('statement_timeout', :timeout, true)", nativeQuery = true)
+    String setLocalStatementTimeout(String timeout);
+
+    /**
+     * Возвращает периоды недоступности номеров, которые заканчиваются позже указанной даты.
+     *
+     * @param from дата, с которой нужны периоды
+     * @return номера и их периоды недоступности
+     */
+    @Query(value = "SELECT id AS \"roomId\", unavailable_dates::text AS \"unavailableDates\" FROM room " +
+            "WHERE unavailable_dates && daterange(:from, NULL)", nativeQuery = true)
+    List<RoomUnavailableView> findUnavailableEndingAfter(LocalDate from);
+
+    /**
+     * Возвращает номера отеля по возрастанию цены. Результат хранится в кэше запросов Hibernate.
+     *
+     * @param hotelId идентификатор отеля
+     * @param guests минимальная вместимость, null - без ограничения
+     * @return номера с ценами
+     */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = QUERY_CACHE_REGION)
+    })
+    @Query("SELECT r.id AS roomId, r.name AS name, r.price AS price FROM Room r " +
+            "WHERE r.hotel.id = :hotelId AND (:guests IS NULL OR r.maxPeople >= :guests) " +
+            "ORDER BY r.price, r.id")
+    List<RoomPriceView> findPricesByHotel(Long hotelId, Integer guests);
+
+    /**
+     * Возвращает маски занятости номера за месяцы, пересекающие период, по возрастанию месяца.
+     * Если номер существует, но в периоде свободен, возвращается одна строка без месяца.
+     *
+     * @param roomId идентификатор номера
+     * @param from начало периода
+     * @param to конец периода, не включается
+     * @return маски занятости, пустой список - номер не найден
+     */
+    @Query(value = MONTH_MASKS_SELECT + "WHERE r.id = :roomId ORDER BY m.month_start", nativeQuery = true)
+    List<RoomMonthMaskView> findMonthMasksByRoom(Long roomId, LocalDate from, LocalDate to);
+
+    /**
+     * Возвращает маски занятости всех номеров отеля за месяцы, пересекающие период,
+     * по возрастанию идентификатора номера, затем месяца.
+     *
+     * @param hotelId идентификатор отеля
+     * @param from начало периода
+     * @param to конец периода, не включается
+     * @return маски занятости, пустой список - у отеля нет номеров
+     */
+    @Query(value = MONTH_MASKS_SELECT + "WHERE r.hotel_id = :hotelId ORDER BY r.id, m.month_start", nativeQuery = true)
+    List<RoomMonthMaskView> findMonthMasksByHotel(Long hotelId, LocalDate from, LocalDate to);
+}
@@ -0,0 +1,19 @@
+package com.example.hotel_booking_service.repository;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Запросы к номерам через JDBC, минуя загрузку сущностей.
+ */
+public interface RoomRepositoryCustom {
+
+    /**
+     * Удаляет номера множественными запросами в порядке внешних ключей: сначала календарь занятости,
+     * затем сами номера. Бронирования не удаляются, поэтому номер с бронированиями удалить нельзя.
+     *
+     * @param ids идентификаторы номеров
+     * @return идентификаторы отелей удаленных номеров по идентификаторам номеров
+     */
+    Map<Long, Long> deleteRooms(Collection<Long> ids);
+}
@@ -0,0 +1,52 @@
+package com.example.hotel_booking_service.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Реализация {@link RoomRepositoryCustom} на JdbcTemplate.
+ */
+class RoomRepositoryCustomImpl implements RoomRepositoryCustom {
+    private final JdbcTemplate jdbcTemplate;
+
+    RoomRepositoryCustomImpl(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public Map<Long, Long> deleteRooms(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return jdbcTemplate.execute((Connection connection) -> {
+            Array idArray = connection.createArrayOf("bigint", ids.toArray());
+            try (PreparedStatement months = connection.prepareStatement(
+                    "DELETE FROM room_availability_month WHERE room_id = ANY(?)");
+                 PreparedStatement rooms = connection.prepareStatement(
+                         "DELETE FROM room WHERE id = ANY(?) RETURNING id, hotel_id")) {
+                // Каскад внешнего ключа удалял бы календарь построчно, один запрос удаляет его целиком
+                months.setArray(1, idArray);
+                months.executeUpdate();
+
+                rooms.setArray(1, idArray);
+                Map<Long, Long> hotelIds = new HashMap<>();
+                try (ResultSet rs = rooms.executeQuery()) {
+                    while (rs.next()) {
+                        hotelIds.put(rs.getLong("id"), rs.getLong("hotel_id"));
+                    }
+                }
+                return hotelIds;
+            } finally {
+                idArray.free();
+            }
+        });
+    }
+}
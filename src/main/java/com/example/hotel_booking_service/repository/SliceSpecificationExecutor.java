@@ -0,0 +1,24 @@
+package com.example.hotel_booking_service.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Постраничная выборка по спецификации без подсчета общего числа строк.
+ * Реализуется базовым классом репозиториев {@link SliceAwareJpaRepository}.
+ *
+ * @param <T> тип сущности
+ */
+public interface SliceSpecificationExecutor<T> {
+
+    /**
+     * Возвращает страницу сущностей и признак наличия следующей страницы.
+     * Вместо {@code count(*)} запрашивается одна лишняя строка.
+     *
+     * @param spec спецификация, может быть null
+     * @param pageable параметры страницы
+     * @return срез сущностей
+     */
+    Slice<T> findSlice(Specification<T> spec, Pageable pageable);
+}
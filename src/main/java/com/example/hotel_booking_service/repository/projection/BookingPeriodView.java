@@ -0,0 +1,15 @@
+package com.example.hotel_booking_service.repository.projection;
+
+import java.time.LocalDate;
+
+/**
+ * Проекция бронирования: только номер и даты проживания, без загрузки пользователя и комнаты.
+ */
+public interface BookingPeriodView {
+
+    Long getRoomId();
+
+    LocalDate getCheckIn();
+
+    LocalDate getCheckOut();
+}
@@ -0,0 +1,9 @@
+package com.example.hotel_booking_service.repository.projection;
+
+import java.time.LocalDate;
+
+/**
+ * Строка таблицы booking, прочитанная напрямую через JDBC без загрузки пользователя и комнаты.
+ */
+public record BookingRow(Long id, Long userId, Long roomId, LocalDate checkIn, LocalDate checkOut) {
+}
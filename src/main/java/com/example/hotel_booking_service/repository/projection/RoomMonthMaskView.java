@@ -0,0 +1,16 @@
+package com.example.hotel_booking_service.repository.projection;
+
+import java.time.LocalDate;
+
+/**
+ * Проекция календаря занятости: маска занятых ночей номера за месяц.
+ * Для номера без строк календаря в периоде месяц и маска равны null.
+ */
+public interface RoomMonthMaskView {
+
+    Long getRoomId();
+
+    LocalDate getMonthStart();
+
+    Long getBusyMask();
+}
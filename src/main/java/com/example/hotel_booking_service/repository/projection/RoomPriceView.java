@@ -0,0 +1,15 @@
+package com.example.hotel_booking_service.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Проекция номера для поиска по гибким датам: идентификатор, название и цена за ночь.
+ */
+public interface RoomPriceView {
+
+    Long getRoomId();
+
+    String getName();
+
+    BigDecimal getPrice();
+}
@@ -0,0 +1,11 @@
+package com.example.hotel_booking_service.repository.projection;
+
+/**
+ * Проекция номера: идентификатор и литерал {@code datemultirange} его периодов недоступности.
+ */
+public interface RoomUnavailableView {
+
+    Long getRoomId();
+
+    String getUnavailableDates();
+}
@@ -0,0 +1,11 @@
+package com.example.hotel_booking_service.repository.projection;
+
+/**
+ * Результат проверки запрошенного проживания в пакетном бронировании.
+ *
+ * @param roomExists существует ли комната
+ * @param userExists существует ли пользователь
+ * @param overlapping пересекается ли проживание с существующими бронированиями или периодами недоступности комнаты
+ */
+public record StayCheck(boolean roomExists, boolean userExists, boolean overlapping) {
+}
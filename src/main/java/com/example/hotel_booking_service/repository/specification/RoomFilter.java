@@ -1,9 +1,8 @@
 package com.example.hotel_booking_service.repository.specification;
 
 import com.example.hotel_booking_service.entity.Room;
-import jakarta.persistence.criteria.Root;
-import jakarta.persistence.criteria.Subquery;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
@@ -23,7 +22,10 @@ import java.time.LocalDate;
  */
 public record RoomFilter(Long id, String nameStarts,
                          BigDecimal priceGte,
-                         BigDecimal priceLte, Integer maxPeople, LocalDate checkIn, LocalDate checkOut, Long hotelId) {
+                         BigDecimal priceLte, Integer maxPeople,
+                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkIn,
+                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkOut,
+                         Long hotelId) {
 
     public Specification<Room> toSpecification() {
         return Specification.where(idSpec())        // ID комнаты
@@ -31,7 +33,7 @@ public record RoomFilter(Long id, String nameStarts,
                 .and(priceGteSpec())                // Цена минимальная
                 .and(priceLteSpec())                // Цена максимальная
                 .and(maxPeopleSpec())               // количество гостей в комнате
-                .and(unavailableDatesSpec())        // Дата заезда и дата выезда
+                .and(availabilitySpec())            // Свободна на даты заезда и выезда
                 .and(hotelIdSpec());                // ID отеля
     }
 
@@ -65,26 +67,27 @@ public record RoomFilter(Long id, String nameStarts,
                 : null);
     }
 
-    private Specification<Room> unavailableDatesSpec() {
+    /**
+     * Оставляет комнаты, свободные на ночи с {@code checkIn} по {@code checkOut} (не включая дату выезда).
+     * Занятость берется из календаря {@code room_availability_month}, который поддерживают триггеры
+     * на бронированиях и недоступных датах: для каждой комнаты выполняется один поиск по первичному ключу календаря.
+     */
+    private Specification<Room> availabilitySpec() {
         return (root, query, cb) -> {
-            if (checkIn != null && checkOut != null) {
-                Subquery<LocalDate> subquery = query != null ? query.subquery(LocalDate.class) : null;
-                assert subquery != null;
-                Root<Room> subRoot = subquery.from(Room.class);
-                subquery.select(subRoot.get("unavailableDates"));
-                subquery.where(cb.and(
-                        cb.greaterThanOrEqualTo(subRoot.get("unavailableDates"), checkIn),
-                        cb.lessThanOrEqualTo(subRoot.get("unavailableDates"), checkOut)
-                ));
-                return cb.not(cb.exists(subquery));
+            if (checkIn == null || checkOut == null) {
+                return null;
             }
-            return null;
+            if (!checkOut.isAfter(checkIn)) {
+                throw new IllegalArgumentException("Check-out date must be after check-in date");
+            }
+            return cb.isTrue(cb.function("room_is_free", Boolean.class,
+                    root.get("id"), cb.literal(checkIn), cb.literal(checkOut)));
         };
     }
 
     private Specification<Room> hotelIdSpec() {
         return ((root, query, cb) -> hotelId != null
-                ? cb.equal(root.get("hotelId"), hotelId)
+                ? cb.equal(root.get("hotel").get("id"), hotelId)
                 : null);
     }
 }
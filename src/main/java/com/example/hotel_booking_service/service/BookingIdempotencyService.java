@@ -0,0 +1,204 @@
+package com.example.hotel_booking_service.service;
+
+import com.example.hotel_booking_service.entity.IdempotencyRecord;
+import com.example.hotel_booking_service.repository.IdempotencyRecordRepository;
+import com.example.hotel_booking_service.web.dto.BookingRequestDto;
+import com.example.hotel_booking_service.web.dto.BookingResponseDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Идемпотентное бронирование по заголовку {@code Idempotency-Key}.
+ * <p>
+ * Ключ занимается в таблице {@code idempotency_key} в начале транзакции бронирования, успешный ответ
+ * записывается в нее в той же транзакции и в ограниченный по размеру кэш в памяти. Повтор с тем же ключом
+ * возвращает исходный ответ, не выполняя бронирование заново. Одновременные запросы с одинаковым ключом
+ * схлопываются в одно выполнение на экземпляре сервиса, а между экземплярами ждут друг друга на вставке ключа.
+ * Истекший, но еще не удаленный ключ занимается заново.
+ */
+@Slf4j
+@Service
+public class BookingIdempotencyService {
+    private final BookingService bookingService;
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+
+    private final Map<String, CachedResponse> cache;
+    private final ConcurrentMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    public BookingIdempotencyService(BookingService bookingService,
+                                     IdempotencyRecordRepository idempotencyRecordRepository,
+                                     TransactionTemplate transactionTemplate,
+                                     ObjectMapper objectMapper,
+                                     @Value("${app.idempotency.ttl-minutes:1440}") long ttlMinutes,
+                                     @Value("${app.idempotency.cache-size:10000}") int cacheSize) {
+        this.bookingService = bookingService;
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Бронирует номер не более одного раза для каждого ключа идемпотентности.
+     *
+     * @param idempotencyKey ключ идемпотентности
+     * @param request запрос на бронирование
+     * @return исходный ответ на первый запрос с этим ключом
+     * @throws IllegalArgumentException если ключ уже использован с другим запросом
+     */
+    public BookingResponseDto bookRoom(String idempotencyKey, BookingRequestDto request) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > 255) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1..255 characters long");
+        }
+        String requestHash = hash(request);
+
+        CachedResponse cached = cache.get(idempotencyKey);
+        if (cached != null && cached.expiresAt().isAfter(LocalDateTime.now())) {
+            return checkHash(cached.requestHash(), requestHash, cached.response());
+        }
+
+        InFlight mine = new InFlight(requestHash, new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(idempotencyKey, mine);
+        if (running != null) {
+            return checkHash(running.requestHash(), requestHash, await(running.result()));
+        }
+        try {
+            BookingResponseDto response = loadOrBook(idempotencyKey, requestHash, request);
+            mine.result().complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            mine.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(idempotencyKey, mine);
+        }
+    }
+
+    /**
+     * Удаляет истекшие ответы из базы данных.
+     */
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval-ms:600000}")
+    public void deleteExpired() {
+        int deleted = idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+        log.debug("BookingIdempotencyService -> deleteExpired() -> deleted {} records", deleted);
+    }
+
+    private BookingResponseDto loadOrBook(String idempotencyKey, String requestHash, BookingRequestDto request) {
+        BookingResponseDto stored = findStored(idempotencyKey, requestHash);
+        if (stored != null) {
+            return stored;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(ttl);
+        // Ключ занимается до бронирования: запрос с тем же ключом на другом экземпляре сервиса ждет
+        // фиксации этой транзакции на вставке ключа и затем получает сохраненный ответ
+        BookingResponseDto response = transactionTemplate.execute(status -> {
+            if (idempotencyRecordRepository.claim(idempotencyKey, requestHash, expiresAt, now) == 0) {
+                return null;
+            }
+            BookingResponseDto booked = bookingService.bookRoom(request);
+            idempotencyRecordRepository.saveResponse(idempotencyKey, write(booked));
+            return booked;
+        });
+        if (response != null) {
+            cache.put(idempotencyKey, new CachedResponse(requestHash, response, expiresAt));
+            return response;
+        }
+
+        stored = findStored(idempotencyKey, requestHash);
+        if (stored == null) {
+            throw new IllegalStateException("Request with this Idempotency-Key is still in progress");
+        }
+        return stored;
+    }
+
+    private BookingResponseDto findStored(String idempotencyKey, String requestHash) {
+        return idempotencyRecordRepository.findByIdempotencyKeyAndExpiresAtAfter(idempotencyKey, LocalDateTime.now())
+                .filter(record -> record.getResponse() != null)
+                .map(record -> {
+                    BookingResponseDto response = read(record);
+                    cache.put(idempotencyKey, new CachedResponse(record.getRequestHash(), response, record.getExpiresAt()));
+                    return checkHash(record.getRequestHash(), requestHash, response);
+                })
+                .orElse(null);
+    }
+
+    private static BookingResponseDto checkHash(String storedHash, String requestHash, BookingResponseDto response) {
+        if (!storedHash.equals(requestHash)) {
+            throw new IllegalArgumentException("Idempotency-Key was already used with a different request");
+        }
+        return response;
+    }
+
+    private static BookingResponseDto await(CompletableFuture<BookingResponseDto> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private String hash(BookingRequestDto request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsString(request)
+                    .getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String write(BookingResponseDto response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private BookingResponseDto read(IdempotencyRecord record) {
+        try {
+            return objectMapper.readValue(record.getResponse(), BookingResponseDto.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record CachedResponse(String requestHash, BookingResponseDto response, LocalDateTime expiresAt) {
+    }
+
+    private record InFlight(String requestHash, CompletableFuture<BookingResponseDto> result) {
+    }
+}
@@ -2,20 +2,40 @@ package com.example.hotel_booking_service.service;
 
 import com.example.hotel_booking_service.kafka.dto.KafkaBookingEvent;
 import com.example.hotel_booking_service.entity.Booking;
+import com.example.hotel_booking_service.entity.BookingStatus;
 import com.example.hotel_booking_service.entity.Room;
 import com.example.hotel_booking_service.entity.User;
-import com.example.hotel_booking_service.kafka.KafkaProducerService;
+import com.example.hotel_booking_service.kafka.outbox.OutboxService;
+import com.example.hotel_booking_service.repository.BookingFilter;
 import com.example.hotel_booking_service.repository.BookingRepository;
 import com.example.hotel_booking_service.repository.RoomRepository;
 import com.example.hotel_booking_service.repository.UserRepository;
+import com.example.hotel_booking_service.repository.projection.BookingRow;
+import com.example.hotel_booking_service.repository.projection.StayCheck;
+import com.example.hotel_booking_service.service.availability.RoomAvailabilityIndex;
+import com.example.hotel_booking_service.service.cache.RoomSearchInvalidation;
+import com.example.hotel_booking_service.web.dto.BatchBookingRequestDto;
+import com.example.hotel_booking_service.web.dto.BatchBookingResponseDto;
+import com.example.hotel_booking_service.web.dto.BookingPageDto;
 import com.example.hotel_booking_service.web.dto.BookingRequestDto;
 import com.example.hotel_booking_service.web.dto.BookingResponseDto;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.SQLException;
+import java.text.MessageFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -24,13 +44,44 @@ import java.util.stream.Collectors;
 @Service
 @RequiredArgsConstructor
 public class BookingService {
+    /**
+     * SQLSTATE нарушения exclusion-ограничения в Postgres.
+     */
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
+    /**
+     * SQLSTATE нарушения внешнего ключа.
+     */
+    private static final String FOREIGN_KEY_VIOLATION = "23503";
+
+    /**
+     * Внешние ключи booking, по которым определяется отсутствие пользователя или номера.
+     */
+    private static final String USER_FOREIGN_KEY = "fk_booking_on_user";
+    private static final String ROOM_FOREIGN_KEY = "fk_booking_on_room";
+
+    /**
+     * Максимальный размер страницы бронирований.
+     */
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * Максимальное число бронирований в одном пакете.
+     */
+    private static final int MAX_BATCH_SIZE = 500;
+
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
     private final RoomRepository roomRepository;
-    private final KafkaProducerService kafkaProducerService;
+    private final OutboxService outboxService;
+    private final RoomAvailabilityIndex roomAvailabilityIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Бронирует номер для пользователя.
+     * Пользователь и номер не загружаются: бронирование ссылается на них через прокси, а их существование
+     * проверяют внешние ключи. Пересечение дат окончательно проверяет exclusion-ограничение
+     * {@code ex_booking_room_stay}, поэтому бронирование вставляется сразу, без предварительных запросов.
      *
      * @param request запрос на бронирование
      * @return информация о бронировании
@@ -39,45 +90,383 @@ public class BookingService {
      */
     @Transactional
     public BookingResponseDto bookRoom(BookingRequestDto request) {
-        User user = userRepository.findById(request.getUserId())
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+        // Проверяем и резервируем ночи по индексу в памяти, резерв снимается при откате транзакции
+        boolean isRoomAvailable = roomAvailabilityIndex.tryReserve(request.getRoomId(), request.getCheckIn(), request.getCheckOut());
+        if (!isRoomAvailable) {
+            throw new IllegalStateException("Room is already booked for the selected dates");
+        }
+        return persistBooking(request);
+    }
 
-        Room room = roomRepository.findById(request.getRoomId())
-                .orElseThrow(() -> new EntityNotFoundException("Room not found"));
+    /**
+     * Создает бронирование на ночи, которые уже зарезервированы в {@link RoomAvailabilityIndex}.
+     * Повторная проверка доступности не выполняется, пересечение с бронированиями других экземпляров
+     * сервиса по-прежнему отсекает exclusion-ограничение.
+     *
+     * @param request запрос на бронирование
+     * @return информация о бронировании
+     * @throws EntityNotFoundException если пользователь или номер не найдены
+     * @throws IllegalStateException если номер уже забронирован на выбранные даты
+     */
+    @Transactional
+    public BookingResponseDto bookReserved(BookingRequestDto request) {
+        return persistBooking(request);
+    }
 
-        boolean isRoomAvailable = bookingRepository.findOverlappingBookings(room, request.getCheckIn(), request.getCheckOut()).isEmpty();
-        if (!isRoomAvailable) {
+    /**
+     * Бронирует несколько номеров одним пакетом.
+     * Все проживания проверяются одним запросом к базе данных и по индексу занятости, бронирования
+     * вставляются одним пакетом JDBC, а события о них записываются в outbox одной пачкой.
+     * По умолчанию пакет бронируется целиком: если хотя бы одна позиция недоступна, не бронируется ничего.
+     * В режиме {@code bestEffort} недоступные позиции и позиции с неизвестными номером или пользователем
+     * возвращаются в списке отклоненных. Если другой экземпляр сервиса занял ночи между проверкой и вставкой,
+     * принятые позиции перепроверяются и вставка повторяется без занятых.
+     *
+     * @param request запрос на пакетное бронирование
+     * @return созданные бронирования и отклоненные позиции
+     * @throws IllegalArgumentException если пакет слишком большой или даты некорректны
+     * @throws IllegalStateException если пакет бронируется целиком и какая-либо позиция недоступна
+     * @throws EntityNotFoundException если пользователь удален во время бронирования
+     */
+    @Transactional
+    public BatchBookingResponseDto bookBatch(BatchBookingRequestDto request) {
+        List<BookingRequestDto> items = request.getBookings();
+        if (items.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch must not contain more than " + MAX_BATCH_SIZE + " bookings");
+        }
+        for (BookingRequestDto item : items) {
+            if (!item.getCheckOut().isAfter(item.getCheckIn())) {
+                throw new IllegalArgumentException("Check-out date must be after check-in date");
+            }
+        }
+
+        List<BookingRow> stays = items.stream()
+                .map(item -> new BookingRow(null, item.getUserId(), item.getRoomId(), item.getCheckIn(), item.getCheckOut()))
+                .toList();
+        List<StayCheck> checks = bookingRepository.checkStays(stays);
+
+        List<Integer> accepted = new ArrayList<>(stays.size());
+        List<BatchBookingResponseDto.Rejection> rejected = new ArrayList<>();
+        for (int i = 0; i < stays.size(); i++) {
+            BookingRow stay = stays.get(i);
+            StayCheck check = checks.get(i);
+            if (!check.roomExists()) {
+                rejected.add(new BatchBookingResponseDto.Rejection(i, "Room not found"));
+            } else if (!check.userExists()) {
+                rejected.add(new BatchBookingResponseDto.Rejection(i, "User not found"));
+            } else if (check.overlapping()
+                    // Индекс учитывает удержания и пересечения позиций внутри пакета, резерв снимается при откате
+                    || !roomAvailabilityIndex.tryReserve(stay.roomId(), stay.checkIn(), stay.checkOut())) {
+                rejected.add(new BatchBookingResponseDto.Rejection(i, "Room is already booked for the selected dates"));
+            } else {
+                accepted.add(i);
+            }
+        }
+        if (!rejected.isEmpty() && !request.isBestEffort()) {
+            throw new IllegalStateException("Batch booking rejected: " + rejected.stream()
+                    .map(rejection -> "#" + rejection.index() + " " + rejection.reason())
+                    .collect(Collectors.joining("; ")));
+        }
+
+        List<Long> ids = null;
+        while (ids == null) {
+            List<BookingRow> acceptedStays = accepted.stream().map(stays::get).toList();
+            try {
+                ids = bookingRepository.insertAll(acceptedStays);
+            } catch (DataIntegrityViolationException e) {
+                String sqlState = sqlState(e);
+                if (EXCLUSION_VIOLATION.equals(sqlState) && request.isBestEffort()) {
+                    // Ночи занял другой экземпляр сервиса после проверки: вставка откатилась к точке сохранения,
+                    // поэтому перепроверяем принятые позиции и повторяем вставку без занятых
+                    retainFreeStays(stays, accepted, rejected, e);
+                    continue;
+                }
+                if (EXCLUSION_VIOLATION.equals(sqlState)) {
+                    throw new IllegalStateException("Room is already booked for the selected dates", e);
+                }
+                // Пользователи проверены, внешний ключ нарушает только удаленный во время бронирования
+                if (FOREIGN_KEY_VIOLATION.equals(sqlState)) {
+                    throw new EntityNotFoundException("User not found");
+                }
+                throw e;
+            }
+        }
+        rejected.sort(Comparator.comparingInt(BatchBookingResponseDto.Rejection::index));
+
+        List<BookingResponseDto> booked = new ArrayList<>(accepted.size());
+        List<KafkaBookingEvent> events = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            BookingRow stay = stays.get(accepted.get(i));
+            booked.add(toBookingResponseDto(new BookingRow(ids.get(i), stay.userId(), stay.roomId(), stay.checkIn(), stay.checkOut())));
+
+            KafkaBookingEvent event = new KafkaBookingEvent();
+            event.setUserId(stay.userId());
+            event.setCheckIn(stay.checkIn());
+            event.setCheckOut(stay.checkOut());
+            events.add(event);
+            eventPublisher.publishEvent(RoomSearchInvalidation.roomBooked(stay.roomId(), stay.checkIn(), stay.checkOut()));
+        }
+        outboxService.publishRoomBookings(events);
+
+        return new BatchBookingResponseDto(booked, rejected);
+    }
+
+    /**
+     * Перепроверяет принятые позиции пакета после конфликта при вставке и переносит занятые в отклоненные.
+     *
+     * @param stays все позиции пакета
+     * @param accepted индексы принятых позиций, занятые удаляются
+     * @param rejected отклоненные позиции, занятые добавляются
+     * @param conflict исключение вставки
+     * @throws IllegalStateException если ни одна позиция не оказалась занятой
+     */
+    private void retainFreeStays(List<BookingRow> stays, List<Integer> accepted,
+                                 List<BatchBookingResponseDto.Rejection> rejected, DataIntegrityViolationException conflict) {
+        List<StayCheck> checks = bookingRepository.checkStays(accepted.stream().map(stays::get).toList());
+        List<Integer> free = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            StayCheck check = checks.get(i);
+            int index = accepted.get(i);
+            if (check.overlapping() || !check.roomExists() || !check.userExists()) {
+                BookingRow stay = stays.get(index);
+                // Резерв этой позиции не станет бронированием, ночи в индексе освобождаются
+                roomAvailabilityIndex.release(stay.roomId(), stay.checkIn(), stay.checkOut());
+                rejected.add(new BatchBookingResponseDto.Rejection(index, !check.roomExists() ? "Room not found"
+                        : !check.userExists() ? "User not found" : "Room is already booked for the selected dates"));
+            } else {
+                free.add(index);
+            }
+        }
+        if (free.size() == accepted.size()) {
+            // Конфликтующая строка не видна проверке, повтор ничего бы не изменил
+            throw new IllegalStateException("Room is already booked for the selected dates", conflict);
+        }
+        accepted.retainAll(free);
+    }
+
+    /**
+     * Удерживает номер: создает бронирование в статусе {@link BookingStatus#HELD} со сроком удержания.
+     * Удержание видит exclusion-ограничение, поэтому его учитывают бронирования на всех экземплярах сервиса.
+     * Событие о бронировании записывается в outbox только при подтверждении.
+     *
+     * @param request запрос на бронирование
+     * @param holdId идентификатор удержания
+     * @param expiresAt срок удержания в UTC
+     * @throws EntityNotFoundException если пользователь или номер не найдены
+     * @throws IllegalStateException если номер уже забронирован или удержан на выбранные даты
+     */
+    @Transactional
+    public void holdRoom(BookingRequestDto request, UUID holdId, LocalDateTime expiresAt) {
+        if (!roomAvailabilityIndex.tryReserve(request.getRoomId(), request.getCheckIn(), request.getCheckOut())) {
             throw new IllegalStateException("Room is already booked for the selected dates");
         }
+        insertBooking(request, holdId, expiresAt);
+        eventPublisher.publishEvent(RoomSearchInvalidation.roomBooked(request.getRoomId(), request.getCheckIn(), request.getCheckOut()));
+    }
 
-        Booking booking = new Booking();
-        booking.setUser(user);
-        booking.setRoom(room);
-        booking.setCheckIn(request.getCheckIn());
-        booking.setCheckOut(request.getCheckOut());
+    /**
+     * Подтверждает удержание без повторной проверки доступности: ночи уже заняты строкой удержания.
+     *
+     * @param holdId идентификатор удержания
+     * @param now текущее время в UTC
+     * @return информация о бронировании
+     * @throws EntityNotFoundException если удержание не найдено или истекло
+     */
+    @Transactional
+    public BookingResponseDto confirmHold(UUID holdId, LocalDateTime now) {
+        Booking booking = bookingRepository.lockByHoldIdAndStatus(holdId, BookingStatus.HELD)
+                .filter(held -> held.getHoldExpiresAt().isAfter(now))
+                .orElseThrow(() -> holdNotFound(holdId));
+        booking.setStatus(BookingStatus.CONFIRMED);
+        booking.setHoldExpiresAt(null);
+
+        KafkaBookingEvent event = new KafkaBookingEvent();
+        event.setUserId(booking.getUser().getId());
+        event.setCheckIn(booking.getCheckIn());
+        event.setCheckOut(booking.getCheckOut());
+        outboxService.publishRoomBooking(event);
 
-        Booking savedBooking = bookingRepository.save(booking);
+        return toBookingResponseDto(booking);
+    }
+
+    /**
+     * Отменяет удержание и освобождает ночи.
+     *
+     * @param holdId идентификатор удержания
+     * @throws EntityNotFoundException если удержание не найдено
+     */
+    @Transactional
+    public void cancelHold(UUID holdId) {
+        Booking booking = bookingRepository.lockByHoldIdAndStatus(holdId, BookingStatus.HELD)
+                .orElseThrow(() -> holdNotFound(holdId));
+        bookingRepository.delete(booking);
+        releaseHold(booking.getRoom().getId(), booking.getCheckIn(), booking.getCheckOut());
+    }
+
+    /**
+     * Удаляет удержание, если оно истекло.
+     *
+     * @param holdId идентификатор удержания
+     * @param now текущее время в UTC
+     * @return true, если удержание удалено
+     */
+    @Transactional
+    public boolean expireHold(UUID holdId, LocalDateTime now) {
+        return releaseHolds(bookingRepository.deleteExpiredHold(holdId, now)) > 0;
+    }
+
+    /**
+     * Удаляет все истекшие удержания, в том числе созданные остановленными экземплярами сервиса.
+     *
+     * @param now текущее время в UTC
+     * @return количество удаленных удержаний
+     */
+    @Transactional
+    public int deleteExpiredHolds(LocalDateTime now) {
+        return releaseHolds(bookingRepository.deleteExpiredHolds(now));
+    }
 
-        // Отправляем событие в Kafka
+    private int releaseHolds(List<BookingRow> holds) {
+        for (BookingRow hold : holds) {
+            releaseHold(hold.roomId(), hold.checkIn(), hold.checkOut());
+        }
+        return holds.size();
+    }
+
+    private void releaseHold(Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        roomAvailabilityIndex.releaseOnCommit(roomId, checkIn, checkOut);
+        eventPublisher.publishEvent(RoomSearchInvalidation.roomBooked(roomId, checkIn, checkOut));
+    }
+
+    /**
+     * Вставляет бронирование и записывает событие о нем в outbox.
+     *
+     * @param request запрос на бронирование
+     * @return информация о бронировании
+     */
+    private BookingResponseDto persistBooking(BookingRequestDto request) {
+        Booking savedBooking = insertBooking(request, null, null);
+
+        // Записываем событие в outbox, в Kafka его отправит OutboxRelay после фиксации транзакции
         KafkaBookingEvent event = new KafkaBookingEvent();
-        event.setUserId(user.getId());
+        event.setUserId(request.getUserId());
         event.setCheckIn(request.getCheckIn());
         event.setCheckOut(request.getCheckOut());
-        kafkaProducerService.sendRoomBooking(event);
+        outboxService.publishRoomBooking(event);
+        // Страницы поиска номеров по этим датам сбросятся после фиксации транзакции
+        eventPublisher.publishEvent(RoomSearchInvalidation.roomBooked(request.getRoomId(), request.getCheckIn(), request.getCheckOut()));
 
         return toBookingResponseDto(savedBooking);
     }
 
     /**
-     * Возвращает все бронирования.
+     * Вставляет бронирование или удержание, переводя нарушения ограничений в исключения сервиса.
      *
-     * @return список всех бронирований
+     * @param request запрос на бронирование
+     * @param holdId идентификатор удержания, null для подтвержденного бронирования
+     * @param holdExpiresAt срок удержания в UTC, null для подтвержденного бронирования
+     * @return сохраненное бронирование
      */
-    public List<BookingResponseDto> getAllBookings() {
-        return bookingRepository.findAll()
-                .stream()
+    private Booking insertBooking(BookingRequestDto request, UUID holdId, LocalDateTime holdExpiresAt) {
+        User user = userRepository.getReferenceById(request.getUserId());
+        Room room = roomRepository.getReferenceById(request.getRoomId());
+
+        Booking booking = new Booking();
+        booking.setUser(user);
+        booking.setRoom(room);
+        booking.setCheckIn(request.getCheckIn());
+        booking.setCheckOut(request.getCheckOut());
+        if (holdId != null) {
+            booking.setStatus(BookingStatus.HELD);
+            booking.setHoldId(holdId);
+            booking.setHoldExpiresAt(holdExpiresAt);
+        }
+
+        try {
+            return bookingRepository.saveAndFlush(booking);
+        } catch (DataIntegrityViolationException e) {
+            if (EXCLUSION_VIOLATION.equals(sqlState(e))) {
+                // Ночи занял другой экземпляр сервиса, индекс узнает об этом при следующем перестроении
+                throw new IllegalStateException("Room is already booked for the selected dates", e);
+            }
+            String constraint = constraintName(e);
+            if (USER_FOREIGN_KEY.equalsIgnoreCase(constraint)) {
+                throw new EntityNotFoundException("User not found");
+            }
+            if (ROOM_FOREIGN_KEY.equalsIgnoreCase(constraint)) {
+                throw new EntityNotFoundException("Room not found");
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Возвращает страницу бронирований в порядке возрастания id (keyset-пагинация).
+     *
+     * @param filter фильтр бронирований
+     * @param afterId идентификатор последнего бронирования предыдущей страницы, null для первой страницы
+     * @param limit размер страницы
+     * @return страница бронирований и курсор следующей страницы
+     * @throws IllegalArgumentException если размер страницы вне допустимого диапазона
+     */
+    public BookingPageDto getBookings(BookingFilter filter, Long afterId, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        // Запрашиваем на одну строку больше, чтобы узнать, есть ли следующая страница
+        List<BookingRow> rows = bookingRepository.findPage(filter, afterId, limit + 1);
+        boolean hasNext = rows.size() > limit;
+        List<BookingResponseDto> content = rows.stream()
+                .limit(limit)
                 .map(this::toBookingResponseDto)
-                .collect(Collectors.toList());
+                .toList();
+        Long nextAfterId = hasNext ? content.get(content.size() - 1).getBookingId() : null;
+        return new BookingPageDto(content, nextAfterId);
+    }
+
+    /**
+     * Передает все бронирования обработчику по одному, читая их курсором базы данных.
+     *
+     * @param filter фильтр бронирований
+     * @param consumer обработчик бронирований
+     */
+    @Transactional(readOnly = true)
+    public void streamBookings(BookingFilter filter, Consumer<BookingResponseDto> consumer) {
+        bookingRepository.streamAll(filter, row -> consumer.accept(toBookingResponseDto(row)));
+    }
+
+    /**
+     * Находит SQLSTATE исходной ошибки JDBC в цепочке причин.
+     *
+     * @param e исключение
+     * @return SQLSTATE или null, если ошибка не из JDBC
+     */
+    private static String sqlState(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException) {
+                return sqlException.getSQLState();
+            }
+        }
+        return null;
+    }
+
+    private static EntityNotFoundException holdNotFound(UUID holdId) {
+        return new EntityNotFoundException(MessageFormat.format("Hold with ID {0} not found", holdId));
+    }
+
+    /**
+     * Находит имя нарушенного ограничения в цепочке причин.
+     *
+     * @param e исключение
+     * @return имя ограничения или null, если оно неизвестно
+     */
+    private static String constraintName(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return violation.getConstraintName();
+            }
+        }
+        return null;
     }
 
     /**
@@ -95,4 +484,20 @@ public class BookingService {
         dto.setCheckOut(booking.getCheckOut());
         return dto;
     }
+
+    /**
+     * Преобразует строку бронирования в DTO.
+     *
+     * @param row строка бронирования
+     * @return DTO бронирования
+     */
+    private BookingResponseDto toBookingResponseDto(BookingRow row) {
+        BookingResponseDto dto = new BookingResponseDto();
+        dto.setBookingId(row.id());
+        dto.setUserId(row.userId());
+        dto.setRoomId(row.roomId());
+        dto.setCheckIn(row.checkIn());
+        dto.setCheckOut(row.checkOut());
+        return dto;
+    }
 }
@@ -1,25 +1,45 @@
 package com.example.hotel_booking_service.service;
 
 import com.example.hotel_booking_service.entity.Hotel;
+import com.example.hotel_booking_service.entity.Room;
 import com.example.hotel_booking_service.mapper.HotelMapper;
+import com.example.hotel_booking_service.repository.DeletedHotels;
+import com.example.hotel_booking_service.repository.HotelRatingDelta;
 import com.example.hotel_booking_service.repository.HotelRepository;
 import com.example.hotel_booking_service.web.dto.HotelDto;
+import com.example.hotel_booking_service.web.dto.ScrollModel;
+import com.example.hotel_booking_service.web.dto.SlicedModel;
 import com.example.hotel_booking_service.repository.specification.HotelFilter;
+import com.example.hotel_booking_service.service.cache.CachedHotel;
+import com.example.hotel_booking_service.service.cache.EntityCacheInvalidation;
+import com.example.hotel_booking_service.service.cache.EntityNearCache;
+import com.example.hotel_booking_service.service.cache.RoomSearchInvalidation;
+import com.example.hotel_booking_service.service.rating.HotelRatingAccumulator;
+import com.example.hotel_booking_service.service.scroll.ScrollCursor;
+import com.example.hotel_booking_service.service.scroll.ScrollTokenCodec;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.web.PagedModel;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.text.MessageFormat;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -28,42 +48,37 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @Service
 public class HotelService {
+    private static final int MIN_MARK = 1;
+    private static final int MAX_MARK = 5;
 
     private final HotelRepository hotelRepository;
     private final HotelMapper hotelMapper;
     private final ObjectMapper objectMapper;
+    private final ScrollTokenCodec scrollTokenCodec;
+    private final HotelRatingAccumulator hotelRatingAccumulator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityNearCache entityNearCache;
 
     /**
-     * Обновляет рейтинг отеля.
+     * Добавляет оценку отеля. Оценка накапливается в {@link HotelRatingAccumulator} и записывается в базу
+     * данных пакетом, поэтому параллельные оценки не перезаписывают друг друга, а строка отеля не обновляется
+     * на каждую оценку.
      *
      * @param id идентификатор отеля
      * @param newMark новая оценка
-     * @return DTO обновленного отеля
+     * @return DTO отеля с учетом новой оценки
      * @throws EntityNotFoundException если отель не найден
+     * @throws IllegalArgumentException если оценка не от 1 до 5
      */
     public HotelDto updateRating(Long id, Integer newMark) {
-        Hotel hotel = hotelRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(MessageFormat
-                        .format("Hotel with id {0} not found", id)));
-
-        Integer rating = hotel.getRating();
-        Integer numberOfRating = hotel.getNumberofratings();
-
-        // Вычисляем сумму всех оценок
-        Integer totalRating = rating * numberOfRating;
-
-        // Обновляем сумму всех оценок
-        totalRating = totalRating - rating + newMark;
-
-        // Вычисляем новый средний рейтинг
-        BigDecimal newRating = new BigDecimal(totalRating).divide(new BigDecimal(numberOfRating + 1), 1, RoundingMode.HALF_UP);
-
-        // Обновляем рейтинг и количество оценок
-        hotel.setRating(newRating.intValue());
-        hotel.setNumberofratings(numberOfRating + 1);
+        if (newMark == null || newMark < MIN_MARK || newMark > MAX_MARK) {
+            throw new IllegalArgumentException(MessageFormat.format("Mark must be between {0} and {1}", MIN_MARK, MAX_MARK));
+        }
+        // Отель берется из локального кэша: он сбрасывается после записи оценок, а не читается на каждую оценку
+        CachedHotel hotel = cachedHotel(id);
 
-        Hotel resultHotel = hotelRepository.save(hotel);
-        return hotelMapper.toHotelDto(resultHotel);
+        hotelRatingAccumulator.add(id, newMark);
+        return toHotelDto(hotel);
     }
 
     /**
@@ -75,33 +90,69 @@ public class HotelService {
      */
     public PagedModel<HotelDto> getAllHotels(HotelFilter filter, Pageable pageable) {
         Page<Hotel> hotels = hotelRepository.findAll(filter.toSpecification(), pageable);
-        Page<HotelDto> hotelDtos = hotels.map(hotelMapper::toHotelDto);
+        Page<HotelDto> hotelDtos = hotels.map(this::toHotelDto);
         return new PagedModel<>(hotelDtos);
     }
 
     /**
-     * Получает один отель по его идентификатору.
+     * Получает страницу отелей без подсчета общего количества.
+     *
+     * @param filter фильтр для поиска отелей
+     * @param pageable параметры пагинации
+     * @return срез с отелями и признаком следующей страницы
+     */
+    public SlicedModel<HotelDto> getHotelsSlice(HotelFilter filter, Pageable pageable) {
+        Slice<Hotel> hotels = hotelRepository.findSlice(filter.toSpecification(), pageable);
+        return new SlicedModel<>(hotels.map(this::toHotelDto));
+    }
+
+    /**
+     * Получает страницу отелей keyset-пагинацией по идентификатору.
+     * Остальные поля отеля допускают null и не годятся в ключ сортировки.
+     *
+     * @param filter фильтр для поиска отелей
+     * @param token токен продолжения, для первой страницы null
+     * @param size размер страницы
+     * @param sort сортировка, учитывается только для первой страницы
+     * @return страница отелей и токен следующей страницы
+     * @throws IllegalArgumentException если токен поврежден, размер или сортировка недопустимы
+     */
+    @Transactional(readOnly = true)
+    public ScrollModel<HotelDto> scrollHotels(HotelFilter filter, String token, int size, Sort sort) {
+        ScrollCursor cursor = scrollTokenCodec.open(Hotel.class, token, size, sort, Set.of());
+        Window<Hotel> window = hotelRepository.findBy(filter.toSpecification(),
+                query -> query.sortBy(cursor.sort()).limit(size).scroll(cursor.position()));
+        String next = window.hasNext() ? scrollTokenCodec.encode(cursor, window.positionAt(window.size() - 1)) : null;
+        return new ScrollModel<>(window.map(this::toHotelDto).getContent(), next);
+    }
+
+    /**
+     * Получает один отель по его идентификатору. Отель кэшируется в {@link EntityNearCache}.
      *
      * @param id идентификатор отеля
      * @return DTO отеля
      * @throws EntityNotFoundException если отель не найден
      */
     public HotelDto getOne(Long id) {
-        Hotel hotel = hotelRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(MessageFormat.format("Hotel with id {0} not found", id)));
-        return hotelMapper.toHotelDto(hotel);
+        return toHotelDto(cachedHotel(id));
     }
 
     /**
-     * Получает несколько отелей по их идентификаторам.
+     * Получает несколько отелей по их идентификаторам. Отели кэшируются в {@link EntityNearCache},
+     * отсутствующие в кэше загружаются одним запросом.
      *
      * @param ids список идентификаторов отелей
-     * @return список DTO отелей
+     * @return список DTO найденных отелей в порядке идентификаторов
      */
     public List<HotelDto> getMany(List<Long> ids) {
-        List<Hotel> hotels = hotelRepository.findAllById(ids);
-        return hotels.stream()
-                .map(hotelMapper::toHotelDto)
+        Map<Long, CachedHotel> hotels = entityNearCache.hotels().getAll(ids, missing -> hotelRepository.findAllById(missing)
+                .stream()
+                .collect(Collectors.toMap(Hotel::getId, this::toCachedHotel)));
+        return ids.stream()
+                .distinct()
+                .map(hotels::get)
+                .filter(Objects::nonNull)
+                .map(this::toHotelDto)
                 .collect(Collectors.toList());
     }
 
@@ -113,7 +164,7 @@ public class HotelService {
      */
     public HotelDto save(HotelDto dto) {
         Hotel hotel = hotelRepository.save(hotelMapper.toEntity(dto));
-        return hotelMapper.toHotelDto(hotel);
+        return toHotelDto(hotel);
     }
 
     /**
@@ -145,8 +196,12 @@ public class HotelService {
         if (dto.getNumberofratings() != null) {
             existingHotel.setNumberofratings(dto.getNumberofratings());
         }
+        if (dto.getRating() != null || dto.getNumberofratings() != null) {
+            existingHotel.resetRatingSum();
+        }
         Hotel resultHotel = hotelRepository.save(existingHotel);
-        return hotelMapper.toHotelDto(resultHotel);
+        eventPublisher.publishEvent(EntityCacheInvalidation.hotels(Set.of(id)));
+        return toHotelDto(resultHotel);
     }
 
     /**
@@ -167,19 +222,33 @@ public class HotelService {
         } catch (IOException e) {
             throw new IllegalArgumentException(e);
         }
-        hotelMapper.updateWithNull(hotelDto, hotel);
+        applyPatch(hotelDto, hotel);
 
-        return hotelMapper.toHotelDto(hotelRepository.save(hotel));
+        Hotel resultHotel = hotelRepository.save(hotel);
+        eventPublisher.publishEvent(EntityCacheInvalidation.hotels(Set.of(id)));
+        return toHotelDto(resultHotel);
     }
 
     /**
      * Частично обновляет несколько отелей.
+     * <p>
+     * Патч, меняющий только простые поля, применяется запросами {@code UPDATE hotel SET ... WHERE id = ANY(?)}
+     * без загрузки отелей. Остальные патчи, например с рейтингом или значениями, требующими проверки,
+     * применяются к каждому отелю через DTO.
      *
      * @param ids список идентификаторов отелей
      * @param patchNode JSON-объект с обновленными данными
      * @return список идентификаторов обновленных отелей
      */
+    @Transactional
     public List<Long> patchMany(List<Long> ids, JsonNode patchNode) {
+        Optional<Map<String, Object>> columns = toColumnPatch(patchNode);
+        if (columns.isPresent()) {
+            List<Long> patched = hotelRepository.patchColumns(columns.get(), ids);
+            eventPublisher.publishEvent(EntityCacheInvalidation.hotels(Set.copyOf(patched)));
+            return patched;
+        }
+
         Collection<Hotel> hotels = hotelRepository.findAllById(ids);
 
         for (Hotel hotel : hotels) {
@@ -189,13 +258,15 @@ public class HotelService {
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
-            hotelMapper.updateWithNull(hotelDto, hotel);
+            applyPatch(hotelDto, hotel);
         }
 
         List<Hotel> resultHotels = hotelRepository.saveAll(hotels);
-        return resultHotels.stream()
+        List<Long> patched = resultHotels.stream()
                 .map(Hotel::getId)
                 .collect(Collectors.toList());
+        eventPublisher.publishEvent(EntityCacheInvalidation.hotels(Set.copyOf(patched)));
+        return patched;
     }
 
     /**
@@ -204,19 +275,113 @@ public class HotelService {
      * @param id идентификатор отеля
      * @throws EntityNotFoundException если отель не найден
      */
+    @Transactional
     public void delete(Long id) {
         Hotel hotel = hotelRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(MessageFormat.format("Hotel with id {0} not found", id)));
+        Set<Long> roomIds = hotel.getRoomList().stream()
+                .map(Room::getId)
+                .collect(Collectors.toSet());
         hotelRepository.delete(hotel);
+        // Номера отеля удаляются каскадно, поэтому страницы поиска с ними устарели
+        eventPublisher.publishEvent(RoomSearchInvalidation.roomsChanged(Set.of(id)));
+        eventPublisher.publishEvent(new EntityCacheInvalidation(Set.of(id), roomIds));
     }
 
     /**
-     * Удаляет несколько отелей по их идентификаторам.
+     * Удаляет несколько отелей по их идентификаторам вместе с номерами множественными запросами,
+     * без загрузки отелей и номеров. Отсутствующие идентификаторы пропускаются.
      *
      * @param ids список идентификаторов отелей
      */
+    @Transactional
     public void deleteMany(List<Long> ids) {
-        List<Hotel> hotels = hotelRepository.findAllById(ids);
-        hotelRepository.deleteAll(hotels);
+        DeletedHotels deleted = hotelRepository.deleteHotels(ids);
+        if (!deleted.hotelIds().isEmpty()) {
+            eventPublisher.publishEvent(RoomSearchInvalidation.roomsChanged(Set.copyOf(deleted.hotelIds())));
+            eventPublisher.publishEvent(new EntityCacheInvalidation(Set.copyOf(deleted.hotelIds()), Set.copyOf(deleted.roomIds())));
+        }
+    }
+
+    /**
+     * Преобразует отель в DTO, добавляя к рейтингу оценки, еще не записанные в базу данных.
+     */
+    private CachedHotel cachedHotel(Long id) {
+        return entityNearCache.hotels().get(id, hotelId -> toCachedHotel(hotelRepository.findById(hotelId)
+                .orElseThrow(() -> new EntityNotFoundException(MessageFormat.format("Hotel with id {0} not found", id)))));
+    }
+
+    private HotelDto toHotelDto(Hotel hotel) {
+        return withPendingRatings(hotelMapper.toHotelDto(hotel), hotel.getRatingSum() != null ? hotel.getRatingSum() : 0);
+    }
+
+    /**
+     * Преобразует отель из кэша в новый DTO, добавляя к рейтингу оценки, еще не записанные в базу данных.
+     */
+    private HotelDto toHotelDto(CachedHotel cached) {
+        HotelDto hotel = cached.hotel();
+        HotelDto dto = new HotelDto(hotel.getId(), hotel.getName(), hotel.getTitle(), hotel.getCity(),
+                hotel.getAddress(), hotel.getDistance(), hotel.getRating(), hotel.getNumberofratings(), hotel.getNewMark());
+        return withPendingRatings(dto, cached.ratingSum());
+    }
+
+    private CachedHotel toCachedHotel(Hotel hotel) {
+        return new CachedHotel(hotelMapper.toHotelDto(hotel), hotel.getRatingSum() != null ? hotel.getRatingSum() : 0);
+    }
+
+    private HotelDto withPendingRatings(HotelDto dto, long ratingSum) {
+        HotelRatingDelta pending = hotelRatingAccumulator.pending(dto.getId());
+        if (pending.count() > 0) {
+            long sum = ratingSum + pending.sum();
+            long count = (dto.getNumberofratings() != null ? dto.getNumberofratings() : 0) + pending.count();
+            dto.setRating(HotelRatingAccumulator.average(sum, count));
+            dto.setNumberofratings((int) count);
+        }
+        return dto;
+    }
+
+    /**
+     * Переносит изменения из DTO в отель. Если рейтинг или количество оценок заданы напрямую,
+     * сумма оценок пересчитывается по ним.
+     */
+    private void applyPatch(HotelDto hotelDto, Hotel hotel) {
+        Integer rating = hotel.getRating();
+        Integer numberOfRatings = hotel.getNumberofratings();
+        hotelMapper.updateWithNull(hotelDto, hotel);
+        if (!Objects.equals(rating, hotel.getRating()) || !Objects.equals(numberOfRatings, hotel.getNumberofratings())) {
+            hotel.resetRatingSum();
+        }
+    }
+
+    /**
+     * Переводит патч в значения колонок отеля, если его можно применить одним {@code UPDATE}: патч содержит
+     * только строковые поля и неотрицательное расстояние либо null. Иначе возвращает пустой результат.
+     */
+    private static Optional<Map<String, Object>> toColumnPatch(JsonNode patchNode) {
+        if (!patchNode.isObject() || patchNode.isEmpty()) {
+            return Optional.empty();
+        }
+        Map<String, Object> columns = new LinkedHashMap<>();
+        for (Map.Entry<String, JsonNode> field : patchNode.properties()) {
+            JsonNode value = field.getValue();
+            switch (field.getKey()) {
+                case "name", "title", "city", "address" -> {
+                    if (!value.isNull() && !value.isTextual()) {
+                        return Optional.empty();
+                    }
+                    columns.put(field.getKey(), value.isNull() ? null : value.textValue());
+                }
+                case "distance" -> {
+                    if (!value.isNull() && !(value.canConvertToInt() && value.isIntegralNumber() && value.intValue() >= 0)) {
+                        return Optional.empty();
+                    }
+                    columns.put("distance", value.isNull() ? null : value.intValue());
+                }
+                default -> {
+                    return Optional.empty();
+                }
+            }
+        }
+        return Optional.of(columns);
     }
 }
@@ -6,56 +6,163 @@ import com.example.hotel_booking_service.mapper.RoomMapper;
 import com.example.hotel_booking_service.repository.HotelRepository;
 import com.example.hotel_booking_service.repository.RoomRepository;
 import com.example.hotel_booking_service.web.dto.RoomDto;
+import com.example.hotel_booking_service.web.dto.ScrollModel;
+import com.example.hotel_booking_service.web.dto.SlicedModel;
 import com.example.hotel_booking_service.repository.specification.RoomFilter;
+import com.example.hotel_booking_service.service.availability.RoomAvailabilityIndex;
+import com.example.hotel_booking_service.service.cache.EntityCacheInvalidation;
+import com.example.hotel_booking_service.service.cache.EntityNearCache;
+import com.example.hotel_booking_service.service.cache.RoomSearchCache;
+import com.example.hotel_booking_service.service.cache.RoomSearchInvalidation;
+import com.example.hotel_booking_service.service.scroll.ScrollCursor;
+import com.example.hotel_booking_service.service.scroll.ScrollTokenCodec;
 import jakarta.persistence.EntityNotFoundException;
-import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.web.PagedModel;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.text.MessageFormat;
+import java.time.Duration;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Сервис для управления комнатами отеля.
  */
-@RequiredArgsConstructor
 @Service
 public class RoomService {
+    /**
+     * Свойства комнаты, по которым разрешена keyset-пагинация: только NOT NULL колонки.
+     */
+    private static final Set<String> SCROLL_SORTABLE = Set.of("name", "price", "maxPeople");
 
     private final RoomRepository roomRepository;
     private final RoomMapper roomMapper;
     private final HotelRepository hotelRepository;
+    private final RoomSearchCache roomSearchCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ScrollTokenCodec scrollTokenCodec;
+    private final RoomAvailabilityIndex roomAvailabilityIndex;
+    private final EntityNearCache entityNearCache;
+
+    /**
+     * Транзакция только для чтения на промах {@link RoomSearchCache}: попадание в кэш не берет соединение из пула.
+     */
+    private final TransactionTemplate readOnlyTransaction;
+
+    public RoomService(RoomRepository roomRepository,
+                       RoomMapper roomMapper,
+                       HotelRepository hotelRepository,
+                       RoomSearchCache roomSearchCache,
+                       ApplicationEventPublisher eventPublisher,
+                       ScrollTokenCodec scrollTokenCodec,
+                       RoomAvailabilityIndex roomAvailabilityIndex,
+                       EntityNearCache entityNearCache,
+                       PlatformTransactionManager transactionManager) {
+        this.roomRepository = roomRepository;
+        this.roomMapper = roomMapper;
+        this.hotelRepository = hotelRepository;
+        this.roomSearchCache = roomSearchCache;
+        this.eventPublisher = eventPublisher;
+        this.scrollTokenCodec = scrollTokenCodec;
+        this.roomAvailabilityIndex = roomAvailabilityIndex;
+        this.entityNearCache = entityNearCache;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
 
     /**
      * Получает список комнат с учетом фильтрации и постраничной навигации.
+     * Страницы кэшируются в {@link RoomSearchCache}, транзакция открывается только при промахе.
      *
      * @param filter   фильтр для комнат
      * @param pageable параметры постраничной навигации
      * @return страница с DTO комнат
      */
     public PagedModel<RoomDto> getAll(RoomFilter filter, Pageable pageable) {
-        Specification<Room> spec = filter.toSpecification();
-        Page<Room> rooms = roomRepository.findAll(spec, pageable);
-        Page<RoomDto> roomDtos = rooms.map(roomMapper::toRoomDto);
+        return getAll(filter, pageable, null);
+    }
+
+    /**
+     * Получает список комнат, ограничивая каждый запрос к базе данных сроком. Запрос, не успевший к сроку,
+     * отменяется сервером, а не прерыванием потока, поэтому соединение возвращается в пул исправным.
+     *
+     * @param filter   фильтр для комнат
+     * @param pageable параметры постраничной навигации
+     * @param timeout  срок каждого запроса к базе данных, null - без ограничения
+     * @return страница с DTO комнат
+     * @throws org.springframework.dao.QueryTimeoutException если запрос не успел к сроку
+     */
+    public PagedModel<RoomDto> getAll(RoomFilter filter, Pageable pageable, Duration timeout) {
+        return roomSearchCache.get(filter, pageable, () -> readOnlyTransaction.execute(status -> {
+            if (timeout != null) {
+                roomRepository.setLocalStatementTimeout(Math.max(timeout.toMillis(), 1) + "ms");
+            }
+            Specification<Room> spec = filter.toSpecification();
+            Page<Room> rooms = roomRepository.findAll(spec, pageable);
+            Page<RoomDto> roomDtos = rooms.map(roomMapper::toRoomDto);
+
+            return new PagedModel<>(roomDtos);
+        }));
+    }
+
+    /**
+     * Получает страницу комнат без подсчета общего количества:
+     * вместо {@code count(*)} запрашивается одна лишняя строка для признака следующей страницы.
+     *
+     * @param filter   фильтр для комнат
+     * @param pageable параметры постраничной навигации
+     * @return срез с DTO комнат
+     */
+    @Transactional(readOnly = true)
+    public SlicedModel<RoomDto> getSlice(RoomFilter filter, Pageable pageable) {
+        Slice<Room> rooms = roomRepository.findSlice(filter.toSpecification(), pageable);
+        return new SlicedModel<>(rooms.map(roomMapper::toRoomDto));
+    }
 
-        return new PagedModel<>(roomDtos);
+    /**
+     * Получает страницу комнат keyset-пагинацией: следующая страница начинается после ключей сортировки
+     * последней строки, поэтому время выборки не зависит от глубины.
+     *
+     * @param filter фильтр для комнат
+     * @param token  токен продолжения, для первой страницы null
+     * @param size   размер страницы
+     * @param sort   сортировка, учитывается только для первой страницы
+     * @return страница с DTO комнат и токеном следующей страницы
+     * @throws IllegalArgumentException если токен поврежден, размер или сортировка недопустимы
+     */
+    @Transactional(readOnly = true)
+    public ScrollModel<RoomDto> scroll(RoomFilter filter, String token, int size, Sort sort) {
+        ScrollCursor cursor = scrollTokenCodec.open(Room.class, token, size, sort, SCROLL_SORTABLE);
+        Window<Room> window = roomRepository.findBy(filter.toSpecification(),
+                query -> query.sortBy(cursor.sort()).limit(size).scroll(cursor.position()));
+        String next = window.hasNext() ? scrollTokenCodec.encode(cursor, window.positionAt(window.size() - 1)) : null;
+        return new ScrollModel<>(window.map(roomMapper::toRoomDto).getContent(), next);
     }
 
     /**
-     * Получает одну комнату по идентификатору.
+     * Получает одну комнату по идентификатору. Комната кэшируется в {@link EntityNearCache},
+     * поэтому при попадании в кэш транзакция не открывается.
      *
      * @param id идентификатор комнаты
      * @return DTO комнаты
      * @throws EntityNotFoundException если комната не найдена
      */
     public RoomDto getOne(Long id) {
-        Room room = roomRepository.findById(id)
+        return entityNearCache.rooms().get(id, roomId -> roomMapper.toRoomDto(roomRepository.findById(roomId)
                 .orElseThrow(() -> new EntityNotFoundException(MessageFormat
-                        .format("Room with id {0} not found", id)));
-        return roomMapper.toRoomDto(room);
+                        .format("Room with id {0} not found", id)))));
     }
 
     /**
@@ -64,6 +171,7 @@ public class RoomService {
      * @param ids список идентификаторов комнат
      * @return список DTO комнат
      */
+    @Transactional(readOnly = true)
     public List<RoomDto> getMany(List<Long> ids) {
         return roomRepository.findAllById(ids).stream()
                 .map(roomMapper::toRoomDto).toList();
@@ -82,7 +190,10 @@ public class RoomService {
                 .orElseThrow(() -> new EntityNotFoundException(MessageFormat
                         .format("Hotel with id {0} not found", roomDto.getHotelId())));
         room.setHotel(hotel);
-        return roomMapper.toRoomDto(roomRepository.save(room));
+        Room savedRoom = roomRepository.save(room);
+        roomAvailabilityIndex.updateUnavailable(savedRoom.getId(), savedRoom.getUnavailableDates());
+        eventPublisher.publishEvent(RoomSearchInvalidation.roomChanged(savedRoom.getId(), Set.of(hotel.getId())));
+        return roomMapper.toRoomDto(savedRoom);
     }
 
     /**
@@ -97,6 +208,8 @@ public class RoomService {
         Room existingRoom = roomRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(MessageFormat
                         .format("Room with id {0} not found", id)));
+        Set<Long> hotelIds = new HashSet<>();
+        hotelIds.add(existingRoom.getHotel().getId());
         if (roomDto.getName() != null) {
             existingRoom.setName(roomDto.getName());
         }
@@ -112,17 +225,23 @@ public class RoomService {
         if (roomDto.getMaxPeople() != null) {
             existingRoom.setMaxPeople(roomDto.getMaxPeople());
         }
-        if (roomDto.getUnavailableDates() != null) {
-            existingRoom.setUnavailableDates(roomDto.getUnavailableDates());
+        if (roomDto.getUnavailableDates() != null || roomDto.getUnavailableRanges() != null) {
+            existingRoom.setUnavailableDates(
+                    roomMapper.toDateRanges(roomDto.getUnavailableDates(), roomDto.getUnavailableRanges()));
         }
         if (roomDto.getHotelId() != null) {
             Hotel hotel = hotelRepository.findById(roomDto.getHotelId())
                     .orElseThrow(() -> new EntityNotFoundException(MessageFormat
                             .format("Hotel with id {0} not found", roomDto.getHotelId())));
             existingRoom.setHotel(hotel);
+            hotelIds.add(hotel.getId());
         }
 
-        return roomMapper.toRoomDto(roomRepository.save(existingRoom));
+        Room savedRoom = roomRepository.save(existingRoom);
+        roomAvailabilityIndex.updateUnavailable(id, savedRoom.getUnavailableDates());
+        eventPublisher.publishEvent(RoomSearchInvalidation.roomChanged(id, hotelIds));
+        eventPublisher.publishEvent(EntityCacheInvalidation.rooms(Set.of(id)));
+        return roomMapper.toRoomDto(savedRoom);
     }
 
     /**
@@ -131,20 +250,28 @@ public class RoomService {
      * @param id идентификатор комнаты
      * @throws EntityNotFoundException если комната не найдена
      */
+    @Transactional
     public void delete(Long id) {
-        roomRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(MessageFormat
-                        .format("Room with id {0} not found", id)));
-        roomRepository.deleteById(id);
+        Long hotelId = roomRepository.deleteRooms(List.of(id)).get(id);
+        if (hotelId == null) {
+            throw new EntityNotFoundException(MessageFormat.format("Room with id {0} not found", id));
+        }
+        eventPublisher.publishEvent(RoomSearchInvalidation.roomChanged(id, Set.of(hotelId)));
+        eventPublisher.publishEvent(EntityCacheInvalidation.rooms(Set.of(id)));
     }
 
     /**
-     * Удаляет несколько комнат по списку идентификаторов.
+     * Удаляет несколько комнат по списку идентификаторов множественными запросами, без загрузки комнат.
+     * Отсутствующие идентификаторы пропускаются.
      *
      * @param ids список идентификаторов комнат
      */
+    @Transactional
     public void deleteMany(List<Long> ids) {
-        List<Room> rooms = roomRepository.findAllById(ids);
-        roomRepository.deleteAll(rooms);
+        Map<Long, Long> deleted = roomRepository.deleteRooms(ids);
+        if (!deleted.isEmpty()) {
+            eventPublisher.publishEvent(RoomSearchInvalidation.roomsChanged(Set.copyOf(deleted.values())));
+            eventPublisher.publishEvent(EntityCacheInvalidation.rooms(deleted.keySet()));
+        }
     }
 }
@@ -1,8 +1,8 @@
 package com.example.hotel_booking_service.service;
 
 import com.example.hotel_booking_service.entity.User;
-import com.example.hotel_booking_service.kafka.KafkaProducerService;
 import com.example.hotel_booking_service.kafka.dto.KafkaUserRegistrationEvent;
+import com.example.hotel_booking_service.kafka.outbox.OutboxService;
 import com.example.hotel_booking_service.mapper.UserMapper;
 import com.example.hotel_booking_service.repository.UserRepository;
 import com.example.hotel_booking_service.web.dto.UserDto;
@@ -11,6 +11,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.text.MessageFormat;
 import java.util.List;
@@ -26,7 +27,7 @@ public class UserService {
     private final UserRepository userRepository;
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
-    private final KafkaProducerService kafkaProducerService;
+    private final OutboxService outboxService;
 
     /**
      * Получает список всех пользователей.
@@ -59,6 +60,7 @@ public class UserService {
      * @param dto DTO нового пользователя
      * @return DTO созданного пользователя
      */
+    @Transactional
     public UserDto create(UserDto dto) {
         if (userRepository.existsByUsername(dto.getUsername())) {
             throw new IllegalArgumentException("Username already exists");
@@ -75,11 +77,11 @@ public class UserService {
         user.setRole(dto.getRole());
         User savedUser = userRepository.save(user);
 
-        // Отправляем событие в Kafka
+        // Записываем событие в outbox в той же транзакции
         log.info("UserService -> User {} registered", savedUser.getUsername());
         KafkaUserRegistrationEvent event = new KafkaUserRegistrationEvent();
         event.setUserId(savedUser.getId());
-        kafkaProducerService.sendUserRegistration(event);
+        outboxService.publishUserRegistration(event);
 
         return userMapper.toUserDto(savedUser);
     }
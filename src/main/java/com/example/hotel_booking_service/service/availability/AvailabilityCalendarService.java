@@ -0,0 +1,149 @@
+package com.example.hotel_booking_service.service.availability;
+
+import com.example.hotel_booking_service.repository.HotelRepository;
+import com.example.hotel_booking_service.repository.RoomRepository;
+import com.example.hotel_booking_service.repository.projection.RoomMonthMaskView;
+import com.example.hotel_booking_service.web.dto.AvailabilityCalendarDto;
+import com.example.hotel_booking_service.web.dto.RoomCalendarDto;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Календарь занятости номеров по месяцам.
+ * <p>
+ * Маски занятости читаются из {@code room_availability_month} одним запросом: календарь уже учитывает
+ * бронирования и периоды недоступности, поэтому сами бронирования не загружаются. Строки идут по номерам,
+ * и календарь каждого номера собирается за один проход и кодируется длинами серий.
+ */
+@Service
+@RequiredArgsConstructor
+public class AvailabilityCalendarService {
+    public static final int MAX_PERIOD_DAYS = 92;
+
+    private final RoomRepository roomRepository;
+    private final HotelRepository hotelRepository;
+
+    /**
+     * Возвращает календарь занятости номера.
+     *
+     * @param roomId идентификатор номера
+     * @param from первая ночь периода
+     * @param to дата окончания периода, не включается
+     * @return календарь с одним номером
+     * @throws EntityNotFoundException если номер не найден
+     * @throws IllegalArgumentException если период недопустим
+     */
+    public AvailabilityCalendarDto getRoomCalendar(Long roomId, LocalDate from, LocalDate to) {
+        validatePeriod(from, to);
+        List<RoomMonthMaskView> masks = roomRepository.findMonthMasksByRoom(roomId, from, to);
+        if (masks.isEmpty()) {
+            throw new EntityNotFoundException(MessageFormat.format("Room with id {0} not found", roomId));
+        }
+        return new AvailabilityCalendarDto(from, to, toCalendars(masks, from, to));
+    }
+
+    /**
+     * Возвращает календари занятости всех номеров отеля.
+     *
+     * @param hotelId идентификатор отеля
+     * @param from первая ночь периода
+     * @param to дата окончания периода, не включается
+     * @return календарь номеров отеля
+     * @throws EntityNotFoundException если отель не найден
+     * @throws IllegalArgumentException если период недопустим
+     */
+    public AvailabilityCalendarDto getHotelCalendar(Long hotelId, LocalDate from, LocalDate to) {
+        validatePeriod(from, to);
+        List<RoomMonthMaskView> masks = roomRepository.findMonthMasksByHotel(hotelId, from, to);
+        if (masks.isEmpty() && !hotelRepository.existsById(hotelId)) {
+            throw new EntityNotFoundException(MessageFormat.format("Hotel with id {0} not found", hotelId));
+        }
+        return new AvailabilityCalendarDto(from, to, toCalendars(masks, from, to));
+    }
+
+    /**
+     * Вычисляет ETag календаря по его содержимому: одинаковые календари получают одинаковый тег
+     * на любом экземпляре сервиса.
+     *
+     * @param calendar календарь
+     * @return хеш содержимого в шестнадцатеричном виде
+     */
+    public String etag(AvailabilityCalendarDto calendar) {
+        StringBuilder content = new StringBuilder()
+                .append(calendar.from()).append('/').append(calendar.to());
+        for (RoomCalendarDto room : calendar.rooms()) {
+            content.append(';').append(room.roomId()).append(':').append(room.runs());
+        }
+        return DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void validatePeriod(LocalDate from, LocalDate to) {
+        if (!to.isAfter(from)) {
+            throw new IllegalArgumentException("End of the period must be after its start");
+        }
+        if (ChronoUnit.DAYS.between(from, to) > MAX_PERIOD_DAYS) {
+            throw new IllegalArgumentException(MessageFormat.format("Period must not exceed {0} days", MAX_PERIOD_DAYS));
+        }
+    }
+
+    private static List<RoomCalendarDto> toCalendars(List<RoomMonthMaskView> masks, LocalDate from, LocalDate to) {
+        long fromDay = from.toEpochDay();
+        int nights = (int) (to.toEpochDay() - fromDay);
+        List<RoomCalendarDto> calendars = new ArrayList<>();
+        BitSet busy = new BitSet(nights);
+        Long roomId = null;
+        for (RoomMonthMaskView mask : masks) {
+            if (!Objects.equals(mask.getRoomId(), roomId)) {
+                if (roomId != null) {
+                    calendars.add(new RoomCalendarDto(roomId, runs(busy, nights)));
+                    busy.clear();
+                }
+                roomId = mask.getRoomId();
+            }
+            if (mask.getMonthStart() != null) {
+                markBusy(busy, nights, (int) (mask.getMonthStart().toEpochDay() - fromDay), mask.getBusyMask());
+            }
+        }
+        if (roomId != null) {
+            calendars.add(new RoomCalendarDto(roomId, runs(busy, nights)));
+        }
+        return calendars;
+    }
+
+    /**
+     * Отмечает занятые ночи месяца, попадающие в период; бит N маски - ночь {@code offset + N}.
+     */
+    private static void markBusy(BitSet busy, int nights, int offset, long mask) {
+        for (long bits = mask; bits != 0; bits &= bits - 1) {
+            int night = offset + Long.numberOfTrailingZeros(bits);
+            if (night >= 0 && night < nights) {
+                busy.set(night);
+            }
+        }
+    }
+
+    private static List<Integer> runs(BitSet busy, int nights) {
+        List<Integer> runs = new ArrayList<>();
+        boolean inBusyRun = false;
+        for (int night = 0; night < nights; inBusyRun = !inBusyRun) {
+            int next = inBusyRun ? busy.nextClearBit(night) : busy.nextSetBit(night);
+            if (next < 0 || next > nights) {
+                next = nights;
+            }
+            runs.add(next - night);
+            night = next;
+        }
+        return runs;
+    }
+}
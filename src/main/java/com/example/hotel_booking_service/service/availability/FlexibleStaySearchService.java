@@ -0,0 +1,124 @@
+package com.example.hotel_booking_service.service.availability;
+
+import com.example.hotel_booking_service.repository.HotelRepository;
+import com.example.hotel_booking_service.repository.RoomRepository;
+import com.example.hotel_booking_service.repository.projection.RoomPriceView;
+import com.example.hotel_booking_service.web.dto.FlexibleStayDto;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.text.MessageFormat;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Поиск по гибким датам: лучшие окна из {@code nights} ночей подряд во всех номерах отеля за период.
+ * <p>
+ * Номера перебираются по возрастанию цены, для каждого свободные промежутки берутся из
+ * {@link RoomAvailabilityIndex}, и окно сдвигается по промежутку на одну ночь. Окна номеров одной цены
+ * упорядочиваются по дате заезда. Один запрос заменяет поиск по каждой возможной дате заезда
+ * и заканчивается, как только набрано {@code limit} окон.
+ */
+@Service
+@RequiredArgsConstructor
+public class FlexibleStaySearchService {
+    public static final int MAX_LIMIT = 100;
+    public static final int MAX_PERIOD_DAYS = 92;
+
+    private final RoomRepository roomRepository;
+    private final HotelRepository hotelRepository;
+    private final RoomAvailabilityIndex roomAvailabilityIndex;
+
+    /**
+     * Находит свободные окна проживания, упорядоченные по стоимости, затем по дате заезда, затем по номеру.
+     *
+     * @param hotelId идентификатор отеля
+     * @param from первая допустимая дата заезда
+     * @param to дата, не позже которой нужно выехать
+     * @param nights количество ночей
+     * @param guests минимальная вместимость номера, может быть null
+     * @param limit максимальное количество окон
+     * @return найденные окна
+     * @throws EntityNotFoundException если отель не найден
+     * @throws IllegalArgumentException если параметры поиска недопустимы
+     */
+    public List<FlexibleStayDto> search(Long hotelId, LocalDate from, LocalDate to, int nights, Integer guests, int limit) {
+        if (!to.isAfter(from)) {
+            throw new IllegalArgumentException("End of the period must be after its start");
+        }
+        if (ChronoUnit.DAYS.between(from, to) > MAX_PERIOD_DAYS) {
+            throw new IllegalArgumentException(MessageFormat.format("Period must not exceed {0} days", MAX_PERIOD_DAYS));
+        }
+        if (nights < 1) {
+            throw new IllegalArgumentException("Number of nights must be positive");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException(MessageFormat.format("Limit must be between 1 and {0}", MAX_LIMIT));
+        }
+        if (!hotelRepository.existsById(hotelId)) {
+            throw new EntityNotFoundException(MessageFormat.format("Hotel with id {0} not found", hotelId));
+        }
+
+        // Заезд в прошлом невозможен
+        int fromDay = (int) Math.max(from.toEpochDay(), LocalDate.now().toEpochDay());
+        int toDay = (int) to.toEpochDay();
+        List<FlexibleStayDto> stays = new ArrayList<>(limit);
+        WindowCollector collector = new WindowCollector(nights, limit);
+        List<RoomPriceView> rooms = roomRepository.findPricesByHotel(hotelId, guests);
+        List<FlexibleStayDto> samePrice = new ArrayList<>();
+        int next = 0;
+        while (next < rooms.size() && stays.size() < limit) {
+            // Окна номеров одной цены сливаются по дате заезда; каждый номер дает не больше недостающих окон
+            BigDecimal price = rooms.get(next).getPrice();
+            BigDecimal totalPrice = price.multiply(BigDecimal.valueOf(nights));
+            samePrice.clear();
+            for (; next < rooms.size() && rooms.get(next).getPrice().compareTo(price) == 0; next++) {
+                RoomPriceView room = rooms.get(next);
+                collector.reset(limit - stays.size());
+                roomAvailabilityIndex.forEachFreeGap(room.getRoomId(), fromDay, toDay, collector);
+                for (int i = 0; i < collector.count; i++) {
+                    LocalDate checkIn = LocalDate.ofEpochDay(collector.starts[i]);
+                    samePrice.add(new FlexibleStayDto(room.getRoomId(), room.getName(), checkIn,
+                            checkIn.plusDays(nights), totalPrice));
+                }
+            }
+            // Сортировка устойчивая: при одной дате заезда номера остаются в порядке идентификаторов
+            samePrice.sort(Comparator.comparing(FlexibleStayDto::checkIn));
+            stays.addAll(samePrice.subList(0, Math.min(samePrice.size(), limit - stays.size())));
+        }
+        return stays;
+    }
+
+    /**
+     * Скользящее окно по свободным промежуткам одного номера: запоминает дни заезда, с которых
+     * помещается {@code nights} ночей. Создается один раз на запрос и переиспользуется для всех номеров.
+     */
+    private static final class WindowCollector implements FreeGapConsumer {
+        private final int nights;
+        private final int[] starts;
+        private int capacity;
+        private int count;
+
+        WindowCollector(int nights, int limit) {
+            this.nights = nights;
+            this.starts = new int[limit];
+        }
+
+        void reset(int capacity) {
+            this.capacity = capacity;
+            this.count = 0;
+        }
+
+        @Override
+        public void accept(int fromEpochDay, int toEpochDay) {
+            for (int start = fromEpochDay; start + nights <= toEpochDay && count < capacity; start++) {
+                starts[count++] = start;
+            }
+        }
+    }
+}
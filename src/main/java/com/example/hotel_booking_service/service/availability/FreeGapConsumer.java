@@ -0,0 +1,15 @@
+package com.example.hotel_booking_service.service.availability;
+
+/**
+ * Получатель свободных промежутков комнаты при их перечислении в {@link RoomAvailabilityIndex}.
+ * Принимает дни эпохи, чтобы перечисление не создавало объектов на каждый промежуток.
+ */
+@FunctionalInterface
+public interface FreeGapConsumer {
+
+    /**
+     * @param fromEpochDay первая свободная ночь
+     * @param toEpochDay ночь, следующая за последней свободной
+     */
+    void accept(int fromEpochDay, int toEpochDay);
+}
@@ -0,0 +1,143 @@
+package com.example.hotel_booking_service.service.availability;
+
+import com.example.hotel_booking_service.repository.specification.RoomFilter;
+import com.example.hotel_booking_service.service.RoomService;
+import com.example.hotel_booking_service.web.dto.HotelRoomsDto;
+import com.example.hotel_booking_service.web.dto.MultiHotelAvailabilityDto;
+import com.example.hotel_booking_service.web.dto.RoomDto;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PagedModel;
+import org.springframework.stereotype.Service;
+
+import java.text.MessageFormat;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Поиск свободных номеров сразу в нескольких отелях.
+ * <p>
+ * Запрос по каждому отелю выполняется {@link RoomService#getAll} на отдельном виртуальном потоке, и все они
+ * ограничены одним сроком. Отели, не успевшие к сроку, попадают в {@code timedOut}, а ответ собирается из
+ * остальных. Число одновременных запросов к базе ограничено семафором общим для всех поисков, чтобы
+ * параллельные поиски не занимали весь пул соединений. Задача, не получившая разрешение до срока,
+ * не выполняется. Потоки задач не прерываются: прерывание виртуального потока, ждущего ответа базы, закрыло бы
+ * сокет соединения посреди запроса. Вместо этого запросы к базе получают {@code statement_timeout} на время,
+ * оставшееся до срока, и сервер сам отменяет опоздавший запрос, после чего разрешение освобождается.
+ */
+@Slf4j
+@Service
+public class MultiHotelAvailabilityService {
+    public static final int MAX_HOTELS = 50;
+
+    private final RoomService roomService;
+    private final Semaphore permits;
+    private final Duration deadline;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public MultiHotelAvailabilityService(RoomService roomService,
+                                         @Value("${app.multi-hotel-search.max-concurrency:8}") int maxConcurrency,
+                                         @Value("${app.multi-hotel-search.deadline-ms:1500}") long deadlineMs) {
+        this.roomService = roomService;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.deadline = Duration.ofMillis(deadlineMs);
+    }
+
+    /**
+     * Ищет номера по фильтру в каждом из отелей; {@code hotelId} фильтра заменяется идентификатором отеля.
+     *
+     * @param hotelIds идентификаторы отелей, повторы игнорируются
+     * @param filter фильтр номеров
+     * @param pageable параметры страницы для каждого отеля
+     * @return номера отелей, ответивших до срока, и списки отелей без ответа
+     * @throws IllegalArgumentException если отели не заданы, их слишком много или фильтр недопустим
+     */
+    public MultiHotelAvailabilityDto search(List<Long> hotelIds, RoomFilter filter, Pageable pageable) {
+        List<Long> ids = hotelIds.stream().distinct().toList();
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("At least one hotel id is required");
+        }
+        if (ids.size() > MAX_HOTELS) {
+            throw new IllegalArgumentException(MessageFormat.format("No more than {0} hotels per search", MAX_HOTELS));
+        }
+
+        long deadlineNanos = System.nanoTime() + deadline.toNanos();
+        Map<Long, Future<PagedModel<RoomDto>>> futures = new LinkedHashMap<>();
+        for (Long hotelId : ids) {
+            RoomFilter hotelFilter = withHotel(filter, hotelId);
+            futures.put(hotelId, executor.submit(() -> searchHotel(hotelFilter, pageable, deadlineNanos)));
+        }
+
+        List<HotelRoomsDto> hotels = new ArrayList<>(ids.size());
+        List<Long> timedOut = new ArrayList<>();
+        List<Long> failed = new ArrayList<>();
+        try {
+            for (Map.Entry<Long, Future<PagedModel<RoomDto>>> entry : futures.entrySet()) {
+                Long hotelId = entry.getKey();
+                try {
+                    long remaining = Math.max(deadlineNanos - System.nanoTime(), 0);
+                    hotels.add(new HotelRoomsDto(hotelId, entry.getValue().get(remaining, TimeUnit.NANOSECONDS)));
+                } catch (TimeoutException e) {
+                    timedOut.add(hotelId);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof TimeoutException || cause instanceof QueryTimeoutException) {
+                        timedOut.add(hotelId);
+                    } else if (cause instanceof IllegalArgumentException illegalArgument) {
+                        // Фильтр общий для всех отелей, поэтому ошибка в нем - ошибка всего запроса
+                        throw illegalArgument;
+                    } else {
+                        log.warn("MultiHotelAvailabilityService -> search() -> hotel {} failed", hotelId, cause);
+                        failed.add(hotelId);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Multi-hotel search was interrupted", e);
+        } finally {
+            // Не начатые задачи не запускаем; начатые завершатся к сроку сами по таймауту ожидания или запроса
+            futures.values().forEach(future -> future.cancel(false));
+        }
+        return new MultiHotelAvailabilityDto(hotels, timedOut, failed);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private PagedModel<RoomDto> searchHotel(RoomFilter filter, Pageable pageable, long deadlineNanos)
+            throws InterruptedException, TimeoutException {
+        if (!permits.tryAcquire(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+            throw new TimeoutException("No database permit before the deadline");
+        }
+        try {
+            long remaining = deadlineNanos - System.nanoTime();
+            if (remaining <= 0) {
+                throw new TimeoutException("No time left for the database query");
+            }
+            return roomService.getAll(filter, pageable, Duration.ofNanos(remaining));
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static RoomFilter withHotel(RoomFilter filter, Long hotelId) {
+        return new RoomFilter(filter.id(), filter.nameStarts(), filter.priceGte(), filter.priceLte(),
+                filter.maxPeople(), filter.checkIn(), filter.checkOut(), hotelId);
+    }
+}
@@ -0,0 +1,312 @@
+package com.example.hotel_booking_service.service.availability;
+
+import com.example.hotel_booking_service.entity.DateRanges;
+import com.example.hotel_booking_service.repository.BookingRepository;
+import com.example.hotel_booking_service.repository.RoomRepository;
+import com.example.hotel_booking_service.repository.projection.BookingPeriodView;
+import com.example.hotel_booking_service.repository.projection.RoomUnavailableView;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Индекс занятости комнат в памяти: для каждой комнаты хранится битовая карта забронированных ночей
+ * и периоды недоступности {@link DateRanges}.
+ * <p>
+ * Индекс строится из таблиц {@code booking} и {@code room} при старте и обновляется при каждом бронировании
+ * и изменении номера, поэтому проверка пересечения выполняется за O(ночей) без обращения к базе данных.
+ * Ночи раньше даты запуска не хранятся: заезд в прошлом запрещен валидацией запроса.
+ * <p>
+ * Бронирования других экземпляров сервиса и удаления номеров индекс видит только после периодического
+ * перестроения ({@code app.availability.refresh-interval-ms}). До него последнее слово за exclusion-ограничением
+ * {@code ex_booking_room_stay}: индекс лишь быстро отклоняет заведомо занятые ночи, а конфликт при вставке
+ * ночи в индексе не помечает, так как база данных не сообщает, какие из запрошенных ночей заняты.
+ * <p>
+ * Запросы по дням эпохи ({@link #isFree}, {@link #nextFreeDay}, {@link #forEachFreeGap}) работают
+ * с битовой картой и массивом границ периодов недоступности и не создают объектов на каждый вызов.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RoomAvailabilityIndex {
+    private final BookingRepository bookingRepository;
+    private final RoomRepository roomRepository;
+
+    private volatile ConcurrentMap<Long, RoomNights> rooms = new ConcurrentHashMap<>();
+    private volatile ConcurrentMap<Long, DateRanges> unavailable = new ConcurrentHashMap<>();
+    private final long originEpochDay = LocalDate.now().toEpochDay();
+
+    /**
+     * Резервы, которые еще не попали в базу данных: транзакция бронирования не завершена
+     * или резерв сделан вне транзакции. Перестроение переносит их в новый индекс.
+     */
+    private final Set<Reservation> pending = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Заполняет индекс бронированиями и периодами недоступности, которые еще не закончились.
+     * Новый индекс строится рядом со старым и подменяет его целиком, незавершенные резервы переносятся в него.
+     */
+    @PostConstruct
+    public void rebuild() {
+        ConcurrentMap<Long, DateRanges> freshUnavailable = new ConcurrentHashMap<>();
+        for (RoomUnavailableView room : roomRepository.findUnavailableEndingAfter(LocalDate.ofEpochDay(originEpochDay))) {
+            freshUnavailable.put(room.getRoomId(), DateRanges.parse(room.getUnavailableDates()));
+        }
+        ConcurrentMap<Long, RoomNights> freshRooms = new ConcurrentHashMap<>();
+        List<BookingPeriodView> periods = bookingRepository.findPeriodsEndingAfter(LocalDate.ofEpochDay(originEpochDay));
+        for (BookingPeriodView period : periods) {
+            int from = toIndex(period.getCheckIn());
+            int to = toIndex(period.getCheckOut());
+            if (to > from) {
+                nightsOf(freshRooms, period.getRoomId()).mark(from, to);
+            }
+        }
+
+        unavailable = freshUnavailable;
+        rooms = freshRooms;
+        // Резерв, сделанный в старом индексе после подмены, переносит сам tryReserve
+        for (Reservation reservation : pending) {
+            nightsOf(freshRooms, reservation.roomId()).mark(reservation.from(), reservation.to());
+        }
+        log.info("RoomAvailabilityIndex -> rebuild() -> loaded {} bookings for {} rooms and unavailable dates for {} rooms",
+                periods.size(), freshRooms.size(), freshUnavailable.size());
+    }
+
+    /**
+     * Периодически перестраивает индекс, чтобы он увидел бронирования других экземпляров сервиса,
+     * удаленные номера и снял ночи, помеченные занятыми по конфликту в базе данных.
+     */
+    @Scheduled(initialDelayString = "${app.availability.refresh-interval-ms:60000}",
+            fixedDelayString = "${app.availability.refresh-interval-ms:60000}")
+    public void refresh() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            // Старый индекс остается в работе, пересечения по-прежнему отсекает база данных
+            log.warn("RoomAvailabilityIndex -> refresh() -> rebuild failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Заменяет периоды недоступности комнаты после ее сохранения.
+     *
+     * @param roomId идентификатор комнаты
+     * @param ranges новые периоды недоступности
+     */
+    public void updateUnavailable(Long roomId, DateRanges ranges) {
+        if (ranges == null || ranges.isEmpty()) {
+            unavailable.remove(roomId);
+        } else {
+            unavailable.put(roomId, ranges);
+        }
+    }
+
+    /**
+     * Проверяет, свободна ли комната на указанные даты.
+     *
+     * @param roomId идентификатор комнаты
+     * @param checkIn дата заезда
+     * @param checkOut дата выезда
+     * @return true, если ни одна ночь не занята и не попадает в период недоступности
+     */
+    public boolean isAvailable(Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        checkRange(checkIn, checkOut);
+        if (isUnavailable(roomId, checkIn, checkOut)) {
+            return false;
+        }
+        int from = toIndex(checkIn);
+        int to = toIndex(checkOut);
+        RoomNights nights = rooms.get(roomId);
+        return nights == null || to == 0 || nights.isFree(from, to);
+    }
+
+    /**
+     * Проверяет, свободна ли комната на ночи {@code [checkInDay, checkOutDay)} в днях эпохи.
+     *
+     * @param roomId идентификатор комнаты
+     * @param checkInDay день заезда
+     * @param checkOutDay день выезда
+     * @return true, если ни одна ночь не занята и не попадает в период недоступности
+     */
+    public boolean isFree(Long roomId, int checkInDay, int checkOutDay) {
+        checkRange(checkInDay, checkOutDay);
+        DateRanges blocked = unavailable.get(roomId);
+        if (blocked != null && blocked.intersects(checkInDay, checkOutDay)) {
+            return false;
+        }
+        int to = checkOutDay - (int) originEpochDay;
+        RoomNights nights = rooms.get(roomId);
+        return nights == null || to <= 0 || nights.isFree(Math.max(0, checkInDay - (int) originEpochDay), to);
+    }
+
+    /**
+     * Находит ближайший день заезда не раньше {@code fromDay}, с которого комната свободна {@code nights} ночей подряд.
+     *
+     * @param roomId идентификатор комнаты
+     * @param fromDay самый ранний день заезда в днях эпохи
+     * @param nights количество ночей
+     * @return день заезда в днях эпохи
+     */
+    public int nextFreeDay(Long roomId, int fromDay, int nights) {
+        if (nights < 1) {
+            throw new IllegalArgumentException("Number of nights must be positive");
+        }
+        int origin = (int) originEpochDay;
+        int from = Math.max(0, fromDay - origin);
+        RoomNights roomNights = rooms.get(roomId);
+        int start = roomNights != null
+                ? roomNights.nextFreeRun(from, nights, blockedOf(roomId), origin)
+                : RoomNights.nextFreeRun(null, from, nights, blockedOf(roomId), origin);
+        return start + origin;
+    }
+
+    /**
+     * Перечисляет свободные промежутки комнаты внутри {@code [fromDay, toDay)} в порядке возрастания.
+     * Ночи раньше даты запуска индекса не перечисляются.
+     *
+     * @param roomId идентификатор комнаты
+     * @param fromDay начало интервала в днях эпохи
+     * @param toDay конец интервала в днях эпохи
+     * @param consumer получатель промежутков; вызывается под блокировкой комнаты
+     */
+    public void forEachFreeGap(Long roomId, int fromDay, int toDay, FreeGapConsumer consumer) {
+        int origin = (int) originEpochDay;
+        int to = toDay - origin;
+        if (to <= 0) {
+            return;
+        }
+        int from = Math.max(0, fromDay - origin);
+        RoomNights roomNights = rooms.get(roomId);
+        if (roomNights != null) {
+            roomNights.forEachFreeGap(from, to, blockedOf(roomId), origin, consumer);
+        } else {
+            RoomNights.forEachFreeGap(null, from, to, blockedOf(roomId), origin, consumer);
+        }
+    }
+
+    /**
+     * Атомарно резервирует ночи комнаты.
+     * Если вызов выполняется внутри транзакции, резерв снимается при ее откате.
+     *
+     * @param roomId идентификатор комнаты
+     * @param checkIn дата заезда
+     * @param checkOut дата выезда
+     * @return true, если ночи были свободны и теперь заняты
+     */
+    public boolean tryReserve(Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        checkRange(checkIn, checkOut);
+        if (isUnavailable(roomId, checkIn, checkOut)) {
+            return false;
+        }
+        int from = toIndex(checkIn);
+        int to = toIndex(checkOut);
+        if (to == 0) {
+            return true;
+        }
+        ConcurrentMap<Long, RoomNights> current = rooms;
+        Reservation reservation = new Reservation(roomId, from, to);
+        pending.add(reservation);
+        if (!nightsOf(current, roomId).tryReserve(from, to)) {
+            pending.remove(reservation);
+            return false;
+        }
+        ConcurrentMap<Long, RoomNights> rebuilt = rooms;
+        if (rebuilt != current) {
+            // Индекс перестроили между чтением карты и резервом
+            nightsOf(rebuilt, roomId).mark(from, to);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        pending.remove(reservation);
+                    } else {
+                        release(roomId, checkIn, checkOut);
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Освобождает ночи комнаты.
+     *
+     * @param roomId идентификатор комнаты
+     * @param checkIn дата заезда
+     * @param checkOut дата выезда
+     */
+    public void release(Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        int from = toIndex(checkIn);
+        int to = toIndex(checkOut);
+        pending.remove(new Reservation(roomId, from, to));
+        RoomNights nights = rooms.get(roomId);
+        if (nights != null && to > 0) {
+            nights.release(from, to);
+        }
+    }
+
+    /**
+     * Освобождает ночи комнаты после фиксации текущей транзакции, вне транзакции - сразу.
+     * До фиксации строка бронирования еще занимает ночи в базе данных.
+     *
+     * @param roomId идентификатор комнаты
+     * @param checkIn дата заезда
+     * @param checkOut дата выезда
+     */
+    public void releaseOnCommit(Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    release(roomId, checkIn, checkOut);
+                }
+            });
+        } else {
+            release(roomId, checkIn, checkOut);
+        }
+    }
+
+    private boolean isUnavailable(Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        DateRanges ranges = unavailable.get(roomId);
+        return ranges != null && ranges.intersects(checkIn, checkOut);
+    }
+
+    private DateRanges blockedOf(Long roomId) {
+        return unavailable.getOrDefault(roomId, DateRanges.empty());
+    }
+
+    private static RoomNights nightsOf(ConcurrentMap<Long, RoomNights> roomNights, Long roomId) {
+        return roomNights.computeIfAbsent(roomId, id -> new RoomNights());
+    }
+
+    private int toIndex(LocalDate date) {
+        return (int) Math.max(0, date.toEpochDay() - originEpochDay);
+    }
+
+    private static void checkRange(LocalDate checkIn, LocalDate checkOut) {
+        if (!checkOut.isAfter(checkIn)) {
+            throw new IllegalArgumentException("Check-out date must be after check-in date");
+        }
+    }
+
+    private static void checkRange(int checkInDay, int checkOutDay) {
+        if (checkOutDay <= checkInDay) {
+            throw new IllegalArgumentException("Check-out date must be after check-in date");
+        }
+    }
+
+    private record Reservation(Long roomId, int from, int to) {
+    }
+}
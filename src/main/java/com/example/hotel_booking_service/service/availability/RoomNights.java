@@ -0,0 +1,115 @@
+package com.example.hotel_booking_service.service.availability;
+
+import com.example.hotel_booking_service.entity.DateRanges;
+
+import java.util.BitSet;
+
+/**
+ * Битовая карта занятых ночей одной комнаты.
+ * Бит {@code i} соответствует ночи {@code origin + i}, где origin задается индексом.
+ */
+final class RoomNights {
+    private final BitSet nights = new BitSet();
+
+    /**
+     * Проверяет, что все ночи в диапазоне [from, to) свободны.
+     */
+    synchronized boolean isFree(int from, int to) {
+        int next = nights.nextSetBit(from);
+        return next < 0 || next >= to;
+    }
+
+    /**
+     * Атомарно занимает ночи [from, to), если все они свободны.
+     *
+     * @return true, если ночи заняты этим вызовом
+     */
+    synchronized boolean tryReserve(int from, int to) {
+        if (!isFree(from, to)) {
+            return false;
+        }
+        nights.set(from, to);
+        return true;
+    }
+
+    /**
+     * Безусловно помечает ночи [from, to) занятыми.
+     */
+    synchronized void mark(int from, int to) {
+        nights.set(from, to);
+    }
+
+    /**
+     * Освобождает ночи [from, to).
+     */
+    synchronized void release(int from, int to) {
+        nights.clear(from, to);
+    }
+
+    /**
+     * Находит первые {@code length} подряд свободных ночей, начиная с from.
+     * Свободна ночь, не занятая бронированием и не попадающая в периоды недоступности.
+     *
+     * @param blocked периоды недоступности в днях эпохи
+     * @param origin день эпохи, соответствующий биту 0
+     * @return индекс первой ночи
+     */
+    synchronized int nextFreeRun(int from, int length, DateRanges blocked, int origin) {
+        return nextFreeRun(nights, from, length, blocked, origin);
+    }
+
+    /**
+     * Передает получателю свободные промежутки внутри [from, to) в днях эпохи.
+     * Получатель вызывается под блокировкой комнаты и не должен обращаться к индексу.
+     */
+    synchronized void forEachFreeGap(int from, int to, DateRanges blocked, int origin, FreeGapConsumer consumer) {
+        forEachFreeGap(nights, from, to, blocked, origin, consumer);
+    }
+
+    /**
+     * То же, что {@link #nextFreeRun(int, int, DateRanges, int)}, для битовой карты, которую никто не изменяет.
+     * При {@code nights == null} учитываются только периоды недоступности.
+     */
+    static int nextFreeRun(BitSet nights, int from, int length, DateRanges blocked, int origin) {
+        int start = nextFreeNight(nights, from, blocked, origin);
+        while (true) {
+            int busy = nextBusyNight(nights, start, blocked, origin);
+            if (busy - start >= length) {
+                return start;
+            }
+            start = nextFreeNight(nights, busy, blocked, origin);
+        }
+    }
+
+    /**
+     * То же, что {@link #forEachFreeGap(int, int, DateRanges, int, FreeGapConsumer)}, для битовой карты,
+     * которую никто не изменяет. При {@code nights == null} учитываются только периоды недоступности.
+     */
+    static void forEachFreeGap(BitSet nights, int from, int to, DateRanges blocked, int origin, FreeGapConsumer consumer) {
+        int start = nextFreeNight(nights, from, blocked, origin);
+        while (start < to) {
+            int end = Math.min(nextBusyNight(nights, start, blocked, origin), to);
+            consumer.accept(start + origin, end + origin);
+            start = nextFreeNight(nights, end, blocked, origin);
+        }
+    }
+
+    private static int nextFreeNight(BitSet nights, int from, DateRanges blocked, int origin) {
+        int night = from;
+        while (true) {
+            int free = nights == null ? night : nights.nextClearBit(night);
+            int unblocked = blocked.skip(free + origin) - origin;
+            if (unblocked == free) {
+                return free;
+            }
+            night = unblocked;
+        }
+    }
+
+    private static int nextBusyNight(BitSet nights, int from, DateRanges blocked, int origin) {
+        int booked = nights == null ? -1 : nights.nextSetBit(from);
+        int blockedStart = blocked.nextStart(from + origin);
+        return Math.min(booked < 0 ? Integer.MAX_VALUE : booked,
+                blockedStart == Integer.MAX_VALUE ? Integer.MAX_VALUE : blockedStart - origin);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.hotel_booking_service.service.cache;
+
+import com.example.hotel_booking_service.web.dto.HotelDto;
+
+/**
+ * Отель в локальном кэше: DTO без учета накопленных оценок и записанная сумма оценок,
+ * по которой к рейтингу добавляются накопленные оценки при чтении. DTO не изменяется и наружу не передается.
+ *
+ * @param hotel DTO отеля по данным базы
+ * @param ratingSum сумма оценок отеля в базе
+ */
+public record CachedHotel(HotelDto hotel, long ratingSum) {
+}
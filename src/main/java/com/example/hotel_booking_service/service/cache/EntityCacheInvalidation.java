@@ -0,0 +1,33 @@
+package com.example.hotel_booking_service.service.cache;
+
+import java.util.Set;
+
+/**
+ * Событие изменения отелей или номеров, закэшированных в {@link EntityNearCache}.
+ * Публикуется в транзакции записи, кэш сбрасывает записи после ее фиксации.
+ *
+ * @param hotelIds измененные отели
+ * @param roomIds измененные номера
+ */
+public record EntityCacheInvalidation(Set<Long> hotelIds, Set<Long> roomIds) {
+
+    /**
+     * Отели изменены или удалены.
+     *
+     * @param hotelIds идентификаторы отелей
+     * @return событие
+     */
+    public static EntityCacheInvalidation hotels(Set<Long> hotelIds) {
+        return new EntityCacheInvalidation(hotelIds, Set.of());
+    }
+
+    /**
+     * Номера изменены или удалены.
+     *
+     * @param roomIds идентификаторы номеров
+     * @return событие
+     */
+    public static EntityCacheInvalidation rooms(Set<Long> roomIds) {
+        return new EntityCacheInvalidation(Set.of(), roomIds);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.hotel_booking_service.service.cache;
+
+import com.example.hotel_booking_service.entity.Hotel;
+import com.example.hotel_booking_service.entity.Room;
+import com.example.hotel_booking_service.kafka.KafkaProducerService;
+import com.example.hotel_booking_service.kafka.dto.KafkaCacheInvalidationEvent;
+import com.example.hotel_booking_service.repository.RoomRepository;
+import com.example.hotel_booking_service.web.dto.RoomDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Локальные кэши отелей и номеров по идентификатору перед чтением из базы данных.
+ * <p>
+ * После фиксации записи отелей или номеров записи сбрасываются на этом экземпляре, а событие сброса
+ * отправляется в тему {@link KafkaProducerService#ENTITY_CACHE_INVALIDATION_TOPIC}, которую читают все
+ * экземпляры сервиса, включая отправителя. Если отправка не удалась, на других экземплярах данные устареют
+ * не дольше времени жизни записи здесь и в кэше второго уровня, из которого она загружается.
+ * <p>
+ * Вместе с локальными кэшами сбрасывается и кэш второго уровня Hibernate: он не видит изменений,
+ * записанных в обход сессии через {@code JdbcTemplate}, и изменений на других экземплярах.
+ */
+@Slf4j
+@Component
+public class EntityNearCache {
+    private final NearCache<CachedHotel> hotels;
+    private final NearCache<RoomDto> rooms;
+    private final KafkaProducerService kafkaProducerService;
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Отправка в Kafka может ждать метаданные брокера, поэтому не выполняется в потоке запроса.
+     */
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+
+    public EntityNearCache(MeterRegistry meterRegistry,
+                           KafkaProducerService kafkaProducerService,
+                           EntityManagerFactory entityManagerFactory,
+                           @Value("${app.near-cache.max-size:10000}") long maxSize,
+                           @Value("${app.near-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.kafkaProducerService = kafkaProducerService;
+        this.entityManagerFactory = entityManagerFactory;
+        this.hotels = new NearCache<>("hotels", meterRegistry, maxSize, Duration.ofSeconds(ttlSeconds));
+        this.rooms = new NearCache<>("rooms", meterRegistry, maxSize, Duration.ofSeconds(ttlSeconds));
+    }
+
+    /**
+     * Кэш отелей.
+     *
+     * @return кэш отелей
+     */
+    public NearCache<CachedHotel> hotels() {
+        return hotels;
+    }
+
+    /**
+     * Кэш номеров. Значения общие для всех читателей и не изменяются.
+     *
+     * @return кэш номеров
+     */
+    public NearCache<RoomDto> rooms() {
+        return rooms;
+    }
+
+    /**
+     * Сбрасывает записи на этом экземпляре и рассылает сброс остальным.
+     * Вызывается после фиксации транзакции, а вне транзакции - сразу.
+     *
+     * @param invalidation измененные отели и номера
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(EntityCacheInvalidation invalidation) {
+        if (invalidation.hotelIds().isEmpty() && invalidation.roomIds().isEmpty()) {
+            return;
+        }
+        evict(invalidation.hotelIds(), invalidation.roomIds());
+
+        KafkaCacheInvalidationEvent event = new KafkaCacheInvalidationEvent(
+                List.copyOf(invalidation.hotelIds()), List.copyOf(invalidation.roomIds()));
+        sender.execute(() -> {
+            try {
+                kafkaProducerService.sendCacheInvalidation(event).whenComplete((result, e) -> {
+                    if (e != null) {
+                        log.warn("EntityNearCache -> onChange() -> invalidation not sent: {}", e.getMessage());
+                    }
+                });
+            } catch (RuntimeException e) {
+                log.warn("EntityNearCache -> onChange() -> invalidation not sent: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Сбрасывает записи отелей и номеров на этом экземпляре, включая кэш второго уровня Hibernate.
+     * Изменение номеров сбрасывает регион запросов по номерам целиком: закэшированный результат не хранит,
+     * каких номеров он касается, а записи номеров редки по сравнению с чтениями.
+     *
+     * @param hotelIds идентификаторы отелей, может быть null
+     * @param roomIds идентификаторы номеров, может быть null
+     */
+    public void evict(Collection<Long> hotelIds, Collection<Long> roomIds) {
+        Cache secondLevelCache = entityManagerFactory.getCache();
+        if (hotelIds != null && !hotelIds.isEmpty()) {
+            hotels.invalidate(hotelIds);
+            hotelIds.forEach(id -> secondLevelCache.evict(Hotel.class, id));
+        }
+        if (roomIds != null && !roomIds.isEmpty()) {
+            rooms.invalidate(roomIds);
+            roomIds.forEach(id -> secondLevelCache.evict(Room.class, id));
+            secondLevelCache.unwrap(org.hibernate.Cache.class).evictQueryRegion(RoomRepository.QUERY_CACHE_REGION);
+        }
+    }
+
+    /**
+     * Прерывает неотправленные сбросы: при недоступном брокере они ждали бы метаданные до остановки по таймауту.
+     */
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.hotel_booking_service.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Локальный кэш сущностей по идентификатору.
+ * <p>
+ * Caffeine вытесняет записи по размеру политикой W-TinyLFU, время жизни ограничивает устаревание,
+ * если сообщение о сбросе потеряется. Попадания, промахи и вытеснения публикуются метриками
+ * {@code cache.gets} и {@code cache.evictions} с тегом {@code cache}.
+ *
+ * @param <V> тип значения
+ */
+public class NearCache<V> {
+    private final Cache<Long, V> cache;
+
+    /**
+     * Растет при каждом сбросе. Значение, загруженное до сброса, в кэш не кладется.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    public NearCache(String name, MeterRegistry meterRegistry, long maxSize, Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+    }
+
+    /**
+     * Возвращает значение из кэша или загружает его.
+     *
+     * @param id идентификатор
+     * @param loader загрузка из базы данных, исключение передается вызывающему
+     * @return значение
+     */
+    public V get(Long id, Function<Long, V> loader) {
+        V cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+        long startGeneration = generation.get();
+        V value = loader.apply(id);
+        if (value != null && generation.get() == startGeneration) {
+            cache.put(id, value);
+        }
+        return value;
+    }
+
+    /**
+     * Возвращает значения из кэша, отсутствующие загружает одним вызовом.
+     *
+     * @param ids идентификаторы
+     * @param loader загрузка отсутствующих значений, ненайденные идентификаторы пропускаются
+     * @return найденные значения по идентификаторам
+     */
+    public Map<Long, V> getAll(Collection<Long> ids, Function<Set<Long>, Map<Long, V>> loader) {
+        Map<Long, V> result = new HashMap<>(cache.getAllPresent(ids));
+        Set<Long> missing = new LinkedHashSet<>(ids);
+        missing.removeAll(result.keySet());
+        if (missing.isEmpty()) {
+            return result;
+        }
+        long startGeneration = generation.get();
+        Map<Long, V> loaded = loader.apply(missing);
+        if (generation.get() == startGeneration) {
+            cache.putAll(loaded);
+        }
+        result.putAll(loaded);
+        return result;
+    }
+
+    /**
+     * Сбрасывает значения.
+     *
+     * @param ids идентификаторы
+     */
+    public void invalidate(Collection<Long> ids) {
+        generation.incrementAndGet();
+        cache.invalidateAll(ids);
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.hotel_booking_service.service.cache;
+
+import com.example.hotel_booking_service.repository.specification.RoomFilter;
+import com.example.hotel_booking_service.web.dto.RoomDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PagedModel;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш страниц поиска номеров {@code GET /api/v1/rooms}.
+ * <p>
+ * Ключ - нормализованный {@link RoomFilter} и параметры страницы. Записи вытесняются по размеру и времени жизни,
+ * а после фиксации записи номеров или бронирований сбрасываются только страницы, чей фильтр мог включать
+ * измененный номер. Для каждой формы фильтра (набора заданных полей) ведутся счетчики попаданий и промахов
+ * {@code room.search.cache.requests}.
+ */
+@Component
+public class RoomSearchCache {
+    private static final String REQUESTS_METRIC = "room.search.cache.requests";
+
+    private final Cache<Key, PagedModel<RoomDto>> cache;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Растет при каждом сбросе. Результат, вычисленный до сброса, в кэш не кладется.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    public RoomSearchCache(MeterRegistry meterRegistry,
+                           @Value("${app.room-search-cache.max-size:10000}") long maxSize,
+                           @Value("${app.room-search-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.meterRegistry = meterRegistry;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "roomSearch");
+    }
+
+    /**
+     * Возвращает страницу из кэша или вычисляет ее.
+     *
+     * @param filter фильтр номеров
+     * @param pageable параметры страницы
+     * @param loader поиск в базе данных
+     * @return страница номеров
+     */
+    public PagedModel<RoomDto> get(RoomFilter filter, Pageable pageable, Supplier<PagedModel<RoomDto>> loader) {
+        Key key = Key.of(filter, pageable);
+        PagedModel<RoomDto> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            counter(key, "hit").increment();
+            return cached;
+        }
+        counter(key, "miss").increment();
+
+        long startGeneration = generation.get();
+        PagedModel<RoomDto> page = loader.get();
+        if (generation.get() == startGeneration) {
+            cache.put(key, page);
+        }
+        return page;
+    }
+
+    /**
+     * Сбрасывает страницы, на которые повлияло изменение.
+     * Вызывается после фиксации транзакции, а вне транзакции - сразу.
+     *
+     * @param invalidation описание изменения
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void invalidate(RoomSearchInvalidation invalidation) {
+        generation.incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> key.isAffectedBy(invalidation));
+    }
+
+    /**
+     * Сбрасывает весь кэш.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    private Counter counter(Key key, String result) {
+        return Counter.builder(REQUESTS_METRIC)
+                .description("Room search cache lookups by filter shape")
+                .tag("shape", key.shape())
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ключ кэша: нормализованный фильтр и параметры страницы.
+     */
+    record Key(RoomFilter filter, int page, int size, String sort) {
+
+        static Key of(RoomFilter filter, Pageable pageable) {
+            RoomFilter normalized = new RoomFilter(
+                    filter.id(),
+                    StringUtils.hasText(filter.nameStarts()) ? filter.nameStarts().toLowerCase() : null,
+                    normalize(filter.priceGte()),
+                    normalize(filter.priceLte()),
+                    filter.maxPeople(),
+                    filter.checkIn(),
+                    filter.checkOut(),
+                    filter.hotelId());
+            return pageable.isPaged()
+                    ? new Key(normalized, pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort().toString())
+                    : new Key(normalized, -1, -1, pageable.getSort().toString());
+        }
+
+        /**
+         * Форма фильтра - перечень заданных полей, например {@code checkIn+checkOut+hotelId}.
+         */
+        String shape() {
+            StringJoiner shape = new StringJoiner("+").setEmptyValue("none");
+            if (filter.id() != null) {
+                shape.add("id");
+            }
+            if (filter.nameStarts() != null) {
+                shape.add("nameStarts");
+            }
+            if (filter.priceGte() != null) {
+                shape.add("priceGte");
+            }
+            if (filter.priceLte() != null) {
+                shape.add("priceLte");
+            }
+            if (filter.maxPeople() != null) {
+                shape.add("maxPeople");
+            }
+            if (filter.checkIn() != null && filter.checkOut() != null) {
+                shape.add("checkIn+checkOut");
+            }
+            if (filter.hotelId() != null) {
+                shape.add("hotelId");
+            }
+            return shape.toString();
+        }
+
+        /**
+         * Может ли изменение поменять страницу. Бронирование влияет только на поиск по пересекающимся датам,
+         * изменение номера - на любой поиск, который мог его включать.
+         */
+        boolean isAffectedBy(RoomSearchInvalidation invalidation) {
+            if (invalidation.roomId() != null && filter.id() != null && !filter.id().equals(invalidation.roomId())) {
+                return false;
+            }
+            if (invalidation.hotelIds() != null && filter.hotelId() != null
+                    && !invalidation.hotelIds().contains(filter.hotelId())) {
+                return false;
+            }
+            if (invalidation.checkIn() != null) {
+                return filter.checkIn() != null && filter.checkOut() != null
+                        && filter.checkIn().isBefore(invalidation.checkOut())
+                        && invalidation.checkIn().isBefore(filter.checkOut());
+            }
+            return true;
+        }
+
+        private static BigDecimal normalize(BigDecimal value) {
+            return value == null ? null : value.stripTrailingZeros();
+        }
+    }
+}
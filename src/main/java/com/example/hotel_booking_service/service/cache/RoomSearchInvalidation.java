@@ -0,0 +1,49 @@
+package com.example.hotel_booking_service.service.cache;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Событие изменения данных, влияющих на результаты поиска номеров.
+ * Публикуется в транзакции записи, кэш сбрасывает затронутые страницы после ее фиксации.
+ *
+ * @param roomId измененный номер, null если изменились несколько номеров
+ * @param hotelIds отели номера, null если отель неизвестен
+ * @param checkIn начало занятых ночей, null если изменились сами данные номера
+ * @param checkOut конец занятых ночей (не включая), null если изменились сами данные номера
+ */
+public record RoomSearchInvalidation(Long roomId, Set<Long> hotelIds, LocalDate checkIn, LocalDate checkOut) {
+
+    /**
+     * Номер создан, изменен или удален.
+     *
+     * @param roomId идентификатор номера
+     * @param hotelIds отели номера до и после изменения
+     * @return событие
+     */
+    public static RoomSearchInvalidation roomChanged(Long roomId, Set<Long> hotelIds) {
+        return new RoomSearchInvalidation(roomId, hotelIds, null, null);
+    }
+
+    /**
+     * Несколько номеров отелей созданы, изменены или удалены.
+     *
+     * @param hotelIds отели номеров
+     * @return событие
+     */
+    public static RoomSearchInvalidation roomsChanged(Set<Long> hotelIds) {
+        return new RoomSearchInvalidation(null, hotelIds, null, null);
+    }
+
+    /**
+     * Занятость номера на ночах {@code [checkIn, checkOut)} изменилась: номер забронирован, удержан или освобожден.
+     *
+     * @param roomId идентификатор номера
+     * @param checkIn дата заезда
+     * @param checkOut дата выезда
+     * @return событие
+     */
+    public static RoomSearchInvalidation roomBooked(Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        return new RoomSearchInvalidation(roomId, null, checkIn, checkOut);
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.hotel_booking_service.service.hold;
+
+import com.example.hotel_booking_service.entity.Booking;
+import com.example.hotel_booking_service.entity.BookingStatus;
+import com.example.hotel_booking_service.repository.BookingRepository;
+import com.example.hotel_booking_service.service.BookingService;
+import com.example.hotel_booking_service.web.dto.BookingHoldDto;
+import com.example.hotel_booking_service.web.dto.BookingHoldRequestDto;
+import com.example.hotel_booking_service.web.dto.BookingRequestDto;
+import com.example.hotel_booking_service.web.dto.BookingResponseDto;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.text.MessageFormat;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Сервис временного удержания номеров на время оплаты.
+ * <p>
+ * Удержание хранится в таблице {@code booking} в статусе {@link BookingStatus#HELD} со сроком истечения,
+ * поэтому его видят exclusion-ограничение и все экземпляры сервиса. {@link HierarchicalTimingWheel}
+ * только запускает удаление удержаний, созданных этим экземпляром, в момент истечения, без опроса базы данных.
+ * Удержания остановленных экземпляров удаляет периодическая очистка.
+ */
+@Slf4j
+@Service
+public class BookingHoldService {
+    private final BookingService bookingService;
+    private final BookingRepository bookingRepository;
+    private final Clock clock;
+    private final Duration defaultTtl;
+    private final Duration maxTtl;
+    private final HierarchicalTimingWheel timingWheel;
+
+    /**
+     * Задачи колеса выполняются в его потоке и должны быть короткими, поэтому удаление из базы выполняется здесь.
+     */
+    private final ExecutorService expirer = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final ConcurrentMap<UUID, HierarchicalTimingWheel.Timeout> timeouts = new ConcurrentHashMap<>();
+
+    public BookingHoldService(BookingService bookingService,
+                              BookingRepository bookingRepository,
+                              @Value("${app.booking.hold.default-ttl-seconds:600}") long defaultTtlSeconds,
+                              @Value("${app.booking.hold.max-ttl-seconds:3600}") long maxTtlSeconds,
+                              @Value("${app.booking.hold.tick-ms:1000}") long tickMs) {
+        this(bookingService, bookingRepository, Clock.systemUTC(), Duration.ofSeconds(defaultTtlSeconds),
+                Duration.ofSeconds(maxTtlSeconds), new HierarchicalTimingWheel(Duration.ofMillis(tickMs), 64, 3));
+    }
+
+    BookingHoldService(BookingService bookingService,
+                       BookingRepository bookingRepository,
+                       Clock clock,
+                       Duration defaultTtl,
+                       Duration maxTtl,
+                       HierarchicalTimingWheel timingWheel) {
+        this.bookingService = bookingService;
+        this.bookingRepository = bookingRepository;
+        this.clock = clock;
+        this.defaultTtl = defaultTtl;
+        this.maxTtl = maxTtl;
+        this.timingWheel = timingWheel;
+    }
+
+    /**
+     * Удерживает номер на указанные даты.
+     *
+     * @param request запрос на удержание
+     * @return информация об удержании
+     * @throws IllegalArgumentException если время удержания больше допустимого
+     * @throws EntityNotFoundException если пользователь или номер не найдены
+     * @throws IllegalStateException если номер уже забронирован или удержан на выбранные даты
+     */
+    public BookingHoldDto hold(BookingHoldRequestDto request) {
+        Duration ttl = request.getTtlSeconds() == null ? defaultTtl : Duration.ofSeconds(request.getTtlSeconds());
+        if (ttl.compareTo(maxTtl) > 0) {
+            throw new IllegalArgumentException("Hold TTL must not exceed " + maxTtl.toSeconds() + " seconds");
+        }
+
+        UUID holdId = UUID.randomUUID();
+        Instant expiresAt = clock.instant().plus(ttl);
+        BookingRequestDto booking = new BookingRequestDto();
+        booking.setUserId(request.getUserId());
+        booking.setRoomId(request.getRoomId());
+        booking.setCheckIn(request.getCheckIn());
+        booking.setCheckOut(request.getCheckOut());
+        bookingService.holdRoom(booking, holdId, toUtc(expiresAt));
+
+        timeouts.put(holdId, timingWheel.schedule(ttl, () -> expirer.execute(() -> expire(holdId))));
+
+        BookingHoldDto dto = new BookingHoldDto();
+        dto.setHoldId(holdId);
+        dto.setUserId(request.getUserId());
+        dto.setRoomId(request.getRoomId());
+        dto.setCheckIn(request.getCheckIn());
+        dto.setCheckOut(request.getCheckOut());
+        dto.setExpiresAt(expiresAt);
+        return dto;
+    }
+
+    /**
+     * Возвращает активное удержание, созданное любым экземпляром сервиса.
+     *
+     * @param holdId идентификатор удержания
+     * @return информация об удержании
+     * @throws EntityNotFoundException если удержание не найдено или истекло
+     */
+    public BookingHoldDto getHold(UUID holdId) {
+        LocalDateTime now = toUtc(clock.instant());
+        return bookingRepository.findByHoldIdAndStatus(holdId, BookingStatus.HELD)
+                .filter(booking -> booking.getHoldExpiresAt().isAfter(now))
+                .map(BookingHoldService::toBookingHoldDto)
+                .orElseThrow(() -> new EntityNotFoundException(MessageFormat.format("Hold with ID {0} not found", holdId)));
+    }
+
+    /**
+     * Превращает удержание в бронирование без повторной проверки доступности.
+     *
+     * @param holdId идентификатор удержания
+     * @return информация о бронировании
+     * @throws EntityNotFoundException если удержание не найдено или истекло
+     */
+    public BookingResponseDto confirm(UUID holdId) {
+        BookingResponseDto booking = bookingService.confirmHold(holdId, toUtc(clock.instant()));
+        cancelTimeout(holdId);
+        return booking;
+    }
+
+    /**
+     * Отменяет удержание и освобождает ночи.
+     *
+     * @param holdId идентификатор удержания
+     * @throws EntityNotFoundException если удержание не найдено
+     */
+    public void cancel(UUID holdId) {
+        bookingService.cancelHold(holdId);
+        cancelTimeout(holdId);
+    }
+
+    /**
+     * Удаляет истекшие удержания всех экземпляров сервиса, в том числе остановленных до истечения.
+     */
+    @Scheduled(initialDelayString = "${app.booking.hold.sweep-interval-ms:30000}",
+            fixedDelayString = "${app.booking.hold.sweep-interval-ms:30000}")
+    public void deleteExpired() {
+        try {
+            int deleted = bookingService.deleteExpiredHolds(toUtc(clock.instant()));
+            if (deleted > 0) {
+                log.info("BookingHoldService -> deleteExpired() -> {} expired holds deleted", deleted);
+            }
+        } catch (RuntimeException e) {
+            log.warn("BookingHoldService -> deleteExpired() -> sweep failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Останавливает таймеры. Неудаленные удержания этого экземпляра удалит очистка на остальных.
+     */
+    @PreDestroy
+    public void shutdown() {
+        timingWheel.close();
+        expirer.shutdownNow();
+    }
+
+    /**
+     * Удаляет удержание по истечении времени. Если его уже подтвердили или отменили, удалять нечего.
+     */
+    private void expire(UUID holdId) {
+        timeouts.remove(holdId);
+        try {
+            if (bookingService.expireHold(holdId, toUtc(clock.instant()))) {
+                log.debug("BookingHoldService -> expire() -> hold {} expired", holdId);
+            }
+        } catch (RuntimeException e) {
+            log.warn("BookingHoldService -> expire() -> hold {} not deleted: {}", holdId, e.getMessage());
+        }
+    }
+
+    private void cancelTimeout(UUID holdId) {
+        HierarchicalTimingWheel.Timeout timeout = timeouts.remove(holdId);
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    private static LocalDateTime toUtc(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    private static BookingHoldDto toBookingHoldDto(Booking booking) {
+        BookingHoldDto dto = new BookingHoldDto();
+        dto.setHoldId(booking.getHoldId());
+        dto.setUserId(booking.getUser().getId());
+        dto.setRoomId(booking.getRoom().getId());
+        dto.setCheckIn(booking.getCheckIn());
+        dto.setCheckOut(booking.getCheckOut());
+        dto.setExpiresAt(booking.getHoldExpiresAt().toInstant(ZoneOffset.UTC));
+        return dto;
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.hotel_booking_service.service.hold;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Иерархическое колесо таймеров для отложенных задач с большим числом отмен.
+ * <p>
+ * Уровень {@code i} состоит из {@code wheelSize} ячеек шириной {@code wheelSize^i} тиков.
+ * Задача кладется на самый нижний уровень, в горизонт которого попадает ее срок, и по мере
+ * приближения срока опускается на нижние уровни. Добавление и отмена выполняются за O(1),
+ * а каждый тик обрабатывает только одну ячейку нижнего уровня.
+ * Задачи выполняются в потоке колеса, поэтому должны быть короткими.
+ */
+@Slf4j
+public class HierarchicalTimingWheel implements AutoCloseable {
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long[] spans;
+    private final List<List<List<Timeout>>> wheels;
+    private final long startNanos = System.nanoTime();
+    private final ScheduledExecutorService ticker;
+
+    private long currentTick;
+
+    /**
+     * Создает колесо и запускает поток, продвигающий его каждый тик.
+     *
+     * @param tick длительность тика
+     * @param wheelSize число ячеек на каждом уровне
+     * @param levels число уровней
+     */
+    public HierarchicalTimingWheel(Duration tick, int wheelSize, int levels) {
+        this(tick, wheelSize, levels, true);
+    }
+
+    HierarchicalTimingWheel(Duration tick, int wheelSize, int levels, boolean startTicker) {
+        if (wheelSize < 2 || levels < 1) {
+            throw new IllegalArgumentException("Timing wheel needs at least 2 slots and 1 level");
+        }
+        this.tickMillis = tick.toMillis();
+        this.wheelSize = wheelSize;
+        this.spans = new long[levels + 1];
+        this.wheels = new ArrayList<>(levels);
+        long span = 1;
+        for (int level = 0; level < levels; level++) {
+            spans[level] = span;
+            span = Math.multiplyExact(span, wheelSize);
+            List<List<Timeout>> slots = new ArrayList<>(wheelSize);
+            for (int slot = 0; slot < wheelSize; slot++) {
+                slots.add(new ArrayList<>());
+            }
+            wheels.add(slots);
+        }
+        spans[levels] = span;
+
+        if (startTicker) {
+            this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "timing-wheel");
+                thread.setDaemon(true);
+                return thread;
+            });
+            ticker.scheduleAtFixedRate(this::advanceToNow, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.ticker = null;
+        }
+    }
+
+    /**
+     * Планирует задачу.
+     *
+     * @param delay задержка до выполнения, округляется вверх до тика
+     * @param task задача
+     * @return дескриптор для отмены
+     * @throws IllegalArgumentException если задержка больше горизонта колеса
+     */
+    public Timeout schedule(Duration delay, Runnable task) {
+        long ticks = Math.max(1, (delay.toMillis() + tickMillis - 1) / tickMillis);
+        // Верхний уровень гарантированно вмещает wheelSize - 1 своих ячеек вперед от текущей
+        if (ticks > spans[spans.length - 1] - spans[spans.length - 2]) {
+            throw new IllegalArgumentException("Delay " + delay + " exceeds timing wheel horizon");
+        }
+        synchronized (this) {
+            Timeout timeout = new Timeout(currentTick + ticks, task);
+            place(timeout);
+            return timeout;
+        }
+    }
+
+    /**
+     * Продвигает колесо до текущего момента, выполняя все истекшие задачи.
+     */
+    void advanceToNow() {
+        long target = (System.nanoTime() - startNanos) / TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        List<Timeout> expired = new ArrayList<>();
+        synchronized (this) {
+            while (currentTick < target) {
+                expired.addAll(tick());
+            }
+        }
+        run(expired);
+    }
+
+    /**
+     * Продвигает колесо на один тик и выполняет истекшие задачи.
+     */
+    void advance() {
+        List<Timeout> expired;
+        synchronized (this) {
+            expired = tick();
+        }
+        run(expired);
+    }
+
+    private List<Timeout> tick() {
+        currentTick++;
+        // Спускаем задачи с верхних уровней, чей блок начинается на этом тике
+        for (int level = wheels.size() - 1; level > 0; level--) {
+            if (currentTick % spans[level] == 0) {
+                List<Timeout> bucket = drain(level, (int) ((currentTick / spans[level]) % wheelSize));
+                for (Timeout timeout : bucket) {
+                    if (!timeout.cancelled) {
+                        place(timeout);
+                    }
+                }
+            }
+        }
+        List<Timeout> expired = drain(0, (int) (currentTick % wheelSize));
+        expired.removeIf(timeout -> timeout.cancelled);
+        return expired;
+    }
+
+    private void place(Timeout timeout) {
+        for (int level = 0; level < wheels.size(); level++) {
+            long blocksAhead = timeout.deadlineTick / spans[level] - currentTick / spans[level];
+            if (blocksAhead < wheelSize) {
+                int slot = (int) ((timeout.deadlineTick / spans[level]) % wheelSize);
+                wheels.get(level).get(slot).add(timeout);
+                return;
+            }
+        }
+        throw new IllegalStateException("Timeout beyond timing wheel horizon");
+    }
+
+    private List<Timeout> drain(int level, int slot) {
+        List<Timeout> bucket = wheels.get(level).get(slot);
+        List<Timeout> drained = new ArrayList<>(bucket);
+        bucket.clear();
+        return drained;
+    }
+
+    private static void run(List<Timeout> expired) {
+        for (Timeout timeout : expired) {
+            try {
+                timeout.task.run();
+            } catch (RuntimeException e) {
+                log.error("HierarchicalTimingWheel -> run() -> timer task failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    /**
+     * Дескриптор запланированной задачи.
+     */
+    public static final class Timeout {
+        private final long deadlineTick;
+        private final Runnable task;
+        private volatile boolean cancelled;
+
+        private Timeout(long deadlineTick, Runnable task) {
+            this.deadlineTick = deadlineTick;
+            this.task = task;
+        }
+
+        /**
+         * Отменяет задачу. Задача удаляется из колеса лениво, когда до нее доходит очередь.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.hotel_booking_service.service.mailbox;
+
+import com.example.hotel_booking_service.entity.BookingTicket;
+import com.example.hotel_booking_service.entity.BookingTicketStatus;
+import com.example.hotel_booking_service.repository.BookingTicketRepository;
+import com.example.hotel_booking_service.service.BookingService;
+import com.example.hotel_booking_service.web.dto.BookingRequestDto;
+import com.example.hotel_booking_service.web.dto.BookingResponseDto;
+import com.example.hotel_booking_service.web.dto.BookingTicketDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.text.MessageFormat;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Асинхронный прием бронирований.
+ * <p>
+ * Запрос сразу получает квитанцию, а само бронирование выполняет {@link RoomMailboxExecutor}
+ * в очереди номера. Квитанция и результат хранятся в таблице {@code booking_ticket} до истечения срока
+ * хранения, поэтому квитанцию можно опрашивать через любой экземпляр сервиса, в том числе после перезапуска.
+ */
+@Slf4j
+@Service
+public class AsyncBookingService {
+    private final BookingService bookingService;
+    private final RoomMailboxExecutor roomMailboxExecutor;
+    private final BookingTicketRepository bookingTicketRepository;
+    private final ObjectMapper objectMapper;
+    private final Duration ticketTtl;
+
+    public AsyncBookingService(BookingService bookingService,
+                               RoomMailboxExecutor roomMailboxExecutor,
+                               BookingTicketRepository bookingTicketRepository,
+                               ObjectMapper objectMapper,
+                               @Value("${app.booking.async.ticket-ttl-minutes:60}") long ticketTtlMinutes) {
+        this.bookingService = bookingService;
+        this.roomMailboxExecutor = roomMailboxExecutor;
+        this.bookingTicketRepository = bookingTicketRepository;
+        this.objectMapper = objectMapper;
+        this.ticketTtl = Duration.ofMinutes(ticketTtlMinutes);
+    }
+
+    /**
+     * Ставит бронирование в очередь номера.
+     *
+     * @param request запрос на бронирование
+     * @return квитанция в статусе {@code PENDING}
+     */
+    public BookingTicketDto submit(BookingRequestDto request) {
+        UUID ticketId = UUID.randomUUID();
+        // Квитанция записывается до постановки в очередь, чтобы результат всегда находил строку
+        bookingTicketRepository.insert(ticketId, LocalDateTime.now().plus(ticketTtl));
+        roomMailboxExecutor.submit(request.getRoomId(), () -> bookingService.bookRoom(request))
+                .whenComplete((booking, error) -> {
+                    if (error == null) {
+                        complete(ticketId, BookingTicketStatus.COMPLETED, booking, null);
+                    } else {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error;
+                        log.debug("AsyncBookingService -> submit() -> ticket {} failed: {}", ticketId, cause.getMessage());
+                        complete(ticketId, BookingTicketStatus.FAILED, null, cause.getMessage());
+                    }
+                });
+
+        BookingTicketDto dto = new BookingTicketDto();
+        dto.setTicketId(ticketId);
+        dto.setStatus(BookingTicketDto.Status.PENDING);
+        return dto;
+    }
+
+    /**
+     * Возвращает состояние квитанции.
+     *
+     * @param ticketId идентификатор квитанции
+     * @return квитанция
+     * @throws EntityNotFoundException если квитанция не найдена или срок ее хранения истек
+     */
+    public BookingTicketDto getTicket(UUID ticketId) {
+        return bookingTicketRepository.findByIdAndExpiresAtAfter(ticketId, LocalDateTime.now())
+                .map(this::toBookingTicketDto)
+                .orElseThrow(() -> new EntityNotFoundException(MessageFormat.format("Ticket with ID {0} not found", ticketId)));
+    }
+
+    /**
+     * Удаляет квитанции, срок хранения которых истек.
+     */
+    @Scheduled(fixedDelayString = "${app.booking.async.cleanup-interval-ms:60000}")
+    public void deleteExpired() {
+        int deleted = bookingTicketRepository.deleteExpired(LocalDateTime.now());
+        log.debug("AsyncBookingService -> deleteExpired() -> deleted {} tickets", deleted);
+    }
+
+    /**
+     * Записывает результат бронирования. Срок хранения отсчитывается заново от момента завершения.
+     */
+    private void complete(UUID ticketId, BookingTicketStatus status, BookingResponseDto booking, String error) {
+        try {
+            String response = booking == null ? null : write(booking);
+            bookingTicketRepository.complete(ticketId, status, response, error, LocalDateTime.now().plus(ticketTtl));
+        } catch (RuntimeException e) {
+            log.warn("AsyncBookingService -> complete() -> ticket {} not updated: {}", ticketId, e.getMessage());
+        }
+    }
+
+    private String write(BookingResponseDto booking) {
+        try {
+            return objectMapper.writeValueAsString(booking);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private BookingTicketDto toBookingTicketDto(BookingTicket ticket) {
+        BookingTicketDto dto = new BookingTicketDto();
+        dto.setTicketId(ticket.getId());
+        dto.setStatus(BookingTicketDto.Status.valueOf(ticket.getStatus().name()));
+        dto.setError(ticket.getError());
+        if (ticket.getResponse() != null) {
+            try {
+                dto.setBooking(objectMapper.readValue(ticket.getResponse(), BookingResponseDto.class));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return dto;
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.hotel_booking_service.service.mailbox;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Исполнитель с отдельным почтовым ящиком для каждого номера.
+ * <p>
+ * Задачи одного номера выполняются строго последовательно, в порядке поступления, поэтому
+ * записи в один популярный номер не конкурируют за блокировки в базе данных.
+ * Ящики разных номеров обрабатываются независимо на виртуальных потоках, и очередь
+ * одного номера не задерживает остальные.
+ * <p>
+ * При остановке новые задачи отклоняются, а накопленные дорабатываются в пределах таймаута.
+ * Задачи, которые не успели начаться, завершаются {@link RejectedExecutionException}, а не теряются.
+ */
+@Slf4j
+@Component
+public class RoomMailboxExecutor {
+    private final ConcurrentMap<Long, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Duration shutdownTimeout;
+    private volatile boolean closed;
+    private volatile boolean aborted;
+
+    public RoomMailboxExecutor(@Value("${app.booking.async.shutdown-timeout-ms:30000}") long shutdownTimeoutMs) {
+        this.shutdownTimeout = Duration.ofMillis(shutdownTimeoutMs);
+    }
+
+    /**
+     * Ставит задачу в очередь номера.
+     *
+     * @param roomId идентификатор номера
+     * @param task задача
+     * @return результат задачи; после остановки исполнителя завершается {@link RejectedExecutionException}
+     */
+    public <T> CompletableFuture<T> submit(Long roomId, Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (closed) {
+            result.completeExceptionally(rejected());
+            return result;
+        }
+        Mailbox mailbox = mailboxes.computeIfAbsent(roomId, id -> new Mailbox());
+        mailbox.queue.add(new Task<>(task, result));
+        schedule(mailbox);
+        return result;
+    }
+
+    /**
+     * Дорабатывает накопленные задачи и отклоняет те, что не успели начаться до истечения таймаута.
+     */
+    @PreDestroy
+    public void shutdown() {
+        closed = true;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                aborted = true;
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            aborted = true;
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        int rejected = 0;
+        for (Mailbox mailbox : mailboxes.values()) {
+            rejected += rejectAll(mailbox);
+        }
+        if (rejected > 0) {
+            log.warn("RoomMailboxExecutor -> shutdown() -> {} queued tasks rejected", rejected);
+        }
+    }
+
+    /**
+     * Запускает разбор ящика, если он еще не разбирается. Флаг {@code scheduled} гарантирует,
+     * что у ящика не больше одного обработчика.
+     */
+    private void schedule(Mailbox mailbox) {
+        if (!mailbox.queue.isEmpty() && mailbox.scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> drain(mailbox));
+            } catch (RejectedExecutionException e) {
+                // Исполнитель остановлен между проверкой и запуском
+                mailbox.scheduled.set(false);
+                rejectAll(mailbox);
+            }
+        }
+    }
+
+    private void drain(Mailbox mailbox) {
+        try {
+            Task<?> task;
+            // После таймаута остановки обработчик не берет новые задачи, их отклоняет shutdown()
+            while (!aborted && (task = mailbox.queue.poll()) != null) {
+                task.run();
+            }
+        } finally {
+            mailbox.scheduled.set(false);
+        }
+        // Задача могла прийти между опустошением очереди и сбросом флага
+        schedule(mailbox);
+    }
+
+    private static int rejectAll(Mailbox mailbox) {
+        int rejected = 0;
+        Task<?> task;
+        while ((task = mailbox.queue.poll()) != null) {
+            task.result.completeExceptionally(rejected());
+            rejected++;
+        }
+        return rejected;
+    }
+
+    private static RejectedExecutionException rejected() {
+        return new RejectedExecutionException("Booking service is shutting down");
+    }
+
+    private record Task<T>(Supplier<T> supplier, CompletableFuture<T> result) {
+        private void run() {
+            try {
+                result.complete(supplier.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static final class Mailbox {
+        private final Queue<Task<?>> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+    }
+}
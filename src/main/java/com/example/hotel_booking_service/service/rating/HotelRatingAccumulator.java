@@ -0,0 +1,133 @@
+package com.example.hotel_booking_service.service.rating;
+
+import com.example.hotel_booking_service.repository.HotelRatingDelta;
+import com.example.hotel_booking_service.repository.HotelRepository;
+import com.example.hotel_booking_service.service.cache.EntityCacheInvalidation;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Накопитель оценок отелей с отложенной записью.
+ * <p>
+ * Оценки отеля складываются в {@link LongAdder}: при конкуренции потоки пишут в разные ячейки без блокировок.
+ * Сумма и количество упакованы в одно число (количество в старших 32 битах, сумма в младших), поэтому
+ * оценка попадает в сброс целиком. Периодически накопленное записывается в базу одним пакетом атомарных
+ * {@code UPDATE ... SET rating_sum = rating_sum + ?}, без чтения строк, в одной транзакции. Чтение объединяет записанные
+ * и накопленные оценки; пока пакет записывается, его оценки в чтении не видны.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HotelRatingAccumulator {
+    /**
+     * Одна оценка без учета ее значения: единица в разряде количества.
+     */
+    private static final long VOTE = 1L << 32;
+    private static final long SUM_MASK = VOTE - 1;
+
+    private final HotelRepository hotelRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionOperations transactionOperations;
+    private final ConcurrentMap<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Добавляет оценку отеля.
+     *
+     * @param hotelId идентификатор отеля
+     * @param mark оценка
+     */
+    public void add(Long hotelId, int mark) {
+        pending.computeIfAbsent(hotelId, id -> new LongAdder()).add(VOTE + mark);
+    }
+
+    /**
+     * Возвращает оценки отеля, еще не записанные в базу данных.
+     *
+     * @param hotelId идентификатор отеля
+     * @return сумма и количество оценок, нулевые, если оценок нет
+     */
+    public HotelRatingDelta pending(Long hotelId) {
+        LongAdder adder = pending.get(hotelId);
+        return unpack(hotelId, adder != null ? adder.sum() : 0);
+    }
+
+    /**
+     * Вычисляет средний рейтинг с округлением, как при записи в базу данных.
+     *
+     * @param sum сумма оценок
+     * @param count количество оценок
+     * @return средний рейтинг, null, если оценок нет
+     */
+    public static Integer average(long sum, long count) {
+        if (count == 0) {
+            return null;
+        }
+        return BigDecimal.valueOf(sum).divide(BigDecimal.valueOf(count), 0, RoundingMode.HALF_UP).intValue();
+    }
+
+    /**
+     * Записывает накопленные оценки в базу данных. Пакет записывается в одной транзакции: если запись не удалась,
+     * ни одна строка не изменена, поэтому все оценки возвращаются в накопитель и будут записаны при следующем сбросе.
+     * Оценки удаленных отелей отбрасываются.
+     */
+    @Scheduled(fixedDelayString = "${app.rating.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        List<HotelRatingDelta> deltas = new ArrayList<>();
+        pending.forEach((hotelId, adder) -> {
+            // Ячейки обнуляются по одной атомарно, поэтому параллельная оценка попадет в этот или следующий сброс
+            long packed = adder.sumThenReset();
+            if (packed != 0) {
+                deltas.add(unpack(hotelId, packed));
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        int[] updated;
+        try {
+            updated = transactionOperations.execute(status -> hotelRepository.addRatings(deltas));
+        } catch (RuntimeException e) {
+            log.warn("HotelRatingAccumulator -> flush() -> {} hotels postponed: {}", deltas.size(), e.getMessage());
+            deltas.forEach(delta -> pending.computeIfAbsent(delta.hotelId(), id -> new LongAdder())
+                    .add(delta.count() * VOTE + delta.sum()));
+            return;
+        }
+        Set<Long> flushed = new HashSet<>();
+        for (int i = 0; i < deltas.size(); i++) {
+            if (updated[i] == 0) {
+                pending.remove(deltas.get(i).hotelId());
+            } else {
+                flushed.add(deltas.get(i).hotelId());
+            }
+        }
+        // Закэшированные отели хранят прежнюю сумму оценок, а накопленные оценки уже обнулены
+        if (!flushed.isEmpty()) {
+            eventPublisher.publishEvent(EntityCacheInvalidation.hotels(flushed));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private static HotelRatingDelta unpack(Long hotelId, long packed) {
+        return new HotelRatingDelta(hotelId, packed & SUM_MASK, packed >>> 32);
+    }
+}
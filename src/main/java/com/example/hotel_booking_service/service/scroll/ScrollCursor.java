@@ -0,0 +1,13 @@
+package com.example.hotel_booking_service.service.scroll;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Разобранный токен продолжения: сортировка и позиция, с которой продолжается выборка.
+ *
+ * @param sort сортировка, всегда заканчивается идентификатором
+ * @param position значения ключей сортировки последней выданной строки
+ */
+public record ScrollCursor(Sort sort, KeysetScrollPosition position) {
+}
@@ -0,0 +1,134 @@
+package com.example.hotel_booking_service.service.scroll;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Кодирует позицию keyset-пагинации в непрозрачный токен продолжения и обратно.
+ * <p>
+ * Токен — base64url от JSON с сортировкой и значениями ключей последней строки. Сортировка хранится в токене,
+ * поэтому при продолжении параметр {@code sort} запроса не учитывается. Значения ключей приводятся к типам
+ * атрибутов сущности по метамодели JPA.
+ */
+@Component
+@RequiredArgsConstructor
+public class ScrollTokenCodec {
+    public static final int MAX_PAGE_SIZE = 100;
+    private static final String ID = "id";
+
+    private final ObjectMapper objectMapper;
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Возвращает курсор для первой страницы или для продолжения по токену.
+     *
+     * @param entityType тип сущности
+     * @param token токен продолжения, для первой страницы null
+     * @param size размер страницы
+     * @param requested сортировка из запроса, учитывается только для первой страницы
+     * @param sortable свойства, по которым разрешена сортировка (помимо идентификатора)
+     * @return курсор
+     * @throws IllegalArgumentException если токен поврежден, размер страницы или сортировка недопустимы
+     */
+    public ScrollCursor open(Class<?> entityType, String token, int size, Sort requested, Set<String> sortable) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException(MessageFormat.format("Page size must be between 1 and {0}", MAX_PAGE_SIZE));
+        }
+        if (!StringUtils.hasText(token)) {
+            requested.forEach(order -> checkSortable(order.getProperty(), sortable));
+            Sort sort = requested.getOrderFor(ID) == null ? requested.and(Sort.by(ID)) : requested;
+            return new ScrollCursor(sort, ScrollPosition.keyset());
+        }
+
+        Token decoded = read(token);
+        decoded.sort().forEach(order -> checkSortable(order.property(), sortable));
+        Sort sort = Sort.by(decoded.sort().stream()
+                .map(order -> new Sort.Order(order.direction(), order.property()))
+                .toList());
+        Set<String> properties = decoded.sort().stream().map(Order::property).collect(Collectors.toSet());
+        if (sort.getOrderFor(ID) == null || !properties.equals(decoded.keys().keySet())) {
+            throw invalidToken();
+        }
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        decoded.keys().forEach((property, value) -> keys.put(property, convert(entityType, property, value)));
+        return new ScrollCursor(sort, ScrollPosition.forward(keys));
+    }
+
+    /**
+     * Кодирует позицию последней выданной строки.
+     *
+     * @param cursor курсор, по которому получена страница
+     * @param last позиция последней строки страницы
+     * @return токен продолжения
+     */
+    public String encode(ScrollCursor cursor, ScrollPosition last) {
+        if (!(last instanceof KeysetScrollPosition keyset)) {
+            throw new IllegalStateException("Only keyset positions can be encoded");
+        }
+        List<Order> sort = cursor.sort().stream()
+                .map(order -> new Order(order.getProperty(), order.getDirection()))
+                .toList();
+        Map<String, String> keys = new LinkedHashMap<>();
+        keyset.getKeys().forEach((property, value) -> keys.put(property, String.valueOf(value)));
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(new Token(sort, keys));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode scroll token", e);
+        }
+    }
+
+    private Token read(String token) {
+        try {
+            Token decoded = objectMapper.readValue(Base64.getUrlDecoder().decode(token), Token.class);
+            if (decoded.sort() == null || decoded.keys() == null) {
+                throw invalidToken();
+            }
+            return decoded;
+        } catch (IllegalArgumentException | IOException e) {
+            throw invalidToken();
+        }
+    }
+
+    private Object convert(Class<?> entityType, String property, String value) {
+        Class<?> javaType = entityManagerFactory.getMetamodel().entity(entityType).getAttribute(property).getJavaType();
+        try {
+            return objectMapper.convertValue(value, javaType);
+        } catch (IllegalArgumentException e) {
+            throw invalidToken();
+        }
+    }
+
+    private static void checkSortable(String property, Set<String> sortable) {
+        if (!ID.equals(property) && !sortable.contains(property)) {
+            throw new IllegalArgumentException(MessageFormat.format("Scrolling by {0} is not supported", property));
+        }
+    }
+
+    private static IllegalArgumentException invalidToken() {
+        return new IllegalArgumentException("Invalid scroll token");
+    }
+
+    record Token(List<Order> sort, Map<String, String> keys) {
+    }
+
+    record Order(String property, Sort.Direction direction) {
+    }
+}
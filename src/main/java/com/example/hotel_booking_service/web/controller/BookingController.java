@@ -1,14 +1,29 @@
 package com.example.hotel_booking_service.web.controller;
 
+import com.example.hotel_booking_service.repository.BookingFilter;
+import com.example.hotel_booking_service.service.BookingIdempotencyService;
 import com.example.hotel_booking_service.service.BookingService;
+import com.example.hotel_booking_service.service.mailbox.AsyncBookingService;
+import com.example.hotel_booking_service.web.dto.BatchBookingRequestDto;
+import com.example.hotel_booking_service.web.dto.BatchBookingResponseDto;
+import com.example.hotel_booking_service.web.dto.BookingPageDto;
 import com.example.hotel_booking_service.web.dto.BookingRequestDto;
 import com.example.hotel_booking_service.web.dto.BookingResponseDto;
+import com.example.hotel_booking_service.web.dto.BookingTicketDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.UUID;
 
 /**
  * Контроллер для управления бронированиями номеров в отеле.
@@ -17,26 +32,110 @@ import java.util.List;
 @RequestMapping("/api/v1/bookings")
 @RequiredArgsConstructor
 public class BookingController {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+    public static final String PREFER_HEADER = "Prefer";
+    public static final String RESPOND_ASYNC = "respond-async";
+
     private final BookingService bookingService;
+    private final BookingIdempotencyService bookingIdempotencyService;
+    private final AsyncBookingService asyncBookingService;
+    private final ObjectMapper objectMapper;
 
     /**
      * Создает новое бронирование номера.
+     * Если передан заголовок {@code Idempotency-Key}, повтор запроса с тем же ключом вернет исходный ответ.
      *
+     * @param idempotencyKey ключ идемпотентности, необязательный
      * @param request объект запроса для бронирования номера
      * @return объект ответа с информацией о созданном бронировании
      */
     @PostMapping
-    public BookingResponseDto bookRoom(@RequestBody @Valid BookingRequestDto request) {
-        return bookingService.bookRoom(request);
+    public BookingResponseDto bookRoom(@RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                       @RequestBody @Valid BookingRequestDto request) {
+        if (idempotencyKey == null) {
+            return bookingService.bookRoom(request);
+        }
+        return bookingIdempotencyService.bookRoom(idempotencyKey, request);
+    }
+
+    /**
+     * Принимает бронирование асинхронно, если клиент передал заголовок {@code Prefer: respond-async}.
+     * Бронирование выполняется в очереди номера, результат можно получить по ссылке из заголовка {@code Location}.
+     *
+     * @param request объект запроса для бронирования номера
+     * @return квитанция со статусом 202 Accepted
+     */
+    @PostMapping(headers = PREFER_HEADER + "=" + RESPOND_ASYNC)
+    public ResponseEntity<BookingTicketDto> bookRoomAsync(@RequestBody @Valid BookingRequestDto request) {
+        BookingTicketDto ticket = asyncBookingService.submit(request);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/bookings/tickets/" + ticket.getTicketId()))
+                .body(ticket);
+    }
+
+    /**
+     * Бронирует несколько номеров одним пакетом.
+     *
+     * @param request объект запроса с позициями пакета
+     * @return созданные бронирования и отклоненные позиции
+     */
+    @PostMapping("/batch")
+    public BatchBookingResponseDto bookBatch(@RequestBody @Valid BatchBookingRequestDto request) {
+        return bookingService.bookBatch(request);
+    }
+
+    /**
+     * Получает состояние асинхронного бронирования.
+     *
+     * @param ticketId идентификатор квитанции
+     * @return квитанция с результатом бронирования, если оно завершено
+     */
+    @GetMapping("/tickets/{ticketId}")
+    public BookingTicketDto getTicket(@PathVariable UUID ticketId) {
+        return asyncBookingService.getTicket(ticketId);
     }
 
     /**
-     * Получает список всех бронирований.
+     * Получает страницу бронирований в порядке возрастания id.
      *
-     * @return список объектов ответа с информацией о всех бронированиях
+     * @param filter фильтр бронирований
+     * @param afterId идентификатор последнего бронирования предыдущей страницы
+     * @param limit размер страницы
+     * @return страница бронирований и курсор следующей страницы
      */
     @GetMapping
-    public List<BookingResponseDto> getAllBookings() {
-        return bookingService.getAllBookings();
+    public BookingPageDto getAllBookings(@ModelAttribute BookingFilter filter,
+                                         @RequestParam(required = false) Long afterId,
+                                         @RequestParam(defaultValue = "100") int limit) {
+        return bookingService.getBookings(filter, afterId, limit);
+    }
+
+    /**
+     * Выгружает все бронирования в формате NDJSON (одно бронирование в строке).
+     * Строки пишутся в ответ по мере чтения курсором, поэтому расход памяти не зависит от числа бронирований.
+     *
+     * @param filter фильтр бронирований
+     * @return поток бронирований
+     */
+    @GetMapping(value = "/stream", produces = NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamBookings(@ModelAttribute BookingFilter filter) {
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = new BufferedOutputStream(outputStream);
+            try {
+                bookingService.streamBookings(filter, booking -> {
+                    try {
+                        out.write(objectMapper.writeValueAsBytes(booking));
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok().body(body);
     }
 }
@@ -0,0 +1,68 @@
+package com.example.hotel_booking_service.web.controller;
+
+import com.example.hotel_booking_service.service.hold.BookingHoldService;
+import com.example.hotel_booking_service.web.dto.BookingHoldDto;
+import com.example.hotel_booking_service.web.dto.BookingHoldRequestDto;
+import com.example.hotel_booking_service.web.dto.BookingResponseDto;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+/**
+ * Контроллер для временного удержания номеров на время оплаты.
+ */
+@RestController
+@RequestMapping("/api/v1/bookings/holds")
+@RequiredArgsConstructor
+public class BookingHoldController {
+    private final BookingHoldService bookingHoldService;
+
+    /**
+     * Удерживает номер на выбранные даты.
+     *
+     * @param request объект запроса на удержание
+     * @return информация об удержании
+     */
+    @PostMapping
+    public ResponseEntity<BookingHoldDto> hold(@RequestBody @Valid BookingHoldRequestDto request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(bookingHoldService.hold(request));
+    }
+
+    /**
+     * Получает активное удержание.
+     *
+     * @param holdId идентификатор удержания
+     * @return информация об удержании
+     */
+    @GetMapping("/{holdId}")
+    public BookingHoldDto getHold(@PathVariable UUID holdId) {
+        return bookingHoldService.getHold(holdId);
+    }
+
+    /**
+     * Подтверждает удержание и создает бронирование.
+     *
+     * @param holdId идентификатор удержания
+     * @return объект ответа с информацией о созданном бронировании
+     */
+    @PostMapping("/{holdId}/confirm")
+    public BookingResponseDto confirm(@PathVariable UUID holdId) {
+        return bookingHoldService.confirm(holdId);
+    }
+
+    /**
+     * Отменяет удержание.
+     *
+     * @param holdId идентификатор удержания
+     * @return пустой ответ
+     */
+    @DeleteMapping("/{holdId}")
+    public ResponseEntity<Void> cancel(@PathVariable UUID holdId) {
+        bookingHoldService.cancel(holdId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -2,11 +2,14 @@ package com.example.hotel_booking_service.web.controller;
 
 import com.example.hotel_booking_service.service.HotelService;
 import com.example.hotel_booking_service.web.dto.HotelDto;
+import com.example.hotel_booking_service.web.dto.ScrollModel;
+import com.example.hotel_booking_service.web.dto.SlicedModel;
 import com.example.hotel_booking_service.repository.specification.HotelFilter;
 import com.fasterxml.jackson.databind.JsonNode;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PagedModel;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -51,6 +54,39 @@ public class HotelController {
         return hotelService.getAllHotels(filter, pageable);
     }
 
+    /**
+     * Получает список отелей без общего количества ({@code ?mode=slice}):
+     * запрос {@code count(*)} не выполняется, в ответе есть только признак следующей страницы.
+     *
+     * @param filter фильтр для поиска отелей
+     * @param pageable параметры пагинации
+     * @return срез отелей
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping(params = "mode=slice")
+    public SlicedModel<HotelDto> getHotelsSlice(@ModelAttribute HotelFilter filter, Pageable pageable) {
+        return hotelService.getHotelsSlice(filter, pageable);
+    }
+
+    /**
+     * Получает список отелей keyset-пагинацией. Для следующей страницы передается токен {@code next}
+     * из предыдущего ответа вместе с теми же параметрами фильтра.
+     *
+     * @param filter фильтр для поиска отелей
+     * @param token токен продолжения, для первой страницы не передается
+     * @param size размер страницы
+     * @param sort сортировка первой страницы
+     * @return страница отелей и токен следующей страницы
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/scroll")
+    public ScrollModel<HotelDto> scrollHotels(@ModelAttribute HotelFilter filter,
+                                              @RequestParam(required = false) String token,
+                                              @RequestParam(defaultValue = "20") int size,
+                                              Sort sort) {
+        return hotelService.scrollHotels(filter, token, size, sort);
+    }
+
     /**
      * Получает информацию об одном отеле по его идентификатору.
      *
@@ -1,29 +1,94 @@
 package com.example.hotel_booking_service.web.controller;
 
 import com.example.hotel_booking_service.service.RoomService;
+import com.example.hotel_booking_service.service.availability.AvailabilityCalendarService;
+import com.example.hotel_booking_service.service.availability.FlexibleStaySearchService;
+import com.example.hotel_booking_service.service.availability.MultiHotelAvailabilityService;
+import com.example.hotel_booking_service.web.dto.AvailabilityCalendarDto;
+import com.example.hotel_booking_service.web.dto.FlexibleStayDto;
+import com.example.hotel_booking_service.web.dto.MultiHotelAvailabilityDto;
 import com.example.hotel_booking_service.web.dto.RoomDto;
+import com.example.hotel_booking_service.web.dto.ScrollModel;
+import com.example.hotel_booking_service.web.dto.SlicedModel;
 import com.example.hotel_booking_service.repository.specification.RoomFilter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PagedModel;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/rooms")
 @RequiredArgsConstructor
 public class RoomController {
+    /**
+     * Календарь одинаков для всех пользователей, поэтому его можно хранить в общих кешах;
+     * после истечения срока кеш проверяет актуальность по ETag.
+     */
+    private static final CacheControl CALENDAR_CACHE_CONTROL = CacheControl.maxAge(Duration.ofSeconds(60)).cachePublic();
 
     private final RoomService roomService;
+    private final FlexibleStaySearchService flexibleStaySearchService;
+    private final AvailabilityCalendarService availabilityCalendarService;
+    private final MultiHotelAvailabilityService multiHotelAvailabilityService;
 
     @GetMapping
     public PagedModel<RoomDto> getAll(@ModelAttribute RoomFilter filter, Pageable pageable) {
         return roomService.getAll(filter, pageable);
     }
 
+    @GetMapping(params = "mode=slice")
+    public SlicedModel<RoomDto> getSlice(@ModelAttribute RoomFilter filter, Pageable pageable) {
+        return roomService.getSlice(filter, pageable);
+    }
+
+    @GetMapping("/scroll")
+    public ScrollModel<RoomDto> scroll(@ModelAttribute RoomFilter filter,
+                                       @RequestParam(required = false) String token,
+                                       @RequestParam(defaultValue = "20") int size,
+                                       Sort sort) {
+        return roomService.scroll(filter, token, size, sort);
+    }
+
+    @GetMapping("/flexible")
+    public List<FlexibleStayDto> findFlexibleStays(@RequestParam Long hotelId,
+                                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                   @RequestParam int nights,
+                                                   @RequestParam(required = false) Integer guests,
+                                                   @RequestParam(defaultValue = "10") int limit) {
+        return flexibleStaySearchService.search(hotelId, from, to, nights, guests, limit);
+    }
+
+    @GetMapping("/availability")
+    public MultiHotelAvailabilityDto searchHotels(@RequestParam List<Long> hotelIds,
+                                                 @ModelAttribute RoomFilter filter,
+                                                 Pageable pageable) {
+        return multiHotelAvailabilityService.search(hotelIds, filter, pageable);
+    }
+
+    @GetMapping("/calendar")
+    public ResponseEntity<AvailabilityCalendarDto> getHotelCalendar(@RequestParam Long hotelId,
+                                                                    @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                    @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return calendarResponse(availabilityCalendarService.getHotelCalendar(hotelId, from, to));
+    }
+
+    @GetMapping("/{id}/calendar")
+    public ResponseEntity<AvailabilityCalendarDto> getRoomCalendar(@PathVariable Long id,
+                                                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return calendarResponse(availabilityCalendarService.getRoomCalendar(id, from, to));
+    }
+
     @GetMapping("/{id}")
     public RoomDto getOne(@PathVariable Long id) {
         return roomService.getOne(id);
@@ -55,4 +120,14 @@ public class RoomController {
         roomService.deleteMany(ids);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Ответ с ETag: если он совпадает с If-None-Match, Spring MVC вернет 304 без тела.
+     */
+    private ResponseEntity<AvailabilityCalendarDto> calendarResponse(AvailabilityCalendarDto calendar) {
+        return ResponseEntity.ok()
+                .eTag(availabilityCalendarService.etag(calendar))
+                .cacheControl(CALENDAR_CACHE_CONTROL)
+                .body(calendar);
+    }
 }
@@ -0,0 +1,14 @@
+package com.example.hotel_booking_service.web.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Календарь занятости номеров за период.
+ *
+ * @param from первая ночь периода
+ * @param to дата окончания периода, не включается
+ * @param rooms календари номеров по возрастанию идентификатора
+ */
+public record AvailabilityCalendarDto(LocalDate from, LocalDate to, List<RoomCalendarDto> rooms) {
+}
@@ -0,0 +1,21 @@
+package com.example.hotel_booking_service.web.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchBookingRequestDto {
+    @NotEmpty
+    @Size(max = 500)
+    private List<@Valid BookingRequestDto> bookings;
+
+    /**
+     * Если true, недоступные номера пропускаются, а остальные бронируются.
+     * По умолчанию пакет бронируется целиком или не бронируется вовсе.
+     */
+    private boolean bestEffort;
+}
@@ -0,0 +1,21 @@
+package com.example.hotel_booking_service.web.dto;
+
+import java.util.List;
+
+/**
+ * Результат пакетного бронирования.
+ *
+ * @param booked созданные бронирования
+ * @param rejected отклоненные позиции пакета
+ */
+public record BatchBookingResponseDto(List<BookingResponseDto> booked, List<Rejection> rejected) {
+
+    /**
+     * Отклоненная позиция пакета.
+     *
+     * @param index индекс позиции в запросе
+     * @param reason причина отказа
+     */
+    public record Rejection(int index, String reason) {
+    }
+}
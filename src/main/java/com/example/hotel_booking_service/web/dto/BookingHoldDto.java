@@ -0,0 +1,17 @@
+package com.example.hotel_booking_service.web.dto;
+
+import lombok.Data;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Data
+public class BookingHoldDto {
+    private UUID holdId;
+    private Long userId;
+    private Long roomId;
+    private LocalDate checkIn;
+    private LocalDate checkOut;
+    private Instant expiresAt;
+}
@@ -0,0 +1,31 @@
+package com.example.hotel_booking_service.web.dto;
+
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+public class BookingHoldRequestDto {
+    @NotNull
+    private Long userId;
+
+    @NotNull
+    private Long roomId;
+
+    @NotNull
+    @Future
+    private LocalDate checkIn;
+
+    @NotNull
+    @Future
+    private LocalDate checkOut;
+
+    /**
+     * Время удержания в секундах. Если не задано, используется значение по умолчанию.
+     */
+    @Positive
+    private Integer ttlSeconds;
+}
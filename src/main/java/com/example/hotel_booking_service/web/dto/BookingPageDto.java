@@ -0,0 +1,12 @@
+package com.example.hotel_booking_service.web.dto;
+
+import java.util.List;
+
+/**
+ * Страница бронирований при keyset-пагинации.
+ *
+ * @param content бронирования страницы
+ * @param nextAfterId значение параметра {@code afterId} для следующей страницы, null если страница последняя
+ */
+public record BookingPageDto(List<BookingResponseDto> content, Long nextAfterId) {
+}
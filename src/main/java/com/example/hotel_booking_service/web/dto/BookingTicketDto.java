@@ -0,0 +1,19 @@
+package com.example.hotel_booking_service.web.dto;
+
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+public class BookingTicketDto {
+    private UUID ticketId;
+    private Status status;
+    private BookingResponseDto booking;
+    private String error;
+
+    public enum Status {
+        PENDING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.hotel_booking_service.web.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDate;
+
+/**
+ * Период недоступности номера {@code [from, to)}: дата {@code to} в период не входит, как дата выезда.
+ *
+ * @param from первая недоступная дата
+ * @param to дата, с которой номер снова доступен
+ */
+public record DateRangeDto(@NotNull LocalDate from, @NotNull LocalDate to) {
+}
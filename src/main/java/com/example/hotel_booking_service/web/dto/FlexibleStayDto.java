@@ -0,0 +1,17 @@
+package com.example.hotel_booking_service.web.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Свободное окно проживания, найденное поиском по гибким датам.
+ *
+ * @param roomId идентификатор номера
+ * @param roomName название номера
+ * @param checkIn дата заезда
+ * @param checkOut дата выезда
+ * @param totalPrice стоимость всех ночей
+ */
+public record FlexibleStayDto(Long roomId, String roomName, LocalDate checkIn, LocalDate checkOut,
+                              BigDecimal totalPrice) {
+}
@@ -0,0 +1,12 @@
+package com.example.hotel_booking_service.web.dto;
+
+import org.springframework.data.web.PagedModel;
+
+/**
+ * Свободные номера одного отеля в поиске по нескольким отелям.
+ *
+ * @param hotelId идентификатор отеля
+ * @param rooms страница номеров отеля
+ */
+public record HotelRoomsDto(Long hotelId, PagedModel<RoomDto> rooms) {
+}
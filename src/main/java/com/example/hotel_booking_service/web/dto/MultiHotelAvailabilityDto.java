@@ -0,0 +1,14 @@
+package com.example.hotel_booking_service.web.dto;
+
+import java.util.List;
+
+/**
+ * Результат поиска номеров по нескольким отелям. Отели, не успевшие ответить до общего срока
+ * или завершившиеся ошибкой, перечисляются отдельно, а найденные номера остальных возвращаются.
+ *
+ * @param hotels номера отелей, ответивших вовремя, в порядке запроса
+ * @param timedOut отели, не ответившие до срока
+ * @param failed отели, поиск по которым завершился ошибкой
+ */
+public record MultiHotelAvailabilityDto(List<HotelRoomsDto> hotels, List<Long> timedOut, List<Long> failed) {
+}
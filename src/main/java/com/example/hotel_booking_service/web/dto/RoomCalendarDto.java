@@ -0,0 +1,14 @@
+package com.example.hotel_booking_service.web.dto;
+
+import java.util.List;
+
+/**
+ * Календарь занятости номера в виде длин серий: ночи периода попеременно свободны и заняты,
+ * первая серия - свободные ночи и может быть нулевой. Например, {@code [3, 2, 25]} за 30 ночей
+ * означает три свободные ночи, две занятые и двадцать пять свободных.
+ *
+ * @param roomId идентификатор номера
+ * @param runs длины серий свободных и занятых ночей
+ */
+public record RoomCalendarDto(Long roomId, List<Integer> runs) {
+}
@@ -1,5 +1,6 @@
 package com.example.hotel_booking_service.web.dto;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -7,6 +8,7 @@ import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -26,6 +28,11 @@ public class RoomDto {
     @Positive
     private Integer maxPeople;
     private Set<LocalDate> unavailableDates;
+    /**
+     * Те же периоды недоступности диапазонами {@code [from, to)}: длинный период не приходится перечислять по дням.
+     * При записи объединяются с {@link #unavailableDates}.
+     */
+    private List<@Valid DateRangeDto> unavailableRanges;
     private LocalDate checkIn;
     private LocalDate checkOut;
 }
@@ -0,0 +1,13 @@
+package com.example.hotel_booking_service.web.dto;
+
+import java.util.List;
+
+/**
+ * Страница keyset-пагинации.
+ *
+ * @param content элементы страницы
+ * @param next токен следующей страницы, null если страница последняя
+ * @param <T> тип элементов
+ */
+public record ScrollModel<T>(List<T> content, String next) {
+}
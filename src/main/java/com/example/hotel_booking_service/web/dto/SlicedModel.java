@@ -0,0 +1,28 @@
+package com.example.hotel_booking_service.web.dto;
+
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/**
+ * Страница без общего числа элементов: вместо него передается признак наличия следующей страницы.
+ * Формат повторяет {@link org.springframework.data.web.PagedModel}.
+ *
+ * @param content элементы страницы
+ * @param page сведения о странице
+ * @param <T> тип элементов
+ */
+public record SlicedModel<T>(List<T> content, SliceMetadata page) {
+
+    public SlicedModel(Slice<T> slice) {
+        this(slice.getContent(), new SliceMetadata(slice.getSize(), slice.getNumber(), slice.hasNext()));
+    }
+
+    /**
+     * @param size размер страницы
+     * @param number номер страницы
+     * @param hasNext есть ли следующая страница
+     */
+    public record SliceMetadata(int size, int number, boolean hasNext) {
+    }
+}
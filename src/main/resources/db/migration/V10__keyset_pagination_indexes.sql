@@ -0,0 +1,3 @@
+-- Индексы для keyset-пагинации номеров: сортировка по цене и выборка номеров отеля в порядке id
+CREATE INDEX idx_room_price_id ON room (price, id);
+CREATE INDEX idx_room_hotel_id_id ON room (hotel_id, id);
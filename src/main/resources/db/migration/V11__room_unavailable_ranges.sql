@@ -0,0 +1,81 @@
+-- Недоступные даты номера хранятся диапазонами в самой таблице room вместо строки на каждую дату
+ALTER TABLE room ADD COLUMN unavailable_dates DATEMULTIRANGE NOT NULL DEFAULT '{}';
+ALTER TABLE room ADD CONSTRAINT ck_room_unavailable_dates_bounded
+    CHECK (NOT lower_inf(unavailable_dates) AND NOT upper_inf(unavailable_dates));
+
+-- Повторяющиеся и соседние даты сливаются в диапазоны. Календарь занятости уже содержит эти ночи
+UPDATE room r
+SET unavailable_dates = u.ranges
+FROM (
+    SELECT room_id, range_agg(daterange(unavailable_date, unavailable_date + 1, '[)')) AS ranges
+    FROM room_unavailable_dates
+    WHERE unavailable_date IS NOT NULL
+    GROUP BY room_id
+) u
+WHERE r.id = u.room_id;
+
+-- Маска месяца по бронированиям и диапазонам недоступности номера
+CREATE OR REPLACE FUNCTION room_busy_mask(p_room_id BIGINT, p_month DATE) RETURNS BIGINT
+    LANGUAGE sql STABLE AS $$
+    SELECT coalesce(bit_or(mask), 0)
+    FROM (
+        SELECT room_night_mask(p_month, b.check_in, b.check_out) AS mask
+        FROM booking b
+        WHERE b.room_id = p_room_id
+          AND b.stay && daterange(p_month, (p_month + INTERVAL '1 month')::DATE, '[)')
+        UNION ALL
+        SELECT room_night_mask(p_month, lower(u.period), upper(u.period))
+        FROM room r, unnest(r.unavailable_dates) AS u(period)
+        WHERE r.id = p_room_id
+          AND u.period && daterange(p_month, (p_month + INTERVAL '1 month')::DATE, '[)')
+    ) nights
+$$;
+
+DROP TABLE room_unavailable_dates;
+DROP FUNCTION unavailable_dates_availability_sync();
+
+-- Пересчитываются только месяцы диапазонов, которые добавились или исчезли
+CREATE FUNCTION room_unavailable_dates_sync() RETURNS trigger
+    LANGUAGE plpgsql AS $$
+DECLARE
+    room_ids BIGINT[];
+    months DATE[];
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        SELECT array_agg(room_id), array_agg(month_start) INTO room_ids, months
+        FROM (
+            SELECT DISTINCT n.id AS room_id,
+                   generate_series(date_trunc('month', lower(u.period)::TIMESTAMP),
+                                   date_trunc('month', (upper(u.period) - 1)::TIMESTAMP),
+                                   INTERVAL '1 month')::DATE AS month_start
+            FROM new_rows n, unnest(n.unavailable_dates) AS u(period)
+        ) affected;
+    ELSE
+        SELECT array_agg(room_id), array_agg(month_start) INTO room_ids, months
+        FROM (
+            SELECT DISTINCT c.room_id,
+                   generate_series(date_trunc('month', lower(c.period)::TIMESTAMP),
+                                   date_trunc('month', (upper(c.period) - 1)::TIMESTAMP),
+                                   INTERVAL '1 month')::DATE AS month_start
+            FROM (
+                SELECT n.id AS room_id, unnest(n.unavailable_dates - o.unavailable_dates) AS period
+                FROM new_rows n JOIN old_rows o ON o.id = n.id
+                WHERE n.unavailable_dates <> o.unavailable_dates
+                UNION ALL
+                SELECT n.id, unnest(o.unavailable_dates - n.unavailable_dates)
+                FROM new_rows n JOIN old_rows o ON o.id = n.id
+                WHERE n.unavailable_dates <> o.unavailable_dates
+            ) c
+        ) affected;
+    END IF;
+    PERFORM refresh_room_availability(room_ids, months);
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER trg_room_unavailable_dates_insert AFTER INSERT ON room
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION room_unavailable_dates_sync();
+CREATE TRIGGER trg_room_unavailable_dates_update AFTER UPDATE ON room
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION room_unavailable_dates_sync();
@@ -0,0 +1,5 @@
+-- Сумма всех оценок отеля. Средний рейтинг вычисляется из суммы и количества оценок,
+-- поэтому новые оценки добавляются атомарным UPDATE ... SET rating_sum = rating_sum + ? без чтения строки.
+ALTER TABLE hotel ADD COLUMN rating_sum BIGINT NOT NULL DEFAULT 0;
+
+UPDATE hotel SET rating_sum = coalesce(rating, 0)::BIGINT * coalesce(numberofratings, 0);
@@ -0,0 +1,10 @@
+-- Состояние доставки событий outbox. Экземпляр сервиса забирает пачку, продлевая locked_until,
+-- и ждет подтверждения Kafka уже без блокировок строк. Неудачная отправка увеличивает attempts
+-- и откладывает повтор через locked_until. Событие, которое нельзя отправить (неизвестная тема,
+-- испорченный JSON) или исчерпавшее попытки, переводится в статус DEAD и больше не забирается.
+ALTER TABLE outbox_event ADD COLUMN status VARCHAR(16) NOT NULL DEFAULT 'PENDING';
+ALTER TABLE outbox_event ADD COLUMN attempts INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE outbox_event ADD COLUMN last_error TEXT;
+ALTER TABLE outbox_event ADD COLUMN locked_until TIMESTAMP;
+
+CREATE INDEX idx_outbox_event_pending_id ON outbox_event (id) WHERE status = 'PENDING';
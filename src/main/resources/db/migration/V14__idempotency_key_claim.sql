@@ -0,0 +1,3 @@
+-- Ключ идемпотентности занимается вставкой до бронирования, ответ записывается в той же транзакции после него.
+-- До фиксации транзакции строка без ответа видна только ее владельцу, повторная вставка того же ключа ждет фиксации.
+ALTER TABLE idempotency_key ALTER COLUMN response DROP NOT NULL;
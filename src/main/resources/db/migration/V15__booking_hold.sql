@@ -0,0 +1,11 @@
+-- Удержание номера хранится строкой booking со статусом HELD и сроком hold_expires_at, поэтому
+-- пересечение с бронированиями и другими удержаниями отсекает то же ограничение ex_booking_room_stay
+-- на любом экземпляре сервиса. Подтверждение переводит строку в CONFIRMED, истечение и отмена удаляют ее.
+ALTER TABLE booking ADD COLUMN status VARCHAR(16) NOT NULL DEFAULT 'CONFIRMED';
+ALTER TABLE booking ADD COLUMN hold_id UUID;
+ALTER TABLE booking ADD COLUMN hold_expires_at TIMESTAMP;
+
+ALTER TABLE booking ADD CONSTRAINT uc_booking_hold_id UNIQUE (hold_id);
+ALTER TABLE booking ADD CONSTRAINT ck_booking_hold_expires_at CHECK ((status = 'HELD') = (hold_expires_at IS NOT NULL));
+
+CREATE INDEX idx_booking_hold_expires_at ON booking (hold_expires_at) WHERE status = 'HELD';
@@ -0,0 +1,12 @@
+-- Квитанции асинхронного бронирования хранятся в базе, чтобы их состояние видели все экземпляры сервиса
+-- и оно переживало перезапуск. Ответ и ошибка заполняются после выполнения бронирования.
+CREATE TABLE booking_ticket (
+  id UUID NOT NULL,
+   status VARCHAR(16) NOT NULL,
+   response TEXT,
+   error TEXT,
+   expires_at TIMESTAMP NOT NULL,
+   CONSTRAINT pk_booking_ticket PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_booking_ticket_expires_at ON booking_ticket (expires_at);
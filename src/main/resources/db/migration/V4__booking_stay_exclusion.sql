@@ -0,0 +1,72 @@
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+-- Бронирования, которые нарушают добавляемые ниже ограничения, переносятся сюда для ручного разбора,
+-- иначе миграция упала бы на существующих данных.
+CREATE TABLE booking_conflict (
+  id BIGINT NOT NULL,
+   user_id BIGINT NOT NULL,
+   room_id BIGINT NOT NULL,
+   check_in date NOT NULL,
+   check_out date NOT NULL,
+   reason VARCHAR(32) NOT NULL,
+   CONSTRAINT pk_booking_conflict PRIMARY KEY (id)
+);
+
+WITH moved AS (
+    DELETE FROM booking WHERE check_out <= check_in
+    RETURNING id, user_id, room_id, check_in, check_out
+)
+INSERT INTO booking_conflict (id, user_id, room_id, check_in, check_out, reason)
+SELECT id, user_id, room_id, check_in, check_out, 'EMPTY_STAY' FROM moved;
+
+-- Из пересекающихся бронирований комнаты остается более раннее по id, более позднее переносится.
+-- Бронирования каждой комнаты обходятся рекурсивным запросом по возрастанию id, все комнаты одновременно:
+-- kept накапливает ночи оставленных бронирований, и бронирование остается, только если с ними не пересекается.
+-- Перенесенные строки в kept не попадают, поэтому цепочка A-B-C сохраняет A и C.
+-- Временный индекс делает переход к следующему бронированию комнаты поиском по индексу.
+CREATE INDEX tmp_booking_room_id_id ON booking (room_id, id);
+
+WITH RECURSIVE walk AS (
+    SELECT f.room_id, f.id, datemultirange(f.stay) AS kept, true AS keep
+    FROM (
+        SELECT DISTINCT ON (room_id) room_id, id, daterange(check_in, check_out, '[)') AS stay
+        FROM booking
+        ORDER BY room_id, id
+    ) f
+  UNION ALL
+    SELECT w.room_id, n.id,
+           CASE WHEN w.kept && n.stay THEN w.kept ELSE w.kept + datemultirange(n.stay) END,
+           NOT (w.kept && n.stay)
+    FROM walk w
+    CROSS JOIN LATERAL (
+        SELECT b.id, daterange(b.check_in, b.check_out, '[)') AS stay
+        FROM booking b
+        WHERE b.room_id = w.room_id AND b.id > w.id
+        ORDER BY b.id
+        LIMIT 1
+    ) n
+), moved AS (
+    DELETE FROM booking WHERE id IN (SELECT id FROM walk WHERE NOT keep)
+    RETURNING id, user_id, room_id, check_in, check_out
+)
+INSERT INTO booking_conflict (id, user_id, room_id, check_in, check_out, reason)
+SELECT id, user_id, room_id, check_in, check_out, 'OVERLAP' FROM moved;
+
+DROP INDEX tmp_booking_room_id_id;
+
+DO $$
+DECLARE
+    moved BIGINT;
+BEGIN
+    SELECT count(*) INTO moved FROM booking_conflict;
+    IF moved > 0 THEN
+        RAISE WARNING 'V4: % conflicting bookings moved to booking_conflict', moved;
+    END IF;
+END $$;
+
+ALTER TABLE booking ADD CONSTRAINT ck_booking_stay_not_empty CHECK (check_out > check_in);
+
+ALTER TABLE booking ADD COLUMN stay daterange
+    GENERATED ALWAYS AS (daterange(check_in, check_out, '[)')) STORED;
+
+ALTER TABLE booking ADD CONSTRAINT ex_booking_room_stay EXCLUDE USING gist (room_id WITH =, stay WITH &&);
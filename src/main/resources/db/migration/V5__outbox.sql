@@ -0,0 +1,7 @@
+CREATE TABLE outbox_event (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+   topic VARCHAR(255) NOT NULL,
+   payload TEXT NOT NULL,
+   created_at TIMESTAMP NOT NULL,
+   CONSTRAINT pk_outbox_event PRIMARY KEY (id)
+);
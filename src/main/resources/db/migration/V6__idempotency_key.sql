@@ -0,0 +1,9 @@
+CREATE TABLE idempotency_key (
+  idempotency_key VARCHAR(255) NOT NULL,
+   request_hash VARCHAR(64) NOT NULL,
+   response TEXT NOT NULL,
+   expires_at TIMESTAMP NOT NULL,
+   CONSTRAINT pk_idempotency_key PRIMARY KEY (idempotency_key)
+);
+
+CREATE INDEX idx_idempotency_key_expires_at ON idempotency_key (expires_at);
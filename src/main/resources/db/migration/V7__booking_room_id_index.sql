@@ -0,0 +1 @@
+CREATE INDEX idx_booking_room_id_id ON booking (room_id, id);
@@ -0,0 +1,29 @@
+-- Идентификаторы выдаются последовательностями с шагом 50 (pooled-оптимизатор Hibernate),
+-- чтобы вставки можно было объединять в пакеты JDBC. IDENTITY требует отдельного INSERT на каждую строку.
+-- Последовательность начинается с max(id) + 50: pooled-оптимизатор считает полученное значение
+-- верхней границей блока и выдает id от значения минус 49.
+
+ALTER TABLE hotel ALTER COLUMN id DROP IDENTITY;
+CREATE SEQUENCE hotel_seq INCREMENT BY 50 OWNED BY hotel.id;
+SELECT setval('hotel_seq', (SELECT coalesce(max(id), 0) + 50 FROM hotel), false);
+ALTER TABLE hotel ALTER COLUMN id SET DEFAULT nextval('hotel_seq');
+
+ALTER TABLE room ALTER COLUMN id DROP IDENTITY;
+CREATE SEQUENCE room_seq INCREMENT BY 50 OWNED BY room.id;
+SELECT setval('room_seq', (SELECT coalesce(max(id), 0) + 50 FROM room), false);
+ALTER TABLE room ALTER COLUMN id SET DEFAULT nextval('room_seq');
+
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY;
+CREATE SEQUENCE users_seq INCREMENT BY 50 OWNED BY users.id;
+SELECT setval('users_seq', (SELECT coalesce(max(id), 0) + 50 FROM users), false);
+ALTER TABLE users ALTER COLUMN id SET DEFAULT nextval('users_seq');
+
+ALTER TABLE booking ALTER COLUMN id DROP IDENTITY;
+CREATE SEQUENCE booking_seq INCREMENT BY 50 OWNED BY booking.id;
+SELECT setval('booking_seq', (SELECT coalesce(max(id), 0) + 50 FROM booking), false);
+ALTER TABLE booking ALTER COLUMN id SET DEFAULT nextval('booking_seq');
+
+ALTER TABLE outbox_event ALTER COLUMN id DROP IDENTITY;
+CREATE SEQUENCE outbox_event_seq INCREMENT BY 50 OWNED BY outbox_event.id;
+SELECT setval('outbox_event_seq', (SELECT coalesce(max(id), 0) + 50 FROM outbox_event), false);
+ALTER TABLE outbox_event ALTER COLUMN id SET DEFAULT nextval('outbox_event_seq');
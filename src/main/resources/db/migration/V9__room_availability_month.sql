@@ -0,0 +1,182 @@
+-- Календарь занятости номеров: одна строка на номер и месяц, бит N маски занят,
+-- если занята ночь с (N + 1)-го числа месяца. Ночь занята бронированием или недоступной датой номера.
+-- Отсутствие строки или нулевая маска означают, что в этом месяце номер свободен.
+CREATE TABLE room_availability_month (
+  room_id BIGINT NOT NULL,
+   month_start DATE NOT NULL,
+   busy_mask BIGINT NOT NULL,
+   CONSTRAINT pk_room_availability_month PRIMARY KEY (room_id, month_start),
+   CONSTRAINT ck_room_availability_month_first_day CHECK (extract(DAY FROM month_start) = 1)
+);
+
+ALTER TABLE room_availability_month ADD CONSTRAINT fk_room_availability_month_on_room
+    FOREIGN KEY (room_id) REFERENCES room (id) ON DELETE CASCADE;
+
+-- Маска ночей [p_from, p_to), попадающих в месяц p_month
+CREATE FUNCTION room_night_mask(p_month DATE, p_from DATE, p_to DATE) RETURNS BIGINT
+    LANGUAGE sql IMMUTABLE AS $$
+    SELECT CASE
+        WHEN lo >= hi THEN 0::BIGINT
+        ELSE ((1::BIGINT << hi) - 1) & ~((1::BIGINT << lo) - 1)
+    END
+    FROM (
+        SELECT greatest(p_from, p_month) - p_month AS lo,
+               least(p_to, (p_month + INTERVAL '1 month')::DATE) - p_month AS hi
+    ) bounds
+$$;
+
+-- Маска месяца, пересчитанная по бронированиям и недоступным датам номера
+CREATE FUNCTION room_busy_mask(p_room_id BIGINT, p_month DATE) RETURNS BIGINT
+    LANGUAGE sql STABLE AS $$
+    SELECT coalesce(bit_or(mask), 0)
+    FROM (
+        SELECT room_night_mask(p_month, b.check_in, b.check_out) AS mask
+        FROM booking b
+        WHERE b.room_id = p_room_id
+          AND b.stay && daterange(p_month, (p_month + INTERVAL '1 month')::DATE, '[)')
+        UNION ALL
+        SELECT 1::BIGINT << (u.unavailable_date - p_month)
+        FROM room_unavailable_dates u
+        WHERE u.room_id = p_room_id
+          AND u.unavailable_date >= p_month
+          AND u.unavailable_date < (p_month + INTERVAL '1 month')::DATE
+    ) nights
+$$;
+
+-- Пересчитывает месяцы номеров. Строки блокируются в одном порядке до пересчета, поэтому
+-- параллельные транзакции пересчитывают месяц по очереди, и каждая видит бронирования предыдущей.
+CREATE FUNCTION refresh_room_availability(p_room_ids BIGINT[], p_months DATE[]) RETURNS void
+    LANGUAGE plpgsql AS $$
+BEGIN
+    IF p_room_ids IS NULL THEN
+        RETURN;
+    END IF;
+
+    INSERT INTO room_availability_month (room_id, month_start, busy_mask)
+    SELECT DISTINCT a.room_id, a.month_start, 0
+    FROM unnest(p_room_ids, p_months) AS a(room_id, month_start)
+    JOIN room r ON r.id = a.room_id
+    ORDER BY a.room_id, a.month_start
+    ON CONFLICT DO NOTHING;
+
+    PERFORM 1
+    FROM room_availability_month m
+    WHERE (m.room_id, m.month_start) IN (SELECT * FROM unnest(p_room_ids, p_months))
+    ORDER BY m.room_id, m.month_start
+    FOR UPDATE;
+
+    -- Освободившиеся месяцы остаются с нулевой маской: удаленную строку параллельная транзакция,
+    -- ожидающая блокировку, пропустила бы и не записала свои ночи
+    UPDATE room_availability_month m
+    SET busy_mask = room_busy_mask(m.room_id, m.month_start)
+    WHERE (m.room_id, m.month_start) IN (SELECT * FROM unnest(p_room_ids, p_months));
+END
+$$;
+
+-- Триггеры уровня оператора: пакетная вставка пересчитывает каждый месяц один раз
+CREATE FUNCTION booking_availability_sync() RETURNS trigger
+    LANGUAGE plpgsql AS $$
+DECLARE
+    room_ids BIGINT[];
+    months DATE[];
+BEGIN
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        SELECT array_agg(room_id), array_agg(month_start) INTO room_ids, months
+        FROM (
+            SELECT DISTINCT n.room_id, generate_series(date_trunc('month', n.check_in::TIMESTAMP),
+                                                       date_trunc('month', (n.check_out - 1)::TIMESTAMP),
+                                                       INTERVAL '1 month')::DATE AS month_start
+            FROM new_rows n
+        ) affected;
+        PERFORM refresh_room_availability(room_ids, months);
+    END IF;
+    IF TG_OP IN ('DELETE', 'UPDATE') THEN
+        SELECT array_agg(room_id), array_agg(month_start) INTO room_ids, months
+        FROM (
+            SELECT DISTINCT o.room_id, generate_series(date_trunc('month', o.check_in::TIMESTAMP),
+                                                       date_trunc('month', (o.check_out - 1)::TIMESTAMP),
+                                                       INTERVAL '1 month')::DATE AS month_start
+            FROM old_rows o
+        ) affected;
+        PERFORM refresh_room_availability(room_ids, months);
+    END IF;
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER trg_booking_availability_insert AFTER INSERT ON booking
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION booking_availability_sync();
+CREATE TRIGGER trg_booking_availability_update AFTER UPDATE ON booking
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION booking_availability_sync();
+CREATE TRIGGER trg_booking_availability_delete AFTER DELETE ON booking
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION booking_availability_sync();
+
+CREATE FUNCTION unavailable_dates_availability_sync() RETURNS trigger
+    LANGUAGE plpgsql AS $$
+DECLARE
+    room_ids BIGINT[];
+    months DATE[];
+BEGIN
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        SELECT array_agg(room_id), array_agg(month_start) INTO room_ids, months
+        FROM (
+            SELECT DISTINCT n.room_id, date_trunc('month', n.unavailable_date::TIMESTAMP)::DATE AS month_start
+            FROM new_rows n
+            WHERE n.unavailable_date IS NOT NULL
+        ) affected;
+        PERFORM refresh_room_availability(room_ids, months);
+    END IF;
+    IF TG_OP IN ('DELETE', 'UPDATE') THEN
+        SELECT array_agg(room_id), array_agg(month_start) INTO room_ids, months
+        FROM (
+            SELECT DISTINCT o.room_id, date_trunc('month', o.unavailable_date::TIMESTAMP)::DATE AS month_start
+            FROM old_rows o
+            WHERE o.unavailable_date IS NOT NULL
+        ) affected;
+        PERFORM refresh_room_availability(room_ids, months);
+    END IF;
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER trg_unavailable_dates_availability_insert AFTER INSERT ON room_unavailable_dates
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION unavailable_dates_availability_sync();
+CREATE TRIGGER trg_unavailable_dates_availability_update AFTER UPDATE ON room_unavailable_dates
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION unavailable_dates_availability_sync();
+CREATE TRIGGER trg_unavailable_dates_availability_delete AFTER DELETE ON room_unavailable_dates
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION unavailable_dates_availability_sync();
+
+-- Свободен ли номер на ночи [p_check_in, p_check_out): поиск по первичному ключу календаря
+CREATE FUNCTION room_is_free(p_room_id BIGINT, p_check_in DATE, p_check_out DATE) RETURNS BOOLEAN
+    LANGUAGE sql STABLE AS $$
+    SELECT NOT EXISTS (
+        SELECT 1
+        FROM room_availability_month m
+        WHERE m.room_id = p_room_id
+          AND m.month_start >= date_trunc('month', p_check_in::TIMESTAMP)::DATE
+          AND m.month_start < p_check_out
+          AND m.busy_mask & room_night_mask(m.month_start, p_check_in, p_check_out) <> 0
+    )
+$$;
+
+-- Заполняем календарь по существующим данным
+INSERT INTO room_availability_month (room_id, month_start, busy_mask)
+SELECT room_id, month_start, room_busy_mask(room_id, month_start)
+FROM (
+    SELECT DISTINCT b.room_id, generate_series(date_trunc('month', b.check_in::TIMESTAMP),
+                                               date_trunc('month', (b.check_out - 1)::TIMESTAMP),
+                                               INTERVAL '1 month')::DATE AS month_start
+    FROM booking b
+    UNION
+    SELECT u.room_id, date_trunc('month', u.unavailable_date::TIMESTAMP)::DATE
+    FROM room_unavailable_dates u
+    WHERE u.unavailable_date IS NOT NULL
+) affected;
+
+DELETE FROM room_availability_month WHERE busy_mask = 0;
@@ -0,0 +1,61 @@
+package com.example.hotel_booking_service.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DateRangesTest {
+    private final LocalDate day = LocalDate.of(2025, 3, 1);
+
+    @Test
+    void shouldMergeOverlappingAndAdjacentRanges() {
+        DateRanges ranges = DateRanges.of(List.of(
+                range(10, 12),
+                range(0, 3),
+                range(3, 5),
+                range(11, 15)));
+
+        assertThat(ranges.ranges()).containsExactly(range(0, 5), range(10, 15));
+    }
+
+    @Test
+    void shouldCheckIntersectionWithHalfOpenPeriods() {
+        DateRanges ranges = DateRanges.of(List.of(range(0, 5), range(10, 15), range(20, 21)));
+
+        assertThat(ranges.intersects(day.plusDays(4), day.plusDays(6))).isTrue();
+        assertThat(ranges.intersects(day.plusDays(5), day.plusDays(10))).isFalse();
+        assertThat(ranges.intersects(day.minusDays(3), day)).isFalse();
+        assertThat(ranges.intersects(day.plusDays(16), day.plusDays(30))).isTrue();
+        assertThat(ranges.intersects(day.plusDays(21), day.plusDays(30))).isFalse();
+        assertThat(ranges.contains(day.plusDays(14))).isTrue();
+        assertThat(DateRanges.empty().intersects(day, day.plusDays(1))).isFalse();
+    }
+
+    @Test
+    void shouldRoundTripPostgresLiteral() {
+        String literal = "{[2025-03-01,2025-03-06),[2025-03-11,2025-03-16)}";
+
+        DateRanges ranges = DateRanges.parse(literal);
+
+        assertThat(ranges.size()).isEqualTo(2);
+        assertThat(ranges.toString()).isEqualTo(literal);
+        assertThat(DateRanges.parse("{}")).isEqualTo(DateRanges.empty());
+        assertThat(DateRanges.empty().toString()).isEqualTo("{}");
+    }
+
+    @Test
+    void shouldRejectInvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> range(3, 3));
+        assertThrows(IllegalArgumentException.class, () -> DateRanges.parse("[2025-03-01,2025-03-06)"));
+        assertThrows(IllegalArgumentException.class, () -> DateRanges.parse("{(,2025-03-06)}"));
+        assertThrows(IllegalArgumentException.class, () -> DateRanges.parse("{[2025-03-01,2025-03-06)x[2025-03-11,2025-03-16)}"));
+    }
+
+    private DateRanges.Range range(int from, int to) {
+        return new DateRanges.Range(day.plusDays(from), day.plusDays(to));
+    }
+}
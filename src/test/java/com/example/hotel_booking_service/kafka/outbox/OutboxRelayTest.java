@@ -0,0 +1,185 @@
+package com.example.hotel_booking_service.kafka.outbox;
+
+import com.example.hotel_booking_service.entity.OutboxStatus;
+import com.example.hotel_booking_service.kafka.KafkaProducerService;
+import com.example.hotel_booking_service.kafka.dto.KafkaBookingEvent;
+import com.example.hotel_booking_service.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Проверяет пересылку outbox в Kafka: удаление подтвержденных событий, повтор неподтвержденных,
+ * пропуск событий, которые нельзя отправить, и ожидание подтверждений без блокировки строк.
+ * Kafka заменена заглушкой, outbox хранится в Postgres со схемой из миграций Flyway.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@Testcontainers
+@ActiveProfiles("test")
+class OutboxRelayTest {
+    private static final int BATCH_SIZE = 10;
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17.2")
+            .withDatabaseName("hotel_booking_db")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private KafkaProducerService kafkaProducerService;
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM outbox_event");
+        kafkaProducerService = mock(KafkaProducerService.class);
+        outboxRelay = new OutboxRelay(outboxEventRepository, kafkaProducerService, objectMapper, transactionTemplate,
+                BATCH_SIZE, 5000, 30000, 3, 60000);
+    }
+
+    @Test
+    @DisplayName("Тест: подтвержденные Kafka события отправляются и удаляются из outbox")
+    void shouldSendAndDeleteAcknowledgedEvents() {
+        when(kafkaProducerService.sendRoomBooking(any())).thenReturn(acknowledged());
+        publish(bookingEvent(1L), bookingEvent(2L));
+
+        outboxRelay.relay();
+
+        verify(kafkaProducerService, times(2)).sendRoomBooking(any());
+        assertThat(outboxEventRepository.count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Тест: неподтвержденное событие остается в outbox и откладывается до повтора")
+    void shouldKeepEventWhenKafkaFails() {
+        when(kafkaProducerService.sendRoomBooking(any()))
+                .thenReturn(CompletableFuture.failedFuture(new TimeoutException("broker unavailable")));
+        publish(bookingEvent(1L));
+
+        outboxRelay.relay();
+        outboxRelay.relay();
+
+        // Второй вызов не забирает событие: повтор отложен на retry-delay
+        verify(kafkaProducerService, times(1)).sendRoomBooking(any());
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT status, attempts, last_error, locked_until FROM outbox_event");
+        assertThat(row.get("status")).isEqualTo(OutboxStatus.PENDING.name());
+        assertThat(row.get("attempts")).isEqualTo(1);
+        assertThat((String) row.get("last_error")).contains("broker unavailable");
+        assertThat(((Timestamp) row.get("locked_until")).toLocalDateTime()).isAfter(LocalDateTime.now());
+    }
+
+    @Test
+    @DisplayName("Тест: событие с неизвестной темой или испорченным JSON пропускается и не блокирует остальные")
+    void shouldParkPoisonEventsAndRelayTheRest() {
+        when(kafkaProducerService.sendRoomBooking(any())).thenReturn(acknowledged());
+        insertRaw("unknown_topic", "{}");
+        insertRaw(KafkaProducerService.ROOM_BOOKING_TOPIC, "{not json");
+        publish(bookingEvent(1L));
+
+        outboxRelay.relay();
+        // События со статусом DEAD больше не забираются
+        outboxRelay.relay();
+
+        verify(kafkaProducerService, times(1)).sendRoomBooking(any());
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT topic, status, last_error FROM outbox_event ORDER BY id");
+        assertThat(rows).hasSize(2);
+        assertThat(rows).allSatisfy(row -> {
+            assertThat(row.get("status")).isEqualTo(OutboxStatus.DEAD.name());
+            assertThat(row.get("last_error")).isNotNull();
+        });
+    }
+
+    @Test
+    @DisplayName("Тест: строки outbox не заблокированы, пока пересылка ждет подтверждения Kafka")
+    void shouldNotHoldRowLocksWhileWaitingForAcknowledgement() throws Exception {
+        CompletableFuture<SendResult<String, Object>> ack = new CompletableFuture<>();
+        CountDownLatch sent = new CountDownLatch(1);
+        when(kafkaProducerService.sendRoomBooking(any())).thenAnswer(invocation -> {
+            sent.countDown();
+            return ack;
+        });
+        publish(bookingEvent(1L));
+
+        Thread relay = Thread.ofVirtual().start(outboxRelay::relay);
+        assertThat(sent.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // NOWAIT падает, если строка заблокирована
+        Integer locked = transactionTemplate.execute(status -> jdbcTemplate.queryForList(
+                "SELECT id FROM outbox_event FOR UPDATE NOWAIT", Long.class).size());
+        assertThat(locked).isEqualTo(1);
+
+        ack.complete(null);
+        relay.join(5000);
+        assertThat(outboxEventRepository.count()).isZero();
+    }
+
+    private void publish(KafkaBookingEvent... events) {
+        transactionTemplate.executeWithoutResult(status -> outboxService.publishRoomBookings(List.of(events)));
+    }
+
+    private void insertRaw(String topic, String payload) {
+        jdbcTemplate.update("INSERT INTO outbox_event (topic, payload, created_at) VALUES (?, ?, now())", topic, payload);
+    }
+
+    private static KafkaBookingEvent bookingEvent(Long userId) {
+        KafkaBookingEvent event = new KafkaBookingEvent();
+        event.setUserId(userId);
+        event.setCheckIn(LocalDate.now().plusDays(1));
+        event.setCheckOut(LocalDate.now().plusDays(2));
+        return event;
+    }
+
+    private static CompletableFuture<SendResult<String, Object>> acknowledged() {
+        return CompletableFuture.completedFuture(null);
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.hotel_booking_service.service;
+
+import com.example.hotel_booking_service.entity.Hotel;
+import com.example.hotel_booking_service.entity.RoleType;
+import com.example.hotel_booking_service.entity.Room;
+import com.example.hotel_booking_service.entity.User;
+import com.example.hotel_booking_service.repository.HotelRepository;
+import com.example.hotel_booking_service.repository.RoomRepository;
+import com.example.hotel_booking_service.repository.UserRepository;
+import com.example.hotel_booking_service.web.dto.BatchBookingRequestDto;
+import com.example.hotel_booking_service.web.dto.BatchBookingResponseDto;
+import com.example.hotel_booking_service.web.dto.BookingRequestDto;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Проверяет пакетное бронирование на реальной схеме Postgres.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@Testcontainers
+@ActiveProfiles("test")
+class BatchBookingTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17.2")
+            .withDatabaseName("hotel_booking_db")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private User user;
+    private List<Room> rooms;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = String.valueOf(System.nanoTime());
+        user = new User();
+        user.setUsername("user_" + suffix);
+        user.setPassword("password123");
+        user.setEmail("user_" + suffix + "@example.com");
+        user.setRole(RoleType.ROLE_USER);
+        user = userRepository.save(user);
+
+        Hotel hotel = new Hotel();
+        hotel.setName("Test Hotel");
+        hotel = hotelRepository.save(hotel);
+
+        rooms = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Room room = new Room();
+            room.setRoomNumber("room_" + suffix + "_" + i);
+            room.setName("Deluxe Room");
+            room.setPrice(new BigDecimal("150.00"));
+            room.setMaxPeople(2);
+            room.setHotel(hotel);
+            rooms.add(roomRepository.save(room));
+        }
+    }
+
+    @Test
+    @DisplayName("Тест: пакет бронирует все номера и пишет событие на каждое бронирование")
+    void shouldBookAllRoomsOfBatch() {
+        long outboxBefore = count("outbox_event");
+
+        BatchBookingResponseDto response = bookingService.bookBatch(batch(false, rooms.stream()
+                .map(room -> request(room.getId(), 10))
+                .toList()));
+
+        assertThat(response.booked()).hasSize(rooms.size());
+        assertThat(response.booked()).allSatisfy(booking -> assertThat(booking.getBookingId()).isNotNull());
+        assertThat(response.rejected()).isEmpty();
+        assertThat(bookingsOfRooms()).isEqualTo(rooms.size());
+        assertThat(count("outbox_event") - outboxBefore).isEqualTo(rooms.size());
+    }
+
+    @Test
+    @DisplayName("Тест: пакет по умолчанию не бронирует ничего, если одна позиция занята")
+    void shouldRejectWholeBatchWhenOneRoomIsTaken() {
+        bookingService.bookRoom(request(rooms.get(3).getId(), 20));
+
+        List<BookingRequestDto> requests = rooms.stream().map(room -> request(room.getId(), 21)).toList();
+        assertThrows(IllegalStateException.class, () -> bookingService.bookBatch(batch(false, requests)));
+
+        assertThat(bookingsOfRooms()).isEqualTo(1);
+        // Резерв отклоненного пакета снят, поэтому повтор без занятого номера проходит
+        List<BookingRequestDto> retry = new ArrayList<>(requests);
+        retry.remove(3);
+        assertThat(bookingService.bookBatch(batch(false, retry)).booked()).hasSize(rooms.size() - 1);
+    }
+
+    @Test
+    @DisplayName("Тест: в режиме best-effort недоступные позиции возвращаются как отклоненные")
+    void shouldSkipUnavailableItemsInBestEffortMode() {
+        bookingService.bookRoom(request(rooms.get(0).getId(), 30));
+
+        BatchBookingResponseDto response = bookingService.bookBatch(batch(true, List.of(
+                request(rooms.get(0).getId(), 31),
+                request(rooms.get(1).getId(), 30),
+                request(rooms.get(1).getId(), 31),
+                request(Long.MAX_VALUE, 30))));
+
+        assertThat(response.booked()).hasSize(1);
+        assertThat(response.booked().get(0).getRoomId()).isEqualTo(rooms.get(1).getId());
+        assertThat(response.rejected()).extracting(BatchBookingResponseDto.Rejection::index).containsExactly(0, 2, 3);
+        assertThat(response.rejected().get(2).reason()).isEqualTo("Room not found");
+    }
+
+    @Test
+    @DisplayName("Тест: в режиме best-effort неизвестный пользователь отклоняет только свою позицию")
+    void shouldRejectOnlyItemWithUnknownUserInBestEffortMode() {
+        BookingRequestDto unknownUser = request(rooms.get(5).getId(), 40);
+        unknownUser.setUserId(Long.MAX_VALUE);
+
+        BatchBookingResponseDto response = bookingService.bookBatch(batch(true, List.of(
+                request(rooms.get(4).getId(), 40),
+                unknownUser,
+                request(rooms.get(6).getId(), 40))));
+
+        assertThat(response.booked()).extracting(booking -> booking.getRoomId())
+                .containsExactly(rooms.get(4).getId(), rooms.get(6).getId());
+        assertThat(response.rejected()).containsExactly(new BatchBookingResponseDto.Rejection(1, "User not found"));
+    }
+
+    @Test
+    @DisplayName("Тест: в режиме best-effort конфликт с бронированием другого экземпляра при вставке отклоняет только его позицию")
+    void shouldRetryWithoutStaysTakenDuringInsertInBestEffortMode() throws Exception {
+        Room taken = rooms.get(7);
+        try (Connection otherNode = dataSource.getConnection()) {
+            // Другой экземпляр вставил бронирование, но еще не зафиксировал: проверка пакета его не видит
+            otherNode.setAutoCommit(false);
+            try (PreparedStatement insert = otherNode.prepareStatement(
+                    "INSERT INTO booking (id, user_id, room_id, check_in, check_out) " +
+                            "VALUES (nextval('booking_seq'), ?, ?, ?, ?)")) {
+                insert.setLong(1, user.getId());
+                insert.setLong(2, taken.getId());
+                insert.setObject(3, LocalDate.now().plusDays(50));
+                insert.setObject(4, LocalDate.now().plusDays(52));
+                insert.executeUpdate();
+            }
+
+            CompletableFuture<BatchBookingResponseDto> batch = CompletableFuture.supplyAsync(() ->
+                    bookingService.bookBatch(batch(true, List.of(
+                            request(rooms.get(8).getId(), 50),
+                            request(taken.getId(), 50)))));
+            awaitLockWait();
+            otherNode.commit();
+
+            BatchBookingResponseDto response = batch.get(10, TimeUnit.SECONDS);
+            assertThat(response.booked()).extracting(booking -> booking.getRoomId())
+                    .containsExactly(rooms.get(8).getId());
+            assertThat(response.rejected()).containsExactly(
+                    new BatchBookingResponseDto.Rejection(1, "Room is already booked for the selected dates"));
+        }
+    }
+
+    /**
+     * Ждет, пока вставка пакета не встанет в ожидание незафиксированного бронирования другого экземпляра.
+     */
+    private void awaitLockWait() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            Integer waiting = jdbcTemplate.queryForObject("SELECT count(*) FROM pg_stat_activity " +
+                    "WHERE wait_event_type = 'Lock' AND query LIKE 'INSERT INTO booking%'", Integer.class);
+            if (waiting != null && waiting > 0) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Batch insert did not wait for the other booking");
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Long.class);
+    }
+
+    private long bookingsOfRooms() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM booking WHERE room_id BETWEEN ? AND ?", Long.class,
+                rooms.get(0).getId(), rooms.get(rooms.size() - 1).getId());
+    }
+
+    private static BatchBookingRequestDto batch(boolean bestEffort, List<BookingRequestDto> bookings) {
+        BatchBookingRequestDto batch = new BatchBookingRequestDto();
+        batch.setBestEffort(bestEffort);
+        batch.setBookings(bookings);
+        return batch;
+    }
+
+    private BookingRequestDto request(Long roomId, int daysFromNow) {
+        BookingRequestDto request = new BookingRequestDto();
+        request.setUserId(user.getId());
+        request.setRoomId(roomId);
+        request.setCheckIn(LocalDate.now().plusDays(daysFromNow));
+        request.setCheckOut(LocalDate.now().plusDays(daysFromNow + 2));
+        return request;
+    }
+}
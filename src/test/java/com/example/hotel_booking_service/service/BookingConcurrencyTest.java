@@ -0,0 +1,202 @@
+package com.example.hotel_booking_service.service;
+
+import com.example.hotel_booking_service.entity.Booking;
+import com.example.hotel_booking_service.entity.Hotel;
+import com.example.hotel_booking_service.entity.RoleType;
+import com.example.hotel_booking_service.entity.Room;
+import com.example.hotel_booking_service.entity.User;
+import com.example.hotel_booking_service.repository.BookingRepository;
+import com.example.hotel_booking_service.repository.HotelRepository;
+import com.example.hotel_booking_service.repository.RoomRepository;
+import com.example.hotel_booking_service.repository.UserRepository;
+import com.example.hotel_booking_service.web.dto.BookingRequestDto;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет, что exclusion-ограничение на таблице booking не допускает двойного бронирования
+ * при параллельных запросах. Схема создается миграциями Flyway.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@Testcontainers
+@ActiveProfiles("test")
+class BookingConcurrencyTest {
+    private static final int PARALLEL_REQUESTS = 300;
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17.2")
+            .withDatabaseName("hotel_booking_db")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private Room room;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = String.valueOf(System.nanoTime());
+
+        user = new User();
+        user.setUsername("user_" + suffix);
+        user.setPassword("password123");
+        user.setEmail("user_" + suffix + "@example.com");
+        user.setRole(RoleType.ROLE_USER);
+        user = userRepository.save(user);
+
+        Hotel hotel = new Hotel();
+        hotel.setName("Test Hotel");
+        hotel.setCity("Test City");
+        hotel = hotelRepository.save(hotel);
+
+        room = new Room();
+        room.setRoomNumber("room_" + suffix);
+        room.setName("Deluxe Room");
+        room.setPrice(new BigDecimal("150.00"));
+        room.setMaxPeople(2);
+        room.setHotel(hotel);
+        room = roomRepository.save(room);
+    }
+
+    @Test
+    @DisplayName("Тест: из параллельных бронирований одной комнаты на одни даты проходит только одно")
+    void shouldAcceptSingleBookingOutOfParallelRequests() throws Exception {
+        LocalDate checkIn = LocalDate.now().plusDays(10);
+        AtomicInteger booked = new AtomicInteger();
+        Set<String> rejectedStates = ConcurrentHashMap.newKeySet();
+        AtomicInteger rejected = new AtomicInteger();
+
+        runInParallel(i -> {
+            BookingRequestDto request = new BookingRequestDto();
+            request.setUserId(user.getId());
+            request.setRoomId(room.getId());
+            request.setCheckIn(checkIn);
+            request.setCheckOut(checkIn.plusDays(3));
+            try {
+                // bookReserved не проверяет индекс в памяти, поэтому пересечение отсекает только база данных
+                bookingService.bookReserved(request);
+                booked.incrementAndGet();
+            } catch (IllegalStateException e) {
+                rejected.incrementAndGet();
+                if (NestedExceptionUtils.getMostSpecificCause(e) instanceof SQLException sqlException) {
+                    rejectedStates.add(sqlException.getSQLState());
+                }
+            }
+        });
+
+        assertThat(booked.get()).isEqualTo(1);
+        assertThat(rejected.get()).isEqualTo(PARALLEL_REQUESTS - 1);
+        assertThat(rejectedStates).containsExactly("23P01");
+        assertThat(bookingRepository.findByRoomId(room.getId())).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Тест: база отклоняет пересекающиеся вставки в обход проверок сервиса")
+    void shouldRejectOverlappingInsertsOnDatabaseLevel() throws Exception {
+        LocalDate base = LocalDate.now().plusDays(30);
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        runInParallel(i -> {
+            Booking booking = new Booking();
+            booking.setUser(user);
+            booking.setRoom(room);
+            booking.setCheckIn(base.plusDays(i % 7));
+            booking.setCheckOut(base.plusDays(i % 7 + 3));
+            try {
+                transactionTemplate.executeWithoutResult(status -> bookingRepository.saveAndFlush(booking));
+                booked.incrementAndGet();
+            } catch (DataIntegrityViolationException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        Integer overlapping = jdbcTemplate.queryForObject("""
+                SELECT count(*) FROM booking a JOIN booking b
+                  ON a.room_id = b.room_id AND a.id < b.id AND a.stay && b.stay
+                WHERE a.room_id = ?
+                """, Integer.class, room.getId());
+        assertThat(overlapping).isZero();
+        assertThat(booked.get()).isPositive();
+        assertThat(booked.get() + rejected.get()).isEqualTo(PARALLEL_REQUESTS);
+    }
+
+    private void runInParallel(IntTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < PARALLEL_REQUESTS; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run(index);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface IntTask {
+        void run(int index);
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.hotel_booking_service.service;
+
+import com.example.hotel_booking_service.entity.Hotel;
+import com.example.hotel_booking_service.entity.RoleType;
+import com.example.hotel_booking_service.entity.Room;
+import com.example.hotel_booking_service.entity.User;
+import com.example.hotel_booking_service.repository.BookingRepository;
+import com.example.hotel_booking_service.repository.HotelRepository;
+import com.example.hotel_booking_service.repository.IdempotencyRecordRepository;
+import com.example.hotel_booking_service.repository.RoomRepository;
+import com.example.hotel_booking_service.repository.UserRepository;
+import com.example.hotel_booking_service.web.dto.BookingRequestDto;
+import com.example.hotel_booking_service.web.dto.BookingResponseDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Проверяет идемпотентное бронирование на двух экземплярах сервиса с общей базой данных:
+ * второй запрос с тем же ключом ждет первого и получает его ответ, а не конфликт бронирования.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@Testcontainers
+@ActiveProfiles("test")
+class BookingIdempotencyConcurrencyTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17.2")
+            .withDatabaseName("hotel_booking_db")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingIdempotencyService bookingIdempotencyService;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private Room room;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = String.valueOf(System.nanoTime());
+
+        user = new User();
+        user.setUsername("user_" + suffix);
+        user.setPassword("password123");
+        user.setEmail("user_" + suffix + "@example.com");
+        user.setRole(RoleType.ROLE_USER);
+        user = userRepository.save(user);
+
+        Hotel hotel = new Hotel();
+        hotel.setName("Test Hotel");
+        hotel.setCity("Test City");
+        hotel = hotelRepository.save(hotel);
+
+        room = new Room();
+        room.setRoomNumber("room_" + suffix);
+        room.setName("Deluxe Room");
+        room.setPrice(new BigDecimal("150.00"));
+        room.setMaxPeople(2);
+        room.setHotel(hotel);
+        room = roomRepository.save(room);
+    }
+
+    @Test
+    @DisplayName("Тест: второй экземпляр сервиса с тем же ключом получает сохраненный ответ, а не 409")
+    void shouldReplayResponseToConcurrentRequestOnAnotherInstance() throws Exception {
+        BookingRequestDto request = request(10);
+        CountDownLatch booking = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Первый экземпляр занимает ключ и задерживается внутри транзакции бронирования
+        BookingService slowBookingService = mock(BookingService.class);
+        when(slowBookingService.bookRoom(any())).thenAnswer(invocation -> {
+            booking.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return bookingService.bookRoom(invocation.getArgument(0));
+        });
+        BookingIdempotencyService firstInstance = new BookingIdempotencyService(slowBookingService,
+                idempotencyRecordRepository, transactionTemplate, objectMapper, 60, 100);
+
+        CompletableFuture<BookingResponseDto> first = CompletableFuture.supplyAsync(
+                () -> firstInstance.bookRoom("same-key", request));
+        assertThat(booking.await(10, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<BookingResponseDto> second = CompletableFuture.supplyAsync(
+                () -> bookingIdempotencyService.bookRoom("same-key", request));
+
+        awaitLockWait();
+        release.countDown();
+
+        BookingResponseDto original = first.get(10, TimeUnit.SECONDS);
+        BookingResponseDto replayed = second.get(10, TimeUnit.SECONDS);
+        assertThat(replayed.getBookingId()).isEqualTo(original.getBookingId());
+        assertThat(bookingRepository.findByRoomId(room.getId())).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Тест: истекший, но не удаленный ключ занимается заново")
+    void shouldReclaimExpiredKey() {
+        jdbcTemplate.update("INSERT INTO idempotency_key (idempotency_key, request_hash, response, expires_at) " +
+                "VALUES ('expired-key', 'stale', '{}', ?)", LocalDateTime.now().minusMinutes(1));
+
+        BookingResponseDto response = bookingIdempotencyService.bookRoom("expired-key", request(20));
+
+        assertThat(response.getBookingId()).isNotNull();
+        assertThat(idempotencyRecordRepository.findById("expired-key").orElseThrow().getExpiresAt())
+                .isAfter(LocalDateTime.now());
+    }
+
+    /**
+     * Ждет, пока вставка ключа вторым экземпляром не встанет в ожидание транзакции первого.
+     */
+    private void awaitLockWait() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            Integer waiting = jdbcTemplate.queryForObject("SELECT count(*) FROM pg_stat_activity " +
+                    "WHERE wait_event_type = 'Lock' AND query LIKE 'INSERT INTO idempotency_key%'", Integer.class);
+            if (waiting != null && waiting > 0) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Second request did not wait for the idempotency key");
+    }
+
+    private BookingRequestDto request(int daysFromNow) {
+        BookingRequestDto request = new BookingRequestDto();
+        request.setUserId(user.getId());
+        request.setRoomId(room.getId());
+        request.setCheckIn(LocalDate.now().plusDays(daysFromNow));
+        request.setCheckOut(LocalDate.now().plusDays(daysFromNow + 2));
+        return request;
+    }
+}
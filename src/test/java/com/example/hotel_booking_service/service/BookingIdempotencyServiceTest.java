@@ -0,0 +1,103 @@
+package com.example.hotel_booking_service.service;
+
+import com.example.hotel_booking_service.repository.IdempotencyRecordRepository;
+import com.example.hotel_booking_service.web.dto.BookingRequestDto;
+import com.example.hotel_booking_service.web.dto.BookingResponseDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class BookingIdempotencyServiceTest {
+    private BookingService bookingService;
+    private BookingIdempotencyService bookingIdempotencyService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        bookingService = mock(BookingService.class);
+        IdempotencyRecordRepository idempotencyRecordRepository = mock(IdempotencyRecordRepository.class);
+        when(idempotencyRecordRepository.findByIdempotencyKeyAndExpiresAtAfter(any(), any())).thenReturn(Optional.empty());
+        when(idempotencyRecordRepository.claim(any(), any(), any(), any())).thenReturn(1);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Object>>getArgument(0).doInTransaction(null));
+
+        bookingIdempotencyService = new BookingIdempotencyService(bookingService, idempotencyRecordRepository,
+                transactionTemplate, new ObjectMapper().registerModule(new JavaTimeModule()), 60, 100);
+    }
+
+    @Test
+    void shouldReturnOriginalResponseOnRetry() {
+        BookingRequestDto request = request(1L);
+        BookingResponseDto response = new BookingResponseDto();
+        response.setBookingId(10L);
+        when(bookingService.bookRoom(request)).thenReturn(response);
+
+        BookingResponseDto first = bookingIdempotencyService.bookRoom("key-1", request);
+        BookingResponseDto retry = bookingIdempotencyService.bookRoom("key-1", request);
+
+        assertThat(retry).isEqualTo(first);
+        verify(bookingService, times(1)).bookRoom(request);
+    }
+
+    @Test
+    void shouldRejectKeyReuseWithDifferentRequest() {
+        when(bookingService.bookRoom(any())).thenReturn(new BookingResponseDto());
+        bookingIdempotencyService.bookRoom("key-2", request(1L));
+
+        assertThrows(IllegalArgumentException.class, () -> bookingIdempotencyService.bookRoom("key-2", request(2L)));
+    }
+
+    @Test
+    void shouldCollapseConcurrentRequestsWithSameKey() throws Exception {
+        BookingRequestDto request = request(1L);
+        CountDownLatch bookingStarted = new CountDownLatch(1);
+        CountDownLatch releaseBooking = new CountDownLatch(1);
+        when(bookingService.bookRoom(request)).thenAnswer(invocation -> {
+            bookingStarted.countDown();
+            releaseBooking.await();
+            return new BookingResponseDto();
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<BookingResponseDto>> futures = new ArrayList<>();
+            futures.add(executor.submit(() -> bookingIdempotencyService.bookRoom("key-3", request)));
+            bookingStarted.await(5, TimeUnit.SECONDS);
+            for (int i = 0; i < 7; i++) {
+                futures.add(executor.submit(() -> bookingIdempotencyService.bookRoom("key-3", request)));
+            }
+            Thread.sleep(100);
+            releaseBooking.countDown();
+            for (Future<BookingResponseDto> future : futures) {
+                assertThat(future.get(5, TimeUnit.SECONDS)).isNotNull();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(bookingService, times(1)).bookRoom(request);
+    }
+
+    private static BookingRequestDto request(Long roomId) {
+        BookingRequestDto request = new BookingRequestDto();
+        request.setUserId(1L);
+        request.setRoomId(roomId);
+        request.setCheckIn(LocalDate.now().plusDays(1));
+        request.setCheckOut(LocalDate.now().plusDays(3));
+        return request;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.hotel_booking_service.service;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Проверяет, что миграция V4 применяется к базе с уже пересекающимися и пустыми бронированиями:
+ * такие строки переносятся в booking_conflict до добавления ограничений.
+ */
+@Testcontainers
+class BookingStayMigrationTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17.2")
+            .withDatabaseName("hotel_booking_db")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @Test
+    @DisplayName("Тест: V4 переносит конфликтующие бронирования и добавляет ограничения")
+    void shouldMoveConflictingBookingsBeforeAddingConstraints() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        flyway(dataSource, "3").migrate();
+        jdbcTemplate.update("INSERT INTO hotel (id, name) VALUES (1, 'Hotel')");
+        jdbcTemplate.update("INSERT INTO room (id, name, room_number, price, max_people, hotel_id) VALUES (1, 'Room', '101', 100, 2, 1), (2, 'Room', '102', 100, 2, 1)");
+        jdbcTemplate.update("INSERT INTO users (id, username, password, email, role) VALUES (1, 'user', 'password', 'user@example.com', 'ROLE_USER')");
+        jdbcTemplate.update("""
+                INSERT INTO booking (id, user_id, room_id, check_in, check_out) VALUES
+                  (1, 1, 1, '2030-01-01', '2030-01-04'),
+                  (2, 1, 1, '2030-01-03', '2030-01-06'),
+                  (3, 1, 1, '2030-01-05', '2030-01-07'),
+                  (4, 1, 1, '2030-01-10', '2030-01-10'),
+                  (5, 1, 2, '2030-01-03', '2030-01-06'),
+                  (6, 1, 2, '2030-01-01', '2030-01-04'),
+                  (7, 1, 1, '2030-01-06', '2030-01-08')
+                """);
+
+        flyway(dataSource, "4").migrate();
+
+        // Бронирование 3 пересекалось только с перенесенным 2, поэтому остается, а 7 пересекается с оставленным 3;
+        // комнаты обходятся независимо, и в комнате 2 переносится более позднее по id, хотя оно раньше по датам
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM booking ORDER BY id", Long.class))
+                .containsExactly(1L, 3L, 5L);
+        List<Map<String, Object>> conflicts = jdbcTemplate.queryForList(
+                "SELECT id, reason FROM booking_conflict ORDER BY id");
+        assertThat(conflicts).extracting(row -> row.get("id"), row -> row.get("reason"))
+                .containsExactly(
+                        tuple(2L, "OVERLAP"),
+                        tuple(4L, "EMPTY_STAY"),
+                        tuple(6L, "OVERLAP"),
+                        tuple(7L, "OVERLAP"));
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_constraint WHERE conname = 'ex_booking_room_stay'", Integer.class))
+                .isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_indexes WHERE indexname = 'tmp_booking_room_id_id'", Integer.class))
+                .isZero();
+    }
+
+    private static Flyway flyway(DriverManagerDataSource dataSource, String target) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .target(target)
+                .load();
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.hotel_booking_service.service;
+
+import com.example.hotel_booking_service.entity.Hotel;
+import com.example.hotel_booking_service.entity.RoleType;
+import com.example.hotel_booking_service.entity.Room;
+import com.example.hotel_booking_service.entity.User;
+import com.example.hotel_booking_service.repository.HotelRepository;
+import com.example.hotel_booking_service.repository.RoomRepository;
+import com.example.hotel_booking_service.repository.UserRepository;
+import com.example.hotel_booking_service.support.StatementCounter;
+import com.example.hotel_booking_service.web.dto.BookingRequestDto;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Считает SQL-запросы одного бронирования по статистике Hibernate.
+ * <p>
+ * Раньше бронирование выполняло 5 запросов: выборку пользователя, выборку номера вместе с отелем,
+ * поиск пересечений, вставку бронирования и вставку события. Теперь остаются только две вставки.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@Testcontainers
+@ActiveProfiles("test")
+class BookingWritePathStatementCountTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17.2")
+            .withDatabaseName("hotel_booking_db")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private StatementCounter statements;
+    private User user;
+    private Room room;
+
+    @BeforeEach
+    void setUp() {
+        statements = new StatementCounter(entityManagerFactory);
+
+        String suffix = String.valueOf(System.nanoTime());
+        user = new User();
+        user.setUsername("user_" + suffix);
+        user.setPassword("password123");
+        user.setEmail("user_" + suffix + "@example.com");
+        user.setRole(RoleType.ROLE_USER);
+        user = userRepository.save(user);
+
+        Hotel hotel = new Hotel();
+        hotel.setName("Test Hotel");
+        hotel = hotelRepository.save(hotel);
+
+        room = new Room();
+        room.setRoomNumber("room_" + suffix);
+        room.setName("Deluxe Room");
+        room.setPrice(new BigDecimal("150.00"));
+        room.setMaxPeople(2);
+        room.setHotel(hotel);
+        room = roomRepository.save(room);
+    }
+
+    @Test
+    @DisplayName("Тест: бронирование выполняет только вставку бронирования и события")
+    void shouldBookRoomWithTwoStatements() {
+        // Первое бронирование прогревает генераторы идентификаторов и кэши запросов
+        bookingService.bookRoom(request(user.getId(), room.getId(), 10));
+
+        statements.assertStatements(2, () -> bookingService.bookRoom(request(user.getId(), room.getId(), 20)));
+
+        assertThat(statements.statistics().getEntityLoadCount()).isZero();
+        assertThat(statements.statistics().getEntityInsertCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Тест: несуществующий пользователь определяется по внешнему ключу")
+    void shouldReportMissingUserByForeignKey() {
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class,
+                () -> bookingService.bookRoom(request(Long.MAX_VALUE, room.getId(), 30)));
+
+        assertThat(exception.getMessage()).isEqualTo("User not found");
+    }
+
+    @Test
+    @DisplayName("Тест: несуществующий номер определяется по внешнему ключу")
+    void shouldReportMissingRoomByForeignKey() {
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class,
+                () -> bookingService.bookRoom(request(user.getId(), Long.MAX_VALUE, 30)));
+
+        assertThat(exception.getMessage()).isEqualTo("Room not found");
+    }
+
+    private static BookingRequestDto request(Long userId, Long roomId, int daysFromNow) {
+        BookingRequestDto request = new BookingRequestDto();
+        request.setUserId(userId);
+        request.setRoomId(roomId);
+        request.setCheckIn(LocalDate.now().plusDays(daysFromNow));
+        request.setCheckOut(LocalDate.now().plusDays(daysFromNow + 2));
+        return request;
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.hotel_booking_service.service;
+
+import com.example.hotel_booking_service.entity.DateRanges;
+import com.example.hotel_booking_service.entity.Hotel;
+import com.example.hotel_booking_service.entity.RoleType;
+import com.example.hotel_booking_service.entity.Room;
+import com.example.hotel_booking_service.entity.User;
+import com.example.hotel_booking_service.repository.HotelRepository;
+import com.example.hotel_booking_service.repository.RoomRepository;
+import com.example.hotel_booking_service.repository.UserRepository;
+import com.example.hotel_booking_service.support.StatementCounter;
+import com.example.hotel_booking_service.web.dto.BookingRequestDto;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Проверяет массовое удаление отелей и номеров множественными запросами.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@Testcontainers
+@ActiveProfiles("test")
+class BulkDeleteTest {
+    private static final int ROOMS = 20;
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17.2")
+            .withDatabaseName("hotel_booking_db")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private HotelService hotelService;
+
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final LocalDate base = LocalDate.now().plusMonths(1);
+    private StatementCounter statements;
+    private Hotel hotel;
+    private List<Long> roomIds;
+
+    @BeforeEach
+    void setUp() {
+        hotel = new Hotel();
+        hotel.setName("Bulk Hotel");
+        hotel = hotelRepository.save(hotel);
+        String suffix = String.valueOf(System.nanoTime());
+        roomIds = roomRepository.saveAll(IntStream.range(0, ROOMS)
+                        .mapToObj(i -> {
+                            Room room = new Room();
+                            room.setName("Room " + i);
+                            room.setRoomNumber(suffix + "-" + i);
+                            room.setPrice(new BigDecimal("100.00"));
+                            room.setMaxPeople(2);
+                            room.setHotel(hotel);
+                            // Недоступные даты заполняют календарь занятости номера
+                            room.setUnavailableDates(DateRanges.of(List.of(new DateRanges.Range(base, base.plusDays(3)))));
+                            return room;
+                        })
+                        .toList())
+                .stream()
+                .map(Room::getId)
+                .toList();
+        statements = new StatementCounter(entityManagerFactory);
+    }
+
+    @Test
+    @DisplayName("Тест: удаление номеров не загружает их и очищает календарь")
+    void shouldDeleteRoomsWithoutLoadingThem() {
+        List<Long> deleted = roomIds.subList(0, ROOMS / 2);
+
+        statements.assertStatements(0, () -> roomService.deleteMany(deleted));
+
+        assertThat(roomRepository.findAllById(roomIds)).extracting(Room::getId)
+                .containsExactlyInAnyOrderElementsOf(roomIds.subList(ROOMS / 2, ROOMS));
+        assertThat(countMonths(deleted)).isZero();
+        assertThat(countMonths(roomIds)).isPositive();
+    }
+
+    @Test
+    @DisplayName("Тест: удаление отеля удаляет его номера и календарь")
+    void shouldDeleteHotelsWithRooms() {
+        statements.assertStatements(0, () -> hotelService.deleteMany(List.of(hotel.getId(), -1L)));
+
+        assertThat(hotelRepository.existsById(hotel.getId())).isFalse();
+        assertThat(roomRepository.findAllById(roomIds)).isEmpty();
+        assertThat(countMonths(roomIds)).isZero();
+    }
+
+    @Test
+    @DisplayName("Тест: удаление отсутствующего номера по идентификатору сообщает об ошибке")
+    void shouldRejectDeletingMissingRoom() {
+        roomService.delete(roomIds.get(0));
+
+        assertThat(roomRepository.existsById(roomIds.get(0))).isFalse();
+        assertThrows(EntityNotFoundException.class, () -> roomService.delete(roomIds.get(0)));
+    }
+
+    @Test
+    @DisplayName("Тест: номер с бронированиями не удаляется")
+    void shouldKeepRoomsWithBookings() {
+        User user = new User();
+        user.setUsername("bulk_" + System.nanoTime());
+        user.setPassword("password123");
+        user.setEmail(user.getUsername() + "@example.com");
+        user.setRole(RoleType.ROLE_USER);
+        user = userRepository.save(user);
+        BookingRequestDto request = new BookingRequestDto();
+        request.setUserId(user.getId());
+        request.setRoomId(roomIds.get(0));
+        request.setCheckIn(base.plusDays(10));
+        request.setCheckOut(base.plusDays(12));
+        bookingService.bookRoom(request);
+
+        assertThrows(DataIntegrityViolationException.class, () -> roomService.deleteMany(roomIds));
+
+        assertThat(roomRepository.findAllById(roomIds)).hasSize(ROOMS);
+        assertThat(countMonths(roomIds.subList(1, ROOMS))).isPositive();
+    }
+
+    private long countMonths(List<Long> ids) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM room_availability_month WHERE room_id = ANY(?)",
+                Long.class, (Object) ids.toArray(Long[]::new));
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.hotel_booking_service.service;
+
+import com.example.hotel_booking_service.entity.Hotel;
+import com.example.hotel_booking_service.repository.HotelRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет, что идентификаторы из последовательностей позволяют Hibernate объединять вставки в пакеты JDBC.
+ * С IDENTITY каждая строка вставлялась отдельным запросом.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@Testcontainers
+@ActiveProfiles("test")
+class BulkInsertBatchingTest {
+    private static final int HOTELS = 120;
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17.2")
+            .withDatabaseName("hotel_booking_db")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private HotelService hotelService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @DisplayName("Тест: массовая вставка выполняется пакетами, а идентификаторы выделяются блоками")
+    void shouldBatchInserts() {
+        List<Hotel> hotels = IntStream.range(0, HOTELS)
+                .mapToObj(i -> {
+                    Hotel hotel = new Hotel();
+                    hotel.setName("Hotel " + i);
+                    return hotel;
+                })
+                .toList();
+
+        statistics.clear();
+        transactionTemplate.executeWithoutResult(status -> hotelRepository.saveAll(hotels));
+
+        // 3 запроса nextval (по 50 идентификаторов) и 3 пакета вставок вместо 120 INSERT
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(HOTELS);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(6);
+        assertThat(hotels).extracting(Hotel::getId).doesNotHaveDuplicates().doesNotContainNull();
+    }
+
+    @Test
+    @DisplayName("Тест: patchMany обновляет отели пакетами без повторной загрузки")
+    void shouldBatchUpdatesInPatchMany() throws Exception {
+        List<Hotel> hotels = hotelRepository.saveAll(IntStream.range(0, HOTELS)
+                .mapToObj(i -> {
+                    Hotel hotel = new Hotel();
+                    hotel.setName("Hotel " + i);
+                    return hotel;
+                })
+                .toList());
+        List<Long> ids = hotels.stream().map(Hotel::getId).toList();
+
+        statistics.clear();
+        hotelService.patchMany(ids, new ObjectMapper().readTree("{\"city\": \"Paris\"}"));
+
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(HOTELS);
+        // Один запрос загрузки и 3 пакета обновлений
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+        assertThat(hotelRepository.findAllById(ids)).allSatisfy(hotel -> assertThat(hotel.getCity()).isEqualTo("Paris"));
+    }
+}
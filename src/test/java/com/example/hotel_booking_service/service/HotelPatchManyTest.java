@@ -0,0 +1,117 @@
+package com.example.hotel_booking_service.service;
+
+import com.example.hotel_booking_service.entity.Hotel;
+import com.example.hotel_booking_service.repository.HotelRepository;
+import com.example.hotel_booking_service.support.StatementCounter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет пакетное частичное обновление отелей одним запросом и запасной путь через сущности.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@Testcontainers
+@ActiveProfiles("test")
+class HotelPatchManyTest {
+    private static final int HOTELS = 1500;
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17.2")
+            .withDatabaseName("hotel_booking_db")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private HotelService hotelService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private StatementCounter statements;
+    private List<Long> ids;
+
+    @BeforeEach
+    void setUp() {
+        hotelRepository.deleteAllInBatch();
+        ids = hotelRepository.saveAll(IntStream.range(0, HOTELS)
+                        .mapToObj(i -> {
+                            Hotel hotel = new Hotel();
+                            hotel.setName("Hotel " + i);
+                            hotel.setCity("Old City");
+                            hotel.setRating(4);
+                            hotel.setNumberofratings(10);
+                            return hotel;
+                        })
+                        .toList())
+                .stream()
+                .map(Hotel::getId)
+                .toList();
+        statements = new StatementCounter(entityManagerFactory);
+    }
+
+    @Test
+    @DisplayName("Тест: простой патч применяется запросами UPDATE без загрузки отелей")
+    void shouldPatchSimpleColumnsWithoutLoadingHotels() throws Exception {
+        List<Long> requested = new ArrayList<>(ids);
+        requested.add(-1L);
+        JsonNode patch = objectMapper.readTree("{\"city\": \"New City\", \"address\": null, \"distance\": 300}");
+
+        List<Long> updated = statements.assertStatements(0, () -> hotelService.patchMany(requested, patch));
+
+        assertThat(updated).containsExactlyInAnyOrderElementsOf(ids);
+        assertThat(hotelRepository.findAll()).allSatisfy(hotel -> {
+            assertThat(hotel.getCity()).isEqualTo("New City");
+            assertThat(hotel.getAddress()).isNull();
+            assertThat(hotel.getDistance()).isEqualTo(300);
+            assertThat(hotel.getName()).startsWith("Hotel ");
+        });
+    }
+
+    @Test
+    @DisplayName("Тест: патч рейтинга применяется через сущности и пересчитывает сумму оценок")
+    void shouldFallBackToEntitiesForRating() throws Exception {
+        List<Long> firstTwo = ids.subList(0, 2);
+        statements.statistics().clear();
+
+        List<Long> updated = hotelService.patchMany(firstTwo, objectMapper.readTree("{\"rating\": 5, \"city\": \"Rated\"}"));
+
+        assertThat(updated).containsExactlyInAnyOrderElementsOf(firstTwo);
+        assertThat(statements.statistics().getEntityLoadCount()).isEqualTo(2);
+        assertThat(hotelRepository.findAllById(firstTwo)).allSatisfy(hotel -> {
+            assertThat(hotel.getCity()).isEqualTo("Rated");
+            assertThat(hotel.getRatingSum()).isEqualTo(50L);
+        });
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.hotel_booking_service.service;
+
+import com.example.hotel_booking_service.repository.specification.HotelFilter;
+import com.example.hotel_booking_service.repository.specification.RoomFilter;
+import com.example.hotel_booking_service.web.dto.HotelDto;
+import com.example.hotel_booking_service.web.dto.RoomDto;
+import com.example.hotel_booking_service.web.dto.ScrollModel;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Проверяет keyset-пагинацию номеров и отелей по токенам продолжения.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@Testcontainers
+@ActiveProfiles("test")
+class KeysetScrollTest {
+    private static final int ROOMS = 60;
+    private static final RoomFilter NO_ROOM_FILTER = new RoomFilter(null, null, null, null, null, null, null, null);
+    private static final HotelFilter NO_HOTEL_FILTER = new HotelFilter(null, null, null, null, null, null, null, null);
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17.2")
+            .withDatabaseName("hotel_booking_db")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private HotelService hotelService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM room");
+        jdbcTemplate.update("DELETE FROM hotel");
+        jdbcTemplate.update("INSERT INTO hotel (name) SELECT 'Hotel ' || g FROM generate_series(1, 3) g");
+        Long hotelId = jdbcTemplate.queryForObject("SELECT min(id) FROM hotel", Long.class);
+        // Цены повторяются, поэтому порядок внутри одной цены определяется идентификатором
+        jdbcTemplate.update("INSERT INTO room (name, room_number, price, max_people, hotel_id) " +
+                "SELECT 'Room ' || g, 'scroll-' || g, 10.5 + g % 7, 1 + g % 3, ? FROM generate_series(1, ?) g",
+                hotelId, ROOMS);
+    }
+
+    @Test
+    @DisplayName("Тест: обход по токенам выдает все номера без пропусков и повторов в порядке сортировки")
+    void shouldScrollThroughAllRooms() {
+        Sort sort = Sort.by(Sort.Direction.DESC, "price");
+        List<Long> scrolled = new ArrayList<>();
+        String token = null;
+        do {
+            ScrollModel<RoomDto> page = roomService.scroll(NO_ROOM_FILTER, token, 7, sort);
+            page.content().forEach(room -> scrolled.add(room.getId()));
+            token = page.next();
+        } while (token != null);
+
+        List<Long> expected = jdbcTemplate.queryForList("SELECT id FROM room ORDER BY price DESC, id", Long.class);
+        assertThat(scrolled).isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("Тест: фильтр применяется на каждой странице")
+    void shouldKeepFilterWhileScrolling() {
+        RoomFilter filter = new RoomFilter(null, null, null, null, 2, null, null, null);
+        List<Long> scrolled = new ArrayList<>();
+        String token = null;
+        do {
+            ScrollModel<RoomDto> page = roomService.scroll(filter, token, 5, Sort.unsorted());
+            page.content().forEach(room -> scrolled.add(room.getId()));
+            token = page.next();
+        } while (token != null);
+
+        assertThat(scrolled).isEqualTo(
+                jdbcTemplate.queryForList("SELECT id FROM room WHERE max_people = 2 ORDER BY id", Long.class));
+    }
+
+    @Test
+    @DisplayName("Тест: отели пролистываются по идентификатору")
+    void shouldScrollHotels() {
+        ScrollModel<HotelDto> first = hotelService.scrollHotels(NO_HOTEL_FILTER, null, 2, Sort.unsorted());
+        ScrollModel<HotelDto> second = hotelService.scrollHotels(NO_HOTEL_FILTER, first.next(), 2, Sort.unsorted());
+
+        assertThat(first.content()).hasSize(2);
+        assertThat(second.content()).hasSize(1);
+        assertThat(second.next()).isNull();
+    }
+
+    @Test
+    @DisplayName("Тест: поврежденный токен и сортировка по nullable-полю отклоняются")
+    void shouldRejectInvalidRequests() {
+        assertThatThrownBy(() -> roomService.scroll(NO_ROOM_FILTER, "not-a-token", 10, Sort.unsorted()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> roomService.scroll(NO_ROOM_FILTER, null, 10, Sort.by("description")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> hotelService.scrollHotels(NO_HOTEL_FILTER, null, 10, Sort.by("rating")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> roomService.scroll(NO_ROOM_FILTER, null, 0, Sort.unsorted()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
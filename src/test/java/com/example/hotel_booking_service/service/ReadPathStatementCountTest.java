@@ -0,0 +1,157 @@
+package com.example.hotel_booking_service.service;
+
+import com.example.hotel_booking_service.entity.DateRanges;
+import com.example.hotel_booking_service.entity.Hotel;
+import com.example.hotel_booking_service.entity.Room;
+import com.example.hotel_booking_service.repository.HotelRepository;
+import com.example.hotel_booking_service.repository.RoomRepository;
+import com.example.hotel_booking_service.repository.specification.RoomFilter;
+import com.example.hotel_booking_service.service.cache.RoomSearchCache;
+import com.example.hotel_booking_service.support.StatementCounter;
+import com.example.hotel_booking_service.web.dto.HotelDto;
+import com.example.hotel_booking_service.web.dto.RoomDto;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.web.PagedModel;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет отсутствие N+1 при чтении номеров и отелей: периоды недоступности хранятся в строке номера,
+ * а отель номера не загружается вовсе.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@Testcontainers
+@ActiveProfiles("test")
+class ReadPathStatementCountTest {
+    private static final int HOTELS = 10;
+    private static final int ROOMS = 60;
+    private static final RoomFilter NO_FILTER = new RoomFilter(null, null, null, null, null, null, null, null);
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17.2")
+            .withDatabaseName("hotel_booking_db")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private HotelService hotelService;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private RoomSearchCache roomSearchCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private StatementCounter statements;
+    private List<Hotel> hotels;
+    private List<Room> rooms;
+
+    @BeforeEach
+    void setUp() {
+        statements = new StatementCounter(entityManagerFactory);
+        roomRepository.deleteAll();
+        hotelRepository.deleteAll();
+
+        hotels = hotelRepository.saveAll(IntStream.range(0, HOTELS)
+                .mapToObj(i -> {
+                    Hotel hotel = new Hotel();
+                    hotel.setName("Hotel " + i);
+                    return hotel;
+                })
+                .toList());
+        LocalDate today = LocalDate.now();
+        rooms = roomRepository.saveAll(IntStream.range(0, ROOMS)
+                .mapToObj(i -> {
+                    Room room = new Room();
+                    room.setName("Room " + i);
+                    room.setRoomNumber("read-" + i);
+                    room.setPrice(new BigDecimal("100.00"));
+                    room.setMaxPeople(2);
+                    room.setHotel(hotels.get(i % HOTELS));
+                    room.setUnavailableDates(DateRanges.of(List.of(
+                            new DateRanges.Range(today.plusDays(i), today.plusDays(i + 2)),
+                            new DateRanges.Range(today.plusDays(i + 10), today.plusDays(i + 12)))));
+                    return room;
+                })
+                .toList());
+        roomSearchCache.invalidateAll();
+        // Сохраненные сущности попадают в кэш второго уровня, а проверяются запросы к базе
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    @DisplayName("Тест: страница из 50 номеров — только выборка и подсчет")
+    void shouldListRoomsWithoutNPlusOne() {
+        PagedModel<RoomDto> page = statements.assertStatements(2,
+                () -> roomService.getAll(NO_FILTER, PageRequest.of(0, 50)));
+
+        assertThat(page.getContent()).hasSize(50)
+                .allSatisfy(room -> {
+                    assertThat(room.getHotelId()).isNotNull();
+                    assertThat(room.getUnavailableDates()).hasSize(2);
+                });
+        assertThat(statements.statistics().getEntityLoadCount()).isEqualTo(50);
+    }
+
+    @Test
+    @DisplayName("Тест: номера по списку идентификаторов загружаются одним запросом")
+    void shouldGetManyRoomsWithoutNPlusOne() {
+        List<Long> ids = rooms.stream().limit(50).map(Room::getId).toList();
+
+        List<RoomDto> result = statements.assertStatements(1, () -> roomService.getMany(ids));
+
+        assertThat(result).hasSize(50);
+    }
+
+    @Test
+    @DisplayName("Тест: один номер загружается одним запросом без отеля")
+    void shouldGetOneRoomWithoutHotel() {
+        RoomDto room = statements.assertStatements(1, () -> roomService.getOne(rooms.get(0).getId()));
+
+        assertThat(room.getHotelId()).isEqualTo(hotels.get(0).getId());
+    }
+
+    @Test
+    @DisplayName("Тест: отели по списку идентификаторов загружаются одним запросом")
+    void shouldGetManyHotelsWithOneStatement() {
+        List<Long> ids = hotels.stream().map(Hotel::getId).toList();
+
+        List<HotelDto> result = statements.assertStatements(1, () -> hotelService.getMany(ids));
+
+        assertThat(result).hasSize(HOTELS);
+    }
+}
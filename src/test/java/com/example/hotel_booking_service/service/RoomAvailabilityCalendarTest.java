@@ -0,0 +1,227 @@
+package com.example.hotel_booking_service.service;
+
+import com.example.hotel_booking_service.entity.DateRanges;
+import com.example.hotel_booking_service.entity.Hotel;
+import com.example.hotel_booking_service.entity.RoleType;
+import com.example.hotel_booking_service.entity.Room;
+import com.example.hotel_booking_service.entity.User;
+import com.example.hotel_booking_service.repository.BookingRepository;
+import com.example.hotel_booking_service.repository.HotelRepository;
+import com.example.hotel_booking_service.repository.RoomRepository;
+import com.example.hotel_booking_service.repository.UserRepository;
+import com.example.hotel_booking_service.repository.specification.RoomFilter;
+import com.example.hotel_booking_service.web.dto.BookingRequestDto;
+import com.example.hotel_booking_service.web.dto.BookingResponseDto;
+import com.example.hotel_booking_service.web.dto.DateRangeDto;
+import com.example.hotel_booking_service.web.dto.RoomDto;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Проверяет календарь занятости {@code room_availability_month} и поиск свободных номеров по нему.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@Testcontainers
+@ActiveProfiles("test")
+class RoomAvailabilityCalendarTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17.2")
+            .withDatabaseName("hotel_booking_db")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Конец января следующего года: проживания пересекают границу месяца
+    private final LocalDate base = LocalDate.now().plusYears(1).withMonth(1).withDayOfMonth(28);
+    private User user;
+    private Hotel hotel;
+    private Room bookedRoom;
+    private Room blockedRoom;
+    private Room freeRoom;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = String.valueOf(System.nanoTime());
+        user = new User();
+        user.setUsername("user_" + suffix);
+        user.setPassword("password123");
+        user.setEmail("user_" + suffix + "@example.com");
+        user.setRole(RoleType.ROLE_USER);
+        user = userRepository.save(user);
+
+        hotel = new Hotel();
+        hotel.setName("Test Hotel");
+        hotel = hotelRepository.save(hotel);
+
+        bookedRoom = room("booked_" + suffix, DateRanges.empty());
+        blockedRoom = room("blocked_" + suffix, DateRanges.of(List.of(new DateRanges.Range(base.plusDays(1), base.plusDays(2)))));
+        freeRoom = room("free_" + suffix, DateRanges.empty());
+    }
+
+    @Test
+    @DisplayName("Тест: бронирование через границу месяца отмечает ночи в обоих месяцах")
+    void shouldMarkNightsAcrossMonthBoundary() {
+        // 28, 29, 30, 31 января и 1 февраля
+        bookingService.bookRoom(request(bookedRoom, base, base.plusDays(5)));
+
+        assertThat(mask(bookedRoom, base.withDayOfMonth(1))).isEqualTo(0b1111L << 27);
+        assertThat(mask(bookedRoom, base.plusMonths(1).withDayOfMonth(1))).isEqualTo(0b1L);
+        assertThat(mask(blockedRoom, base.withDayOfMonth(1))).isEqualTo(1L << 28);
+    }
+
+    @Test
+    @DisplayName("Тест: поиск по датам учитывает бронирования и недоступные даты")
+    void shouldFindFreeRoomsByCalendar() {
+        bookingService.bookRoom(request(bookedRoom, base.plusDays(3), base.plusDays(6)));
+
+        assertThat(search(base.plusDays(1), base.plusDays(2))).containsExactlyInAnyOrder(bookedRoom.getId(), freeRoom.getId());
+        assertThat(search(base.plusDays(2), base.plusDays(3))).containsExactlyInAnyOrder(
+                bookedRoom.getId(), blockedRoom.getId(), freeRoom.getId());
+        assertThat(search(base.plusDays(5), base.plusDays(7))).containsExactlyInAnyOrder(blockedRoom.getId(), freeRoom.getId());
+        // Выезд в день заезда следующего гостя не пересекается с бронированием
+        assertThat(search(base.plusDays(6), base.plusDays(8))).containsExactlyInAnyOrder(
+                bookedRoom.getId(), blockedRoom.getId(), freeRoom.getId());
+    }
+
+    @Test
+    @DisplayName("Тест: удаление бронирования освобождает ночи в календаре")
+    void shouldReleaseNightsWhenBookingIsDeleted() {
+        BookingResponseDto booking = bookingService.bookRoom(request(bookedRoom, base.plusDays(3), base.plusDays(6)));
+        bookingService.bookRoom(request(bookedRoom, base.plusDays(10), base.plusDays(11)));
+
+        bookingRepository.deleteById(booking.getBookingId());
+
+        assertThat(search(base.plusDays(3), base.plusDays(6))).contains(bookedRoom.getId());
+        assertThat(search(base.plusDays(10), base.plusDays(11))).doesNotContain(bookedRoom.getId());
+    }
+
+    @Test
+    @DisplayName("Тест: изменение недоступных дат номера обновляет календарь")
+    void shouldFollowUnavailableDatesChanges() {
+        Room room = roomRepository.findById(blockedRoom.getId()).orElseThrow();
+        room.setUnavailableDates(DateRanges.of(List.of(new DateRanges.Range(base.plusDays(20), base.plusDays(21)))));
+        roomRepository.save(room);
+
+        assertThat(search(base.plusDays(1), base.plusDays(2))).contains(blockedRoom.getId());
+        assertThat(search(base.plusDays(20), base.plusDays(21))).doesNotContain(blockedRoom.getId());
+    }
+
+    @Test
+    @DisplayName("Тест: полугодовой период недоступности хранится одним диапазоном и запрещает бронирование")
+    void shouldRejectBookingInsideUnavailableRange() {
+        RoomDto patch = new RoomDto();
+        patch.setUnavailableRanges(List.of(new DateRangeDto(base.plusDays(30), base.plusDays(210))));
+        roomService.update(freeRoom.getId(), patch);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT unavailable_dates::text FROM room WHERE id = ?",
+                String.class, freeRoom.getId()))
+                .isEqualTo("{[" + base.plusDays(30) + "," + base.plusDays(210) + ")}");
+        assertThat(search(base.plusDays(100), base.plusDays(102))).doesNotContain(freeRoom.getId());
+        assertThat(search(base.plusDays(210), base.plusDays(212))).contains(freeRoom.getId());
+        assertThrows(IllegalStateException.class,
+                () -> bookingService.bookRoom(request(freeRoom, base.plusDays(209), base.plusDays(211))));
+    }
+
+    @Test
+    @DisplayName("Тест: недоступные даты по дням сливаются в диапазоны и возвращаются в прежнем виде")
+    void shouldKeepUnavailableDatesAsDaysInApi() {
+        RoomDto patch = new RoomDto();
+        patch.setUnavailableDates(Set.of(base.plusDays(40), base.plusDays(41), base.plusDays(42), base.plusDays(50)));
+
+        RoomDto updated = roomService.update(freeRoom.getId(), patch);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT unavailable_dates::text FROM room WHERE id = ?",
+                String.class, freeRoom.getId()))
+                .isEqualTo("{[" + base.plusDays(40) + "," + base.plusDays(43) + "),["
+                        + base.plusDays(50) + "," + base.plusDays(51) + ")}");
+        assertThat(updated.getUnavailableDates()).containsExactly(
+                base.plusDays(40), base.plusDays(41), base.plusDays(42), base.plusDays(50));
+        assertThat(updated.getUnavailableRanges()).containsExactly(
+                new DateRangeDto(base.plusDays(40), base.plusDays(43)),
+                new DateRangeDto(base.plusDays(50), base.plusDays(51)));
+    }
+
+    @Test
+    @DisplayName("Тест: дата выезда должна быть позже даты заезда")
+    void shouldRejectEmptyStay() {
+        assertThrows(IllegalArgumentException.class, () -> search(base, base));
+    }
+
+    private List<Long> search(LocalDate checkIn, LocalDate checkOut) {
+        RoomFilter filter = new RoomFilter(null, null, null, null, null, checkIn, checkOut, hotel.getId());
+        return roomRepository.findAll(filter.toSpecification()).stream().map(Room::getId).toList();
+    }
+
+    private Long mask(Room room, LocalDate monthStart) {
+        return jdbcTemplate.queryForObject(
+                "SELECT coalesce(max(busy_mask), 0) FROM room_availability_month WHERE room_id = ? AND month_start = ?",
+                Long.class, room.getId(), monthStart);
+    }
+
+    private Room room(String roomNumber, DateRanges unavailableDates) {
+        Room room = new Room();
+        room.setRoomNumber(roomNumber);
+        room.setName("Deluxe Room");
+        room.setPrice(new BigDecimal("150.00"));
+        room.setMaxPeople(2);
+        room.setHotel(hotel);
+        room.setUnavailableDates(unavailableDates);
+        return roomRepository.save(room);
+    }
+
+    private BookingRequestDto request(Room room, LocalDate checkIn, LocalDate checkOut) {
+        BookingRequestDto request = new BookingRequestDto();
+        request.setUserId(user.getId());
+        request.setRoomId(room.getId());
+        request.setCheckIn(checkIn);
+        request.setCheckOut(checkOut);
+        return request;
+    }
+}
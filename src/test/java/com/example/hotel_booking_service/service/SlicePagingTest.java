@@ -0,0 +1,103 @@
+package com.example.hotel_booking_service.service;
+
+import com.example.hotel_booking_service.entity.Hotel;
+import com.example.hotel_booking_service.repository.HotelRepository;
+import com.example.hotel_booking_service.repository.specification.HotelFilter;
+import com.example.hotel_booking_service.support.StatementCounter;
+import com.example.hotel_booking_service.web.dto.HotelDto;
+import com.example.hotel_booking_service.web.dto.SlicedModel;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет режим выборки отелей без подсчета общего количества.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@Testcontainers
+@ActiveProfiles("test")
+class SlicePagingTest {
+    private static final int HOTELS = 25;
+    private static final HotelFilter NO_FILTER = new HotelFilter(null, null, null, null, null, null, null, null);
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17.2")
+            .withDatabaseName("hotel_booking_db")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private HotelService hotelService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private StatementCounter statements;
+
+    @BeforeEach
+    void setUp() {
+        hotelRepository.deleteAllInBatch();
+        hotelRepository.saveAll(IntStream.range(0, HOTELS)
+                .mapToObj(i -> {
+                    Hotel hotel = new Hotel();
+                    hotel.setName("Hotel " + i);
+                    return hotel;
+                })
+                .toList());
+        statements = new StatementCounter(entityManagerFactory);
+    }
+
+    @Test
+    @DisplayName("Тест: срез выполняет один запрос без count и сообщает о следующей странице")
+    void shouldFetchSliceWithoutCount() {
+        SlicedModel<HotelDto> first = statements.assertStatements(1,
+                () -> hotelService.getHotelsSlice(NO_FILTER, PageRequest.of(0, 10, Sort.by("id"))));
+
+        assertThat(first.content()).hasSize(10);
+        assertThat(first.page().hasNext()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Тест: на последней странице признак следующей страницы сброшен")
+    void shouldReportLastSlice() {
+        SlicedModel<HotelDto> last = hotelService.getHotelsSlice(NO_FILTER, PageRequest.of(2, 10, Sort.by("id")));
+
+        assertThat(last.content()).hasSize(5);
+        assertThat(last.page().number()).isEqualTo(2);
+        assertThat(last.page().hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Тест: режим по умолчанию по-прежнему возвращает точное количество")
+    void shouldKeepExactTotalByDefault() {
+        var page = statements.assertStatements(2, () -> hotelService.getAllHotels(NO_FILTER, PageRequest.of(0, 10)));
+
+        assertThat(page.getMetadata().totalElements()).isEqualTo(HOTELS);
+    }
+}
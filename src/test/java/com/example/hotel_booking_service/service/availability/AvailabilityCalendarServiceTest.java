@@ -0,0 +1,138 @@
+package com.example.hotel_booking_service.service.availability;
+
+import com.example.hotel_booking_service.repository.HotelRepository;
+import com.example.hotel_booking_service.repository.RoomRepository;
+import com.example.hotel_booking_service.repository.projection.RoomMonthMaskView;
+import com.example.hotel_booking_service.web.dto.AvailabilityCalendarDto;
+import com.example.hotel_booking_service.web.dto.RoomCalendarDto;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AvailabilityCalendarServiceTest {
+    private static final LocalDate MARCH = LocalDate.of(2030, 3, 1);
+    private static final LocalDate APRIL = LocalDate.of(2030, 4, 1);
+
+    private RoomRepository roomRepository;
+    private HotelRepository hotelRepository;
+    private AvailabilityCalendarService service;
+
+    @BeforeEach
+    void setUp() {
+        roomRepository = mock(RoomRepository.class);
+        hotelRepository = mock(HotelRepository.class);
+        service = new AvailabilityCalendarService(roomRepository, hotelRepository);
+    }
+
+    @Test
+    void shouldEncodeRunsAcrossMonthBoundary() {
+        LocalDate from = LocalDate.of(2030, 3, 25);
+        LocalDate to = LocalDate.of(2030, 4, 5);
+        // Заняты ночи 20-27 марта и 2 апреля
+        when(roomRepository.findMonthMasksByRoom(1L, from, to)).thenReturn(List.of(
+                mask(1L, MARCH, ((1L << 27) - 1) & ~((1L << 19) - 1)),
+                mask(1L, APRIL, 1L << 1)));
+
+        AvailabilityCalendarDto calendar = service.getRoomCalendar(1L, from, to);
+
+        assertThat(calendar.rooms()).extracting(RoomCalendarDto::roomId, RoomCalendarDto::runs)
+                .containsExactly(tuple(1L, List.of(0, 3, 5, 1, 2)));
+    }
+
+    @Test
+    void shouldReturnSingleFreeRunForFreeRoom() {
+        LocalDate to = MARCH.plusDays(30);
+        when(roomRepository.findMonthMasksByRoom(1L, MARCH, to)).thenReturn(List.of(mask(1L, null, null)));
+
+        assertThat(service.getRoomCalendar(1L, MARCH, to).rooms())
+                .extracting(RoomCalendarDto::runs)
+                .containsExactly(List.of(30));
+    }
+
+    @Test
+    void shouldBuildCalendarForEveryRoomOfHotel() {
+        LocalDate to = MARCH.plusDays(10);
+        when(roomRepository.findMonthMasksByHotel(7L, MARCH, to)).thenReturn(List.of(
+                mask(1L, MARCH, 0b110L),
+                mask(2L, null, null),
+                mask(3L, MARCH, 1L << 9)));
+
+        AvailabilityCalendarDto calendar = service.getHotelCalendar(7L, MARCH, to);
+
+        assertThat(calendar.rooms()).extracting(RoomCalendarDto::roomId, RoomCalendarDto::runs)
+                .containsExactly(
+                        tuple(1L, List.of(1, 2, 7)),
+                        tuple(2L, List.of(10)),
+                        tuple(3L, List.of(9, 1)));
+    }
+
+    @Test
+    void shouldChangeEtagOnlyWhenCalendarChanges() {
+        LocalDate to = MARCH.plusDays(10);
+        when(roomRepository.findMonthMasksByRoom(1L, MARCH, to))
+                .thenReturn(List.of(mask(1L, MARCH, 0b1L)))
+                .thenReturn(List.of(mask(1L, MARCH, 0b1L)))
+                .thenReturn(List.of(mask(1L, MARCH, 0b11L)));
+
+        String first = service.etag(service.getRoomCalendar(1L, MARCH, to));
+        String same = service.etag(service.getRoomCalendar(1L, MARCH, to));
+        String changed = service.etag(service.getRoomCalendar(1L, MARCH, to));
+
+        assertThat(same).isEqualTo(first);
+        assertThat(changed).isNotEqualTo(first);
+    }
+
+    @Test
+    void shouldRejectUnknownRoomAndHotel() {
+        LocalDate to = MARCH.plusDays(10);
+        when(roomRepository.findMonthMasksByRoom(1L, MARCH, to)).thenReturn(List.of());
+        when(roomRepository.findMonthMasksByHotel(7L, MARCH, to)).thenReturn(List.of());
+
+        assertThrows(EntityNotFoundException.class, () -> service.getRoomCalendar(1L, MARCH, to));
+        assertThrows(EntityNotFoundException.class, () -> service.getHotelCalendar(7L, MARCH, to));
+    }
+
+    @Test
+    void shouldReturnEmptyCalendarForHotelWithoutRooms() {
+        LocalDate to = MARCH.plusDays(10);
+        when(roomRepository.findMonthMasksByHotel(7L, MARCH, to)).thenReturn(List.of());
+        when(hotelRepository.existsById(7L)).thenReturn(true);
+
+        assertThat(service.getHotelCalendar(7L, MARCH, to).rooms()).isEmpty();
+    }
+
+    @Test
+    void shouldRejectInvalidPeriod() {
+        assertThrows(IllegalArgumentException.class, () -> service.getRoomCalendar(1L, MARCH, MARCH));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getRoomCalendar(1L, MARCH, MARCH.plusDays(AvailabilityCalendarService.MAX_PERIOD_DAYS + 1)));
+    }
+
+    private static RoomMonthMaskView mask(Long roomId, LocalDate monthStart, Long busyMask) {
+        return new RoomMonthMaskView() {
+            @Override
+            public Long getRoomId() {
+                return roomId;
+            }
+
+            @Override
+            public LocalDate getMonthStart() {
+                return monthStart;
+            }
+
+            @Override
+            public Long getBusyMask() {
+                return busyMask;
+            }
+        };
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.hotel_booking_service.service.availability;
+
+import com.example.hotel_booking_service.entity.DateRanges;
+import com.example.hotel_booking_service.repository.BookingRepository;
+import com.example.hotel_booking_service.repository.HotelRepository;
+import com.example.hotel_booking_service.repository.RoomRepository;
+import com.example.hotel_booking_service.repository.projection.RoomPriceView;
+import com.example.hotel_booking_service.web.dto.FlexibleStayDto;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FlexibleStaySearchServiceTest {
+    private final LocalDate from = LocalDate.now().plusDays(1);
+    private RoomRepository roomRepository;
+    private HotelRepository hotelRepository;
+    private RoomAvailabilityIndex index;
+    private FlexibleStaySearchService service;
+
+    @BeforeEach
+    void setUp() {
+        roomRepository = mock(RoomRepository.class);
+        hotelRepository = mock(HotelRepository.class);
+        index = new RoomAvailabilityIndex(mock(BookingRepository.class), roomRepository);
+        service = new FlexibleStaySearchService(roomRepository, hotelRepository, index);
+        when(hotelRepository.existsById(1L)).thenReturn(true);
+    }
+
+    @Test
+    void shouldReturnCheapestWindowsFirst() {
+        RoomPriceView cheap = room(10L, "100.00");
+        RoomPriceView expensive = room(20L, "150.00");
+        when(roomRepository.findPricesByHotel(1L, null)).thenReturn(List.of(cheap, expensive));
+        // Дешевый номер свободен только с 4-го по 7-й день периода
+        index.tryReserve(10L, from, from.plusDays(3));
+        index.updateUnavailable(10L, DateRanges.of(List.of(new DateRanges.Range(from.plusDays(6), from.plusDays(10)))));
+
+        List<FlexibleStayDto> stays = service.search(1L, from, from.plusDays(10), 2, null, 4);
+
+        assertThat(stays)
+                .extracting(FlexibleStayDto::roomId, FlexibleStayDto::checkIn, FlexibleStayDto::totalPrice)
+                .containsExactly(
+                        tuple(10L, from.plusDays(3), new BigDecimal("200.00")),
+                        tuple(10L, from.plusDays(4), new BigDecimal("200.00")),
+                        tuple(20L, from, new BigDecimal("300.00")),
+                        tuple(20L, from.plusDays(1), new BigDecimal("300.00")));
+    }
+
+    @Test
+    void shouldOrderSamePriceRoomsByCheckIn() {
+        RoomPriceView first = room(10L, "100.00");
+        RoomPriceView second = room(20L, "100.00");
+        RoomPriceView expensive = room(30L, "150.00");
+        when(roomRepository.findPricesByHotel(1L, null)).thenReturn(List.of(first, second, expensive));
+        // Первый номер свободен только с 3-го дня, второй - с начала периода
+        index.tryReserve(10L, from, from.plusDays(2));
+
+        List<FlexibleStayDto> stays = service.search(1L, from, from.plusDays(10), 2, null, 5);
+
+        assertThat(stays)
+                .extracting(FlexibleStayDto::roomId, FlexibleStayDto::checkIn)
+                .containsExactly(
+                        tuple(20L, from),
+                        tuple(20L, from.plusDays(1)),
+                        tuple(10L, from.plusDays(2)),
+                        tuple(20L, from.plusDays(2)),
+                        tuple(10L, from.plusDays(3)));
+    }
+
+    @Test
+    void shouldKeepWindowsInsidePeriod() {
+        RoomPriceView room = room(10L, "100.00");
+        when(roomRepository.findPricesByHotel(1L, 2)).thenReturn(List.of(room));
+
+        List<FlexibleStayDto> stays = service.search(1L, from, from.plusDays(5), 3, 2, 10);
+
+        assertThat(stays).extracting(FlexibleStayDto::checkIn)
+                .containsExactly(from, from.plusDays(1), from.plusDays(2));
+        assertThat(stays).allSatisfy(stay -> assertThat(stay.checkOut()).isBeforeOrEqualTo(from.plusDays(5)));
+    }
+
+    @Test
+    void shouldValidateRequest() {
+        assertThrows(IllegalArgumentException.class, () -> service.search(1L, from, from, 2, null, 10));
+        assertThrows(IllegalArgumentException.class, () -> service.search(1L, from, from.plusDays(200), 2, null, 10));
+        assertThrows(IllegalArgumentException.class, () -> service.search(1L, from, from.plusDays(5), 0, null, 10));
+        assertThrows(IllegalArgumentException.class, () -> service.search(1L, from, from.plusDays(5), 2, null, 0));
+        assertThrows(EntityNotFoundException.class, () -> service.search(2L, from, from.plusDays(5), 2, null, 10));
+    }
+
+    private static RoomPriceView room(Long id, String price) {
+        RoomPriceView room = mock(RoomPriceView.class);
+        when(room.getRoomId()).thenReturn(id);
+        when(room.getName()).thenReturn("Room " + id);
+        when(room.getPrice()).thenReturn(new BigDecimal(price));
+        return room;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.hotel_booking_service.service.availability;
+
+import com.example.hotel_booking_service.repository.specification.RoomFilter;
+import com.example.hotel_booking_service.service.RoomService;
+import com.example.hotel_booking_service.web.dto.HotelRoomsDto;
+import com.example.hotel_booking_service.web.dto.MultiHotelAvailabilityDto;
+import com.example.hotel_booking_service.web.dto.RoomDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PagedModel;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MultiHotelAvailabilityServiceTest {
+    private static final RoomFilter FILTER = new RoomFilter(null, null, null, null, 2, null, null, null);
+    private static final Pageable PAGE = PageRequest.of(0, 10);
+
+    private final RoomService roomService = mock(RoomService.class);
+    private MultiHotelAvailabilityService service;
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void shouldReturnPartialResultWhenHotelMissesDeadline() {
+        service = new MultiHotelAvailabilityService(roomService, 4, 300);
+        when(roomService.getAll(any(), any(), any())).thenAnswer(invocation -> {
+            RoomFilter filter = invocation.getArgument(0);
+            if (filter.hotelId() == 2L) {
+                Thread.sleep(2000);
+            }
+            return page();
+        });
+
+        long start = System.nanoTime();
+        MultiHotelAvailabilityDto result = service.search(List.of(1L, 2L, 3L, 1L), FILTER, PAGE);
+
+        assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(1500);
+        assertThat(result.hotels()).extracting(HotelRoomsDto::hotelId).containsExactly(1L, 3L);
+        assertThat(result.timedOut()).containsExactly(2L);
+        assertThat(result.failed()).isEmpty();
+    }
+
+    @Test
+    void shouldLimitLateQueryByDeadlineAndReleaseItsPermit() {
+        service = new MultiHotelAvailabilityService(roomService, 1, 300);
+        when(roomService.getAll(any(), any(), any())).thenAnswer(invocation -> {
+            RoomFilter filter = invocation.getArgument(0);
+            Duration timeout = invocation.getArgument(2);
+            assertThat(timeout).isPositive().isLessThanOrEqualTo(Duration.ofMillis(300));
+            if (filter.hotelId() == 1L) {
+                // Так ведет себя statement_timeout: сервер отменяет запрос, когда срок истек
+                Thread.sleep(timeout.toMillis());
+                throw new QueryTimeoutException("canceling statement due to statement timeout");
+            }
+            return page();
+        });
+
+        MultiHotelAvailabilityDto late = service.search(List.of(1L), FILTER, PAGE);
+        MultiHotelAvailabilityDto next = service.search(List.of(2L), FILTER, PAGE);
+
+        assertThat(late.timedOut()).containsExactly(1L);
+        assertThat(next.hotels()).extracting(HotelRoomsDto::hotelId).containsExactly(2L);
+    }
+
+    @Test
+    void shouldBoundConcurrentQueries() {
+        service = new MultiHotelAvailabilityService(roomService, 3, 5000);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(roomService.getAll(any(), any(), any())).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            running.decrementAndGet();
+            return page();
+        });
+
+        MultiHotelAvailabilityDto result = service.search(LongStream.rangeClosed(1, 30).boxed().toList(), FILTER, PAGE);
+
+        assertThat(result.hotels()).hasSize(30);
+        assertThat(maxRunning.get()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void shouldReportFailedHotelsAndRejectInvalidFilter() {
+        service = new MultiHotelAvailabilityService(roomService, 4, 1000);
+        when(roomService.getAll(any(), any(), any())).thenAnswer(invocation -> {
+            RoomFilter filter = invocation.getArgument(0);
+            if (filter.hotelId() == 2L) {
+                throw new IllegalStateException("Database is unavailable");
+            }
+            if (filter.checkIn() != null) {
+                throw new IllegalArgumentException("Check-out date must be after check-in date");
+            }
+            return page();
+        });
+
+        MultiHotelAvailabilityDto result = service.search(List.of(1L, 2L), FILTER, PAGE);
+        RoomFilter invalid = new RoomFilter(null, null, null, null, null,
+                LocalDate.now(), LocalDate.now(), null);
+
+        assertThat(result.hotels()).extracting(HotelRoomsDto::hotelId).containsExactly(1L);
+        assertThat(result.failed()).containsExactly(2L);
+        assertThrows(IllegalArgumentException.class, () -> service.search(List.of(1L), invalid, PAGE));
+        assertThrows(IllegalArgumentException.class, () -> service.search(List.of(), FILTER, PAGE));
+    }
+
+    private static PagedModel<RoomDto> page() {
+        return new PagedModel<>(Page.empty(PAGE));
+    }
+}
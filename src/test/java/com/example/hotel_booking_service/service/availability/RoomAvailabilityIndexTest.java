@@ -0,0 +1,127 @@
+package com.example.hotel_booking_service.service.availability;
+
+import com.example.hotel_booking_service.entity.DateRanges;
+import com.example.hotel_booking_service.repository.BookingRepository;
+import com.example.hotel_booking_service.repository.RoomRepository;
+import com.example.hotel_booking_service.repository.projection.BookingPeriodView;
+import com.example.hotel_booking_service.repository.projection.RoomUnavailableView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RoomAvailabilityIndexTest {
+    private final LocalDate today = LocalDate.now();
+    private BookingRepository bookingRepository;
+    private RoomRepository roomRepository;
+    private RoomAvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        roomRepository = mock(RoomRepository.class);
+        index = new RoomAvailabilityIndex(bookingRepository, roomRepository);
+    }
+
+    @Test
+    void shouldLoadExistingBookingsOnRebuild() {
+        BookingPeriodView period = mock(BookingPeriodView.class);
+        when(period.getRoomId()).thenReturn(1L);
+        when(period.getCheckIn()).thenReturn(today.plusDays(5));
+        when(period.getCheckOut()).thenReturn(today.plusDays(8));
+        when(bookingRepository.findPeriodsEndingAfter(today)).thenReturn(List.of(period));
+
+        index.rebuild();
+
+        assertThat(index.isAvailable(1L, today.plusDays(7), today.plusDays(9))).isFalse();
+        assertThat(index.isAvailable(1L, today.plusDays(8), today.plusDays(9))).isTrue();
+        assertThat(index.isAvailable(1L, today.plusDays(1), today.plusDays(5))).isTrue();
+        assertThat(index.isAvailable(2L, today.plusDays(5), today.plusDays(8))).isTrue();
+    }
+
+    @Test
+    void shouldReserveNightsOnlyOnce() {
+        assertThat(index.tryReserve(1L, today.plusDays(1), today.plusDays(4))).isTrue();
+        assertThat(index.tryReserve(1L, today.plusDays(3), today.plusDays(5))).isFalse();
+        assertThat(index.tryReserve(1L, today.plusDays(4), today.plusDays(5))).isTrue();
+
+        index.release(1L, today.plusDays(1), today.plusDays(4));
+
+        assertThat(index.isAvailable(1L, today.plusDays(1), today.plusDays(4))).isTrue();
+    }
+
+    @Test
+    void shouldRejectStaysIntersectingUnavailableRanges() {
+        RoomUnavailableView room = mock(RoomUnavailableView.class);
+        when(room.getRoomId()).thenReturn(1L);
+        when(room.getUnavailableDates()).thenReturn("{[" + today.plusDays(10) + "," + today.plusDays(20) + ")}");
+        when(roomRepository.findUnavailableEndingAfter(today)).thenReturn(List.of(room));
+
+        index.rebuild();
+
+        assertThat(index.tryReserve(1L, today.plusDays(8), today.plusDays(11))).isFalse();
+        assertThat(index.tryReserve(1L, today.plusDays(20), today.plusDays(22))).isTrue();
+        assertThat(index.tryReserve(1L, today.plusDays(8), today.plusDays(10))).isTrue();
+
+        index.updateUnavailable(1L, DateRanges.empty());
+
+        assertThat(index.isAvailable(1L, today.plusDays(12), today.plusDays(14))).isTrue();
+    }
+
+    @Test
+    void shouldFindNextFreeDayAcrossBookingsAndUnavailableRanges() {
+        index.tryReserve(1L, today.plusDays(2), today.plusDays(5));
+        index.tryReserve(1L, today.plusDays(7), today.plusDays(9));
+        index.updateUnavailable(1L, DateRanges.of(List.of(new DateRanges.Range(today.plusDays(10), today.plusDays(12)))));
+        int start = (int) today.toEpochDay();
+
+        assertThat(index.nextFreeDay(1L, start, 2)).isEqualTo(start);
+        assertThat(index.nextFreeDay(1L, start, 3)).isEqualTo(start + 12);
+        assertThat(index.nextFreeDay(1L, start + 3, 2)).isEqualTo(start + 5);
+        assertThat(index.nextFreeDay(2L, start + 3, 30)).isEqualTo(start + 3);
+        assertThat(index.isFree(1L, start + 5, start + 7)).isTrue();
+        assertThat(index.isFree(1L, start + 9, start + 11)).isFalse();
+    }
+
+    @Test
+    void shouldEnumerateFreeGaps() {
+        index.tryReserve(1L, today.plusDays(2), today.plusDays(5));
+        index.updateUnavailable(1L, DateRanges.of(List.of(new DateRanges.Range(today.plusDays(5), today.plusDays(6)))));
+        int start = (int) today.toEpochDay();
+        List<int[]> gaps = new ArrayList<>();
+
+        index.forEachFreeGap(1L, start, start + 10, (from, to) -> gaps.add(new int[]{from - start, to - start}));
+
+        assertThat(gaps).containsExactly(new int[]{0, 2}, new int[]{6, 10});
+    }
+
+    @Test
+    void shouldRejectEmptyStay() {
+        assertThrows(IllegalArgumentException.class,
+                () -> index.tryReserve(1L, today.plusDays(3), today.plusDays(3)));
+    }
+
+    @Test
+    void shouldPickUpForeignBookingsAndKeepPendingReservationsOnRebuild() {
+        index.tryReserve(1L, today.plusDays(1), today.plusDays(3));
+
+        BookingPeriodView period = mock(BookingPeriodView.class);
+        when(period.getRoomId()).thenReturn(3L);
+        when(period.getCheckIn()).thenReturn(today.plusDays(4));
+        when(period.getCheckOut()).thenReturn(today.plusDays(6));
+        when(bookingRepository.findPeriodsEndingAfter(today)).thenReturn(List.of(period));
+
+        index.rebuild();
+
+        // Незавершенный резерв переносится, хотя в базе его еще нет
+        assertThat(index.isAvailable(1L, today.plusDays(1), today.plusDays(3))).isFalse();
+        assertThat(index.isAvailable(3L, today.plusDays(5), today.plusDays(7))).isFalse();
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.hotel_booking_service.service.cache;
+
+import com.example.hotel_booking_service.entity.Hotel;
+import com.example.hotel_booking_service.entity.Room;
+import com.example.hotel_booking_service.kafka.KafkaProducerService;
+import com.example.hotel_booking_service.kafka.dto.KafkaCacheInvalidationEvent;
+import com.example.hotel_booking_service.repository.HotelRepository;
+import com.example.hotel_booking_service.repository.RoomRepository;
+import com.example.hotel_booking_service.service.HotelService;
+import com.example.hotel_booking_service.service.RoomService;
+import com.example.hotel_booking_service.support.StatementCounter;
+import com.example.hotel_booking_service.web.dto.HotelDto;
+import com.example.hotel_booking_service.web.dto.RoomDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет локальный кэш отелей и номеров: повторное чтение без запросов, сброс после записи
+ * с рассылкой в Kafka и сброс по сообщению другого экземпляра сервиса.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}"
+})
+@EmbeddedKafka(partitions = 1, topics = KafkaProducerService.ENTITY_CACHE_INVALIDATION_TOPIC)
+@Testcontainers
+@ActiveProfiles("test")
+class EntityNearCacheTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17.2")
+            .withDatabaseName("hotel_booking_db")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private HotelService hotelService;
+
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private StatementCounter statements;
+    private Hotel hotel;
+    private Room room;
+
+    @BeforeEach
+    void setUp() {
+        statements = new StatementCounter(entityManagerFactory);
+
+        Hotel newHotel = new Hotel();
+        newHotel.setName("Cached");
+        newHotel.setCity("City");
+        hotel = hotelRepository.save(newHotel);
+
+        Room newRoom = new Room();
+        newRoom.setName("Room");
+        newRoom.setRoomNumber("near-" + hotel.getId());
+        newRoom.setPrice(new BigDecimal("100.00"));
+        newRoom.setMaxPeople(2);
+        newRoom.setHotel(hotel);
+        room = roomRepository.save(newRoom);
+        // Сохраненные сущности попадают в кэш второго уровня, а проверяется локальный кэш перед ним
+        entityManagerFactory.getCache().evictAll();
+
+        // Слушатель читает только новые сообщения, поэтому до отправки ему должна быть назначена партиция
+        kafkaListenerEndpointRegistry.getListenerContainers().stream()
+                .filter(container -> List.of(container.getContainerProperties().getTopics())
+                        .contains(KafkaProducerService.ENTITY_CACHE_INVALIDATION_TOPIC))
+                .forEach(container -> ContainerTestUtils.waitForAssignment(container, embeddedKafka.getPartitionsPerTopic()));
+    }
+
+    @Test
+    @DisplayName("Тест: повторное чтение отеля и номера обходится без запросов, попадания видны в метриках")
+    void shouldServeRepeatedReadsFromCache() {
+        double hotelHits = gets("hotels", "hit");
+        double roomMisses = gets("rooms", "miss");
+
+        statements.assertStatements(1, () -> hotelService.getOne(hotel.getId()));
+        HotelDto cachedHotel = statements.assertStatements(0, () -> hotelService.getOne(hotel.getId()));
+        statements.assertStatements(1, () -> roomService.getOne(room.getId()));
+        RoomDto cachedRoom = statements.assertStatements(0, () -> roomService.getOne(room.getId()));
+
+        assertThat(cachedHotel.getName()).isEqualTo("Cached");
+        assertThat(cachedRoom.getHotelId()).isEqualTo(hotel.getId());
+        assertThat(gets("hotels", "hit")).isEqualTo(hotelHits + 1);
+        assertThat(gets("rooms", "miss")).isEqualTo(roomMisses + 1);
+        assertThat(meterRegistry.find("cache.evictions").tag("cache", "rooms").functionCounter()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Тест: изменение отеля сбрасывает его из кэша и рассылается в Kafka")
+    void shouldEvictHotelAfterUpdate() {
+        hotelService.getOne(hotel.getId());
+
+        try (Consumer<String, KafkaCacheInvalidationEvent> consumer = invalidationConsumer()) {
+            hotelService.update(hotel.getId(), new HotelDto(null, "Renamed", null, null, null, null, null, null, null));
+
+            ConsumerRecord<String, KafkaCacheInvalidationEvent> record = KafkaTestUtils.getSingleRecord(consumer,
+                    KafkaProducerService.ENTITY_CACHE_INVALIDATION_TOPIC, TIMEOUT);
+            assertThat(record.value().getHotelIds()).containsExactly(hotel.getId());
+        }
+
+        HotelDto updated = statements.assertStatements(1, () -> hotelService.getOne(hotel.getId()));
+        assertThat(updated.getName()).isEqualTo("Renamed");
+    }
+
+    @Test
+    @DisplayName("Тест: сообщение другого экземпляра сервиса сбрасывает номер")
+    void shouldEvictRoomOnInvalidationFromAnotherNode() throws InterruptedException {
+        assertThat(roomService.getOne(room.getId()).getName()).isEqualTo("Room");
+        // Другой экземпляр изменил номер в общей базе и разослал сброс
+        jdbcTemplate.update("UPDATE room SET name = 'Changed elsewhere' WHERE id = ?", room.getId());
+        assertThat(roomService.getOne(room.getId()).getName()).isEqualTo("Room");
+
+        kafkaTemplate.send(KafkaProducerService.ENTITY_CACHE_INVALIDATION_TOPIC,
+                new KafkaCacheInvalidationEvent(List.of(), List.of(room.getId())));
+
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!"Changed elsewhere".equals(roomService.getOne(room.getId()).getName()) && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(roomService.getOne(room.getId()).getName()).isEqualTo("Changed elsewhere");
+    }
+
+    private Consumer<String, KafkaCacheInvalidationEvent> invalidationConsumer() {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("entity_cache_test", "false", embeddedKafka);
+        Consumer<String, KafkaCacheInvalidationEvent> consumer = new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(), new JsonDeserializer<>(KafkaCacheInvalidationEvent.class, false))
+                .createConsumer();
+        embeddedKafka.consumeFromAnEmbeddedTopic(consumer, true, KafkaProducerService.ENTITY_CACHE_INVALIDATION_TOPIC);
+        return consumer;
+    }
+
+    private double gets(String cache, String result) {
+        return meterRegistry.get("cache.gets").tag("cache", cache).tag("result", result).functionCounter().count();
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.hotel_booking_service.service.cache;
+
+import com.example.hotel_booking_service.entity.Hotel;
+import com.example.hotel_booking_service.repository.HotelRepository;
+import com.example.hotel_booking_service.repository.specification.RoomFilter;
+import com.example.hotel_booking_service.service.HotelService;
+import com.example.hotel_booking_service.web.dto.RoomDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.web.PagedModel;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RoomSearchCacheTest {
+    private final LocalDate today = LocalDate.now();
+    private SimpleMeterRegistry meterRegistry;
+    private RoomSearchCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new RoomSearchCache(meterRegistry, 100, 60);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void shouldServeEquivalentFiltersFromCache() {
+        get(new RoomFilter(null, "Deluxe", new BigDecimal("100.00"), null, null, null, null, 1L));
+        get(new RoomFilter(null, "deluxe", new BigDecimal("100"), null, null, null, null, 1L));
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(requests("hit", "nameStarts+priceGte+hotelId")).isEqualTo(1);
+        assertThat(requests("miss", "nameStarts+priceGte+hotelId")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldInvalidateOnlyOverlappingDateSearchesOnBooking() {
+        RoomFilter overlapping = dates(5, 8, null);
+        RoomFilter later = dates(10, 12, null);
+        RoomFilter withoutDates = new RoomFilter(null, null, null, null, 2, null, null, null);
+        get(overlapping);
+        get(later);
+        get(withoutDates);
+
+        cache.invalidate(RoomSearchInvalidation.roomBooked(7L, today.plusDays(7), today.plusDays(10)));
+        get(overlapping);
+        get(later);
+        get(withoutDates);
+
+        assertThat(loads.get()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldInvalidateSearchesOfAffectedHotelOnRoomChange() {
+        RoomFilter sameHotel = dates(5, 8, 1L);
+        RoomFilter otherHotel = dates(5, 8, 2L);
+        RoomFilter anyHotel = new RoomFilter(null, null, null, null, null, null, null, null);
+        get(sameHotel);
+        get(otherHotel);
+        get(anyHotel);
+
+        cache.invalidate(RoomSearchInvalidation.roomChanged(7L, Set.of(1L)));
+        get(sameHotel);
+        get(otherHotel);
+        get(anyHotel);
+
+        assertThat(loads.get()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldInvalidateSearchesOfDeletedHotel() {
+        Hotel hotel = new Hotel();
+        hotel.setId(1L);
+        HotelRepository hotelRepository = mock(HotelRepository.class);
+        when(hotelRepository.findById(1L)).thenReturn(Optional.of(hotel));
+        HotelService hotelService = new HotelService(hotelRepository, null, null, null, null, event -> {
+            if (event instanceof RoomSearchInvalidation invalidation) {
+                cache.invalidate(invalidation);
+            }
+        }, null);
+        RoomFilter deletedHotel = dates(5, 8, 1L);
+        RoomFilter otherHotel = dates(5, 8, 2L);
+        get(deletedHotel);
+        get(otherHotel);
+
+        hotelService.delete(1L);
+        get(deletedHotel);
+        get(otherHotel);
+
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldNotCachePageLoadedDuringInvalidation() {
+        RoomFilter filter = dates(5, 8, null);
+        cache.get(filter, PageRequest.of(0, 20), () -> {
+            cache.invalidate(RoomSearchInvalidation.roomBooked(7L, today.plusDays(5), today.plusDays(6)));
+            return page();
+        });
+
+        get(filter);
+
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    private RoomFilter dates(int checkInDays, int checkOutDays, Long hotelId) {
+        return new RoomFilter(null, null, null, null, null, today.plusDays(checkInDays), today.plusDays(checkOutDays), hotelId);
+    }
+
+    private void get(RoomFilter filter) {
+        cache.get(filter, PageRequest.of(0, 20), () -> {
+            loads.incrementAndGet();
+            return page();
+        });
+    }
+
+    private double requests(String result, String shape) {
+        return meterRegistry.get("room.search.cache.requests").tag("result", result).tag("shape", shape).counter().count();
+    }
+
+    private static PagedModel<RoomDto> page() {
+        return new PagedModel<>(new PageImpl<>(List.of(new RoomDto()), PageRequest.of(0, 20), 1));
+    }
+}
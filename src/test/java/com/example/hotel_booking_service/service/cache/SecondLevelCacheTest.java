@@ -0,0 +1,164 @@
+package com.example.hotel_booking_service.service.cache;
+
+import com.example.hotel_booking_service.entity.Hotel;
+import com.example.hotel_booking_service.entity.Room;
+import com.example.hotel_booking_service.repository.HotelRepository;
+import com.example.hotel_booking_service.repository.RoomRepository;
+import com.example.hotel_booking_service.repository.projection.RoomPriceView;
+import com.example.hotel_booking_service.service.HotelService;
+import com.example.hotel_booking_service.service.RoomService;
+import com.example.hotel_booking_service.service.rating.HotelRatingAccumulator;
+import com.example.hotel_booking_service.support.StatementCounter;
+import com.example.hotel_booking_service.web.dto.RoomDto;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет кэш второго уровня Hibernate для отелей и номеров и кэш запросов по номерам,
+ * в том числе сброс записей после изменений в обход сессии.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@Testcontainers
+@ActiveProfiles("test")
+class SecondLevelCacheTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17.2")
+            .withDatabaseName("hotel_booking_db")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private HotelService hotelService;
+
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private HotelRatingAccumulator hotelRatingAccumulator;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private StatementCounter statements;
+    private Hotel hotel;
+    private Room room;
+
+    @BeforeEach
+    void setUp() {
+        Hotel newHotel = new Hotel();
+        newHotel.setName("L2 Hotel");
+        hotel = hotelRepository.save(newHotel);
+
+        Room newRoom = new Room();
+        newRoom.setName("Hot room");
+        newRoom.setRoomNumber("l2-" + hotel.getId());
+        newRoom.setPrice(new BigDecimal("100.00"));
+        newRoom.setMaxPeople(2);
+        newRoom.setHotel(hotel);
+        room = roomRepository.save(newRoom);
+
+        entityManagerFactory.getCache().evictAll();
+        statements = new StatementCounter(entityManagerFactory);
+    }
+
+    @Test
+    @DisplayName("Тест: повторная загрузка номера и отеля по идентификатору выполняется без SQL")
+    void shouldLoadHotRoomWithoutSql() {
+        statements.assertStatements(1, () -> roomRepository.findById(room.getId()));
+        for (int i = 0; i < 10; i++) {
+            Room cached = statements.assertStatements(0, () -> roomRepository.findById(room.getId())).orElseThrow();
+            assertThat(cached.getName()).isEqualTo("Hot room");
+        }
+        assertThat(statements.statistics().getDomainDataRegionStatistics(Room.CACHE_REGION).getHitCount()).isEqualTo(1);
+
+        statements.assertStatements(1, () -> hotelRepository.findById(hotel.getId()));
+        statements.assertStatements(0, () -> hotelRepository.findById(hotel.getId()));
+
+        FunctionCounter hits = meterRegistry.find("hibernate.second.level.cache.requests")
+                .tag("region", Room.CACHE_REGION)
+                .tag("result", "hit")
+                .functionCounter();
+        assertThat(hits).isNotNull();
+        assertThat(hits.count()).isPositive();
+    }
+
+    @Test
+    @DisplayName("Тест: цены номеров отеля берутся из кэша запросов до изменения номера")
+    void shouldCacheRoomPricesUntilRoomChanges() {
+        statements.assertStatements(1, () -> roomRepository.findPricesByHotel(hotel.getId(), null));
+        statements.assertStatements(0, () -> roomRepository.findPricesByHotel(hotel.getId(), null));
+
+        RoomDto update = new RoomDto();
+        update.setPrice(new BigDecimal("150.00"));
+        roomService.update(room.getId(), update);
+
+        List<RoomPriceView> prices = statements.assertStatements(1,
+                () -> roomRepository.findPricesByHotel(hotel.getId(), null));
+        assertThat(prices).extracting(RoomPriceView::getPrice)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("150.00"));
+    }
+
+    @Test
+    @DisplayName("Тест: удаление отеля в обход сессии сбрасывает номер и запросы по номерам")
+    void shouldEvictRoomsDeletedBypassingSession() {
+        roomRepository.findById(room.getId());
+        roomRepository.findPricesByHotel(hotel.getId(), null);
+
+        hotelService.deleteMany(List.of(hotel.getId()));
+
+        assertThat(roomRepository.findById(room.getId())).isEmpty();
+        assertThat(hotelRepository.findById(hotel.getId())).isEmpty();
+        assertThat(roomRepository.findPricesByHotel(hotel.getId(), null)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Тест: запись накопленных оценок в обход сессии сбрасывает отель")
+    void shouldEvictHotelAfterRatingFlush() {
+        hotelRepository.findById(hotel.getId());
+
+        hotelRatingAccumulator.add(hotel.getId(), 4);
+        hotelRatingAccumulator.flush();
+
+        Hotel reloaded = statements.assertStatements(1, () -> hotelRepository.findById(hotel.getId())).orElseThrow();
+        assertThat(reloaded.getNumberofratings()).isEqualTo(1);
+        assertThat(reloaded.getRating()).isEqualTo(4);
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.hotel_booking_service.service.hold;
+
+import com.example.hotel_booking_service.entity.Hotel;
+import com.example.hotel_booking_service.entity.RoleType;
+import com.example.hotel_booking_service.entity.Room;
+import com.example.hotel_booking_service.entity.User;
+import com.example.hotel_booking_service.repository.HotelRepository;
+import com.example.hotel_booking_service.repository.RoomRepository;
+import com.example.hotel_booking_service.repository.UserRepository;
+import com.example.hotel_booking_service.service.BookingService;
+import com.example.hotel_booking_service.web.dto.BookingHoldDto;
+import com.example.hotel_booking_service.web.dto.BookingHoldRequestDto;
+import com.example.hotel_booking_service.web.dto.BookingRequestDto;
+import com.example.hotel_booking_service.web.dto.BookingResponseDto;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Проверяет, что удержания хранятся в базе данных и видны всем экземплярам сервиса:
+ * удержание другого экземпляра моделируется строкой, вставленной в обход этого экземпляра.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@Testcontainers
+@ActiveProfiles("test")
+class BookingHoldPersistenceTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17.2")
+            .withDatabaseName("hotel_booking_db")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private BookingHoldService bookingHoldService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private Room room;
+    private LocalDate checkIn;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = String.valueOf(System.nanoTime());
+        checkIn = LocalDate.now().plusDays(20);
+
+        user = new User();
+        user.setUsername("holder_" + suffix);
+        user.setPassword("password123");
+        user.setEmail("holder_" + suffix + "@example.com");
+        user.setRole(RoleType.ROLE_USER);
+        user = userRepository.save(user);
+
+        Hotel hotel = new Hotel();
+        hotel.setName("Hold Hotel");
+        hotel.setCity("Hold City");
+        hotel = hotelRepository.save(hotel);
+
+        room = new Room();
+        room.setRoomNumber("hold_" + suffix);
+        room.setName("Held Room");
+        room.setPrice(new BigDecimal("120.00"));
+        room.setMaxPeople(2);
+        room.setHotel(hotel);
+        room = roomRepository.save(room);
+    }
+
+    @Test
+    @DisplayName("Тест: удержание другого экземпляра отклоняет бронирование и подтверждается на этом")
+    void shouldSeeHoldCreatedByAnotherNode() {
+        UUID holdId = insertHold(LocalDateTime.now(ZoneOffset.UTC).plusMinutes(10));
+
+        assertThrows(IllegalStateException.class, () -> bookingService.bookRoom(booking()));
+        BookingHoldDto hold = bookingHoldService.getHold(holdId);
+        assertThat(hold.getRoomId()).isEqualTo(room.getId());
+
+        BookingResponseDto confirmed = bookingHoldService.confirm(holdId);
+
+        assertThat(confirmed.getCheckIn()).isEqualTo(checkIn);
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM booking WHERE id = ?", String.class,
+                confirmed.getBookingId())).isEqualTo("CONFIRMED");
+        assertThrows(EntityNotFoundException.class, () -> bookingHoldService.getHold(holdId));
+    }
+
+    @Test
+    @DisplayName("Тест: очистка удаляет истекшее удержание остановленного экземпляра и освобождает ночи")
+    void shouldSweepExpiredHoldOfStoppedNode() {
+        UUID holdId = insertHold(LocalDateTime.now(ZoneOffset.UTC).minusSeconds(1));
+        assertThrows(EntityNotFoundException.class, () -> bookingHoldService.confirm(holdId));
+
+        bookingHoldService.deleteExpired();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM booking WHERE hold_id = ?", Integer.class, holdId))
+                .isZero();
+        assertThat(bookingService.bookRoom(booking()).getRoomId()).isEqualTo(room.getId());
+    }
+
+    @Test
+    @DisplayName("Тест: отмена удержания удаляет строку и освобождает ночи")
+    void shouldFreeNightsOnCancel() {
+        BookingHoldRequestDto request = new BookingHoldRequestDto();
+        request.setUserId(user.getId());
+        request.setRoomId(room.getId());
+        request.setCheckIn(checkIn);
+        request.setCheckOut(checkIn.plusDays(2));
+        BookingHoldDto hold = bookingHoldService.hold(request);
+        assertThrows(IllegalStateException.class, () -> bookingService.bookRoom(booking()));
+
+        bookingHoldService.cancel(hold.getHoldId());
+
+        assertThat(bookingService.bookRoom(booking()).getRoomId()).isEqualTo(room.getId());
+    }
+
+    private UUID insertHold(LocalDateTime expiresAt) {
+        UUID holdId = UUID.randomUUID();
+        jdbcTemplate.update("""
+                        INSERT INTO booking (user_id, room_id, check_in, check_out, status, hold_id, hold_expires_at)
+                        VALUES (?, ?, ?, ?, 'HELD', ?, ?)""",
+                user.getId(), room.getId(), checkIn, checkIn.plusDays(2), holdId, expiresAt);
+        return holdId;
+    }
+
+    private BookingRequestDto booking() {
+        BookingRequestDto request = new BookingRequestDto();
+        request.setUserId(user.getId());
+        request.setRoomId(room.getId());
+        request.setCheckIn(checkIn);
+        request.setCheckOut(checkIn.plusDays(2));
+        return request;
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.hotel_booking_service.service.hold;
+
+import com.example.hotel_booking_service.entity.Booking;
+import com.example.hotel_booking_service.entity.BookingStatus;
+import com.example.hotel_booking_service.entity.Room;
+import com.example.hotel_booking_service.entity.User;
+import com.example.hotel_booking_service.repository.BookingRepository;
+import com.example.hotel_booking_service.service.BookingService;
+import com.example.hotel_booking_service.web.dto.BookingHoldDto;
+import com.example.hotel_booking_service.web.dto.BookingHoldRequestDto;
+import com.example.hotel_booking_service.web.dto.BookingRequestDto;
+import com.example.hotel_booking_service.web.dto.BookingResponseDto;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BookingHoldServiceTest {
+    private final LocalDate today = LocalDate.now();
+    private final Instant now = Instant.parse("2025-01-01T10:00:00Z");
+    private BookingService bookingService;
+    private BookingRepository bookingRepository;
+    private HierarchicalTimingWheel timingWheel;
+    private BookingHoldService bookingHoldService;
+
+    @BeforeEach
+    void setUp() {
+        bookingService = mock(BookingService.class);
+        bookingRepository = mock(BookingRepository.class);
+        timingWheel = new HierarchicalTimingWheel(Duration.ofSeconds(1), 64, 3, false);
+        bookingHoldService = new BookingHoldService(bookingService, bookingRepository,
+                Clock.fixed(now, ZoneOffset.UTC), Duration.ofSeconds(600), Duration.ofSeconds(3600), timingWheel);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookingHoldService.shutdown();
+    }
+
+    @Test
+    void shouldStoreHoldWithExpiryInDatabase() {
+        BookingHoldDto hold = bookingHoldService.hold(request(1, 3, null));
+
+        ArgumentCaptor<BookingRequestDto> captor = ArgumentCaptor.forClass(BookingRequestDto.class);
+        verify(bookingService).holdRoom(captor.capture(), eq(hold.getHoldId()),
+                eq(LocalDateTime.ofInstant(now.plusSeconds(600), ZoneOffset.UTC)));
+        assertThat(hold.getExpiresAt()).isEqualTo(now.plusSeconds(600));
+        assertThat(captor.getValue().getCheckIn()).isEqualTo(today.plusDays(1));
+        assertThat(captor.getValue().getCheckOut()).isEqualTo(today.plusDays(3));
+    }
+
+    @Test
+    void shouldDeleteHoldWhenTimerFires() {
+        BookingHoldDto hold = bookingHoldService.hold(request(1, 3, 5));
+        advance(4);
+        verify(bookingService, after(100).never()).expireHold(any(), any());
+
+        advance(1);
+
+        verify(bookingService, timeout(1000)).expireHold(eq(hold.getHoldId()), any(LocalDateTime.class));
+    }
+
+    @Test
+    void shouldCancelTimerOnConfirm() {
+        BookingHoldDto hold = bookingHoldService.hold(request(1, 3, 5));
+        when(bookingService.confirmHold(eq(hold.getHoldId()), any())).thenReturn(new BookingResponseDto());
+
+        bookingHoldService.confirm(hold.getHoldId());
+        advance(10);
+
+        verify(bookingService, never()).bookRoom(any());
+        verify(bookingService, after(100).never()).expireHold(any(), any());
+    }
+
+    @Test
+    void shouldKeepTimerWhenConfirmFails() {
+        BookingHoldDto hold = bookingHoldService.hold(request(1, 3, 5));
+        when(bookingService.confirmHold(eq(hold.getHoldId()), any())).thenThrow(new EntityNotFoundException("Hold not found"));
+
+        assertThrows(EntityNotFoundException.class, () -> bookingHoldService.confirm(hold.getHoldId()));
+        advance(5);
+
+        verify(bookingService, timeout(1000)).expireHold(eq(hold.getHoldId()), any(LocalDateTime.class));
+    }
+
+    @Test
+    void shouldReadHoldFromDatabase() {
+        UUID holdId = UUID.randomUUID();
+        when(bookingRepository.findByHoldIdAndStatus(holdId, BookingStatus.HELD))
+                .thenReturn(Optional.of(heldBooking(holdId, LocalDateTime.ofInstant(now.plusSeconds(60), ZoneOffset.UTC))));
+
+        BookingHoldDto hold = bookingHoldService.getHold(holdId);
+
+        assertThat(hold.getRoomId()).isEqualTo(1L);
+        assertThat(hold.getExpiresAt()).isEqualTo(now.plusSeconds(60));
+    }
+
+    @Test
+    void shouldNotReturnExpiredHold() {
+        UUID holdId = UUID.randomUUID();
+        when(bookingRepository.findByHoldIdAndStatus(holdId, BookingStatus.HELD))
+                .thenReturn(Optional.of(heldBooking(holdId, LocalDateTime.ofInstant(now, ZoneOffset.UTC))));
+
+        assertThrows(EntityNotFoundException.class, () -> bookingHoldService.getHold(holdId));
+    }
+
+    @Test
+    void shouldRejectTtlAboveMaximum() {
+        assertThrows(IllegalArgumentException.class, () -> bookingHoldService.hold(request(1, 3, 3601)));
+        verify(bookingService, never()).holdRoom(any(), any(), any());
+    }
+
+    private void advance(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            timingWheel.advance();
+        }
+    }
+
+    private Booking heldBooking(UUID holdId, LocalDateTime expiresAt) {
+        User user = new User();
+        user.setId(1L);
+        Room room = new Room();
+        room.setId(1L);
+        Booking booking = new Booking();
+        booking.setUser(user);
+        booking.setRoom(room);
+        booking.setCheckIn(today.plusDays(1));
+        booking.setCheckOut(today.plusDays(3));
+        booking.setStatus(BookingStatus.HELD);
+        booking.setHoldId(holdId);
+        booking.setHoldExpiresAt(expiresAt);
+        return booking;
+    }
+
+    private BookingHoldRequestDto request(int checkInDays, int checkOutDays, Integer ttlSeconds) {
+        BookingHoldRequestDto request = new BookingHoldRequestDto();
+        request.setUserId(1L);
+        request.setRoomId(1L);
+        request.setCheckIn(today.plusDays(checkInDays));
+        request.setCheckOut(today.plusDays(checkOutDays));
+        request.setTtlSeconds(ttlSeconds);
+        return request;
+    }
+}
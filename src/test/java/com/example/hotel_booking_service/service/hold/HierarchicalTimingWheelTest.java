@@ -0,0 +1,65 @@
+package com.example.hotel_booking_service.service.hold;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HierarchicalTimingWheelTest {
+    private final HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(Duration.ofMillis(10), 4, 3, false);
+
+    @Test
+    void shouldFireTasksExactlyOnTheirTickAcrossLevels() {
+        List<Long> fired = new ArrayList<>();
+        long[] tick = {0};
+        for (long delay : new long[]{1, 3, 4, 5, 15, 16, 17, 48}) {
+            wheel.schedule(Duration.ofMillis(delay * 10), () -> fired.add(tick[0]));
+        }
+        for (int i = 0; i < 64; i++) {
+            tick[0]++;
+            wheel.advance();
+        }
+
+        assertThat(fired).containsExactly(1L, 3L, 4L, 5L, 15L, 16L, 17L, 48L);
+    }
+
+    @Test
+    void shouldFireTasksScheduledMidRotation() {
+        for (int i = 0; i < 7; i++) {
+            wheel.advance();
+        }
+        List<Integer> fired = new ArrayList<>();
+        int[] tick = {7};
+        wheel.schedule(Duration.ofMillis(100), () -> fired.add(tick[0]));
+        wheel.schedule(Duration.ofMillis(480), () -> fired.add(tick[0]));
+        for (int i = 0; i < 60; i++) {
+            tick[0]++;
+            wheel.advance();
+        }
+
+        assertThat(fired).containsExactly(17, 55);
+    }
+
+    @Test
+    void shouldNotFireCancelledTask() {
+        List<String> fired = new ArrayList<>();
+        HierarchicalTimingWheel.Timeout timeout = wheel.schedule(Duration.ofMillis(30), () -> fired.add("cancelled"));
+        wheel.schedule(Duration.ofMillis(30), () -> fired.add("kept"));
+        timeout.cancel();
+        for (int i = 0; i < 3; i++) {
+            wheel.advance();
+        }
+
+        assertThat(fired).containsExactly("kept");
+    }
+
+    @Test
+    void shouldRejectDelayBeyondHorizon() {
+        assertThrows(IllegalArgumentException.class, () -> wheel.schedule(Duration.ofMillis(490), () -> {
+        }));
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.hotel_booking_service.service.mailbox;
+
+import com.example.hotel_booking_service.entity.Hotel;
+import com.example.hotel_booking_service.entity.RoleType;
+import com.example.hotel_booking_service.entity.Room;
+import com.example.hotel_booking_service.entity.User;
+import com.example.hotel_booking_service.repository.BookingTicketRepository;
+import com.example.hotel_booking_service.repository.HotelRepository;
+import com.example.hotel_booking_service.repository.RoomRepository;
+import com.example.hotel_booking_service.repository.UserRepository;
+import com.example.hotel_booking_service.service.BookingService;
+import com.example.hotel_booking_service.web.dto.BookingRequestDto;
+import com.example.hotel_booking_service.web.dto.BookingTicketDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет, что квитанции асинхронного бронирования видны всем экземплярам сервиса:
+ * второй экземпляр моделируется отдельным {@link AsyncBookingService} со своей очередью номеров.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@Testcontainers
+@ActiveProfiles("test")
+class AsyncBookingServiceTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17.2")
+            .withDatabaseName("hotel_booking_db")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private AsyncBookingService asyncBookingService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingTicketRepository bookingTicketRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    private User user;
+    private Room room;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = String.valueOf(System.nanoTime());
+
+        user = new User();
+        user.setUsername("async_" + suffix);
+        user.setPassword("password123");
+        user.setEmail("async_" + suffix + "@example.com");
+        user.setRole(RoleType.ROLE_USER);
+        user = userRepository.save(user);
+
+        Hotel hotel = new Hotel();
+        hotel.setName("Async Hotel");
+        hotel.setCity("Async City");
+        hotel = hotelRepository.save(hotel);
+
+        room = new Room();
+        room.setRoomNumber("async_" + suffix);
+        room.setName("Queued Room");
+        room.setPrice(new BigDecimal("90.00"));
+        room.setMaxPeople(2);
+        room.setHotel(hotel);
+        room = roomRepository.save(room);
+    }
+
+    @Test
+    @DisplayName("Тест: квитанцию, выданную одним экземпляром, опрашивает другой")
+    void shouldServeTicketFromAnotherNode() throws InterruptedException {
+        RoomMailboxExecutor otherMailbox = new RoomMailboxExecutor(5000);
+        AsyncBookingService otherNode = new AsyncBookingService(bookingService, otherMailbox,
+                bookingTicketRepository, objectMapper, 60);
+        try {
+            UUID ticketId = otherNode.submit(request()).getTicketId();
+
+            BookingTicketDto ticket = awaitCompletion(ticketId);
+
+            assertThat(ticket.getStatus()).isEqualTo(BookingTicketDto.Status.COMPLETED);
+            assertThat(ticket.getBooking().getRoomId()).isEqualTo(room.getId());
+        } finally {
+            otherMailbox.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Тест: бронирование, не принятое остановленным экземпляром, завершает квитанцию ошибкой")
+    void shouldFailTicketSubmittedDuringShutdown() throws InterruptedException {
+        RoomMailboxExecutor stoppedMailbox = new RoomMailboxExecutor(5000);
+        stoppedMailbox.shutdown();
+        AsyncBookingService stoppedNode = new AsyncBookingService(bookingService, stoppedMailbox,
+                bookingTicketRepository, objectMapper, 60);
+
+        UUID ticketId = stoppedNode.submit(request()).getTicketId();
+
+        BookingTicketDto ticket = awaitCompletion(ticketId);
+        assertThat(ticket.getStatus()).isEqualTo(BookingTicketDto.Status.FAILED);
+        assertThat(ticket.getError()).isNotBlank();
+    }
+
+    private BookingTicketDto awaitCompletion(UUID ticketId) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        BookingTicketDto ticket = asyncBookingService.getTicket(ticketId);
+        while (ticket.getStatus() == BookingTicketDto.Status.PENDING && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+            ticket = asyncBookingService.getTicket(ticketId);
+        }
+        return ticket;
+    }
+
+    private BookingRequestDto request() {
+        BookingRequestDto request = new BookingRequestDto();
+        request.setUserId(user.getId());
+        request.setRoomId(room.getId());
+        request.setCheckIn(LocalDate.now().plusDays(30));
+        request.setCheckOut(LocalDate.now().plusDays(32));
+        return request;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.hotel_booking_service.service.mailbox;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RoomMailboxExecutorTest {
+    private final RoomMailboxExecutor executor = new RoomMailboxExecutor(5000);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void shouldRunTasksOfOneRoomSeriallyInSubmissionOrder() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Integer> order = new ArrayList<>();
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            int value = i;
+            futures.add(executor.submit(1L, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                order.add(value);
+                running.decrementAndGet();
+                return value;
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+        assertThat(maxRunning.get()).isEqualTo(1);
+        assertThat(order).hasSize(500).isSorted();
+    }
+
+    @Test
+    void shouldNotBlockOtherRoomsWhileOneRoomIsBusy() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> blocked = executor.submit(1L, () -> {
+            try {
+                return release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        });
+
+        assertThat(executor.submit(2L, () -> "free").get(5, TimeUnit.SECONDS)).isEqualTo("free");
+        assertThat(blocked).isNotDone();
+        release.countDown();
+        assertThat(blocked.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void shouldCompleteExceptionallyAndKeepProcessingMailbox() {
+        CompletableFuture<Object> failed = executor.submit(1L, () -> {
+            throw new IllegalStateException("Room is already booked for the selected dates");
+        });
+        CompletableFuture<String> next = executor.submit(1L, () -> "next");
+
+        assertThrows(Exception.class, failed::join);
+        assertThat(next.join()).isEqualTo("next");
+    }
+
+    @Test
+    void shouldDrainQueuedTasksOnShutdown() {
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            int value = i;
+            futures.add(executor.submit(1L, () -> value));
+        }
+
+        executor.shutdown();
+
+        assertThat(futures).allMatch(future -> future.isDone() && !future.isCompletedExceptionally());
+        CompletableFuture<String> late = executor.submit(1L, () -> "late");
+        assertThat(late).isCompletedExceptionally();
+        assertThat(assertThrows(Exception.class, late::join)).hasCauseInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    void shouldRejectTasksNotStartedBeforeShutdownTimeout() {
+        RoomMailboxExecutor impatient = new RoomMailboxExecutor(100);
+        CountDownLatch release = new CountDownLatch(1);
+        impatient.submit(1L, () -> {
+            try {
+                return release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        });
+        CompletableFuture<String> queued = impatient.submit(1L, () -> "queued");
+
+        impatient.shutdown();
+
+        assertThat(assertThrows(Exception.class, queued::join)).hasCauseInstanceOf(RejectedExecutionException.class);
+    }
+}
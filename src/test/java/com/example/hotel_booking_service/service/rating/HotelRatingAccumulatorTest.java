@@ -0,0 +1,125 @@
+package com.example.hotel_booking_service.service.rating;
+
+import com.example.hotel_booking_service.repository.HotelRatingDelta;
+import com.example.hotel_booking_service.repository.HotelRepository;
+import com.example.hotel_booking_service.service.cache.EntityCacheInvalidation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HotelRatingAccumulatorTest {
+    private HotelRepository hotelRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private HotelRatingAccumulator accumulator;
+    private final List<HotelRatingDelta> flushed = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        hotelRepository = mock(HotelRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        accumulator = new HotelRatingAccumulator(hotelRepository, eventPublisher, TransactionOperations.withoutTransaction());
+        when(hotelRepository.addRatings(anyList())).thenAnswer(invocation -> {
+            List<HotelRatingDelta> deltas = invocation.getArgument(0);
+            flushed.addAll(deltas);
+            return deltas.stream().mapToInt(delta -> 1).toArray();
+        });
+    }
+
+    @Test
+    void shouldNotLoseConcurrentVotes() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        for (int thread = 0; thread < 16; thread++) {
+            executor.execute(() -> {
+                for (int vote = 0; vote < 10_000; vote++) {
+                    accumulator.add(1L, vote % 5 + 1);
+                    if (vote % 1000 == 0) {
+                        accumulator.flush();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        accumulator.flush();
+
+        assertThat(flushed.stream().mapToLong(HotelRatingDelta::count).sum()).isEqualTo(160_000);
+        assertThat(flushed.stream().mapToLong(HotelRatingDelta::sum).sum()).isEqualTo(480_000);
+        assertThat(accumulator.pending(1L).count()).isZero();
+    }
+
+    @Test
+    void shouldMergePendingVotesPerHotelIntoOneBatch() {
+        accumulator.add(1L, 5);
+        accumulator.add(1L, 4);
+        accumulator.add(2L, 1);
+
+        assertThat(accumulator.pending(1L)).isEqualTo(new HotelRatingDelta(1L, 9, 2));
+        accumulator.flush();
+        accumulator.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<HotelRatingDelta>> batch = ArgumentCaptor.forClass(List.class);
+        verify(hotelRepository, times(1)).addRatings(batch.capture());
+        assertThat(batch.getValue()).containsExactlyInAnyOrder(
+                new HotelRatingDelta(1L, 9, 2), new HotelRatingDelta(2L, 1, 1));
+    }
+
+    @Test
+    void shouldKeepVotesWhenFlushFails() {
+        when(hotelRepository.addRatings(anyList())).thenThrow(new IllegalStateException("Database is unavailable"));
+        accumulator.add(1L, 3);
+
+        accumulator.flush();
+
+        assertThat(accumulator.pending(1L)).isEqualTo(new HotelRatingDelta(1L, 3, 1));
+    }
+
+    @Test
+    void shouldDropVotesOfDeletedHotel() {
+        when(hotelRepository.addRatings(anyList())).thenReturn(new int[]{0});
+        accumulator.add(1L, 3);
+
+        accumulator.flush();
+        accumulator.flush();
+
+        verify(hotelRepository, times(1)).addRatings(anyList());
+        assertThat(accumulator.pending(1L).count()).isZero();
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void shouldInvalidateCachedHotelsAfterFlush() {
+        accumulator.add(1L, 5);
+        accumulator.add(2L, 1);
+
+        accumulator.flush();
+
+        verify(eventPublisher).publishEvent(EntityCacheInvalidation.hotels(Set.of(1L, 2L)));
+    }
+
+    @Test
+    void shouldRoundAverageHalfUp() {
+        assertThat(HotelRatingAccumulator.average(9, 2)).isEqualTo(5);
+        assertThat(HotelRatingAccumulator.average(13, 3)).isEqualTo(4);
+        assertThat(HotelRatingAccumulator.average(0, 0)).isNull();
+        verify(hotelRepository, never()).addRatings(anyList());
+    }
+}
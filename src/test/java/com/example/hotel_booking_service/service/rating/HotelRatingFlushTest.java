@@ -0,0 +1,133 @@
+package com.example.hotel_booking_service.service.rating;
+
+import com.example.hotel_booking_service.entity.Hotel;
+import com.example.hotel_booking_service.repository.HotelRepository;
+import com.example.hotel_booking_service.service.HotelService;
+import com.example.hotel_booking_service.support.StatementCounter;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет запись накопленных оценок в базу данных: пакет записывается целиком или не записывается вовсе,
+ * а оценка не читает отель из базы на каждый голос.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        // Оценки записываются только явным вызовом flush()
+        "app.rating.flush-interval-ms=600000"
+})
+@Testcontainers
+@ActiveProfiles("test")
+class HotelRatingFlushTest {
+    private static final String REJECTED_NAME = "Rejects ratings";
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17.2")
+            .withDatabaseName("hotel_booking_db")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private HotelRatingAccumulator hotelRatingAccumulator;
+
+    @Autowired
+    private HotelService hotelService;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Hotel accepted;
+    private Hotel rejected;
+
+    @BeforeEach
+    void setUp() {
+        accepted = hotelRepository.save(hotel("Accepts ratings"));
+        rejected = hotelRepository.save(hotel(REJECTED_NAME));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS reject_rating ON hotel");
+        jdbcTemplate.execute("DROP FUNCTION IF EXISTS reject_rating()");
+    }
+
+    @Test
+    @DisplayName("Тест: ошибка на одном отеле откатывает весь пакет, и повторная запись не удваивает оценки")
+    void shouldNotDoubleCountVotesAfterPartialFailure() {
+        jdbcTemplate.execute("""
+                CREATE FUNCTION reject_rating() RETURNS trigger AS $$
+                BEGIN
+                  RAISE EXCEPTION 'rating rejected';
+                END
+                $$ LANGUAGE plpgsql""");
+        jdbcTemplate.execute("CREATE TRIGGER reject_rating BEFORE UPDATE ON hotel FOR EACH ROW "
+                + "WHEN (OLD.name = '" + REJECTED_NAME + "') EXECUTE FUNCTION reject_rating()");
+
+        hotelRatingAccumulator.add(accepted.getId(), 4);
+        hotelRatingAccumulator.add(rejected.getId(), 2);
+        hotelRatingAccumulator.flush();
+
+        assertThat(numberOfRatings(accepted)).isZero();
+        assertThat(hotelRatingAccumulator.pending(accepted.getId()).count()).isEqualTo(1);
+        assertThat(hotelRatingAccumulator.pending(rejected.getId()).count()).isEqualTo(1);
+
+        tearDown();
+        hotelRatingAccumulator.flush();
+
+        assertThat(numberOfRatings(accepted)).isEqualTo(1);
+        assertThat(numberOfRatings(rejected)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Тест: повторные оценки отеля не читают его из базы данных")
+    void shouldNotLoadHotelOnEveryVote() {
+        StatementCounter statements = new StatementCounter(entityManagerFactory);
+        hotelService.getOne(accepted.getId());
+
+        for (int i = 0; i < 10; i++) {
+            statements.assertStatements(0, () -> hotelService.updateRating(accepted.getId(), 5));
+        }
+
+        assertThat(hotelRatingAccumulator.pending(accepted.getId()).count()).isEqualTo(10);
+    }
+
+    private Integer numberOfRatings(Hotel hotel) {
+        return jdbcTemplate.queryForObject("SELECT coalesce(numberofratings, 0) FROM hotel WHERE id = ?",
+                Integer.class, hotel.getId());
+    }
+
+    private static Hotel hotel(String name) {
+        Hotel hotel = new Hotel();
+        hotel.setName(name);
+        hotel.setCity("Rating City");
+        return hotel;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.hotel_booking_service.support;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Считает SQL-запросы, выполненные Hibernate, по его статистике.
+ * Требует {@code hibernate.generate_statistics=true}, что включено в профиле {@code test}.
+ * <p>
+ * Учитываются только запросы через Hibernate: {@code JdbcTemplate} в обход сессии не считается.
+ */
+public final class StatementCounter {
+    private final Statistics statistics;
+
+    public StatementCounter(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Выполняет действие и проверяет точное число подготовленных запросов.
+     *
+     * @param expected ожидаемое число запросов
+     * @param action проверяемое действие
+     * @return результат действия
+     */
+    public <T> T assertStatements(int expected, Supplier<T> action) {
+        statistics.clear();
+        T result = action.get();
+        assertThat(statistics.getPrepareStatementCount())
+                .as("SQL statements")
+                .isEqualTo(expected);
+        return result;
+    }
+
+    /**
+     * Выполняет действие без результата и проверяет точное число подготовленных запросов.
+     *
+     * @param expected ожидаемое число запросов
+     * @param action проверяемое действие
+     */
+    public void assertStatements(int expected, Runnable action) {
+        assertStatements(expected, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Статистика после последнего {@link #assertStatements} для дополнительных проверок.
+     */
+    public Statistics statistics() {
+        return statistics;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.hotel_booking_service.web.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверяет выдачу списка бронирований: keyset-пагинацию {@code GET /api/v1/bookings}
+ * и выгрузку {@code GET /api/v1/bookings/stream} в формате NDJSON.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@AutoConfigureMockMvc
+@Testcontainers
+@ActiveProfiles("test")
+@WithMockUser(username = "user", roles = "ADMIN")
+class BookingListingTest {
+    private static final int BOOKINGS = 23;
+    private static final LocalDate CHECK_IN = LocalDate.now().plusDays(5);
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17.2")
+            .withDatabaseName("hotel_booking_db")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private List<Long> bookingIds;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM booking");
+        String suffix = String.valueOf(System.nanoTime());
+        Long userId = jdbcTemplate.queryForObject("INSERT INTO users (username, password, email, role) " +
+                "VALUES (?, 'password', ?, 'ROLE_USER') RETURNING id", Long.class, "user_" + suffix, suffix + "@example.com");
+        Long hotelId = jdbcTemplate.queryForObject("INSERT INTO hotel (name) VALUES ('Listing') RETURNING id", Long.class);
+        jdbcTemplate.update("INSERT INTO room (name, room_number, price, max_people, hotel_id) " +
+                "SELECT 'Room ' || g, ? || '-' || g, 100, 2, ? FROM generate_series(1, ?) g", suffix, hotelId, BOOKINGS);
+        // У всех бронирований одинаковые даты, порядок страниц задает только id
+        jdbcTemplate.update("INSERT INTO booking (user_id, room_id, check_in, check_out) " +
+                "SELECT ?, id, ?, ? FROM room WHERE hotel_id = ?", userId, CHECK_IN, CHECK_IN.plusDays(2), hotelId);
+        bookingIds = jdbcTemplate.queryForList("SELECT id FROM booking ORDER BY id", Long.class);
+    }
+
+    @Test
+    @DisplayName("Тест: страницы бронирований с одинаковыми датами идут без пропусков и повторов")
+    void shouldPageThroughBookingsWithEqualDates() throws Exception {
+        List<Long> paged = new ArrayList<>();
+        String afterId = null;
+        int pages = 0;
+        do {
+            MockHttpServletRequestBuilder request = get("/api/v1/bookings")
+                    .param("limit", "5")
+                    .param("dateFrom", CHECK_IN.toString())
+                    .param("dateTo", CHECK_IN.plusDays(1).toString());
+            if (afterId != null) {
+                request.param("afterId", afterId);
+            }
+            JsonNode page = objectMapper.readTree(mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            page.get("content").forEach(booking -> paged.add(booking.get("bookingId").asLong()));
+            afterId = page.get("nextAfterId").isNull() ? null : page.get("nextAfterId").asText();
+            pages++;
+        } while (afterId != null);
+
+        assertThat(paged).containsExactlyElementsOf(bookingIds);
+        assertThat(pages).isEqualTo((BOOKINGS + 4) / 5);
+    }
+
+    @Test
+    @DisplayName("Тест: выгрузка NDJSON содержит по одному бронированию в строке")
+    void shouldStreamBookingsAsNdjson() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/v1/bookings/stream").accept(BookingController.NDJSON_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(BookingController.NDJSON_VALUE))
+                .andReturn().getResponse().getContentAsString();
+
+        List<Long> streamed = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            streamed.add(objectMapper.readTree(line).get("bookingId").asLong());
+        }
+        assertThat(body).endsWith("\n");
+        assertThat(streamed).containsExactlyElementsOf(bookingIds);
+    }
+}
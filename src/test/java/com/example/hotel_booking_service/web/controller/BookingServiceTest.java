@@ -3,19 +3,23 @@ package com.example.hotel_booking_service.web.controller;
 import com.example.hotel_booking_service.entity.Booking;
 import com.example.hotel_booking_service.entity.Room;
 import com.example.hotel_booking_service.entity.User;
-import com.example.hotel_booking_service.kafka.KafkaProducerService;
+import com.example.hotel_booking_service.kafka.outbox.OutboxService;
 import com.example.hotel_booking_service.repository.BookingRepository;
 import com.example.hotel_booking_service.repository.RoomRepository;
 import com.example.hotel_booking_service.repository.UserRepository;
 import com.example.hotel_booking_service.service.BookingService;
+import com.example.hotel_booking_service.service.availability.RoomAvailabilityIndex;
 import com.example.hotel_booking_service.web.dto.BookingRequestDto;
 import com.example.hotel_booking_service.web.dto.BookingResponseDto;
 import jakarta.persistence.EntityNotFoundException;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 
+import java.sql.SQLException;
 import java.time.LocalDate;
-import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -25,7 +29,8 @@ class BookingServiceTest {
     private BookingRepository bookingRepository;
     private UserRepository userRepository;
     private RoomRepository roomRepository;
-    private KafkaProducerService kafkaProducerService;
+    private OutboxService outboxService;
+    private RoomAvailabilityIndex roomAvailabilityIndex;
     private BookingService bookingService;
 
     @BeforeEach
@@ -33,12 +38,14 @@ class BookingServiceTest {
         bookingRepository = mock(BookingRepository.class);
         userRepository = mock(UserRepository.class);
         roomRepository = mock(RoomRepository.class);
-        kafkaProducerService = mock(KafkaProducerService.class);
-        bookingService = new BookingService(bookingRepository, userRepository, roomRepository, kafkaProducerService);
+        outboxService = mock(OutboxService.class);
+        roomAvailabilityIndex = new RoomAvailabilityIndex(bookingRepository, roomRepository);
+        bookingService = new BookingService(bookingRepository, userRepository, roomRepository, outboxService,
+                roomAvailabilityIndex, mock(ApplicationEventPublisher.class));
     }
 
     @Test
-    void shouldBookRoomAndSendKafkaEvent() {
+    void shouldBookRoomAndWriteOutboxEvent() {
         BookingRequestDto request = new BookingRequestDto();
         request.setUserId(1L);
         request.setRoomId(1L);
@@ -58,18 +65,65 @@ class BookingServiceTest {
         savedBooking.setCheckIn(request.getCheckIn());
         savedBooking.setCheckOut(request.getCheckOut());
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(roomRepository.findById(1L)).thenReturn(Optional.of(room));
-        when(bookingRepository.findOverlappingBookings(room, request.getCheckIn(), request.getCheckOut()))
-                .thenReturn(java.util.Collections.emptyList());
-        when(bookingRepository.save(any(Booking.class))).thenReturn(savedBooking);
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(roomRepository.getReferenceById(1L)).thenReturn(room);
+        when(bookingRepository.saveAndFlush(any(Booking.class))).thenReturn(savedBooking);
 
         BookingResponseDto result = bookingService.bookRoom(request);
 
         assertThat(result.getUserId()).isEqualTo(1L);
         assertThat(result.getRoomId()).isEqualTo(1L);
-        verify(bookingRepository, times(1)).save(any(Booking.class));
-        verify(kafkaProducerService, times(1)).sendRoomBooking(any());
+        verify(bookingRepository, times(1)).saveAndFlush(any(Booking.class));
+        verify(outboxService, times(1)).publishRoomBooking(any());
+        verify(bookingRepository, never()).findOverlappingBookings(any(), any(), any());
+        verify(userRepository, never()).findById(any());
+        verify(roomRepository, never()).findById(any());
+    }
+
+    @Test
+    void shouldRejectBookingWhenNightsAlreadyReserved() {
+        BookingRequestDto request = new BookingRequestDto();
+        request.setUserId(1L);
+        request.setRoomId(1L);
+        request.setCheckIn(LocalDate.now().plusDays(1));
+        request.setCheckOut(LocalDate.now().plusDays(3));
+
+        User user = new User();
+        user.setId(1L);
+
+        Room room = new Room();
+        room.setId(1L);
+
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(roomRepository.getReferenceById(1L)).thenReturn(room);
+        roomAvailabilityIndex.tryReserve(1L, LocalDate.now().plusDays(2), LocalDate.now().plusDays(4));
+
+        assertThrows(IllegalStateException.class, () -> bookingService.bookRoom(request));
+        verify(bookingRepository, never()).saveAndFlush(any(Booking.class));
+    }
+
+    @Test
+    void shouldTranslateExclusionViolationToAlreadyBooked() {
+        BookingRequestDto request = new BookingRequestDto();
+        request.setUserId(1L);
+        request.setRoomId(1L);
+        request.setCheckIn(LocalDate.now().plusDays(1));
+        request.setCheckOut(LocalDate.now().plusDays(3));
+
+        User user = new User();
+        user.setId(1L);
+
+        Room room = new Room();
+        room.setId(1L);
+
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(roomRepository.getReferenceById(1L)).thenReturn(room);
+        when(bookingRepository.saveAndFlush(any(Booking.class))).thenThrow(new DataIntegrityViolationException(
+                "conflicting key value violates exclusion constraint",
+                new SQLException("conflicting key value violates exclusion constraint", "23P01")));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> bookingService.bookRoom(request));
+        assertThat(exception.getMessage()).isEqualTo("Room is already booked for the selected dates");
     }
 
     @Test
@@ -80,8 +134,12 @@ class BookingServiceTest {
         request.setCheckIn(LocalDate.now().plusDays(1));
         request.setCheckOut(LocalDate.now().plusDays(3));
 
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+        when(bookingRepository.saveAndFlush(any(Booking.class))).thenThrow(new DataIntegrityViolationException(
+                "insert or update on table \"booking\" violates foreign key constraint",
+                new ConstraintViolationException("insert or update on table \"booking\" violates foreign key constraint",
+                        new SQLException("violates foreign key constraint", "23503"), "fk_booking_on_user")));
 
-        assertThrows(EntityNotFoundException.class, () -> bookingService.bookRoom(request));
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class, () -> bookingService.bookRoom(request));
+        assertThat(exception.getMessage()).isEqualTo("User not found");
     }
 }